@@ -37,6 +37,8 @@ public class DicoEurostagNamingStrategy implements EurostagNamingStrategy {
 
     private final CutEurostagNamingStrategy defaultStrategy;
 
+    private final EurostagEchExportDiagnostics diagnostics;
+
     private static class DicoCsvReader {
 
         private static final String SEPARATOR = ";";
@@ -55,6 +57,16 @@ public class DicoEurostagNamingStrategy implements EurostagNamingStrategy {
     }
 
     public DicoEurostagNamingStrategy(Path dicoFile) {
+        this(dicoFile, null);
+    }
+
+    /**
+     * @param diagnostics collector of the skipped mappings and of the ids not found in the dictionary, logged by the
+     *                    caller. If null, they are logged by the strategy: once for the file, and once per call to
+     *                    {@link #fillDictionary}.
+     */
+    public DicoEurostagNamingStrategy(Path dicoFile, EurostagEchExportDiagnostics diagnostics) {
+        this.diagnostics = diagnostics;
         if ((dicoFile == null) || (!Files.isRegularFile(dicoFile))) {
             String errMsg = "csv file does not exist or is not valid: " + dicoFile;
             LOGGER.error(errMsg);
@@ -64,13 +76,14 @@ public class DicoEurostagNamingStrategy implements EurostagNamingStrategy {
             // Note: csv files's first line is skipped, it is expected to be a header line
             List<List<String>> dicoMappings = DicoCsvReader.readDicoMappings(dicoFile);
 
+            EurostagEchExportDiagnostics fileDiagnostics = getDiagnostics();
             int count = 1;
             for (List<String> row : dicoMappings) {
                 count++;
                 String iidmId = row.get(0).trim();
                 String esgId = row.get(1).trim();
                 if (esgId.length() > NameType.GENERATOR.getLength()) {
-                    LOGGER.warn("Skipping mapping iidmId: {}, esgId: {}. esgId's length > {}. Line {} in {}", iidmId, esgId, NameType.GENERATOR.getLength(), count, dicoFile);
+                    fileDiagnostics.add(EurostagEchExportDiagnostics.Category.INVALID_DICO_MAPPING, iidmId);
                     continue;
                 }
                 if ("".equals(iidmId) || "".equals(esgId)) {
@@ -85,10 +98,24 @@ public class DicoEurostagNamingStrategy implements EurostagNamingStrategy {
                 }
                 dicoMap.put(iidmId, esgId);
             }
+            log(fileDiagnostics);
             defaultStrategy = new CutEurostagNamingStrategy(new HashSet<>(dicoMap.values()));
         }
     }
 
+    private EurostagEchExportDiagnostics getDiagnostics() {
+        return diagnostics != null ? diagnostics : new EurostagEchExportDiagnostics();
+    }
+
+    /**
+     * Log the diagnostics created by the strategy, the ones of the caller being logged by the caller
+     */
+    private void log(EurostagEchExportDiagnostics reported) {
+        if (reported != diagnostics) {
+            reported.log();
+        }
+    }
+
     @Override
     public void fillDictionary(EurostagDictionary dictionary, NameType nameType, Set<String> iidmIds) {
         //partition the iidmIds set in two: tiidms with a dico mapping and iidms without a dico mapping
@@ -105,14 +132,11 @@ public class DicoEurostagNamingStrategy implements EurostagNamingStrategy {
         });
 
         //then process the entry that aren't, with the default strategy
-        if (!dicoPartioned.get(false).isEmpty()) {
-            String notFoundMsgTemplate = "dico mapping not found for iidmId ids: {}";
-            List<String> notInMapping = dicoPartioned.get(false);
-            if (nameType == NameType.NODE) {
-                LOGGER.info(notFoundMsgTemplate, notInMapping);
-            } else {
-                LOGGER.warn(notFoundMsgTemplate, notInMapping);
-            }
+        List<String> notInMapping = dicoPartioned.get(false);
+        if (!notInMapping.isEmpty()) {
+            EurostagEchExportDiagnostics fillDiagnostics = getDiagnostics();
+            notInMapping.forEach(iidmId -> fillDiagnostics.add(EurostagEchExportDiagnostics.Category.DICO_MAPPING_NOT_FOUND, iidmId));
+            log(fillDiagnostics);
             defaultStrategy.fillDictionary(dictionary, nameType, new HashSet<>(notInMapping));
         }
     }
@@ -38,4 +38,9 @@ public class DicoEurostagNamingStrategyFactory implements EurostagNamingStrategy
             return new CutEurostagNamingStrategy();
         }
     }
+
+    static Optional<Path> getDicoFile(PlatformConfig platformConfig) {
+        return platformConfig.getOptionalModuleConfig(CONFIG_SECTION_NAME)
+                .flatMap(moduleConfig -> moduleConfig.getOptionalPathProperty(CONFIG_PROPERTY_DICO_FILE_NAME));
+    }
 }
@@ -21,6 +21,8 @@ import org.slf4j.LoggerFactory;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -43,7 +45,21 @@ public final class EurostagDictionary {
 
     private final EurostagEchExportConfig config;
 
+    /**
+     * @return the naming strategy of {@link #create(Network, BranchParallelIndexes, EurostagEchExportConfig, EurostagFakeNodes)},
+     * configured by the platform config
+     */
+    static EurostagNamingStrategy getDefaultNamingStrategy() {
+        return NAMING_STRATEGY;
+    }
+
     public static EurostagDictionary create(Network network, BranchParallelIndexes parallelIndexes, EurostagEchExportConfig config, EurostagFakeNodes fakeNodes) {
+        return create(network, parallelIndexes, config, fakeNodes, NAMING_STRATEGY);
+    }
+
+    public static EurostagDictionary create(Network network, BranchParallelIndexes parallelIndexes, EurostagEchExportConfig config, EurostagFakeNodes fakeNodes,
+                                            EurostagNamingStrategy namingStrategy) {
+        Objects.requireNonNull(namingStrategy);
         EurostagDictionary dictionary = new EurostagDictionary(config);
 
         fakeNodes.esgIdsAsStream().forEach(esgId -> dictionary.addIfNotExist(esgId, esgId));
@@ -60,12 +76,12 @@ public final class EurostagDictionary {
         Set<String> svcIds = Identifiables.sort(network.getStaticVarCompensators()).stream().map(StaticVarCompensator::getId).collect(Collectors.toSet());
         Set<String> converterStationsIds = Identifiables.sort(network.getVscConverterStations()).stream().map(VscConverterStation::getId).collect(Collectors.toSet());
 
-        NAMING_STRATEGY.fillDictionary(dictionary, EurostagNamingStrategy.NameType.NODE, busIds);
-        NAMING_STRATEGY.fillDictionary(dictionary, EurostagNamingStrategy.NameType.GENERATOR, generatorIds);
-        NAMING_STRATEGY.fillDictionary(dictionary, EurostagNamingStrategy.NameType.LOAD, loadIds);
-        NAMING_STRATEGY.fillDictionary(dictionary, EurostagNamingStrategy.NameType.BANK, shuntIds);
-        NAMING_STRATEGY.fillDictionary(dictionary, EurostagNamingStrategy.NameType.SVC, svcIds);
-        NAMING_STRATEGY.fillDictionary(dictionary, EurostagNamingStrategy.NameType.VSC, converterStationsIds);
+        namingStrategy.fillDictionary(dictionary, EurostagNamingStrategy.NameType.NODE, busIds);
+        namingStrategy.fillDictionary(dictionary, EurostagNamingStrategy.NameType.GENERATOR, generatorIds);
+        namingStrategy.fillDictionary(dictionary, EurostagNamingStrategy.NameType.LOAD, loadIds);
+        namingStrategy.fillDictionary(dictionary, EurostagNamingStrategy.NameType.BANK, shuntIds);
+        namingStrategy.fillDictionary(dictionary, EurostagNamingStrategy.NameType.SVC, svcIds);
+        namingStrategy.fillDictionary(dictionary, EurostagNamingStrategy.NameType.VSC, converterStationsIds);
 
         for (DanglingLine dl : Identifiables.sort(network.getDanglingLines())) {
             // skip if not in the main connected component
@@ -141,6 +157,13 @@ public final class EurostagDictionary {
         return dictionary;
     }
 
+    /**
+     * Create an empty dictionary, to be filled by {@link #load(Path)}
+     */
+    public static EurostagDictionary create(EurostagEchExportConfig config) {
+        return new EurostagDictionary(config);
+    }
+
     private EurostagDictionary(EurostagEchExportConfig config) {
         this(new HashMap<>(), config);
     }
@@ -205,19 +228,31 @@ public final class EurostagDictionary {
 
     public void load(Path file) {
         try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty()) {
-                    continue;
-                }
-                String[] tokens = line.split(";");
-                add(tokens[0], tokens[1]);
-            }
+            load(reader);
         } catch (IOException e) {
             throw new EsgException(e);
         }
     }
 
+    public void load(InputStream is) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+            load(reader);
+        } catch (IOException e) {
+            throw new EsgException(e);
+        }
+    }
+
+    private void load(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            String[] tokens = line.split(";");
+            add(tokens[0], tokens[1]);
+        }
+    }
+
     public void dump(Path file) {
         try (BufferedWriter os = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
             for (Map.Entry<String, String> entry : iidmId2esgId.entrySet()) {
@@ -0,0 +1,305 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.converter;
+
+import com.powsybl.eurostag.model.EsgGeneralParameters;
+import com.powsybl.eurostag.model.EsgSpecialParameters;
+import com.powsybl.iidm.import_.Importers;
+import com.powsybl.iidm.network.Network;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Export a batch of networks to ECH files using a bounded pool of workers.
+ * <p>
+ * The configuration, the general parameters and the naming strategy are shared between all the exports. A memory
+ * budget, expressed in bytes, is used to limit the number of networks loaded at the same time: each import reserves an
+ * estimated weight (the size of the input file multiplied by an inflation factor) and the submission blocks until
+ * enough budget is released.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public class EurostagEchBatchExport {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EurostagEchBatchExport.class);
+
+    private static final String ECH_EXTENSION = ".ech";
+
+    private static final int DEFAULT_INFLATION_FACTOR = 20;
+
+    private static final int MEGABYTE = 1024 * 1024;
+
+    public static final class FileResult {
+
+        private final Path input;
+        private final Path output;
+        private final long importTime;
+        private final long exportTime;
+        private final Exception failure;
+        private final EurostagEchExportDiagnostics diagnostics;
+
+        private FileResult(Path input, Path output, long importTime, long exportTime, Exception failure,
+                           EurostagEchExportDiagnostics diagnostics) {
+            this.input = Objects.requireNonNull(input);
+            this.output = output;
+            this.importTime = importTime;
+            this.exportTime = exportTime;
+            this.failure = failure;
+            this.diagnostics = Objects.requireNonNull(diagnostics);
+        }
+
+        public Path getInput() {
+            return input;
+        }
+
+        public Path getOutput() {
+            return output;
+        }
+
+        /**
+         * Import duration in milliseconds
+         */
+        public long getImportTime() {
+            return importTime;
+        }
+
+        /**
+         * Conversion and writing duration in milliseconds
+         */
+        public long getExportTime() {
+            return exportTime;
+        }
+
+        public Optional<Exception> getFailure() {
+            return Optional.ofNullable(failure);
+        }
+
+        public boolean isSuccess() {
+            return failure == null;
+        }
+
+        public EurostagEchExportDiagnostics getDiagnostics() {
+            return diagnostics;
+        }
+    }
+
+    public static final class Summary {
+
+        private final List<FileResult> results;
+        private final long totalTime;
+
+        private Summary(List<FileResult> results, long totalTime) {
+            this.results = Collections.unmodifiableList(results);
+            this.totalTime = totalTime;
+        }
+
+        public List<FileResult> getResults() {
+            return results;
+        }
+
+        public List<FileResult> getFailures() {
+            return results.stream().filter(r -> !r.isSuccess()).collect(Collectors.toList());
+        }
+
+        /**
+         * Wall clock duration of the whole batch in milliseconds
+         */
+        public long getTotalTime() {
+            return totalTime;
+        }
+
+        public void log() {
+            for (FileResult result : results) {
+                if (result.isSuccess()) {
+                    LOGGER.info("{}: import {} ms, export {} ms", result.getInput(), result.getImportTime(), result.getExportTime());
+                    result.getDiagnostics().log();
+                } else {
+                    LOGGER.error("{}: failed after {} ms", result.getInput(), result.getImportTime() + result.getExportTime(), result.failure);
+                }
+            }
+            LOGGER.info("{} network(s) exported, {} failure(s), done in {} ms", results.size() - getFailures().size(), getFailures().size(), totalTime);
+        }
+    }
+
+    private final EurostagEchExportConfig config;
+    private final EsgGeneralParameters parameters;
+    private final EurostagNamingStrategy namingStrategy;
+    private final Function<Path, Network> importer;
+    private final int workers;
+    private final long memoryBudget;
+
+    public EurostagEchBatchExport(EurostagEchExportConfig config) {
+        this(config, new EsgGeneralParameters(), Importers::loadNetwork, Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().maxMemory() / 2);
+    }
+
+    public EurostagEchBatchExport(EurostagEchExportConfig config, EsgGeneralParameters parameters, Function<Path, Network> importer,
+                                  int workers, long memoryBudget) {
+        this(config, parameters, new DicoEurostagNamingStrategyFactory().create(), importer, workers, memoryBudget);
+    }
+
+    public EurostagEchBatchExport(EurostagEchExportConfig config, EsgGeneralParameters parameters, EurostagNamingStrategy namingStrategy,
+                                  Function<Path, Network> importer, int workers, long memoryBudget) {
+        this.config = Objects.requireNonNull(config);
+        this.parameters = Objects.requireNonNull(parameters);
+        this.namingStrategy = Objects.requireNonNull(namingStrategy);
+        this.importer = Objects.requireNonNull(importer);
+        if (workers < 1) {
+            throw new IllegalArgumentException("Invalid number of workers: " + workers);
+        }
+        if (memoryBudget < MEGABYTE) {
+            throw new IllegalArgumentException("Memory budget is too small: " + memoryBudget);
+        }
+        this.workers = workers;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Lists the networks to export: if the given path is a directory, all the regular files of this directory,
+     * otherwise the path is a manifest file listing one network per line. Relative paths of a manifest are resolved
+     * against the folder of the manifest, blank lines and lines starting with '#' are ignored.
+     */
+    public static List<Path> listInputs(Path directoryOrManifest) {
+        Objects.requireNonNull(directoryOrManifest);
+        try {
+            if (Files.isDirectory(directoryOrManifest)) {
+                try (Stream<Path> files = Files.list(directoryOrManifest)) {
+                    return files.filter(Files::isRegularFile)
+                            .sorted()
+                            .collect(Collectors.toList());
+                }
+            }
+            Path folder = directoryOrManifest.toAbsolutePath().getParent();
+            return Files.readAllLines(directoryOrManifest, StandardCharsets.UTF_8).stream()
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .map(folder::resolve)
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Summary export(Path directoryOrManifest, Path outputDir) {
+        return export(listInputs(directoryOrManifest), outputDir);
+    }
+
+    /**
+     * @throws IllegalArgumentException if several inputs would be exported to the same file
+     */
+    public Summary export(List<Path> inputs, Path outputDir) {
+        Objects.requireNonNull(inputs);
+        Objects.requireNonNull(outputDir);
+        Map<Path, Path> outputs = getOutputs(inputs, outputDir);
+
+        long start = System.currentTimeMillis();
+
+        int budget = (int) Math.min(Integer.MAX_VALUE, memoryBudget / MEGABYTE);
+        Semaphore memory = new Semaphore(budget);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        List<Future<FileResult>> futures = new ArrayList<>(inputs.size());
+        try {
+            for (Path input : inputs) {
+                int weight = estimateWeight(input, budget);
+                memory.acquireUninterruptibly(weight);
+                try {
+                    futures.add(executor.submit(() -> {
+                        try {
+                            return exportFile(input, outputs.get(input));
+                        } finally {
+                            memory.release(weight);
+                        }
+                    }));
+                } catch (RejectedExecutionException e) {
+                    memory.release(weight);
+                    throw e;
+                }
+            }
+
+            List<FileResult> results = new ArrayList<>(futures.size());
+            for (Future<FileResult> future : futures) {
+                results.add(future.get());
+            }
+
+            Summary summary = new Summary(results, System.currentTimeMillis() - start);
+            summary.log();
+            return summary;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int estimateWeight(Path input, int budget) {
+        long size;
+        try {
+            size = Files.size(input);
+        } catch (IOException e) {
+            // the failure will be reported by the import
+            size = 0;
+        }
+        long weight = size * DEFAULT_INFLATION_FACTOR / MEGABYTE;
+        return (int) Math.max(1, Math.min(budget, weight));
+    }
+
+    private static String getBaseName(Path input) {
+        String fileName = input.getFileName().toString();
+        int index = fileName.lastIndexOf('.');
+        return index > 0 ? fileName.substring(0, index) : fileName;
+    }
+
+    /**
+     * @return the output file of each input, checking that the concurrent exports do not write to the same file
+     */
+    private static Map<Path, Path> getOutputs(List<Path> inputs, Path outputDir) {
+        Map<Path, Path> outputs = new HashMap<>();
+        Map<Path, Path> inputsByOutput = new HashMap<>();
+        for (Path input : inputs) {
+            Path output = outputDir.resolve(getBaseName(input) + ECH_EXTENSION);
+            Path other = inputsByOutput.putIfAbsent(output, input);
+            if (other != null) {
+                throw new IllegalArgumentException("Inputs " + other + " and " + input + " are exported to the same file " + output);
+            }
+            outputs.put(input, output);
+        }
+        return outputs;
+    }
+
+    private FileResult exportFile(Path input, Path output) {
+        long importStart = System.currentTimeMillis();
+        long importTime = -1;
+        EurostagEchExportDiagnostics diagnostics = new EurostagEchExportDiagnostics();
+        try {
+            Network network = importer.apply(input);
+            importTime = System.currentTimeMillis() - importStart;
+
+            long exportStart = System.currentTimeMillis();
+            EsgSpecialParameters specialParameters = config.isSpecificCompatibility() ? null : new EsgSpecialParameters();
+            new EurostagEchExport(network, config, namingStrategy).write(output, parameters, specialParameters, diagnostics);
+            return new FileResult(input, output, importTime, System.currentTimeMillis() - exportStart, null, diagnostics);
+        } catch (Exception e) {
+            // the failure is logged with the summary
+            long elapsed = System.currentTimeMillis() - importStart;
+            return importTime < 0 ? new FileResult(input, null, elapsed, 0, e, diagnostics)
+                                  : new FileResult(input, null, importTime, elapsed - importTime, e, diagnostics);
+        }
+    }
+}
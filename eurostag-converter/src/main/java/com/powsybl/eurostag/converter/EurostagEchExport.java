@@ -13,16 +13,23 @@ import com.powsybl.eurostag.model.*;
 import com.powsybl.iidm.network.*;
 import com.powsybl.iidm.network.extensions.CoordinatedReactiveControl;
 import com.powsybl.iidm.network.util.Identifiables;
+import com.powsybl.eurostag.model.io.EsgCompression;
 import com.powsybl.eurostag.model.io.EsgWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
  * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
@@ -50,42 +57,244 @@ public class EurostagEchExport implements EurostagEchExporter {
     private static final String XNODE_V_PROPERTY = "xnode_v";
     private static final String XNODE_ANGLE_PROPERTY = "xnode_angle";
 
-    private static final String SKIPPING_NOT_IN_MAIN_COMPONENT = "not in main component, skipping {}: {}";
-
     protected final Network network;
     protected final EurostagEchExportConfig config;
     protected final BranchParallelIndexes parallelIndexes;
     protected final EurostagDictionary dictionary;
     protected final EurostagFakeNodes fakeNodes;
 
+    /**
+     * Mutable state of a single export. The exporter itself is not modified once built, so that several exports
+     * can be run concurrently on the same instance, for instance on different variants of the network.
+     * <p>
+     * The elements are either added to the network, or to a buffer of a concurrent builder when the steps of the
+     * export run in parallel. In that case each step has its own context, sharing the state of the export, and its
+     * elements are added with the index of the step as sequence number, so that the built network has the elements
+     * in the same order as a sequential export.
+     */
+    private static final class ExportContext {
+
+        private final EsgNetwork esgNetwork;
+
+        private final EsgConcurrentNetworkBuilder.Buffer buffer;
+
+        private final long sequence;
+
+        private final EsgGeneralParameters parameters;
+
+        /**
+         * Copy of the fake nodes, the usage counters being incremented during the export
+         */
+        private final EurostagFakeNodes fakeNodes;
+
+        private final EurostagEchExportDiagnostics diagnostics;
+
+        /**
+         * Only used by the transformers step, so it does not need to be thread safe
+         */
+        private final TapTables tapTables;
+
+        private ExportContext(EsgNetwork esgNetwork, EsgGeneralParameters parameters, EurostagFakeNodes fakeNodes, EurostagEchExportDiagnostics diagnostics) {
+            this(Objects.requireNonNull(esgNetwork), null, 0, parameters, fakeNodes.copy(), diagnostics, new TapTables());
+        }
+
+        private ExportContext(EsgNetwork esgNetwork, EsgConcurrentNetworkBuilder.Buffer buffer, long sequence, EsgGeneralParameters parameters,
+                              EurostagFakeNodes fakeNodes, EurostagEchExportDiagnostics diagnostics, TapTables tapTables) {
+            this.esgNetwork = esgNetwork;
+            this.buffer = buffer;
+            this.sequence = sequence;
+            this.parameters = Objects.requireNonNull(parameters);
+            this.fakeNodes = Objects.requireNonNull(fakeNodes);
+            this.diagnostics = Objects.requireNonNull(diagnostics);
+            this.tapTables = Objects.requireNonNull(tapTables);
+        }
+
+        /**
+         * Context of a step of a concurrent export, adding its elements to its own buffer of the given builder
+         */
+        private ExportContext forStep(EsgConcurrentNetworkBuilder builder, int step) {
+            return new ExportContext(null, builder.newBuffer(), step, parameters, fakeNodes, diagnostics, tapTables);
+        }
+
+        private void addArea(EsgArea area) {
+            if (buffer != null) {
+                buffer.addArea(sequence, area);
+            } else {
+                esgNetwork.addArea(area);
+            }
+        }
+
+        private void addNode(EsgNode node) {
+            if (buffer != null) {
+                buffer.addNode(sequence, node);
+            } else {
+                esgNetwork.addNode(node);
+            }
+        }
+
+        private void addCouplingDevice(EsgCouplingDevice device) {
+            if (buffer != null) {
+                buffer.addCouplingDevice(sequence, device);
+            } else {
+                esgNetwork.addCouplingDevice(device);
+            }
+        }
+
+        private void addLine(EsgLine line) {
+            if (buffer != null) {
+                buffer.addLine(sequence, line);
+            } else {
+                esgNetwork.addLine(line);
+            }
+        }
+
+        private void addDissymmetricalBranch(EsgDissymmetricalBranch branch) {
+            if (buffer != null) {
+                buffer.addDissymmetricalBranch(sequence, branch);
+            } else {
+                esgNetwork.addDissymmetricalBranch(branch);
+            }
+        }
+
+        private void addDetailedTwoWindingTransformer(EsgDetailedTwoWindingTransformer transformer) {
+            if (buffer != null) {
+                buffer.addDetailedTwoWindingTransformer(sequence, transformer);
+            } else {
+                esgNetwork.addDetailedTwoWindingTransformer(transformer);
+            }
+        }
+
+        private void addThreeWindingTransformer(EsgThreeWindingTransformer transformer) {
+            if (buffer != null) {
+                buffer.addThreeWindingTransformer(sequence, transformer);
+            } else {
+                esgNetwork.addThreeWindingTransformer(transformer);
+            }
+        }
+
+        private void addLoad(EsgLoad load) {
+            if (buffer != null) {
+                buffer.addLoad(sequence, load);
+            } else {
+                esgNetwork.addLoad(load);
+            }
+        }
+
+        private void addGenerator(EsgGenerator generator) {
+            if (buffer != null) {
+                buffer.addGenerator(sequence, generator);
+            } else {
+                esgNetwork.addGenerator(generator);
+            }
+        }
+
+        private void addCapacitorsOrReactorBanks(EsgCapacitorOrReactorBank bank) {
+            if (buffer != null) {
+                buffer.addCapacitorOrReactorBank(sequence, bank);
+            } else {
+                esgNetwork.addCapacitorsOrReactorBanks(bank);
+            }
+        }
+
+        private void addStaticVarCompensator(EsgStaticVarCompensator svc) {
+            if (buffer != null) {
+                buffer.addStaticVarCompensator(sequence, svc);
+            } else {
+                esgNetwork.addStaticVarCompensator(svc);
+            }
+        }
+
+        private void addDCNode(EsgDCNode node) {
+            if (buffer != null) {
+                buffer.addDCNode(sequence, node);
+            } else {
+                esgNetwork.addDCNode(node);
+            }
+        }
+
+        private void addDCLink(EsgDCLink link) {
+            if (buffer != null) {
+                buffer.addDCLink(sequence, link);
+            } else {
+                esgNetwork.addDCLink(link);
+            }
+        }
+
+        private void addAcdcVscConverter(EsgAcdcVscConverter converter) {
+            if (buffer != null) {
+                buffer.addAcdcVscConverter(sequence, converter);
+            } else {
+                esgNetwork.addAcdcVscConverter(converter);
+            }
+        }
+    }
+
     public EurostagEchExport(Network network, EurostagEchExportConfig config, BranchParallelIndexes parallelIndexes, EurostagDictionary dictionary, EurostagFakeNodes fakeNodes) {
         this.network = Objects.requireNonNull(network);
         this.config = Objects.requireNonNull(config);
         this.parallelIndexes = Objects.requireNonNull(parallelIndexes);
         this.dictionary = Objects.requireNonNull(dictionary);
         this.fakeNodes = Objects.requireNonNull(fakeNodes);
+        addFictitiousElementsToDictionary();
     }
 
     public EurostagEchExport(Network network, EurostagEchExportConfig config) {
+        this(network, config, EurostagDictionary.getDefaultNamingStrategy());
+    }
+
+    /**
+     * Create an export naming the elements with the given strategy, which can be shared between several exports
+     */
+    public EurostagEchExport(Network network, EurostagEchExportConfig config, EurostagNamingStrategy namingStrategy) {
         this.network = Objects.requireNonNull(network);
         this.config = config;
         this.fakeNodes = EurostagFakeNodes.build(network, config);
         this.parallelIndexes = BranchParallelIndexes.build(network, config, fakeNodes);
-        this.dictionary = EurostagDictionary.create(network, parallelIndexes, config, fakeNodes);
+        this.dictionary = EurostagDictionary.create(network, parallelIndexes, config, fakeNodes, namingStrategy);
+        addFictitiousElementsToDictionary();
     }
 
     public EurostagEchExport(Network network) {
         this(network, new EurostagEchExportConfig());
     }
 
-    private void createAreas(EsgNetwork esgNetwork) {
-        esgNetwork.addArea(new EsgArea(new Esg2charName(EchUtil.FAKE_AREA), EsgArea.Type.AC));
+    private EsgNetwork createEmptyNetwork() {
+        return createNetworkBuilder(network, config).build();
+    }
+
+    /**
+     * Create the builder of an empty Eurostag network, sized from the number of elements of the IIDM network. The
+     * number of buses is not known without computing the topology, so the number of nodes is estimated from the
+     * voltage levels and the switches.
+     */
+    static EsgNetwork.Builder createNetworkBuilder(Network network, EurostagEchExportConfig config) {
+        int danglingLineCount = network.getDanglingLineCount();
+        int hvdcLineCount = network.getHvdcLineCount();
+        int switchCount = config.isNoSwitch() ? 0 : network.getSwitchCount();
+        return EsgNetwork.builder()
+                .setExpectedAreaCount(network.getCountryCount() + 2)
+                .setExpectedNodeCount(network.getVoltageLevelCount() + switchCount + danglingLineCount + 2)
+                .setExpectedCouplingDeviceCount(switchCount)
+                .setExpectedLineCount(network.getLineCount() + danglingLineCount)
+                .setExpectedDetailedTwoWindingTransformerCount(network.getTwoWindingsTransformerCount())
+                .setExpectedThreeWindingTransformerCount(network.getThreeWindingsTransformerCount())
+                .setExpectedLoadCount(network.getLoadCount() + danglingLineCount + 2 * hvdcLineCount)
+                .setExpectedGeneratorCount(network.getGeneratorCount())
+                .setExpectedCapacitorOrReactorBankCount(network.getShuntCompensatorCount())
+                .setExpectedStaticVarCompensatorCount(network.getStaticVarCompensatorCount())
+                .setExpectedDCNodeCount(2 * hvdcLineCount)
+                .setExpectedDCLinkCount(hvdcLineCount)
+                .setExpectedAcdcVscConverterCount(network.getVscConverterStationCount());
+    }
+
+    private void createAreas(ExportContext context) {
+        context.addArea(new EsgArea(new Esg2charName(EchUtil.FAKE_AREA), EsgArea.Type.AC));
         for (Country c : network.getCountries()) {
-            esgNetwork.addArea(new EsgArea(new Esg2charName(c.toString()), EsgArea.Type.AC));
+            context.addArea(new EsgArea(new Esg2charName(c.toString()), EsgArea.Type.AC));
         }
 
         if (network.getHvdcLineCount() > 0) {
-            esgNetwork.addArea(new EsgArea(new Esg2charName("DC"), EsgArea.Type.DC));
+            context.addArea(new EsgArea(new Esg2charName("DC"), EsgArea.Type.DC));
         }
     }
 
@@ -103,12 +312,12 @@ public class EurostagEchExport implements EurostagEchExporter {
         return createNode(busId, countryCode, vl.getNominalV(), v, angle, slackBus);
     }
 
-    private void createNodes(EsgNetwork esgNetwork) {
-        fakeNodes.referencedEsgIdsAsStream().forEach(esgId -> {
-            VoltageLevel vlevel = fakeNodes.getVoltageLevelByEsgId(esgId);
+    private void createNodes(ExportContext context) {
+        context.fakeNodes.referencedEsgIdsAsStream().forEach(esgId -> {
+            VoltageLevel vlevel = context.fakeNodes.getVoltageLevelByEsgId(esgId);
             // FIXME(mathbagu): if vlevel is null, why the nominalV is set 380.0?
             double nominalV = (vlevel != null) ? vlevel.getNominalV() : 380.0;
-            esgNetwork.addNode(createNode(esgId, EchUtil.FAKE_AREA, nominalV, nominalV, 0f, false));
+            context.addNode(createNode(esgId, EchUtil.FAKE_AREA, nominalV, nominalV, 0f, false));
         });
 
         Map<Integer, Bus> sbs = EchUtil.selectSlackbus(network, config);
@@ -121,22 +330,22 @@ public class EurostagEchExport implements EurostagEchExporter {
         for (Bus b : Identifiables.sort(EchUtil.getBuses(network, config))) {
             // skip buses not in the main connected component
             if (config.isExportMainCCOnly() && !EchUtil.isInMainCc(b)) {
-                LOGGER.warn(SKIPPING_NOT_IN_MAIN_COMPONENT, "Bus", b.getId());
+                context.diagnostics.add(EurostagEchExportDiagnostics.Category.BUS_NOT_IN_MAIN_COMPONENT, b.getId());
                 continue;
             }
-            esgNetwork.addNode(createNode(b.getId(), b.getVoltageLevel(), b.getV(), b.getAngle(), sbs.values().contains(b)));
+            context.addNode(createNode(b.getId(), b.getVoltageLevel(), b.getV(), b.getAngle(), sbs.values().contains(b)));
         }
         for (DanglingLine dl : Identifiables.sort(network.getDanglingLines())) {
             // skip DLs not in the main connected component
             if (config.isExportMainCCOnly() && !EchUtil.isInMainCc(dl, config.isNoSwitch())) {
-                LOGGER.warn(SKIPPING_NOT_IN_MAIN_COMPONENT, "DanglingLine", dl.getId());
+                context.diagnostics.add(EurostagEchExportDiagnostics.Category.DANGLING_LINE_NOT_IN_MAIN_COMPONENT, dl.getId());
                 continue;
             }
             String strV = dl.getProperty(XNODE_V_PROPERTY);
             String strAngle = dl.getProperty(XNODE_ANGLE_PROPERTY);
             float v = strV != null ? Float.parseFloat(strV) : Float.NaN;
             float angle = strAngle != null ? Float.parseFloat(strAngle) : Float.NaN;
-            esgNetwork.addNode(createNode(EchUtil.getBusId(dl), dl.getTerminal().getVoltageLevel(), v, angle, false));
+            context.addNode(createNode(EchUtil.getBusId(dl), dl.getTerminal().getVoltageLevel(), v, angle, false));
         }
     }
 
@@ -151,23 +360,23 @@ public class EurostagEchExport implements EurostagEchExporter {
         }
     }
 
-    private void createCouplingDevices(EsgNetwork esgNetwork) {
+    private void createCouplingDevices(ExportContext context) {
         for (VoltageLevel vl : Identifiables.sort(network.getVoltageLevels())) {
             for (Switch sw : Identifiables.sort(EchUtil.getSwitches(vl, config))) {
                 Bus bus1 = EchUtil.getBus1(vl, sw.getId(), config);
                 Bus bus2 = EchUtil.getBus2(vl, sw.getId(), config);
                 //do not export the Switch if bus1==bus2
                 if (EchUtil.isSameBus(bus1, bus2)) {
-                    LOGGER.warn("skipping Switch: {}; bus1 is equal to bus2: {}", sw.getId(), bus1 != null ? bus1.getId() : bus1);
+                    context.diagnostics.add(EurostagEchExportDiagnostics.Category.SWITCH_ON_SAME_BUS, sw.getId());
                     continue;
                 }
                 // skip switches not in the main connected component
                 if (config.isExportMainCCOnly() && (!EchUtil.isInMainCc(bus1) || !EchUtil.isInMainCc(bus2))) {
-                    LOGGER.warn("not in main component, skipping Switch: {} {} {}", bus1.getId(), bus2.getId(), sw.getId());
+                    context.diagnostics.add(EurostagEchExportDiagnostics.Category.SWITCH_NOT_IN_MAIN_COMPONENT, sw.getId());
                     continue;
                 }
 
-                esgNetwork.addCouplingDevice(new EsgCouplingDevice(new EsgBranchName(new Esg8charName(dictionary.getEsgId(bus1.getId())),
+                context.addCouplingDevice(new EsgCouplingDevice(new EsgBranchName(new Esg8charName(dictionary.getEsgId(bus1.getId())),
                         new Esg8charName(dictionary.getEsgId(bus2.getId())),
                         parallelIndexes.getParallelIndex(sw.getId())),
                         sw.isOpen() ? EsgCouplingDevice.ConnectionStatus.OPEN : EsgCouplingDevice.ConnectionStatus.CLOSED));
@@ -208,11 +417,11 @@ public class EurostagEchExport implements EurostagEchExporter {
                 status, rb, rxb, gs1, bs1, rate, rb, rxb, gs2, bs2);
     }
 
-    private void createLines(EsgNetwork esgNetwork, EsgGeneralParameters parameters) {
+    private void createLines(ExportContext context) {
         for (Line l : Identifiables.sort(network.getLines())) {
             // skip lines not in the main connected component
             if (config.isExportMainCCOnly() && !EchUtil.isInMainCc(l, config.isNoSwitch())) {
-                LOGGER.warn(SKIPPING_NOT_IN_MAIN_COMPONENT, "Line", l.getId());
+                context.diagnostics.add(EurostagEchExportDiagnostics.Category.LINE_NOT_IN_MAIN_COMPONENT, l.getId());
                 continue;
             }
             // It is better to model branches as -normal- lines because it is impossible to open dissymmetrical branches and to do short-circuit on them
@@ -220,16 +429,14 @@ public class EurostagEchExport implements EurostagEchExporter {
             // - If the G and B are the same on each side of the line, even if the G are not 0
             // - If the B are not the same but the G are 0
             // The code could be extended to handle the case where the B are not the same and the G are not the same
-            ConnectionBus bus1 = ConnectionBus.fromTerminal(l.getTerminal1(), config, fakeNodes);
-            ConnectionBus bus2 = ConnectionBus.fromTerminal(l.getTerminal2(), config, fakeNodes);
+            ConnectionBus bus1 = ConnectionBus.fromTerminal(l.getTerminal1(), config, context.fakeNodes);
+            ConnectionBus bus2 = ConnectionBus.fromTerminal(l.getTerminal2(), config, context.fakeNodes);
             //do not export the line if bus1==bus2
             if (EchUtil.isSameConnectionBus(bus1, bus2)) {
-                LOGGER.warn("skipping Line: {};  bus1 is equal to bus2: {}", l, bus1 != null ? bus1.getId() : bus1);
+                context.diagnostics.add(EurostagEchExportDiagnostics.Category.LINE_ON_SAME_BUS, l.getId());
                 continue;
             }
-            if (Math.abs(l.getG1() - l.getG2()) < G_EPSILON
-                    && (Math.abs(l.getB1() - l.getB2()) < B_EPSILON
-                    || (Math.abs(l.getG1()) < G_EPSILON && Math.abs(l.getG2()) < G_EPSILON))) {
+            if (isSymmetrical(l)) {
                 ConnectionBus bNode = null;
                 double b;
                 double diffB = 0.0;
@@ -249,13 +456,12 @@ public class EurostagEchExport implements EurostagEchExporter {
                     b = (l.getB1() + l.getB2()) / 2.0;
                 }
 
-                esgNetwork.addLine(createLine(l.getId(), bus1, bus2, l.getTerminal1().getVoltageLevel().getNominalV(),
-                        l.getR(), l.getX(), g, b, parameters));
+                context.addLine(createLine(l.getId(), bus1, bus2, l.getTerminal1().getVoltageLevel().getNominalV(),
+                        l.getR(), l.getX(), g, b, context.parameters));
 
                 if (bNode != null) {
                     //create a dummy shunt attached to bNode
-                    String fictionalShuntId = "FKSH" + l.getId();
-                    addToDictionary(fictionalShuntId, dictionary, EurostagNamingStrategy.NameType.BANK);
+                    String fictionalShuntId = getFictitiousShuntId(l);
 
                     int ieleba = 1;
                     double plosba = 0.0;
@@ -263,7 +469,7 @@ public class EurostagEchExport implements EurostagEchExporter {
                     int imaxba = 1;
                     EsgCapacitorOrReactorBank.RegulatingMode xregba = EsgCapacitorOrReactorBank.RegulatingMode.NOT_REGULATING;
 
-                    esgNetwork.addCapacitorsOrReactorBanks(new EsgCapacitorOrReactorBank(new Esg8charName(dictionary.getEsgId(fictionalShuntId)),
+                    context.addCapacitorsOrReactorBanks(new EsgCapacitorOrReactorBank(new Esg8charName(dictionary.getEsgId(fictionalShuntId)),
                             new Esg8charName(dictionary.getEsgId(bNode.getId())),
                             ieleba, plosba, rcapba, imaxba, xregba));
                 }
@@ -271,54 +477,30 @@ public class EurostagEchExport implements EurostagEchExporter {
                 EsgBranchConnectionStatus status = getStatus(bus1, bus2);
                 if (status.equals(EsgBranchConnectionStatus.CLOSED_AT_BOTH_SIDE)) {
                     // create a dissymmetrical branch
-                    esgNetwork.addDissymmetricalBranch(createDissymmetricalBranch(l.getId(), bus1, bus2, l.getTerminal1().getVoltageLevel().getNominalV(),
-                            l.getR(), l.getX(), l.getG1(), l.getB1(), l.getG2(), l.getB2(), parameters));
+                    context.addDissymmetricalBranch(createDissymmetricalBranch(l.getId(), bus1, bus2, l.getTerminal1().getVoltageLevel().getNominalV(),
+                            l.getR(), l.getX(), l.getG1(), l.getB1(), l.getG2(), l.getB2(), context.parameters));
                 } else {
                     // half connected dissymmetrical branches are not allowed: remove the dissymmetry (by averaging B1 and B2, G1 and G2) and create a simple line
                     // This is an approximation: the best electrotechnical solution would require an additional fake node and a coupling on each disconnected end of the DyssimmetricalBranch.
-                    LOGGER.warn("line {}: half connected dissymmetrical branches are not allowed; removes the dissymmetry by averaging line's B1 {} and B2 {} , G1 {} and  G2 {}", l, l.getB1(), l.getB2(), l.getG1(), l.getG2());
-                    esgNetwork.addLine(createLine(l.getId(), bus1, bus2, l.getTerminal1().getVoltageLevel().getNominalV(),
-                            l.getR(), l.getX(), (l.getG1() + l.getG2()) / 2, (l.getB1() + l.getB2()) / 2, parameters));
+                    context.diagnostics.add(EurostagEchExportDiagnostics.Category.HALF_CONNECTED_DISSYMMETRICAL_BRANCH, l.getId());
+                    context.addLine(createLine(l.getId(), bus1, bus2, l.getTerminal1().getVoltageLevel().getNominalV(),
+                            l.getR(), l.getX(), (l.getG1() + l.getG2()) / 2, (l.getB1() + l.getB2()) / 2, context.parameters));
                 }
             }
         }
         for (DanglingLine dl : Identifiables.sort(network.getDanglingLines())) {
-            // skip if not in the main connected component
+            // skip if not in the main connected component (already reported with the nodes)
             if (config.isExportMainCCOnly() && !EchUtil.isInMainCc(dl, config.isNoSwitch())) {
-                LOGGER.warn(SKIPPING_NOT_IN_MAIN_COMPONENT, "DanglingLine", dl.getId());
                 continue;
             }
-            ConnectionBus bus1 = ConnectionBus.fromTerminal(dl.getTerminal(), config, fakeNodes);
+            ConnectionBus bus1 = ConnectionBus.fromTerminal(dl.getTerminal(), config, context.fakeNodes);
             ConnectionBus bus2 = new ConnectionBus(true, EchUtil.getBusId(dl));
-            esgNetwork.addLine(createLine(dl.getId(), bus1, bus2, dl.getTerminal().getVoltageLevel().getNominalV(),
-                    dl.getR(), dl.getX(), dl.getG() / 2, dl.getB() / 2, parameters));
+            context.addLine(createLine(dl.getId(), bus1, bus2, dl.getTerminal().getVoltageLevel().getNominalV(),
+                    dl.getR(), dl.getX(), dl.getG() / 2, dl.getB() / 2, context.parameters));
         }
     }
 
-    private EsgDetailedTwoWindingTransformer.Tap createTap(TwoWindingsTransformer twt, int iplo, double rho, double dr, double dx,
-                                                           double dephas, double rate, EsgGeneralParameters parameters) {
-        double nomiU2 = twt.getTerminal2().getVoltageLevel().getNominalV();
-        double uno1 = nomiU2 / rho;
-        double uno2 = nomiU2;
-
-        //...mTrans.getR() = Get the nominal series resistance specified in Ω at the secondary voltage side.
-        double zb2 = Math.pow(nomiU2, 2) / parameters.getSnref();
-        double rpu2 = dr / zb2;  //...total line resistance  [p.u.](Base snref)
-        double xpu2 = dx / zb2;  //...total line reactance   [p.u.](Base snref)
-
-        //...leakage impedance [%] (base rate)
-        double ucc;
-        if (xpu2 < 0) {
-            ucc = xpu2 * 100 * rate / parameters.getSnref();
-        } else {
-            double zpu2 = Math.hypot(rpu2, xpu2);
-            ucc = zpu2 * 100 * rate / parameters.getSnref();
-        }
-
-        return new EsgDetailedTwoWindingTransformer.Tap(iplo, dephas, uno1, uno2, ucc);
-    }
-
-    private void createAdditionalBank(EsgNetwork esgNetwork, TwoWindingsTransformer twt, String nodeName, Set<String> additionalBanksIds, double rcapba, double plosba) {
+    private void createAdditionalBank(ExportContext context, TwoWindingsTransformer twt, String nodeName, Set<String> additionalBanksIds, double rcapba, double plosba) {
         if ((Math.abs(plosba) > G_EPSILON) || (Math.abs(rcapba) > B_EPSILON)) {
             //simple new bank naming: 4 first letters of the node name, 7th letter of the node name, 'C', 2 digits order code
             String nnodeName = Strings.padEnd(nodeName, 8, ' ');
@@ -334,7 +516,7 @@ public class EurostagEchExport implements EurostagEchExporter {
             }
             additionalBanksIds.add(newBankName);
             LOGGER.info("create additional bank with id: {} at node: {}, for twt: {} ( B={}, G={} ); rcapba={}, plosba={}", newBankName, nodeName, twt, twt.getB(), twt.getG(), rcapba, plosba);
-            esgNetwork.addCapacitorsOrReactorBanks(new EsgCapacitorOrReactorBank(new Esg8charName(newBankName), new Esg8charName(nodeName), 1, plosba, rcapba, 1, EsgCapacitorOrReactorBank.RegulatingMode.NOT_REGULATING));
+            context.addCapacitorsOrReactorBanks(new EsgCapacitorOrReactorBank(new Esg8charName(newBankName), new Esg8charName(nodeName), 1, plosba, rcapba, 1, EsgCapacitorOrReactorBank.RegulatingMode.NOT_REGULATING));
         }
     }
 
@@ -406,21 +588,22 @@ public class EurostagEchExport implements EurostagEchExporter {
                 twt.getPhaseTapChanger() != null ? twt.getPhaseTapChanger().getCurrentStep().getB() : 0);
     }
 
-    private void createTransformers(EsgNetwork esgNetwork, EsgGeneralParameters parameters) {
+    private void createTransformers(ExportContext context) {
+        EsgGeneralParameters parameters = context.parameters;
         Set<String> additionalBanksIds = new HashSet<>();
 
         for (TwoWindingsTransformer twt : Identifiables.sort(network.getTwoWindingsTransformers())) {
             // skip transformers not in the main connected component
             if (config.isExportMainCCOnly() && !EchUtil.isInMainCc(twt, config.isNoSwitch())) {
-                LOGGER.warn(SKIPPING_NOT_IN_MAIN_COMPONENT, "TwoWindingsTransformer", twt.getId());
+                context.diagnostics.add(EurostagEchExportDiagnostics.Category.TWO_WINDINGS_TRANSFORMER_NOT_IN_MAIN_COMPONENT, twt.getId());
                 continue;
             }
 
-            ConnectionBus bus1 = ConnectionBus.fromTerminal(twt.getTerminal1(), config, fakeNodes);
-            ConnectionBus bus2 = ConnectionBus.fromTerminal(twt.getTerminal2(), config, fakeNodes);
+            ConnectionBus bus1 = ConnectionBus.fromTerminal(twt.getTerminal1(), config, context.fakeNodes);
+            ConnectionBus bus2 = ConnectionBus.fromTerminal(twt.getTerminal2(), config, context.fakeNodes);
             //do not export the Transformer if bus1==bus2
             if (EchUtil.isSameConnectionBus(bus1, bus2)) {
-                LOGGER.warn("skipping Transformer: {};  bus1 is equal to bus2: {}", twt, bus1 != null ? bus1.getId() : bus1);
+                context.diagnostics.add(EurostagEchExportDiagnostics.Category.TRANSFORMER_ON_SAME_BUS, twt.getId());
                 continue;
             }
 
@@ -457,13 +640,13 @@ public class EurostagEchExport implements EurostagEchExporter {
             double voltr = Double.NaN;
             int ktpnom = 1; //...nominal tap number is not available in IIDM. Take th median plot by default
             int ktap8 = 1;  //...initial tap position (tap number) (Ex: 10)
-            List<EsgDetailedTwoWindingTransformer.Tap> taps = new ArrayList<>();
+            double[] steps;
 
             RatioTapChanger rtc = twt.getRatioTapChanger();
             PhaseTapChanger ptc = twt.getPhaseTapChanger();
             if ((rtc != null && ptc == null) || (rtc != null && ptc != null && rtc.isRegulating() && !ptc.isRegulating())) {
                 if (rtc != null && ptc != null) {
-                    LOGGER.warn("both ptc and rtc exist on two winding transformer {}. Only the rtc is kept because it is regulating.", twt.getId());
+                    context.diagnostics.add(EurostagEchExportDiagnostics.Category.BOTH_TAP_CHANGERS, twt.getId());
                 }
                 if (rtc.isRegulating()) {
                     ConnectionBus regulatingBus = ConnectionBus.fromTerminal(rtc.getRegulationTerminal(), config, null);
@@ -475,14 +658,18 @@ public class EurostagEchExport implements EurostagEchExporter {
                 voltr = rtc.getTargetV();
                 ktap8 = rtc.getTapPosition() - rtc.getLowTapPosition() + 1;
                 ktpnom = rtc.getStepCount() / 2 + 1;
+                steps = new double[rtc.getStepCount() * TapTables.STEP_SIZE];
                 for (int p = rtc.getLowTapPosition(); p <= rtc.getHighTapPosition(); p++) {
-                    int iplo = p - rtc.getLowTapPosition() + 1;
-                    taps.add(createTap(twt, iplo, getRtcRho1(twt, p), getRtcR(twt, p), getRtcX(twt, p), 0.0, RATE, parameters));
+                    int i = (p - rtc.getLowTapPosition()) * TapTables.STEP_SIZE;
+                    steps[i] = getRtcRho1(twt, p);
+                    steps[i + 1] = getRtcR(twt, p);
+                    steps[i + 2] = getRtcX(twt, p);
+                    steps[i + 3] = 0.0;
                 }
 
             } else if (ptc != null || rtc != null) {
                 if (rtc != null && ptc != null) {
-                    LOGGER.warn("both ptc and rtc exist on two winding transformer {}. Only the ptc is kept.", twt.getId());
+                    context.diagnostics.add(EurostagEchExportDiagnostics.Category.BOTH_TAP_CHANGERS, twt.getId());
                 }
 
                 if (ptc.getRegulationMode() == PhaseTapChanger.RegulationMode.CURRENT_LIMITER && ptc.isRegulating()) {
@@ -499,14 +686,25 @@ public class EurostagEchExport implements EurostagEchExporter {
                 }
                 ktap8 = ptc.getTapPosition() - ptc.getLowTapPosition() + 1;
                 ktpnom = ptc.getStepCount() / 2 + 1;
+                steps = new double[ptc.getStepCount() * TapTables.STEP_SIZE];
                 for (int p = ptc.getLowTapPosition(); p <= ptc.getHighTapPosition(); p++) {
-                    int iplo = p - ptc.getLowTapPosition() + 1;
-                    taps.add(createTap(twt, iplo, getPtcRho1(twt, p), getPtcR(twt, p), getPtcX(twt, p), ptc.getStep(p).getAlpha(), RATE, parameters));
+                    int i = (p - ptc.getLowTapPosition()) * TapTables.STEP_SIZE;
+                    steps[i] = getPtcRho1(twt, p);
+                    steps[i + 1] = getPtcR(twt, p);
+                    steps[i + 2] = getPtcX(twt, p);
+                    steps[i + 3] = ptc.getStep(p).getAlpha();
                 }
-            } else if (rtc == null && ptc == null) {
-                taps.add(createTap(twt, 1, twt.getRatedU2() / twt.getRatedU1(), twt.getR(), twt.getX(), 0f, RATE, parameters));
+            } else {
+                steps = new double[] {twt.getRatedU2() / twt.getRatedU1(), twt.getR(), twt.getX(), 0.0};
             }
 
+            //***************************
+            // *** TAP TRANSFORMATION *** (Record 3)
+            //***************************
+
+            // identical tap changers share the same table
+            List<EsgDetailedTwoWindingTransformer.Tap> taps = context.tapTables.get(nomiU2, parameters.getSnref(), RATE, steps);
+
             // trick to handle the fact that Eurostag model allows only the impedance to change and not the resistance.
             // As an approximation, the resistance is fixed to the value it has for the initial step,
             // but discrepancies will occur if the step is changed.
@@ -532,10 +730,10 @@ public class EurostagEchExport implements EurostagEchExporter {
             if ((-twt.getB() < 0) || (twt.getG() < 0) || (config.isSpecificCompatibility())) {
                 double rcapba = twt.getB() * nomiU2 * nomiU2 / (config.isSpecificCompatibility() ? 2 : 1);
                 double plosba = 1000 * twt.getG() * nomiU2 * nomiU2 / (config.isSpecificCompatibility() ? 2 : 1);
-                createAdditionalBank(esgNetwork, twt, dictionary.getEsgId(bus1.getId()), additionalBanksIds, (-twt.getB() < 0) ? rcapba : 0.0, (twt.getG() < 0) ? plosba : 0.0);
+                createAdditionalBank(context, twt, dictionary.getEsgId(bus1.getId()), additionalBanksIds, (-twt.getB() < 0) ? rcapba : 0.0, (twt.getG() < 0) ? plosba : 0.0);
                 if (config.isSpecificCompatibility()) {
                     //always create a new bank on side2
-                    createAdditionalBank(esgNetwork, twt, dictionary.getEsgId(bus2.getId()), additionalBanksIds, rcapba, plosba);
+                    createAdditionalBank(context, twt, dictionary.getEsgId(bus2.getId()), additionalBanksIds, rcapba, plosba);
                 }
             }
 
@@ -555,37 +753,24 @@ public class EurostagEchExport implements EurostagEchExporter {
                     voltr,
                     pregmin,
                     pregmax,
-                    regulatingMode);
+                    regulatingMode,
+                    taps);
 
-            //***************************
-            // *** TAP TRANSFORMATION *** (Record 3)
-            //***************************
-
-            esgTransfo.getTaps().addAll(taps);
-
-            esgNetwork.addDetailedTwoWindingTransformer(esgTransfo);
+            context.addDetailedTwoWindingTransformer(esgTransfo);
         }
 
         for (ThreeWindingsTransformer t3wt : Identifiables.sort(network.getThreeWindingsTransformers())) {
             if (config.isExportMainCCOnly() && !EchUtil.isInMainCc(t3wt, config.isNoSwitch())) {
-                LOGGER.warn(SKIPPING_NOT_IN_MAIN_COMPONENT, "ThreeWindingsTransformer", t3wt.getId());
+                context.diagnostics.add(EurostagEchExportDiagnostics.Category.THREE_WINDINGS_TRANSFORMER_NOT_IN_MAIN_COMPONENT, t3wt.getId());
                 continue;
             }
 
-            ConnectionBus bus1 = ConnectionBus.fromTerminal(t3wt.getLeg1().getTerminal(), config, fakeNodes);
-            ConnectionBus bus2 = ConnectionBus.fromTerminal(t3wt.getLeg2().getTerminal(), config, fakeNodes);
-            ConnectionBus bus3 = ConnectionBus.fromTerminal(t3wt.getLeg3().getTerminal(), config, fakeNodes);
-            //do not export the Transformer if bus1==bus2
-            if (EchUtil.isSameConnectionBus(bus1, bus2)) {
-                LOGGER.warn("skipping Transformer: {};  bus1 is equal to bus2: {}", t3wt, bus1 != null ? bus1.getId() : bus1);
-                continue;
-            }
-            if (EchUtil.isSameConnectionBus(bus1, bus3)) {
-                LOGGER.warn("skipping Transformer: {};  bus1 is equal to bus3: {}", t3wt, bus1 != null ? bus1.getId() : bus1);
-                continue;
-            }
-            if (EchUtil.isSameConnectionBus(bus2, bus3)) {
-                LOGGER.warn("skipping Transformer: {};  bus2 is equal to bus3: {}", t3wt, bus2 != null ? bus2.getId() : bus2);
+            ConnectionBus bus1 = ConnectionBus.fromTerminal(t3wt.getLeg1().getTerminal(), config, context.fakeNodes);
+            ConnectionBus bus2 = ConnectionBus.fromTerminal(t3wt.getLeg2().getTerminal(), config, context.fakeNodes);
+            ConnectionBus bus3 = ConnectionBus.fromTerminal(t3wt.getLeg3().getTerminal(), config, context.fakeNodes);
+            //do not export the Transformer if two sides are connected to the same bus
+            if (EchUtil.isSameConnectionBus(bus1, bus2) || EchUtil.isSameConnectionBus(bus1, bus3) || EchUtil.isSameConnectionBus(bus2, bus3)) {
+                context.diagnostics.add(EurostagEchExportDiagnostics.Category.TRANSFORMER_ON_SAME_BUS, t3wt.getId());
                 continue;
             }
 
@@ -863,7 +1048,7 @@ public class EurostagEchExport implements EurostagEchExporter {
             //***************************
             esgT3WTransfo.getTaps().addAll(taps);
 
-            esgNetwork.addThreeWindingTransformer(esgT3WTransfo);
+            context.addThreeWindingTransformer(esgT3WTransfo);
 
         }
     }
@@ -883,36 +1068,35 @@ public class EurostagEchExport implements EurostagEchExporter {
                 0f, 0f, p0, 0f, 0f, q0);
     }
 
-    private void createLoads(EsgNetwork esgNetwork) {
+    private void createLoads(ExportContext context) {
         for (Load l : Identifiables.sort(network.getLoads())) {
             // skip loads not in the main connected component
             if (config.isExportMainCCOnly() && !EchUtil.isInMainCc(l, config.isNoSwitch())) {
-                LOGGER.warn(SKIPPING_NOT_IN_MAIN_COMPONENT, "Load", l.getId());
+                context.diagnostics.add(EurostagEchExportDiagnostics.Category.LOAD_NOT_IN_MAIN_COMPONENT, l.getId());
                 continue;
             }
-            ConnectionBus bus = ConnectionBus.fromTerminal(l.getTerminal(), config, fakeNodes);
-            esgNetwork.addLoad(createLoad(bus, l.getId(), l.getP0(), l.getQ0()));
+            ConnectionBus bus = ConnectionBus.fromTerminal(l.getTerminal(), config, context.fakeNodes);
+            context.addLoad(createLoad(bus, l.getId(), l.getP0(), l.getQ0()));
         }
         for (DanglingLine dl : Identifiables.sort(network.getDanglingLines())) {
-            // skip dls not in the main connected component
+            // skip dls not in the main connected component (already reported with the nodes)
             if (config.isExportMainCCOnly() && !EchUtil.isInMainCc(dl, config.isNoSwitch())) {
-                LOGGER.warn(SKIPPING_NOT_IN_MAIN_COMPONENT, "DanglingLine", dl.getId());
                 continue;
             }
             ConnectionBus bus = new ConnectionBus(true, EchUtil.getBusId(dl));
-            esgNetwork.addLoad(createLoad(bus, EchUtil.getLoadId(dl), dl.getP0(), dl.getQ0()));
+            context.addLoad(createLoad(bus, EchUtil.getLoadId(dl), dl.getP0(), dl.getQ0()));
         }
     }
 
-    private void createGenerators(EsgNetwork esgNetwork) {
+    private void createGenerators(ExportContext context) {
         for (Generator g : Identifiables.sort(network.getGenerators())) {
             // skip generators not in the main connected component
             if (config.isExportMainCCOnly() && !EchUtil.isInMainCc(g, config.isNoSwitch())) {
-                LOGGER.warn(SKIPPING_NOT_IN_MAIN_COMPONENT, "Generator", g.getId());
+                context.diagnostics.add(EurostagEchExportDiagnostics.Category.GENERATOR_NOT_IN_MAIN_COMPONENT, g.getId());
                 continue;
             }
 
-            ConnectionBus bus = ConnectionBus.fromTerminal(g.getTerminal(), config, fakeNodes);
+            ConnectionBus bus = ConnectionBus.fromTerminal(g.getTerminal(), config, context.fakeNodes);
 
             EsgConnectionStatus status = bus.isConnected() ? EsgConnectionStatus.CONNECTED : EsgConnectionStatus.NOT_CONNECTED;
             double pgen = g.getTargetP();
@@ -921,14 +1105,14 @@ public class EurostagEchExport implements EurostagEchExporter {
             double pgmax = g.getMaxP();
             boolean isQminQmaxInverted = g.getReactiveLimits().getMinQ(pgen) > g.getReactiveLimits().getMaxQ(pgen);
             if (isQminQmaxInverted) {
-                LOGGER.warn("inverted qmin {} and qmax {} values for generator {}", g.getReactiveLimits().getMinQ(pgen), g.getReactiveLimits().getMaxQ(pgen), g.getId());
+                context.diagnostics.add(EurostagEchExportDiagnostics.Category.INVERTED_REACTIVE_LIMITS, g.getId());
                 qgen = -g.getTerminal().getQ();
             }
             boolean isVoltageRegulatorOn = g.isVoltageRegulatorOn();
             // Exception for out of bound regulating generators
             if (config.isSpecificCompatibility() && (g.getTargetP() < 0.0001) && (g.getMinP() > 0.0001)) {
                 isVoltageRegulatorOn = false;
-                LOGGER.warn("out of bound regulating generator {}, targetP {}, minP {} : turn off its voltage regulation", g.getId(), g.getTargetP(), g.getMinP());
+                context.diagnostics.add(EurostagEchExportDiagnostics.Category.OUT_OF_BOUNDS_REGULATING_GENERATOR, g.getId());
             }
             // in case qmin and qmax are inverted, take out the unit from the voltage regulation if it has a target Q
             // and open widely the Q interval
@@ -944,9 +1128,9 @@ public class EurostagEchExport implements EurostagEchExporter {
 
             //fails, when noSwitch is true !!
             //Bus regulatingBus = g.getRegulatingTerminal().getBusBreakerView().getConnectableBus();
-            ConnectionBus regulatingBus = ConnectionBus.fromTerminal(g.getRegulatingTerminal(), config, fakeNodes);
+            ConnectionBus regulatingBus = ConnectionBus.fromTerminal(g.getRegulatingTerminal(), config, context.fakeNodes);
 
-            esgNetwork.addGenerator(new EsgGenerator(new Esg8charName(dictionary.getEsgId(g.getId())),
+            context.addGenerator(new EsgGenerator(new Esg8charName(dictionary.getEsgId(g.getId())),
                     new Esg8charName(dictionary.getEsgId(bus.getId())),
                     pgmin, pgen, pgmax, qgmin, qgen, qgmax, mode, vregge,
                     new Esg8charName(dictionary.getEsgId(regulatingBus.getId())),
@@ -954,16 +1138,16 @@ public class EurostagEchExport implements EurostagEchExporter {
         }
     }
 
-    private void createBanks(EsgNetwork esgNetwork) {
+    private void createBanks(ExportContext context) {
         for (ShuntCompensator sc : Identifiables.sort(network.getShuntCompensators())) {
             // skip shunts not in the main connected component
             if (config.isExportMainCCOnly() && !EchUtil.isInMainCc(sc, config.isNoSwitch())) {
-                LOGGER.warn(SKIPPING_NOT_IN_MAIN_COMPONENT, "ShuntCompensator", sc.getId());
+                context.diagnostics.add(EurostagEchExportDiagnostics.Category.SHUNT_COMPENSATOR_NOT_IN_MAIN_COMPONENT, sc.getId());
                 continue;
             }
 
             if (sc.getModelType() == ShuntCompensatorModelType.LINEAR) {
-                createEsgCapacitorOrReactorBank(esgNetwork, sc);
+                createEsgCapacitorOrReactorBank(context, sc);
             } else if (sc.getModelType() == ShuntCompensatorModelType.NON_LINEAR) {
                 throw new EsgException("TODO: Non linear shunt compensator are not supported");
             } else {
@@ -972,9 +1156,9 @@ public class EurostagEchExport implements EurostagEchExporter {
         }
     }
 
-    private void createEsgCapacitorOrReactorBank(EsgNetwork esgNetwork, ShuntCompensator sc) {
+    private void createEsgCapacitorOrReactorBank(ExportContext context, ShuntCompensator sc) {
         ShuntCompensatorLinearModel model = sc.getModel(ShuntCompensatorLinearModel.class);
-        ConnectionBus bus = ConnectionBus.fromTerminal(sc.getTerminal(), config, fakeNodes);
+        ConnectionBus bus = ConnectionBus.fromTerminal(sc.getTerminal(), config, context.fakeNodes);
 
         //...number of steps in service
         int ieleba = bus.isConnected() ? sc.getSectionCount() : 0; // not really correct, because it can be connected with zero section, EUROSTAG should be modified...
@@ -983,19 +1167,19 @@ public class EurostagEchExport implements EurostagEchExporter {
         double rcapba = vnom * vnom * model.getBPerSection();
         int imaxba = sc.getMaximumSectionCount();
         EsgCapacitorOrReactorBank.RegulatingMode xregba = EsgCapacitorOrReactorBank.RegulatingMode.NOT_REGULATING;
-        esgNetwork.addCapacitorsOrReactorBanks(new EsgCapacitorOrReactorBank(new Esg8charName(dictionary.getEsgId(sc.getId())),
+        context.addCapacitorsOrReactorBanks(new EsgCapacitorOrReactorBank(new Esg8charName(dictionary.getEsgId(sc.getId())),
                 new Esg8charName(dictionary.getEsgId(bus.getId())),
                 ieleba, plosba, rcapba, imaxba, xregba));
     }
 
-    private void createStaticVarCompensators(EsgNetwork esgNetwork) {
+    private void createStaticVarCompensators(ExportContext context) {
         for (StaticVarCompensator svc : Identifiables.sort(network.getStaticVarCompensators())) {
             // skip SVCs not in the main connected component
             if (config.isExportMainCCOnly() && !EchUtil.isInMainCc(svc, config.isNoSwitch())) {
-                LOGGER.warn(SKIPPING_NOT_IN_MAIN_COMPONENT, "StaticVarCompensator", svc.getId());
+                context.diagnostics.add(EurostagEchExportDiagnostics.Category.STATIC_VAR_COMPENSATOR_NOT_IN_MAIN_COMPONENT, svc.getId());
                 continue;
             }
-            ConnectionBus bus = ConnectionBus.fromTerminal(svc.getTerminal(), config, fakeNodes);
+            ConnectionBus bus = ConnectionBus.fromTerminal(svc.getTerminal(), config, context.fakeNodes);
 
             Esg8charName znamsvc = new Esg8charName(dictionary.getEsgId(svc.getId()));
             EsgConnectionStatus xsvcst = bus.isConnected() ? EsgConnectionStatus.CONNECTED : EsgConnectionStatus.NOT_CONNECTED;
@@ -1017,13 +1201,78 @@ public class EurostagEchExport implements EurostagEchExporter {
             EsgRegulatingMode xregsvc = ((svc.getRegulationMode() == StaticVarCompensator.RegulationMode.VOLTAGE) && (!config.isSvcAsFixedInjectionInLF())) ? EsgRegulatingMode.REGULATING : EsgRegulatingMode.NOT_REGULATING;
             double vregsvc = svc.getVoltageSetpoint();
             double qsvsch = 1.0; //TODO: extend CoordinatedReactiveControl to static var compensator.
-            esgNetwork.addStaticVarCompensator(
+            context.addStaticVarCompensator(
                     new EsgStaticVarCompensator(znamsvc, xsvcst, znodsvc, bmin, binit, bmax, xregsvc, vregsvc, qsvsch));
         }
     }
 
+    private static boolean isSymmetrical(Line l) {
+        return Math.abs(l.getG1() - l.getG2()) < G_EPSILON
+                && (Math.abs(l.getB1() - l.getB2()) < B_EPSILON
+                || (Math.abs(l.getG1()) < G_EPSILON && Math.abs(l.getG2()) < G_EPSILON));
+    }
+
+    private static String getFictitiousShuntId(Line l) {
+        return "FKSH" + l.getId();
+    }
+
+    private static String getDcNodeId(HvdcConverterStation<?> convStation) {
+        return "DC_" + convStation.getId();
+    }
+
+    private static String getFictitiousLoadId(HvdcConverterStation<?> convStation) {
+        return "fict_" + convStation.getId();
+    }
+
+    /**
+     * Add to the dictionary the elements that have no IIDM counterpart, so that the dictionary is not modified
+     * anymore during the exports. Only the elements which are exported are added, in the order they are created,
+     * with the same conditions as their creation.
+     */
+    private void addFictitiousElementsToDictionary() {
+        // the fake nodes used by the export are counted on a copy
+        EurostagFakeNodes fakeNodesCopy = fakeNodes.copy();
+        for (Line l : Identifiables.sort(network.getLines())) {
+            // same conditions as the creation of the shunt in createLines
+            if (config.isExportMainCCOnly() && !EchUtil.isInMainCc(l, config.isNoSwitch())) {
+                continue;
+            }
+            ConnectionBus bus1 = ConnectionBus.fromTerminal(l.getTerminal1(), config, fakeNodesCopy);
+            ConnectionBus bus2 = ConnectionBus.fromTerminal(l.getTerminal2(), config, fakeNodesCopy);
+            if (!EchUtil.isSameConnectionBus(bus1, bus2) && isSymmetrical(l)
+                    && (l.getB1() < l.getB2() - B_EPSILON || l.getB2() < l.getB1() - B_EPSILON)) {
+                getOrAddToDictionary(getFictitiousShuntId(l), dictionary, EurostagNamingStrategy.NameType.BANK);
+            }
+        }
+        for (HvdcLine hvdcLine : Identifiables.sort(network.getHvdcLines())) {
+            // same conditions as the creation of the DC nodes and of the loads in createAcdcVscConverters
+            HvdcConverterStation<?> convStation1 = hvdcLine.getConverterStation1();
+            HvdcConverterStation<?> convStation2 = hvdcLine.getConverterStation2();
+            if (config.isExportMainCCOnly() && (!EchUtil.isInMainCc(convStation1, config.isNoSwitch()) || !EchUtil.isInMainCc(convStation2, config.isNoSwitch()))
+                    || convStation1.getHvdcType() == HvdcConverterStation.HvdcType.LCC || convStation2.getHvdcType() == HvdcConverterStation.HvdcType.LCC) {
+                continue;
+            }
+            getOrAddToDictionary(getDcNodeId(convStation1), dictionary, EurostagNamingStrategy.NameType.NODE);
+            getOrAddToDictionary(getDcNodeId(convStation2), dictionary, EurostagNamingStrategy.NameType.NODE);
+            getOrAddToDictionary(getFictitiousLoadId(convStation1), dictionary, EurostagNamingStrategy.NameType.LOAD);
+            getOrAddToDictionary(getFictitiousLoadId(convStation2), dictionary, EurostagNamingStrategy.NameType.LOAD);
+        }
+    }
+
+    /**
+     * Get the Eurostag id of a fictitious element, adding it to the dictionary if needed: a dictionary given to the
+     * constructor may already contain the fictitious elements of a previous export of the same network. The id of a
+     * fictitious element must not clash with the id of a real element.
+     */
+    private String getOrAddToDictionary(String iidmId, EurostagDictionary dictionary, EurostagNamingStrategy.NameType nameType) {
+        if (dictionary.iidmIdExists(iidmId) && network.getIdentifiable(iidmId) == null) {
+            return dictionary.getEsgId(iidmId);
+        }
+        return addToDictionary(iidmId, dictionary, nameType);
+    }
+
     //add a new couple (iidmId, esgId). EsgId is built from iidmId using a simple cut-name mapping strategy
-    private String addToDictionary(String iidmId, EurostagDictionary dictionary, EurostagNamingStrategy.NameType nameType) {
+    private static String addToDictionary(String iidmId, EurostagDictionary dictionary, EurostagNamingStrategy.NameType nameType) {
         if (dictionary.iidmIdExists(iidmId)) {
             throw new EsgException("iidmId " + iidmId + " already exists in dictionary");
         }
@@ -1045,7 +1294,8 @@ public class EurostagEchExport implements EurostagEchExporter {
         return Double.isNaN(value) ? 0 : value;
     }
 
-    protected EsgAcdcVscConverter createAcdcVscConverter(VscConverterStation vscConv, HvdcLine hline, Esg8charName vscConvDcName) {
+    protected EsgAcdcVscConverter createAcdcVscConverter(VscConverterStation vscConv, HvdcLine hline, Esg8charName vscConvDcName,
+                                                         EurostagFakeNodes fakeNodes) {
         Objects.requireNonNull(vscConv);
         Objects.requireNonNull(hline, "no hvdc line connected to VscConverterStation " + vscConv.getId());
         boolean isPmode = EchUtil.isPMode(vscConv, hline);
@@ -1141,20 +1391,18 @@ public class EurostagEchExport implements EurostagEchExporter {
         return computeLosses(hvdcLine, convStation, activeSetPoint);
     }
 
-    private EsgLoad createConverterStationAdditionalLoad(HvdcLine hvdcLine, HvdcConverterStation<?> convStation) {
+    private EsgLoad createConverterStationAdditionalLoad(ExportContext context, HvdcLine hvdcLine, HvdcConverterStation<?> convStation) {
         double ploss = computeLosses(hvdcLine, convStation);
-        ConnectionBus rectConvBus = ConnectionBus.fromTerminal(convStation.getTerminal(), config, fakeNodes);
-        String fictionalLoadId = "fict_" + convStation.getId();
-        addToDictionary(fictionalLoadId, dictionary, EurostagNamingStrategy.NameType.LOAD);
-        return createLoad(rectConvBus, fictionalLoadId, ploss, 0);
+        ConnectionBus rectConvBus = ConnectionBus.fromTerminal(convStation.getTerminal(), config, context.fakeNodes);
+        return createLoad(rectConvBus, getFictitiousLoadId(convStation), ploss, 0);
     }
 
-    private void createAcdcVscConverters(EsgNetwork esgNetwork) {
+    private void createAcdcVscConverters(ExportContext context) {
         //creates 2 DC nodes, for each hvdc line (one node per converter station)
         for (HvdcLine hvdcLine : Identifiables.sort(network.getHvdcLines())) {
             // skip lines with converter stations not in the main connected component
             if (config.isExportMainCCOnly() && (!EchUtil.isInMainCc(hvdcLine.getConverterStation1(), config.isNoSwitch()) || !EchUtil.isInMainCc(hvdcLine.getConverterStation2(), config.isNoSwitch()))) {
-                LOGGER.warn("skipped HVDC line {}: at least one converter station is not in main component", hvdcLine.getId());
+                context.diagnostics.add(EurostagEchExportDiagnostics.Category.HVDC_LINE_NOT_IN_MAIN_COMPONENT, hvdcLine.getId());
                 continue;
             }
             HvdcConverterStation<?> convStation1 = hvdcLine.getConverterStation1();
@@ -1165,65 +1413,140 @@ public class EurostagEchExport implements EurostagEchExporter {
             }
 
             //create two dc nodes, one for each conv. station
-            Esg8charName hvdcNodeName1 = new Esg8charName(addToDictionary("DC_" + convStation1.getId(), dictionary, EurostagNamingStrategy.NameType.NODE));
-            Esg8charName hvdcNodeName2 = new Esg8charName(addToDictionary("DC_" + convStation2.getId(), dictionary, EurostagNamingStrategy.NameType.NODE));
+            Esg8charName hvdcNodeName1 = new Esg8charName(dictionary.getEsgId(getDcNodeId(convStation1)));
+            Esg8charName hvdcNodeName2 = new Esg8charName(dictionary.getEsgId(getDcNodeId(convStation2)));
             double dcVoltage = EchUtil.getHvdcLineDcVoltage(hvdcLine);
-            esgNetwork.addDCNode(new EsgDCNode(new Esg2charName("DC"), hvdcNodeName1, dcVoltage, 1));
-            esgNetwork.addDCNode(new EsgDCNode(new Esg2charName("DC"), hvdcNodeName2, dcVoltage, 1));
+            context.addDCNode(new EsgDCNode(new Esg2charName("DC"), hvdcNodeName1, dcVoltage, 1));
+            context.addDCNode(new EsgDCNode(new Esg2charName("DC"), hvdcNodeName2, dcVoltage, 1));
 
             //create a dc link, representing the hvdc line
             //Eurostag model requires a resistance of 1 ohm (not hvdcLine.getR())
             float r = 1.0f;
-            esgNetwork.addDCLink(new EsgDCLink(hvdcNodeName1, hvdcNodeName2, '1', r, EsgDCLink.LinkStatus.ON));
+            context.addDCLink(new EsgDCLink(hvdcNodeName1, hvdcNodeName2, '1', r, EsgDCLink.LinkStatus.ON));
 
             //create the two converter stations
-            EsgAcdcVscConverter esgConv1 = createAcdcVscConverter(network.getVscConverterStation(convStation1.getId()), hvdcLine, hvdcNodeName1);
-            EsgAcdcVscConverter esgConv2 = createAcdcVscConverter(network.getVscConverterStation(convStation2.getId()), hvdcLine, hvdcNodeName2);
-            esgNetwork.addAcdcVscConverter(esgConv1);
-            esgNetwork.addAcdcVscConverter(esgConv2);
+            EsgAcdcVscConverter esgConv1 = createAcdcVscConverter(network.getVscConverterStation(convStation1.getId()), hvdcLine, hvdcNodeName1, context.fakeNodes);
+            EsgAcdcVscConverter esgConv2 = createAcdcVscConverter(network.getVscConverterStation(convStation2.getId()), hvdcLine, hvdcNodeName2, context.fakeNodes);
+            context.addAcdcVscConverter(esgConv1);
+            context.addAcdcVscConverter(esgConv2);
 
             //Create one load on the node to which converters stations are connected
-            esgNetwork.addLoad(createConverterStationAdditionalLoad(hvdcLine, convStation1));
-            esgNetwork.addLoad(createConverterStationAdditionalLoad(hvdcLine, convStation2));
+            context.addLoad(createConverterStationAdditionalLoad(context, hvdcLine, convStation1));
+            context.addLoad(createConverterStationAdditionalLoad(context, hvdcLine, convStation2));
         }
     }
 
     @Override
     public EsgNetwork createNetwork(EsgGeneralParameters parameters) {
+        EurostagEchExportDiagnostics diagnostics = new EurostagEchExportDiagnostics();
+        EsgNetwork esgNetwork = createNetwork(parameters, diagnostics);
+        diagnostics.log();
+        return esgNetwork;
+    }
 
-        EsgNetwork esgNetwork = new EsgNetwork();
+    /**
+     * Create the Eurostag network, the warnings are reported to the given diagnostics instead of being logged.
+     */
+    public EsgNetwork createNetwork(EsgGeneralParameters parameters, EurostagEchExportDiagnostics diagnostics) {
+        if (config.getParallelism() > 1) {
+            return createNetworkConcurrently(parameters, diagnostics);
+        }
+
+        ExportContext context = new ExportContext(createEmptyNetwork(), parameters, fakeNodes, diagnostics);
 
         // areas
-        createAreas(esgNetwork);
+        createAreas(context);
 
         // coupling devices
-        createCouplingDevices(esgNetwork);
+        createCouplingDevices(context);
 
         // lines
-        createLines(esgNetwork, parameters);
+        createLines(context);
 
         // transformers
-        createTransformers(esgNetwork, parameters);
+        createTransformers(context);
 
         // loads
-        createLoads(esgNetwork);
+        createLoads(context);
 
         // generators
-        createGenerators(esgNetwork);
+        createGenerators(context);
 
         // shunts
-        createBanks(esgNetwork);
+        createBanks(context);
 
         // static VAR compensators
-        createStaticVarCompensators(esgNetwork);
+        createStaticVarCompensators(context);
 
         // ACDC VSC Converters
-        createAcdcVscConverters(esgNetwork);
+        createAcdcVscConverters(context);
 
         // nodes
-        createNodes(esgNetwork);
+        createNodes(context);
 
-        return esgNetwork;
+        return context.esgNetwork;
+    }
+
+    /**
+     * Create the Eurostag network running the steps of {@link #createNetwork(EsgGeneralParameters, EurostagEchExportDiagnostics)}
+     * on {@link EurostagEchExportConfig#getParallelism()} threads. The nodes are created last, once the other steps
+     * have referenced the fake nodes they use. The network is the same as the one created sequentially.
+     */
+    private EsgNetwork createNetworkConcurrently(EsgGeneralParameters parameters, EurostagEchExportDiagnostics diagnostics) {
+        List<Consumer<ExportContext>> steps = List.of(this::createAreas, this::createCouplingDevices, this::createLines,
+                this::createTransformers, this::createLoads, this::createGenerators, this::createBanks,
+                this::createStaticVarCompensators, this::createAcdcVscConverters);
+
+        EsgConcurrentNetworkBuilder builder = EsgNetwork.concurrentBuilder();
+        ExportContext context = new ExportContext(null, null, 0, parameters, fakeNodes.copy(), diagnostics, new TapTables());
+
+        // the topology of the IIDM network is computed lazily, and this is not thread safe
+        computeTopology();
+        String variantId = network.getVariantManager().getWorkingVariantId();
+        boolean threadLocalVariant = network.getVariantManager().isVariantMultiThreadAccessAllowed();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(config.getParallelism(), steps.size()));
+        try {
+            List<Future<?>> futures = new ArrayList<>(steps.size());
+            for (int i = 0; i < steps.size(); i++) {
+                Consumer<ExportContext> step = steps.get(i);
+                ExportContext stepContext = context.forStep(builder, i);
+                futures.add(executor.submit(() -> {
+                    if (threadLocalVariant) {
+                        network.getVariantManager().setWorkingVariant(variantId);
+                    }
+                    step.accept(stepContext);
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        createNodes(context.forStep(builder, steps.size()));
+
+        return builder.build();
+    }
+
+    private void computeTopology() {
+        for (Bus bus : EchUtil.getBuses(network, config)) {
+            bus.getConnectedComponent();
+            bus.getSynchronousComponent();
+        }
+        for (VoltageLevel vl : network.getVoltageLevels()) {
+            vl.getBusBreakerView().getBuses();
+            vl.getBusView().getBuses();
+        }
     }
 
     private EsgSpecialParameters createEsgSpecialParameters(EurostagEchExportConfig config) {
@@ -1231,8 +1554,17 @@ public class EurostagEchExport implements EurostagEchExporter {
     }
 
     public void write(Writer writer, EsgGeneralParameters parameters, EsgSpecialParameters specialParameters) throws IOException {
-        EsgNetwork esgNetwork = createNetwork(parameters);
-        new EsgWriter(esgNetwork, parameters, specialParameters).write(writer, network.getId() + "/" + network.getVariantManager().getWorkingVariantId());
+        EurostagEchExportDiagnostics diagnostics = new EurostagEchExportDiagnostics();
+        write(writer, parameters, specialParameters, diagnostics);
+        diagnostics.log();
+    }
+
+    public void write(Writer writer, EsgGeneralParameters parameters, EsgSpecialParameters specialParameters,
+                      EurostagEchExportDiagnostics diagnostics) throws IOException {
+        EsgNetwork esgNetwork = createNetwork(parameters, diagnostics);
+        new EsgWriter(esgNetwork, parameters, specialParameters)
+                .setIslandWithoutSlackBusReporter(island -> diagnostics.add(EurostagEchExportDiagnostics.Category.ISLAND_WITHOUT_SLACK_BUS, island.get(0).trim()))
+                .write(writer, network.getId() + "/" + network.getVariantManager().getWorkingVariantId());
     }
 
     public void write(Writer writer) throws IOException {
@@ -1240,11 +1572,33 @@ public class EurostagEchExport implements EurostagEchExporter {
     }
 
     public void write(Path file, EsgGeneralParameters parameters, EsgSpecialParameters specialParameters) throws IOException {
-        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+        try (Writer writer = Files.newBufferedWriter(file, EsgWriter.CHARSET)) {
             write(writer, parameters, specialParameters);
         }
     }
 
+    public void write(Path file, EsgGeneralParameters parameters, EsgSpecialParameters specialParameters,
+                      EurostagEchExportDiagnostics diagnostics) throws IOException {
+        write(file, parameters, specialParameters, diagnostics, EsgCompression.NONE);
+    }
+
+    /**
+     * Write the ECH file compressed on the fly, the compression running on other threads while the file is rendered.
+     */
+    public void write(Path file, EsgGeneralParameters parameters, EsgSpecialParameters specialParameters,
+                      EurostagEchExportDiagnostics diagnostics, EsgCompression compression) throws IOException {
+        Objects.requireNonNull(compression);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(compression.wrap(Files.newOutputStream(file)), EsgWriter.CHARSET))) {
+            write(writer, parameters, specialParameters, diagnostics);
+        }
+    }
+
+    public void write(Path file, EsgCompression compression) throws IOException {
+        EurostagEchExportDiagnostics diagnostics = new EurostagEchExportDiagnostics();
+        write(file, new EsgGeneralParameters(), createEsgSpecialParameters(config), diagnostics, compression);
+        diagnostics.log();
+    }
+
     public void write(Path file) throws IOException {
         write(file, new EsgGeneralParameters(), createEsgSpecialParameters(config));
     }
@@ -0,0 +1,208 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.converter;
+
+import com.powsybl.commons.config.PlatformConfig;
+import com.powsybl.eurostag.model.EsgGeneralParameters;
+import com.powsybl.eurostag.model.EsgSpecialParameters;
+import com.powsybl.iidm.network.Network;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Disk-backed cache of ECH exports, addressed by {@link EurostagEchExportFingerprint fingerprint}.
+ * <p>
+ * Each entry is made of the ECH file and of the dump of the dictionary used to write it. When the total size of the
+ * entries exceeds the maximum size, the least recently used entries are evicted. The last modification time of the
+ * files is used to restore the recency order when the cache is reopened.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public class EurostagEchExportCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EurostagEchExportCache.class);
+
+    private static final String ECH_EXTENSION = ".ech";
+    private static final String DICTIONARY_EXTENSION = ".dict";
+    private static final String TMP_EXTENSION = ".tmp";
+
+    private final Path directory;
+    private final long maxSize;
+    private final Path dicoFile;
+
+    /**
+     * Entries sizes in access order
+     */
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long size = 0;
+
+    public EurostagEchExportCache(Path directory, long maxSize) {
+        this(directory, maxSize, DicoEurostagNamingStrategyFactory.getDicoFile(PlatformConfig.defaultConfig()).orElse(null));
+    }
+
+    public EurostagEchExportCache(Path directory, long maxSize, Path dicoFile) {
+        this.directory = Objects.requireNonNull(directory);
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Invalid cache size: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.dicoFile = dicoFile;
+        try {
+            Files.createDirectories(directory);
+            loadEntries();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void loadEntries() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.collect(Collectors.toList());
+        }
+        List<Path> echFiles = new ArrayList<>();
+        for (Path file : files) {
+            String fileName = file.getFileName().toString();
+            if (fileName.endsWith(ECH_EXTENSION)) {
+                echFiles.add(file);
+            } else if (fileName.contains(TMP_EXTENSION)) {
+                // left over by an interrupted put
+                Files.deleteIfExists(file);
+            } else if (fileName.endsWith(DICTIONARY_EXTENSION)
+                    && !Files.exists(getEchFile(fileName.substring(0, fileName.length() - DICTIONARY_EXTENSION.length())))) {
+                // incomplete entry
+                Files.delete(file);
+            }
+        }
+        Map<Path, FileTime> lastModifiedTimes = new HashMap<>();
+        for (Path echFile : echFiles) {
+            lastModifiedTimes.put(echFile, Files.getLastModifiedTime(echFile));
+        }
+        echFiles.sort(Comparator.comparing(lastModifiedTimes::get));
+        for (Path echFile : echFiles) {
+            String fileName = echFile.getFileName().toString();
+            String key = fileName.substring(0, fileName.length() - ECH_EXTENSION.length());
+            Path dictionaryFile = getDictionaryFile(key);
+            if (Files.exists(dictionaryFile)) {
+                long entrySize = Files.size(echFile) + Files.size(dictionaryFile);
+                entries.put(key, entrySize);
+                size += entrySize;
+            } else {
+                // incomplete entry
+                Files.delete(echFile);
+            }
+        }
+    }
+
+    private Path getEchFile(String key) {
+        return directory.resolve(key + ECH_EXTENSION);
+    }
+
+    private Path getDictionaryFile(String key) {
+        return directory.resolve(key + DICTIONARY_EXTENSION);
+    }
+
+    /**
+     * Write the ECH file and the dictionary dump of the given network, using the cached version if it exists.
+     *
+     * @return true if the files have been retrieved from the cache, false if the network has been exported
+     */
+    public boolean write(Network network, EurostagEchExportConfig config, EsgGeneralParameters parameters,
+                         EsgSpecialParameters specialParameters, Path echFile, Path dictionaryFile) throws IOException {
+        Objects.requireNonNull(network);
+        Objects.requireNonNull(config);
+        Objects.requireNonNull(parameters);
+        Objects.requireNonNull(echFile);
+        Objects.requireNonNull(dictionaryFile);
+
+        String key = EurostagEchExportFingerprint.compute(network, config, parameters, specialParameters, dicoFile);
+        if (get(key, echFile, dictionaryFile)) {
+            LOGGER.debug("Export of network {} retrieved from cache ({})", network.getId(), key);
+            return true;
+        }
+
+        // the dictionary file is part of the fingerprint, the export must use it to match the cached entries
+        EurostagEchExportDiagnostics diagnostics = new EurostagEchExportDiagnostics();
+        EurostagEchExport export = dicoFile != null
+                ? new EurostagEchExport(network, config, new DicoEurostagNamingStrategy(dicoFile, diagnostics))
+                : new EurostagEchExport(network, config);
+        export.write(echFile, parameters, specialParameters, diagnostics);
+        diagnostics.log();
+        export.dictionary.dump(dictionaryFile);
+        put(key, echFile, dictionaryFile);
+        return false;
+    }
+
+    private synchronized boolean get(String key, Path echFile, Path dictionaryFile) throws IOException {
+        // get, unlike containsKey, moves the entry to the end of the access order
+        if (entries.get(key) == null) {
+            return false;
+        }
+        Path cachedEchFile = getEchFile(key);
+        Files.copy(cachedEchFile, echFile, StandardCopyOption.REPLACE_EXISTING);
+        Files.copy(getDictionaryFile(key), dictionaryFile, StandardCopyOption.REPLACE_EXISTING);
+        Files.setLastModifiedTime(cachedEchFile, FileTime.fromMillis(System.currentTimeMillis()));
+        return true;
+    }
+
+    private void put(String key, Path echFile, Path dictionaryFile) throws IOException {
+        long entrySize = Files.size(echFile) + Files.size(dictionaryFile);
+        if (entrySize > maxSize) {
+            LOGGER.debug("Export {} is too large to be cached: {} bytes", key, entrySize);
+            return;
+        }
+
+        // copy outside of the lock, the entry is only made visible by the atomic moves
+        Path tmpEchFile = directory.resolve(key + ECH_EXTENSION + TMP_EXTENSION + Thread.currentThread().getId());
+        Path tmpDictionaryFile = directory.resolve(key + DICTIONARY_EXTENSION + TMP_EXTENSION + Thread.currentThread().getId());
+        Files.copy(echFile, tmpEchFile, StandardCopyOption.REPLACE_EXISTING);
+        Files.copy(dictionaryFile, tmpDictionaryFile, StandardCopyOption.REPLACE_EXISTING);
+
+        synchronized (this) {
+            if (entries.containsKey(key)) {
+                Files.delete(tmpEchFile);
+                Files.delete(tmpDictionaryFile);
+                return;
+            }
+            // the dictionary is moved first: an ECH file without dictionary is discarded on loading
+            Files.move(tmpDictionaryFile, getDictionaryFile(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(tmpEchFile, getEchFile(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            entries.put(key, entrySize);
+            size += entrySize;
+            evict();
+        }
+    }
+
+    private void evict() throws IOException {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (size > maxSize && it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            Files.deleteIfExists(getEchFile(entry.getKey()));
+            Files.deleteIfExists(getDictionaryFile(entry.getKey()));
+            size -= entry.getValue();
+            it.remove();
+            LOGGER.debug("Export {} evicted from cache", entry.getKey());
+        }
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+}
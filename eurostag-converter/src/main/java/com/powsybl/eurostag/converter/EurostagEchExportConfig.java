@@ -30,6 +30,7 @@ public class EurostagEchExportConfig {
     private static final boolean DEFAULT_SVC_AS_FIXED_INJECTION_IN_LF = false;
     private static final boolean DEFAULT_SPECIFIC_COMPATIBILITY = false;
     private static final boolean DEFAULT_EXPORT_MAIN_CC_ONLY = false;
+    private static final int DEFAULT_PARALLELISM = 1;
 
     private final boolean noGeneratorMinMaxQ;
 
@@ -45,6 +46,8 @@ public class EurostagEchExportConfig {
 
     private final boolean exportMainCCOnly;
 
+    private final int parallelism;
+
     public EurostagEchExportConfig() {
         this(false, false, DEFAULT_FORBIDDEN_CHARACTERS, DEFAULT_FORBIDDEN_CHARACTERS_REPLACEMENT, DEFAULT_SVC_AS_FIXED_INJECTION_IN_LF, DEFAULT_SPECIFIC_COMPATIBILITY, DEFAULT_EXPORT_MAIN_CC_ONLY);
     }
@@ -58,6 +61,13 @@ public class EurostagEchExportConfig {
     }
 
     public EurostagEchExportConfig(boolean noGeneratorMinMaxQ, boolean noSwitch, String forbiddenCharacters, Character forbiddenCharactersReplacement, boolean svcAsFixedInjectionInLF, boolean specificCompatibility, boolean exportMainCCOnly) {
+        this(noGeneratorMinMaxQ, noSwitch, forbiddenCharacters, forbiddenCharactersReplacement, svcAsFixedInjectionInLF, specificCompatibility, exportMainCCOnly, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * @param parallelism number of threads creating the Eurostag elements, 1 to create them sequentially
+     */
+    public EurostagEchExportConfig(boolean noGeneratorMinMaxQ, boolean noSwitch, String forbiddenCharacters, Character forbiddenCharactersReplacement, boolean svcAsFixedInjectionInLF, boolean specificCompatibility, boolean exportMainCCOnly, int parallelism) {
         this.forbiddenCharacters = Objects.requireNonNull(forbiddenCharacters, "forbiddenCharacters string must be not null");
         this.forbiddenCharactersReplacement = Objects.requireNonNull(forbiddenCharactersReplacement, "forbiddenCharactersReplacement (single char) string must not be null");
         this.noGeneratorMinMaxQ = noGeneratorMinMaxQ;
@@ -73,6 +83,10 @@ public class EurostagEchExportConfig {
             throw new IllegalArgumentException("forbiddenCharactersReplacement " + forbiddenCharactersReplacement + " must not appear also in the forbiddenCharacters string: " + forbiddenCharacters);
         }
         this.exportMainCCOnly = exportMainCCOnly;
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be greater than 0: " + parallelism);
+        }
+        this.parallelism = parallelism;
     }
 
     public boolean isNoGeneratorMinMaxQ() {
@@ -103,6 +117,10 @@ public class EurostagEchExportConfig {
         return exportMainCCOnly;
     }
 
+    public int getParallelism() {
+        return parallelism;
+    }
+
     public static EurostagEchExportConfig load() {
         return load(PlatformConfig.defaultConfig());
     }
@@ -128,7 +146,8 @@ public class EurostagEchExportConfig {
             }
             Character forbiddenCharactersReplacement = replacementCharString.charAt(0);
             boolean exportMainCCOnly = config.getBooleanProperty("exportMainCCOnly", DEFAULT_EXPORT_MAIN_CC_ONLY);
-            return new EurostagEchExportConfig(noGeneratorMinMaxQ, noSwitch, forbiddenCharacters, forbiddenCharactersReplacement, svcAsFixedInjectionInLF, specificCompatibility, exportMainCCOnly);
+            int parallelism = config.getIntProperty("parallelism", DEFAULT_PARALLELISM);
+            return new EurostagEchExportConfig(noGeneratorMinMaxQ, noSwitch, forbiddenCharacters, forbiddenCharactersReplacement, svcAsFixedInjectionInLF, specificCompatibility, exportMainCCOnly, parallelism);
         } else {
             LOGGER.warn("no eurostag-ech-export config found: Using defaults.");
             return new EurostagEchExportConfig(DEFAULT_NOGENERATORMINMAXQ, DEFAULT_NOSWITCH, DEFAULT_FORBIDDEN_CHARACTERS, DEFAULT_FORBIDDEN_CHARACTERS_REPLACEMENT, DEFAULT_SVC_AS_FIXED_INJECTION_IN_LF, specificCompatibility, DEFAULT_EXPORT_MAIN_CC_ONLY);
@@ -144,6 +163,7 @@ public class EurostagEchExportConfig {
                 ", svcAsFixedInjectionInLF=" + svcAsFixedInjectionInLF +
                 ", specificCompatibility=" + specificCompatibility +
                 ", exportMainCCOnly=" + exportMainCCOnly +
+                ", parallelism=" + parallelism +
                 "]";
     }
 
@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.converter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the warnings raised during an ECH export. For each category, the number of occurrences is counted and only
+ * the first identifiers are kept as samples, so that the cost does not depend on the size of the network. This class
+ * is thread safe.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public final class EurostagEchExportDiagnostics {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EurostagEchExportDiagnostics.class);
+
+    public static final int DEFAULT_MAX_SAMPLES = 10;
+
+    public enum Category {
+        BUS_NOT_IN_MAIN_COMPONENT("not in main component, skipping Bus"),
+        DANGLING_LINE_NOT_IN_MAIN_COMPONENT("not in main component, skipping DanglingLine"),
+        SWITCH_NOT_IN_MAIN_COMPONENT("not in main component, skipping Switch"),
+        LINE_NOT_IN_MAIN_COMPONENT("not in main component, skipping Line"),
+        TWO_WINDINGS_TRANSFORMER_NOT_IN_MAIN_COMPONENT("not in main component, skipping TwoWindingsTransformer"),
+        THREE_WINDINGS_TRANSFORMER_NOT_IN_MAIN_COMPONENT("not in main component, skipping ThreeWindingsTransformer"),
+        LOAD_NOT_IN_MAIN_COMPONENT("not in main component, skipping Load"),
+        GENERATOR_NOT_IN_MAIN_COMPONENT("not in main component, skipping Generator"),
+        SHUNT_COMPENSATOR_NOT_IN_MAIN_COMPONENT("not in main component, skipping ShuntCompensator"),
+        STATIC_VAR_COMPENSATOR_NOT_IN_MAIN_COMPONENT("not in main component, skipping StaticVarCompensator"),
+        HVDC_LINE_NOT_IN_MAIN_COMPONENT("at least one converter station not in main component, skipping HvdcLine"),
+        SWITCH_ON_SAME_BUS("bus1 is equal to bus2, skipping Switch"),
+        LINE_ON_SAME_BUS("bus1 is equal to bus2, skipping Line"),
+        TRANSFORMER_ON_SAME_BUS("two sides are connected to the same bus, skipping Transformer"),
+        HALF_CONNECTED_DISSYMMETRICAL_BRANCH("half connected dissymmetrical branches are not allowed, dissymmetry removed by averaging G and B of Line"),
+        BOTH_TAP_CHANGERS("both ptc and rtc exist, only one kept on TwoWindingsTransformer"),
+        INVERTED_REACTIVE_LIMITS("inverted qmin and qmax values, regulation removed on Generator"),
+        OUT_OF_BOUNDS_REGULATING_GENERATOR("out of bound regulating generator (targetP < minP), regulation removed on Generator"),
+        ISLAND_WITHOUT_SLACK_BUS("island without slack bus, identified by its first node"),
+        INVALID_DICO_MAPPING("esgId longer than 8 characters, dico mapping skipped for iidmId"),
+        DICO_MAPPING_NOT_FOUND("dico mapping not found, default naming used for iidmId");
+
+        private final String description;
+
+        Category(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private static final class Counter {
+
+        private final AtomicLong count = new AtomicLong();
+
+        private final List<String> samples = new ArrayList<>();
+    }
+
+    private final int maxSamples;
+
+    private final Map<Category, Counter> counters = new EnumMap<>(Category.class);
+
+    public EurostagEchExportDiagnostics() {
+        this(DEFAULT_MAX_SAMPLES);
+    }
+
+    public EurostagEchExportDiagnostics(int maxSamples) {
+        if (maxSamples < 0) {
+            throw new IllegalArgumentException("Invalid number of samples: " + maxSamples);
+        }
+        this.maxSamples = maxSamples;
+        // the map is fully filled at construction and never modified, so that concurrent reads are safe
+        for (Category category : Category.values()) {
+            counters.put(category, new Counter());
+        }
+    }
+
+    public void add(Category category, String id) {
+        Objects.requireNonNull(category);
+        Counter counter = counters.get(category);
+        if (counter.count.incrementAndGet() <= maxSamples) {
+            synchronized (counter.samples) {
+                counter.samples.add(id);
+            }
+        }
+    }
+
+    public long getCount(Category category) {
+        return counters.get(Objects.requireNonNull(category)).count.get();
+    }
+
+    public List<String> getSamples(Category category) {
+        Counter counter = counters.get(Objects.requireNonNull(category));
+        synchronized (counter.samples) {
+            return new ArrayList<>(counter.samples);
+        }
+    }
+
+    /**
+     * Categories having at least one occurrence
+     */
+    public Set<Category> getCategories() {
+        Set<Category> categories = EnumSet.noneOf(Category.class);
+        for (Map.Entry<Category, Counter> e : counters.entrySet()) {
+            if (e.getValue().count.get() > 0) {
+                categories.add(e.getKey());
+            }
+        }
+        return categories;
+    }
+
+    public boolean isEmpty() {
+        return getCategories().isEmpty();
+    }
+
+    /**
+     * Log one line per category
+     */
+    public void log() {
+        for (Category category : getCategories()) {
+            long count = getCount(category);
+            List<String> samples = getSamples(category);
+            if (count > samples.size()) {
+                LOGGER.warn("{}: {} occurrence(s), first ones: {}", category.getDescription(), count, samples);
+            } else {
+                LOGGER.warn("{}: {}", category.getDescription(), samples);
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.converter;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.powsybl.eurostag.model.EsgGeneralParameters;
+import com.powsybl.eurostag.model.EsgSpecialParameters;
+import com.powsybl.iidm.network.*;
+import com.powsybl.iidm.network.extensions.CoordinatedReactiveControl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Fingerprint of all the inputs of an ECH export: the IIDM data read by {@link EurostagEchExport}, the export
+ * configuration, the general and special parameters and the naming dictionary file. Equipment fields are fed to the
+ * hash function in a single pass over the network, without building any intermediate structure.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public final class EurostagEchExportFingerprint {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private EurostagEchExportFingerprint() {
+    }
+
+    public static String compute(Network network, EurostagEchExportConfig config, EsgGeneralParameters parameters,
+                                 EsgSpecialParameters specialParameters, Path dicoFile) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+
+        putString(hasher, config.toString());
+        putParameters(hasher, parameters);
+        putSpecialParameters(hasher, specialParameters);
+        putDicoFile(hasher, dicoFile);
+
+        putString(hasher, network.getId());
+        putString(hasher, network.getVariantManager().getWorkingVariantId());
+        for (Substation substation : network.getSubstations()) {
+            putString(hasher, substation.getId());
+            putString(hasher, substation.getCountry().map(Country::name).orElse(null));
+        }
+        for (VoltageLevel vl : network.getVoltageLevels()) {
+            putVoltageLevel(hasher, vl);
+        }
+        for (Line line : network.getLines()) {
+            putString(hasher, line.getId());
+            hasher.putDouble(line.getR()).putDouble(line.getX())
+                    .putDouble(line.getG1()).putDouble(line.getB1())
+                    .putDouble(line.getG2()).putDouble(line.getB2());
+            putTerminal(hasher, line.getTerminal1());
+            putTerminal(hasher, line.getTerminal2());
+        }
+        for (DanglingLine dl : network.getDanglingLines()) {
+            putString(hasher, dl.getId());
+            hasher.putDouble(dl.getR()).putDouble(dl.getX()).putDouble(dl.getG()).putDouble(dl.getB())
+                    .putDouble(dl.getP0()).putDouble(dl.getQ0());
+            for (String key : dl.getPropertyNames()) {
+                putString(hasher, key);
+                putString(hasher, dl.getProperty(key));
+            }
+            putTerminal(hasher, dl.getTerminal());
+        }
+        for (TwoWindingsTransformer twt : network.getTwoWindingsTransformers()) {
+            putString(hasher, twt.getId());
+            hasher.putDouble(twt.getR()).putDouble(twt.getX()).putDouble(twt.getG()).putDouble(twt.getB())
+                    .putDouble(twt.getRatedU1()).putDouble(twt.getRatedU2());
+            putRatioTapChanger(hasher, twt.getRatioTapChanger());
+            putPhaseTapChanger(hasher, twt.getPhaseTapChanger());
+            putTerminal(hasher, twt.getTerminal1());
+            putTerminal(hasher, twt.getTerminal2());
+        }
+        for (ThreeWindingsTransformer t3wt : network.getThreeWindingsTransformers()) {
+            putString(hasher, t3wt.getId());
+            hasher.putDouble(t3wt.getRatedU0());
+            for (ThreeWindingsTransformer.Leg leg : t3wt.getLegs()) {
+                hasher.putDouble(leg.getR()).putDouble(leg.getX()).putDouble(leg.getG()).putDouble(leg.getB())
+                        .putDouble(leg.getRatedU());
+                putRatioTapChanger(hasher, leg.getRatioTapChanger());
+                putPhaseTapChanger(hasher, leg.getPhaseTapChanger());
+                putTerminal(hasher, leg.getTerminal());
+            }
+        }
+        for (Load load : network.getLoads()) {
+            putString(hasher, load.getId());
+            hasher.putDouble(load.getP0()).putDouble(load.getQ0());
+            putTerminal(hasher, load.getTerminal());
+        }
+        for (Generator generator : network.getGenerators()) {
+            putGenerator(hasher, generator);
+        }
+        for (ShuntCompensator sc : network.getShuntCompensators()) {
+            putString(hasher, sc.getId());
+            putString(hasher, sc.getModelType().name());
+            hasher.putInt(sc.getSectionCount()).putInt(sc.getMaximumSectionCount());
+            if (sc.getModelType() == ShuntCompensatorModelType.LINEAR) {
+                hasher.putDouble(sc.getModel(ShuntCompensatorLinearModel.class).getBPerSection());
+            }
+            putTerminal(hasher, sc.getTerminal());
+        }
+        for (StaticVarCompensator svc : network.getStaticVarCompensators()) {
+            putString(hasher, svc.getId());
+            hasher.putDouble(svc.getBmin()).putDouble(svc.getBmax())
+                    .putDouble(svc.getReactivePowerSetpoint()).putDouble(svc.getVoltageSetpoint());
+            putString(hasher, svc.getRegulationMode().name());
+            putTerminal(hasher, svc.getTerminal());
+        }
+        for (HvdcConverterStation<?> station : network.getHvdcConverterStations()) {
+            putString(hasher, station.getId());
+            putString(hasher, station.getHvdcType().name());
+            hasher.putFloat(station.getLossFactor());
+            if (station instanceof VscConverterStation) {
+                VscConverterStation vsc = (VscConverterStation) station;
+                hasher.putDouble(vsc.getReactivePowerSetpoint()).putDouble(vsc.getVoltageSetpoint())
+                        .putBoolean(vsc.isVoltageRegulatorOn())
+                        .putDouble(vsc.getReactiveLimits().getMinQ(0)).putDouble(vsc.getReactiveLimits().getMaxQ(0));
+            }
+            putTerminal(hasher, station.getTerminal());
+        }
+        for (HvdcLine hvdcLine : network.getHvdcLines()) {
+            putString(hasher, hvdcLine.getId());
+            hasher.putDouble(hvdcLine.getR()).putDouble(hvdcLine.getNominalV())
+                    .putDouble(hvdcLine.getActivePowerSetpoint()).putDouble(hvdcLine.getMaxP());
+            putString(hasher, hvdcLine.getConvertersMode().name());
+            putString(hasher, hvdcLine.getConverterStation1().getId());
+            putString(hasher, hvdcLine.getConverterStation2().getId());
+        }
+
+        return hasher.hash().toString();
+    }
+
+    private static void putString(Hasher hasher, String value) {
+        if (value == null) {
+            hasher.putInt(-1);
+        } else {
+            hasher.putInt(value.length()).putUnencodedChars(value);
+        }
+    }
+
+    private static void putParameters(Hasher hasher, EsgGeneralParameters parameters) {
+        hasher.putInt(parameters.getMaxNumIteration())
+                .putFloat(parameters.getTolerance())
+                .putInt(parameters.getStartMode().ordinal())
+                .putFloat(parameters.getSnref())
+                .putBoolean(parameters.isTransformerVoltageControl())
+                .putBoolean(parameters.isSvcVoltageControl());
+        putString(hasher, parameters.getEditDate().toString());
+    }
+
+    private static void putSpecialParameters(Hasher hasher, EsgSpecialParameters specialParameters) {
+        hasher.putBoolean(specialParameters != null);
+        if (specialParameters != null) {
+            hasher.putInt(specialParameters.getInpvpq())
+                    .putFloat(specialParameters.getThmax())
+                    .putFloat(specialParameters.getEmaxf())
+                    .putFloat(specialParameters.getZmin())
+                    .putFloat(specialParameters.getRamin())
+                    .putFloat(specialParameters.getRamax())
+                    .putFloat(specialParameters.getTolplo());
+        }
+    }
+
+    private static void putDicoFile(Hasher hasher, Path dicoFile) {
+        hasher.putBoolean(dicoFile != null);
+        if (dicoFile != null) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (InputStream is = Files.newInputStream(dicoFile)) {
+                int read;
+                while ((read = is.read(buffer)) != -1) {
+                    hasher.putBytes(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static void putBus(Hasher hasher, Bus bus) {
+        putString(hasher, bus.getId());
+        hasher.putDouble(bus.getV()).putDouble(bus.getAngle());
+    }
+
+    private static void putVoltageLevel(Hasher hasher, VoltageLevel vl) {
+        putString(hasher, vl.getId());
+        putString(hasher, vl.getTopologyKind().name());
+        hasher.putDouble(vl.getNominalV());
+        vl.getBusBreakerView().getBuses().forEach(bus -> putBus(hasher, bus));
+        vl.getBusView().getBuses().forEach(bus -> putBus(hasher, bus));
+        for (Switch sw : vl.getSwitches()) {
+            putString(hasher, sw.getId());
+            putString(hasher, sw.getKind().name());
+            hasher.putBoolean(sw.isOpen()).putBoolean(sw.isRetained());
+        }
+    }
+
+    private static void putBusId(Hasher hasher, Bus bus) {
+        putString(hasher, bus != null ? bus.getId() : null);
+    }
+
+    private static void putConnectivity(Hasher hasher, Terminal terminal) {
+        hasher.putBoolean(terminal != null);
+        if (terminal != null) {
+            putBusId(hasher, terminal.getBusBreakerView().getBus());
+            putBusId(hasher, terminal.getBusBreakerView().getConnectableBus());
+            putBusId(hasher, terminal.getBusView().getBus());
+            putBusId(hasher, terminal.getBusView().getConnectableBus());
+        }
+    }
+
+    private static void putTerminal(Hasher hasher, Terminal terminal) {
+        putConnectivity(hasher, terminal);
+        hasher.putDouble(terminal.getP()).putDouble(terminal.getQ());
+    }
+
+    private static void putTapChanger(Hasher hasher, TapChanger<?, ?> tapChanger) {
+        hasher.putInt(tapChanger.getLowTapPosition())
+                .putInt(tapChanger.getTapPosition())
+                .putBoolean(tapChanger.isRegulating())
+                .putDouble(tapChanger.getTargetDeadband());
+        putConnectivity(hasher, tapChanger.getRegulationTerminal());
+        for (int p = tapChanger.getLowTapPosition(); p <= tapChanger.getHighTapPosition(); p++) {
+            TapChangerStep<?> step = tapChanger.getStep(p);
+            hasher.putDouble(step.getRho()).putDouble(step.getR()).putDouble(step.getX())
+                    .putDouble(step.getG()).putDouble(step.getB());
+        }
+    }
+
+    private static void putRatioTapChanger(Hasher hasher, RatioTapChanger rtc) {
+        hasher.putBoolean(rtc != null);
+        if (rtc != null) {
+            putTapChanger(hasher, rtc);
+            hasher.putDouble(rtc.getTargetV()).putBoolean(rtc.hasLoadTapChangingCapabilities());
+        }
+    }
+
+    private static void putPhaseTapChanger(Hasher hasher, PhaseTapChanger ptc) {
+        hasher.putBoolean(ptc != null);
+        if (ptc != null) {
+            putTapChanger(hasher, ptc);
+            putString(hasher, ptc.getRegulationMode().name());
+            hasher.putDouble(ptc.getRegulationValue());
+            for (int p = ptc.getLowTapPosition(); p <= ptc.getHighTapPosition(); p++) {
+                hasher.putDouble(ptc.getStep(p).getAlpha());
+            }
+        }
+    }
+
+    private static void putGenerator(Hasher hasher, Generator generator) {
+        putString(hasher, generator.getId());
+        double targetP = generator.getTargetP();
+        hasher.putDouble(generator.getMinP()).putDouble(generator.getMaxP())
+                .putDouble(targetP).putDouble(generator.getTargetQ()).putDouble(generator.getTargetV())
+                .putBoolean(generator.isVoltageRegulatorOn())
+                .putDouble(generator.getReactiveLimits().getMinQ(targetP))
+                .putDouble(generator.getReactiveLimits().getMaxQ(targetP));
+        CoordinatedReactiveControl coordinatedReactiveControl = generator.getExtension(CoordinatedReactiveControl.class);
+        hasher.putDouble(coordinatedReactiveControl != null ? coordinatedReactiveControl.getQPercent() : Double.NaN);
+        putConnectivity(hasher, generator.getRegulatingTerminal());
+        putTerminal(hasher, generator.getTerminal());
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.converter;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.BiMap;
+import com.google.common.collect.HashBiMap;
+import com.google.common.util.concurrent.AtomicLongMap;
+import com.powsybl.eurostag.model.EsgFootprint;
+import com.powsybl.eurostag.model.EsgNetwork;
+import com.powsybl.iidm.network.Network;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Heap footprint of an export, estimated with {@link EsgFootprint}, so that the export jobs can be scheduled according
+ * to the available memory.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public final class EurostagEchExportFootprint {
+
+    /**
+     * Length of the IIDM ids assumed by the prediction
+     */
+    private static final int AVERAGE_ID_LENGTH = 24;
+
+    private static final int SAMPLE_SIZE = 1024;
+
+    private EurostagEchExportFootprint() {
+    }
+
+    /**
+     * Heap retained by an entry of the export context, measured on samples of {@link #SAMPLE_SIZE} entries
+     */
+    private static final class EntryBytes {
+
+        private static final long DICTIONARY;
+        private static final long PARALLEL_INDEX;
+        private static final long FAKE_NODE;
+
+        static {
+            EurostagDictionary dictionary = EurostagDictionary.create(new EurostagEchExportConfig());
+            Map<String, Character> parallelIndexes = new HashMap<>();
+            BiMap<String, String> fakeNodes = HashBiMap.create();
+            AtomicLongMap<String> fakeNodeUses = AtomicLongMap.create();
+            for (int i = 0; i < SAMPLE_SIZE; i++) {
+                String iidmId = Strings.padStart(Integer.toString(i), AVERAGE_ID_LENGTH, '_');
+                String esgId = Strings.padStart(Integer.toString(i), 8, '_');
+                dictionary.add(iidmId, esgId);
+                parallelIndexes.put(iidmId, '1');
+                fakeNodes.put(iidmId, esgId);
+                fakeNodeUses.incrementAndGet(esgId);
+            }
+            DICTIONARY = EsgFootprint.sizeOf(dictionary) / SAMPLE_SIZE;
+            PARALLEL_INDEX = EsgFootprint.sizeOf(parallelIndexes) / SAMPLE_SIZE;
+            FAKE_NODE = (EsgFootprint.sizeOf(fakeNodes) + EsgFootprint.sizeOf(fakeNodeUses)) / SAMPLE_SIZE;
+        }
+    }
+
+    /**
+     * Estimate the heap retained by the Eurostag network and the context of an export. The strings shared with the
+     * dictionary, such as the Eurostag ids, are counted in the dictionary.
+     *
+     * @return the estimated size in bytes of the fake nodes, the parallel indexes, the dictionary and the network
+     */
+    public static Map<String, Long> estimate(EsgNetwork esgNetwork, EurostagDictionary dictionary, BranchParallelIndexes parallelIndexes,
+                                             EurostagFakeNodes fakeNodes) {
+        Map<String, Object> roots = new LinkedHashMap<>();
+        roots.put("fakeNodes", Objects.requireNonNull(fakeNodes));
+        roots.put("parallelIndexes", Objects.requireNonNull(parallelIndexes));
+        roots.put("dictionary", Objects.requireNonNull(dictionary));
+        roots.put("network", Objects.requireNonNull(esgNetwork));
+        return EsgFootprint.sizesOf(roots);
+    }
+
+    /**
+     * Predict the peak heap used by an export of the given network, in addition to the IIDM network itself, from the
+     * number of its elements: the Eurostag network, sized as by the export, and its context which are all retained
+     * until the file is written. The prediction is an upper bound: the parallel indexes are counted for all the branches
+     * and switches, although only the parallel ones have an index, and all the switches are counted as coupling devices,
+     * although only the retained ones are exported.
+     *
+     * @return the predicted size in bytes
+     */
+    public static long predictPeakHeap(Network network, EurostagEchExportConfig config) {
+        Objects.requireNonNull(network);
+        Objects.requireNonNull(config);
+        long switchCount = config.isNoSwitch() ? 0 : network.getSwitchCount();
+        long danglingLineCount = network.getDanglingLineCount();
+        long hvdcLineCount = network.getHvdcLineCount();
+        long fakeNodeCount = network.getVoltageLevelCount() + 2L;
+        long branchCount = (long) network.getLineCount() + network.getTwoWindingsTransformerCount() + switchCount;
+        // one entry for each named Eurostag element, plus the fake nodes
+        long dictionaryCount = fakeNodeCount
+                + network.getVoltageLevelCount() + switchCount + danglingLineCount
+                + branchCount + danglingLineCount + network.getThreeWindingsTransformerCount()
+                + network.getLoadCount() + danglingLineCount + network.getGeneratorCount()
+                + network.getShuntCompensatorCount() + network.getStaticVarCompensatorCount()
+                + 2 * hvdcLineCount + network.getVscConverterStationCount();
+        return EurostagEchExport.createNetworkBuilder(network, config).estimateFootprint()
+                + EntryBytes.FAKE_NODE * fakeNodeCount
+                + EntryBytes.PARALLEL_INDEX * branchCount
+                + EntryBytes.DICTIONARY * dictionaryCount;
+    }
+}
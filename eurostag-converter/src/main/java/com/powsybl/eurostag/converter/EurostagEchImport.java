@@ -0,0 +1,502 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.converter;
+
+import com.powsybl.eurostag.model.*;
+import com.powsybl.iidm.network.*;
+import com.powsybl.iidm.network.extensions.CoordinatedReactiveControlAdder;
+import com.powsybl.iidm.network.util.Identifiables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Conversion of an {@link EsgNetwork} into an IIDM {@link Network}, the reverse of {@link EurostagEchExport}.
+ * <p>
+ * The nodes linked by coupling devices are grouped in the same voltage level, and the voltage levels linked by
+ * transformers in the same substation. The IIDM ids are restored from the dictionary when one is given, otherwise the
+ * Eurostag names are used. The fictitious nodes added by the export and not used by any element are skipped.
+ * <p>
+ * Three windings transformers and DC elements are not supported: the conversion of a network containing some of them
+ * fails, rather than returning a network missing part of the flows.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public final class EurostagEchImport {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EurostagEchImport.class);
+
+    private static final String SOURCE_FORMAT = "ECH";
+
+    private final EsgNetwork esgNetwork;
+
+    private final EsgGeneralParameters parameters;
+
+    private final EurostagDictionary dictionary;
+
+    public EurostagEchImport(EsgNetwork esgNetwork, EsgGeneralParameters parameters, EurostagDictionary dictionary) {
+        this.esgNetwork = Objects.requireNonNull(esgNetwork);
+        this.parameters = Objects.requireNonNull(parameters);
+        this.dictionary = dictionary;
+    }
+
+    public EurostagEchImport(EsgNetwork esgNetwork, EsgGeneralParameters parameters) {
+        this(esgNetwork, parameters, null);
+    }
+
+    /**
+     * Nodes grouped by union-find, indexed by node name
+     */
+    private static final class NodeGroups {
+
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        private final int[] parents;
+
+        private NodeGroups(Collection<EsgNode> nodes) {
+            parents = new int[nodes.size()];
+            for (EsgNode node : nodes) {
+                int index = indexes.size();
+                indexes.put(node.getName().toString(), index);
+                parents[index] = index;
+            }
+        }
+
+        private int find(String node) {
+            Integer index = indexes.get(node);
+            if (index == null) {
+                throw new EsgException("Unknown node '" + node + "'");
+            }
+            int root = index;
+            while (parents[root] != root) {
+                root = parents[root];
+            }
+            // path compression
+            int i = index;
+            while (parents[i] != root) {
+                int next = parents[i];
+                parents[i] = root;
+                i = next;
+            }
+            return root;
+        }
+
+        private void union(Esg8charName node1, Esg8charName node2) {
+            int root1 = find(node1.toString());
+            int root2 = find(node2.toString());
+            if (root1 != root2) {
+                // the smallest index is the root, so that the group is named after its first node
+                parents[Math.max(root1, root2)] = Math.min(root1, root2);
+            }
+        }
+    }
+
+    /**
+     * Conversion state
+     */
+    private static final class ImportContext {
+
+        private final Network network;
+
+        private final Map<String, EsgNode> nodes = new HashMap<>();
+
+        private final Map<String, VoltageLevel> voltageLevels = new HashMap<>();
+
+        private final Map<String, String> busIds = new HashMap<>();
+
+        private ImportContext(Network network) {
+            this.network = network;
+        }
+    }
+
+    public Network toNetwork(NetworkFactory networkFactory, String networkId) {
+        Objects.requireNonNull(networkFactory);
+        Objects.requireNonNull(networkId);
+
+        checkSupported();
+
+        ImportContext context = new ImportContext(networkFactory.createNetwork(networkId, SOURCE_FORMAT));
+        context.network.setCaseDate(parameters.getEditDate().toDateTimeAtStartOfDay());
+
+        createTopology(context);
+        createLines(context);
+        createDissymmetricalBranches(context);
+        createTransformers(context);
+        createLoads(context);
+        createGenerators(context);
+        createBanks(context);
+        createStaticVarCompensators(context);
+        return context.network;
+    }
+
+    private void checkSupported() {
+        if (!esgNetwork.getThreeWindingTransformers().isEmpty()) {
+            throw new EsgException("Three windings transformers are not supported: " + esgNetwork.getThreeWindingTransformers().size() + " found");
+        }
+        int dcElementCount = esgNetwork.getDCNodes().size() + esgNetwork.getDCLinks().size() + esgNetwork.getAcdcVscConverters().size();
+        if (dcElementCount > 0) {
+            throw new EsgException("DC nodes, links and converters are not supported: " + dcElementCount + " found");
+        }
+    }
+
+    private String getIidmId(String esgId, String defaultId) {
+        if (dictionary != null && dictionary.esgIdExists(esgId)) {
+            return dictionary.getIidmId(esgId);
+        }
+        return defaultId;
+    }
+
+    private String getIidmId(Esg8charName name) {
+        String esgId = name.toString().trim();
+        return getIidmId(esgId, esgId);
+    }
+
+    private String getIidmId(EsgBranchName name) {
+        return getIidmId(name.toString(), name.getNode1Name().toString().trim() + "-" + name.getNode2Name().toString().trim() + "-" + name.getXpp());
+    }
+
+    /**
+     * Ids are unique among all the network elements in IIDM, whereas Eurostag names are unique by element type
+     */
+    private static String getUniqueId(ImportContext context, String id) {
+        return Identifiables.getUniqueId(id, i -> context.network.getIdentifiable(i) != null);
+    }
+
+    private static Country getCountry(Esg2charName area) {
+        String code = area.toString();
+        return Arrays.stream(Country.values()).filter(c -> c.name().equals(code)).findFirst().orElse(null);
+    }
+
+    private Set<String> getReferencedNodes() {
+        Set<String> referencedNodes = new HashSet<>();
+        esgNetwork.getCouplingDevices().forEach(c -> addNodes(referencedNodes, c.getName()));
+        esgNetwork.getLines().forEach(l -> addNodes(referencedNodes, l.getName()));
+        esgNetwork.getDissymmetricalBranches().forEach(b -> addNodes(referencedNodes, b.getName()));
+        esgNetwork.getDetailedTwoWindingTransformers().forEach(t -> addNodes(referencedNodes, t.getName()));
+        esgNetwork.getLoads().forEach(l -> referencedNodes.add(l.getZnodlo().toString()));
+        esgNetwork.getGenerators().forEach(g -> referencedNodes.add(g.getZnodge().toString()));
+        esgNetwork.getCapacitorOrReactorBanks().forEach(b -> referencedNodes.add(b.getZnodba().toString()));
+        esgNetwork.getStaticVarCompensators().forEach(svc -> referencedNodes.add(svc.getZnodsvc().toString()));
+        return referencedNodes;
+    }
+
+    private static void addNodes(Set<String> nodes, EsgBranchName name) {
+        nodes.add(name.getNode1Name().toString());
+        nodes.add(name.getNode2Name().toString());
+    }
+
+    private void createTopology(ImportContext context) {
+        Set<String> referencedNodes = getReferencedNodes();
+        List<EsgNode> nodes = esgNetwork.getNodes().stream()
+                .filter(node -> !EchUtil.FAKE_AREA.equals(node.getArea().toString()) || referencedNodes.contains(node.getName().toString()))
+                .collect(Collectors.toList());
+        NodeGroups voltageLevelGroups = new NodeGroups(nodes);
+        NodeGroups substationGroups = new NodeGroups(nodes);
+        for (EsgCouplingDevice couplingDevice : esgNetwork.getCouplingDevices()) {
+            voltageLevelGroups.union(couplingDevice.getName().getNode1Name(), couplingDevice.getName().getNode2Name());
+            substationGroups.union(couplingDevice.getName().getNode1Name(), couplingDevice.getName().getNode2Name());
+        }
+        for (EsgDetailedTwoWindingTransformer transformer : esgNetwork.getDetailedTwoWindingTransformers()) {
+            substationGroups.union(transformer.getName().getNode1Name(), transformer.getName().getNode2Name());
+        }
+
+        // the substations and voltage levels are named after their first node
+        Map<Integer, Substation> substations = new HashMap<>();
+        Map<Integer, VoltageLevel> voltageLevels = new HashMap<>();
+        for (EsgNode node : nodes) {
+            String name = node.getName().toString();
+            String busId = getUniqueId(context, getIidmId(node.getName()));
+            Substation substation = substations.computeIfAbsent(substationGroups.find(name), i -> context.network.newSubstation()
+                    .setId(getUniqueId(context, busId + "_S"))
+                    .setCountry(getCountry(node.getArea()))
+                    .add());
+            VoltageLevel voltageLevel = voltageLevels.computeIfAbsent(voltageLevelGroups.find(name), i -> substation.newVoltageLevel()
+                    .setId(getUniqueId(context, busId + "_VL"))
+                    .setNominalV(node.getVbase())
+                    .setTopologyKind(TopologyKind.BUS_BREAKER)
+                    .add());
+            if (voltageLevel.getNominalV() != node.getVbase()) {
+                LOGGER.warn("Node {} has a base voltage of {} kV, {} kV expected in its voltage level", name, node.getVbase(), voltageLevel.getNominalV());
+            }
+            Bus bus = voltageLevel.getBusBreakerView().newBus()
+                    .setId(busId)
+                    .add();
+            bus.setV(node.getVinit() * node.getVbase());
+            bus.setAngle(node.getVangl());
+
+            context.nodes.put(name, node);
+            context.voltageLevels.put(name, voltageLevel);
+            context.busIds.put(name, busId);
+        }
+
+        for (EsgCouplingDevice couplingDevice : esgNetwork.getCouplingDevices()) {
+            String node1 = couplingDevice.getName().getNode1Name().toString();
+            context.voltageLevels.get(node1).getBusBreakerView().newSwitch()
+                    .setId(getUniqueId(context, getIidmId(couplingDevice.getName())))
+                    .setBus1(context.busIds.get(node1))
+                    .setBus2(context.busIds.get(couplingDevice.getName().getNode2Name().toString()))
+                    .setOpen(couplingDevice.getConnectionStatus() == EsgCouplingDevice.ConnectionStatus.OPEN)
+                    .add();
+        }
+    }
+
+    private static boolean isConnected1(EsgBranchConnectionStatus status) {
+        return status == EsgBranchConnectionStatus.CLOSED_AT_BOTH_SIDE || status == EsgBranchConnectionStatus.OPEN_AT_RECEIVING_SIDE;
+    }
+
+    private static boolean isConnected2(EsgBranchConnectionStatus status) {
+        return status == EsgBranchConnectionStatus.CLOSED_AT_BOTH_SIDE || status == EsgBranchConnectionStatus.OPEN_AT_SENDING_SIDE;
+    }
+
+    private static <T extends BranchAdder<T>> T setTerminals(ImportContext context, BranchAdder<T> adder, EsgBranchName name,
+                                                             EsgBranchConnectionStatus status) {
+        String node1 = name.getNode1Name().toString();
+        String node2 = name.getNode2Name().toString();
+        return adder.setVoltageLevel1(context.voltageLevels.get(node1).getId())
+                .setConnectableBus1(context.busIds.get(node1))
+                .setBus1(isConnected1(status) ? context.busIds.get(node1) : null)
+                .setVoltageLevel2(context.voltageLevels.get(node2).getId())
+                .setConnectableBus2(context.busIds.get(node2))
+                .setBus2(isConnected2(status) ? context.busIds.get(node2) : null);
+    }
+
+    private static <T extends InjectionAdder<T>> T setTerminal(ImportContext context, InjectionAdder<T> adder, Esg8charName node,
+                                                               boolean connected) {
+        String busId = context.busIds.get(node.toString());
+        if (busId == null) {
+            throw new EsgException("Unknown node '" + node + "'");
+        }
+        return adder.setConnectableBus(busId)
+                .setBus(connected ? busId : null);
+    }
+
+    private void createLines(ImportContext context) {
+        double snref = parameters.getSnref();
+        for (EsgLine line : esgNetwork.getLines()) {
+            double vnom2 = Math.pow(context.nodes.get(line.getName().getNode1Name().toString()).getVbase(), 2);
+            // the susceptance and conductance are given by side
+            double g = line.getGs() * snref / vnom2;
+            double b = line.getBs() * snref / vnom2;
+            setTerminals(context, context.network.newLine(), line.getName(), line.getStatus())
+                    .setId(getUniqueId(context, getIidmId(line.getName())))
+                    .setR(line.getRb() * vnom2 / snref)
+                    .setX(line.getRxb() * vnom2 / snref)
+                    .setG1(g)
+                    .setB1(b)
+                    .setG2(g)
+                    .setB2(b)
+                    .add();
+        }
+    }
+
+    private void createDissymmetricalBranches(ImportContext context) {
+        double snref = parameters.getSnref();
+        for (EsgDissymmetricalBranch branch : esgNetwork.getDissymmetricalBranches()) {
+            double vnom2 = Math.pow(context.nodes.get(branch.getName().getNode1Name().toString()).getVbase(), 2);
+            setTerminals(context, context.network.newLine(), branch.getName(), branch.getStatus())
+                    .setId(getUniqueId(context, getIidmId(branch.getName())))
+                    .setR(branch.getRb() * vnom2 / snref)
+                    .setX(branch.getRxb() * vnom2 / snref)
+                    .setG1(branch.getGs() * snref / vnom2)
+                    .setB1(branch.getBs() * snref / vnom2)
+                    .setG2(branch.getGs2() * snref / vnom2)
+                    .setB2(branch.getBs2() * snref / vnom2)
+                    .add();
+        }
+    }
+
+    /**
+     * Reactance [Ohm] of a tap, from its leakage impedance
+     */
+    private static double getX(EsgDetailedTwoWindingTransformer.Tap tap, double r, double rate) {
+        double zb = tap.getUno2() * tap.getUno2() / rate;
+        if (tap.getUcc() < 0) {
+            return tap.getUcc() / 100 * zb;
+        }
+        double z = tap.getUcc() / 100 * zb;
+        return Math.sqrt(Math.max(0, z * z - r * r));
+    }
+
+    private void createTransformers(ImportContext context) {
+        for (EsgDetailedTwoWindingTransformer transformer : esgNetwork.getDetailedTwoWindingTransformers()) {
+            List<EsgDetailedTwoWindingTransformer.Tap> taps = transformer.getTaps();
+            if (taps.isEmpty()) {
+                throw new EsgException("Transformer " + transformer.getName() + " has no tap");
+            }
+            EsgDetailedTwoWindingTransformer.Tap nominalTap = taps.stream()
+                    .filter(tap -> tap.getIplo() == transformer.getKtpnom())
+                    .findFirst()
+                    .orElse(taps.get(0));
+
+            //...losses, from the base rate to Ohm and Siemens at the secondary voltage side
+            double rate = transformer.getRate();
+            double nomiU2 = nominalTap.getUno2();
+            double zb2 = nomiU2 * nomiU2 / rate;
+            double r = transformer.getPcu() / 100 * zb2;
+            double x = getX(nominalTap, r, rate);
+            double gpu = transformer.getPfer() / 100;
+            double modgb = transformer.getCmagn() / 100;
+            double g = gpu / zb2;
+            double b = -Math.sqrt(Math.max(0, modgb * modgb - gpu * gpu)) / zb2;
+
+            String node1 = transformer.getName().getNode1Name().toString();
+            Substation substation = context.voltageLevels.get(node1).getSubstation()
+                    .orElseThrow(() -> new EsgException("Voltage level of node " + node1 + " has no substation"));
+            TwoWindingsTransformer twt = setTerminals(context, substation.newTwoWindingsTransformer(), transformer.getName(), transformer.getStatus())
+                    .setId(getUniqueId(context, getIidmId(transformer.getName())))
+                    .setRatedU1(nominalTap.getUno1())
+                    .setRatedU2(nomiU2)
+                    .setR(r)
+                    .setX(x)
+                    .setG(g)
+                    .setB(b)
+                    .add();
+
+            if (taps.size() > 1 || nominalTap.getDephas() != 0) {
+                int tapPosition = Math.max(1, Math.min(taps.size(), transformer.getKtap8()));
+                if (taps.stream().anyMatch(tap -> tap.getDephas() != 0)) {
+                    createPhaseTapChanger(twt, taps, nominalTap, tapPosition, r, x, rate);
+                } else {
+                    createRatioTapChanger(twt, transformer, taps, nominalTap, tapPosition, r, x, rate);
+                }
+            }
+        }
+    }
+
+    private static double getRho(EsgDetailedTwoWindingTransformer.Tap tap, EsgDetailedTwoWindingTransformer.Tap nominalTap) {
+        return (tap.getUno2() / tap.getUno1()) / (nominalTap.getUno2() / nominalTap.getUno1());
+    }
+
+    private static double getDeviation(double value, double nominalValue) {
+        return nominalValue != 0 ? (value - nominalValue) / nominalValue * 100 : 0;
+    }
+
+    private static void createPhaseTapChanger(TwoWindingsTransformer twt, List<EsgDetailedTwoWindingTransformer.Tap> taps,
+                                              EsgDetailedTwoWindingTransformer.Tap nominalTap, int tapPosition, double r, double x, double rate) {
+        PhaseTapChangerAdder adder = twt.newPhaseTapChanger()
+                .setLowTapPosition(1)
+                .setTapPosition(tapPosition)
+                .setRegulationMode(PhaseTapChanger.RegulationMode.FIXED_TAP)
+                .setRegulating(false);
+        for (EsgDetailedTwoWindingTransformer.Tap tap : taps) {
+            adder.beginStep()
+                    .setAlpha(tap.getDephas())
+                    .setRho(getRho(tap, nominalTap))
+                    .setR(0)
+                    .setX(getDeviation(getX(tap, r, rate), x))
+                    .setG(0)
+                    .setB(0)
+                    .endStep();
+        }
+        adder.add();
+    }
+
+    private static void createRatioTapChanger(TwoWindingsTransformer twt, EsgDetailedTwoWindingTransformer transformer,
+                                              List<EsgDetailedTwoWindingTransformer.Tap> taps, EsgDetailedTwoWindingTransformer.Tap nominalTap,
+                                              int tapPosition, double r, double x, double rate) {
+        Terminal regulationTerminal = null;
+        if (transformer.getXregtr() == EsgDetailedTwoWindingTransformer.RegulatingMode.VOLTAGE && transformer.getZbusr() != null
+                && !Double.isNaN(transformer.getVoltr())) {
+            if (transformer.getZbusr().equals(transformer.getName().getNode2Name())) {
+                regulationTerminal = twt.getTerminal2();
+            } else if (transformer.getZbusr().equals(transformer.getName().getNode1Name())) {
+                regulationTerminal = twt.getTerminal1();
+            } else {
+                LOGGER.warn("Transformer {} regulates the remote node {}, the regulation is not imported", twt.getId(), transformer.getZbusr());
+            }
+        }
+
+        RatioTapChangerAdder adder = twt.newRatioTapChanger()
+                .setLowTapPosition(1)
+                .setTapPosition(tapPosition)
+                .setLoadTapChangingCapabilities(true)
+                .setRegulating(regulationTerminal != null)
+                .setRegulationTerminal(regulationTerminal)
+                .setTargetV(transformer.getVoltr())
+                .setTargetDeadband(regulationTerminal != null ? 0 : Double.NaN);
+        for (EsgDetailedTwoWindingTransformer.Tap tap : taps) {
+            adder.beginStep()
+                    .setRho(getRho(tap, nominalTap))
+                    .setR(0)
+                    .setX(getDeviation(getX(tap, r, rate), x))
+                    .setG(0)
+                    .setB(0)
+                    .endStep();
+        }
+        adder.add();
+    }
+
+    private void createLoads(ImportContext context) {
+        for (EsgLoad load : esgNetwork.getLoads()) {
+            setTerminal(context, context.voltageLevels.get(load.getZnodlo().toString()).newLoad(), load.getZnodlo(),
+                    load.getIloadst() == EsgConnectionStatus.CONNECTED)
+                    .setId(getUniqueId(context, getIidmId(load.getZnamlo())))
+                    .setP0(load.getPldstp() + load.getPldsti() + load.getPldstz())
+                    .setQ0(load.getQldstp() + load.getQldsti() + load.getQldstz())
+                    .add();
+        }
+    }
+
+    private void createGenerators(ImportContext context) {
+        for (EsgGenerator generator : esgNetwork.getGenerators()) {
+            boolean voltageRegulatorOn = generator.getXregge() == EsgRegulatingMode.REGULATING && !Double.isNaN(generator.getVregge());
+            Generator g = setTerminal(context, context.voltageLevels.get(generator.getZnodge().toString()).newGenerator(), generator.getZnodge(),
+                    generator.getXgenest() == EsgConnectionStatus.CONNECTED)
+                    .setId(getUniqueId(context, getIidmId(generator.getZnamge())))
+                    .setMinP(generator.getPgmin())
+                    .setMaxP(generator.getPgmax())
+                    .setTargetP(generator.getPgen())
+                    .setTargetQ(Double.isNaN(generator.getQgen()) ? 0 : generator.getQgen())
+                    .setTargetV(voltageRegulatorOn ? generator.getVregge() : Double.NaN)
+                    .setVoltageRegulatorOn(voltageRegulatorOn)
+                    .add();
+            g.newMinMaxReactiveLimits()
+                    .setMinQ(generator.getQgmin())
+                    .setMaxQ(generator.getQgmax())
+                    .add();
+            if (!Double.isNaN(generator.getQgensh()) && generator.getQgensh() != 1) {
+                g.newExtension(CoordinatedReactiveControlAdder.class)
+                        .withQPercent(generator.getQgensh() * 100)
+                        .add();
+            }
+        }
+    }
+
+    private void createBanks(ImportContext context) {
+        for (EsgCapacitorOrReactorBank bank : esgNetwork.getCapacitorOrReactorBanks()) {
+            double vnom2 = Math.pow(context.nodes.get(bank.getZnodba().toString()).getVbase(), 2);
+            int maximumSectionCount = Math.max(1, bank.getImaxba());
+            setTerminal(context, context.voltageLevels.get(bank.getZnodba().toString()).newShuntCompensator(), bank.getZnodba(), true)
+                    .setId(getUniqueId(context, getIidmId(bank.getZnamba())))
+                    .setSectionCount(Math.min(maximumSectionCount, bank.getIeleba()))
+                    .newLinearModel()
+                        .setBPerSection(bank.getRcapba() / vnom2)
+                        .setGPerSection(bank.getPlosba() / 1000 / vnom2)
+                        .setMaximumSectionCount(maximumSectionCount)
+                    .add()
+                    .add();
+        }
+    }
+
+    private void createStaticVarCompensators(ImportContext context) {
+        for (EsgStaticVarCompensator svc : esgNetwork.getStaticVarCompensators()) {
+            double vnom2 = Math.pow(context.nodes.get(svc.getZnodsvc().toString()).getVbase(), 2);
+            boolean voltageRegulation = svc.getXregsvc() == EsgRegulatingMode.REGULATING && !Double.isNaN(svc.getVregsvc());
+            setTerminal(context, context.voltageLevels.get(svc.getZnodsvc().toString()).newStaticVarCompensator(), svc.getZnodsvc(),
+                    svc.getXsvcst() == EsgConnectionStatus.CONNECTED)
+                    .setId(getUniqueId(context, getIidmId(svc.getZnamsvc())))
+                    .setBmin(svc.getBmin() / vnom2)
+                    .setBmax(svc.getBmax() / vnom2)
+                    .setVoltageSetpoint(svc.getVregsvc())
+                    .setReactivePowerSetpoint(svc.getBinit())
+                    .setRegulationMode(voltageRegulation ? StaticVarCompensator.RegulationMode.VOLTAGE : StaticVarCompensator.RegulationMode.REACTIVE_POWER)
+                    .add();
+        }
+    }
+}
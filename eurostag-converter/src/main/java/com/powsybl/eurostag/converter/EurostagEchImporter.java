@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.converter;
+
+import com.google.auto.service.AutoService;
+import com.google.common.io.ByteStreams;
+import com.powsybl.commons.datasource.DataSourceUtil;
+import com.powsybl.commons.datasource.ReadOnlyDataSource;
+import com.powsybl.eurostag.model.EsgNetwork;
+import com.powsybl.eurostag.model.io.EsgReader;
+import com.powsybl.iidm.import_.Importer;
+import com.powsybl.iidm.network.Network;
+import com.powsybl.iidm.network.NetworkFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Import an ECH file into an IIDM network.
+ * <p>
+ * If the data source contains a dictionary, as dumped by {@link EurostagDictionary#dump(java.nio.file.Path)}, in a file
+ * named {@code <basename>_dict.csv}, the original IIDM ids are restored.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+@AutoService(Importer.class)
+public class EurostagEchImporter implements Importer {
+
+    private static final String FORMAT = "ECH";
+
+    private static final String EXTENSION = "ech";
+
+    static final String DICTIONARY_SUFFIX = "_dict";
+
+    static final String DICTIONARY_EXTENSION = "csv";
+
+    @Override
+    public String getFormat() {
+        return FORMAT;
+    }
+
+    @Override
+    public String getComment() {
+        return "Eurostag ECH file format";
+    }
+
+    @Override
+    public boolean exists(ReadOnlyDataSource dataSource) {
+        try {
+            return dataSource.exists(null, EXTENSION);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Import from a data source. The data sources do not expose the path of their files, so the ECH content is read
+     * in the heap: use {@link #importData(Path, NetworkFactory, Properties)} to map a file instead.
+     */
+    @Override
+    public Network importData(ReadOnlyDataSource dataSource, NetworkFactory networkFactory, Properties parameters) {
+        Objects.requireNonNull(dataSource);
+        Objects.requireNonNull(networkFactory);
+        try {
+            byte[] content;
+            try (InputStream is = dataSource.newInputStream(null, EXTENSION)) {
+                content = ByteStreams.toByteArray(is);
+            }
+            EsgReader reader = new EsgReader(ByteBuffer.wrap(content), dataSource.getBaseName() + "." + EXTENSION);
+
+            EurostagDictionary dictionary = null;
+            if (dataSource.exists(DICTIONARY_SUFFIX, DICTIONARY_EXTENSION)) {
+                try (InputStream is = dataSource.newInputStream(DICTIONARY_SUFFIX, DICTIONARY_EXTENSION)) {
+                    dictionary = loadDictionary(is);
+                }
+            }
+            return importData(reader, dictionary, networkFactory, dataSource.getBaseName());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Import an ECH file, memory-mapped rather than read in the heap. The dictionary is looked for in the same
+     * directory, in the file named {@code <basename>_dict.csv}.
+     */
+    public Network importData(Path file, NetworkFactory networkFactory, Properties parameters) {
+        Objects.requireNonNull(file);
+        Objects.requireNonNull(networkFactory);
+        String baseName = DataSourceUtil.getBaseName(file);
+        try {
+            EurostagDictionary dictionary = null;
+            Path dictionaryFile = file.resolveSibling(baseName + DICTIONARY_SUFFIX + "." + DICTIONARY_EXTENSION);
+            if (Files.exists(dictionaryFile)) {
+                try (InputStream is = Files.newInputStream(dictionaryFile)) {
+                    dictionary = loadDictionary(is);
+                }
+            }
+            return importData(new EsgReader(file), dictionary, networkFactory, baseName);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static EurostagDictionary loadDictionary(InputStream is) throws IOException {
+        EurostagDictionary dictionary = EurostagDictionary.create(new EurostagEchExportConfig());
+        dictionary.load(is);
+        return dictionary;
+    }
+
+    private static Network importData(EsgReader reader, EurostagDictionary dictionary, NetworkFactory networkFactory, String baseName) throws IOException {
+        EsgNetwork esgNetwork = reader.read();
+        return new EurostagEchImport(esgNetwork, reader.getParameters(), dictionary).toNetwork(networkFactory, baseName);
+    }
+}
@@ -72,6 +72,13 @@ public final class EurostagFakeNodes {
         this.countUsesMap = countUsesMap;
     }
 
+    /**
+     * Copy of these fake nodes with their own usage counters, so that the uses of an export do not leak into another one.
+     */
+    public EurostagFakeNodes copy() {
+        return new EurostagFakeNodes(fakeNodesMap, AtomicLongMap.create(countUsesMap.asMap()), network);
+    }
+
     public Map<String, String> toMap() {
         return fakeNodesMap;
     }
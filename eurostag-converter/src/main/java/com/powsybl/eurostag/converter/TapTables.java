@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.converter;
+
+import com.powsybl.eurostag.model.EsgDetailedTwoWindingTransformer;
+
+import java.util.*;
+
+/**
+ * Tap tables of the two windings transformers. A table is computed once per distinct definition (steps data, nominal
+ * voltage and base powers) and the same immutable list is shared by all the transformers having this definition.
+ * <p>
+ * This class is not thread safe, an instance is expected to be used by a single export.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+final class TapTables {
+
+    /**
+     * Number of values describing a step: rho, r, x and phase shift
+     */
+    static final int STEP_SIZE = 4;
+
+    private static final int HEADER_SIZE = 3;
+
+    private static final class Key {
+
+        private final long[] data;
+
+        private final int hash;
+
+        private Key(double nomiU2, double snref, double rate, double[] steps) {
+            data = new long[HEADER_SIZE + steps.length];
+            data[0] = Double.doubleToLongBits(nomiU2);
+            data[1] = Double.doubleToLongBits(snref);
+            data[2] = Double.doubleToLongBits(rate);
+            for (int i = 0; i < steps.length; i++) {
+                data[HEADER_SIZE + i] = Double.doubleToLongBits(steps[i]);
+            }
+            hash = Arrays.hashCode(data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && hash == ((Key) obj).hash && Arrays.equals(data, ((Key) obj).data);
+        }
+    }
+
+    private final Map<Key, List<EsgDetailedTwoWindingTransformer.Tap>> tables = new HashMap<>();
+
+    /**
+     * Get the tap table of the given steps, {@link #STEP_SIZE} values per step.
+     *
+     * @param nomiU2 nominal voltage of the side 2 [kV]
+     * @param snref the reference apparent power [MVA]
+     * @param rate the rated apparent power [MVA]
+     * @param steps the rho, r [Ohm], x [Ohm] and phase shift [deg] of each step
+     * @return an immutable list of taps
+     */
+    List<EsgDetailedTwoWindingTransformer.Tap> get(double nomiU2, double snref, double rate, double[] steps) {
+        if (steps.length == 0 || steps.length % STEP_SIZE != 0) {
+            throw new IllegalArgumentException("Invalid steps data length: " + steps.length);
+        }
+        return tables.computeIfAbsent(new Key(nomiU2, snref, rate, steps), k -> createTaps(nomiU2, snref, rate, steps));
+    }
+
+    int size() {
+        return tables.size();
+    }
+
+    private static List<EsgDetailedTwoWindingTransformer.Tap> createTaps(double nomiU2, double snref, double rate, double[] steps) {
+        List<EsgDetailedTwoWindingTransformer.Tap> taps = new ArrayList<>(steps.length / STEP_SIZE);
+        for (int i = 0; i < steps.length; i += STEP_SIZE) {
+            taps.add(createTap(i / STEP_SIZE + 1, steps[i], steps[i + 1], steps[i + 2], steps[i + 3], nomiU2, snref, rate));
+        }
+        return Collections.unmodifiableList(taps);
+    }
+
+    private static EsgDetailedTwoWindingTransformer.Tap createTap(int iplo, double rho, double dr, double dx, double dephas,
+                                                                  double nomiU2, double snref, double rate) {
+        double uno1 = nomiU2 / rho;
+        double uno2 = nomiU2;
+
+        //...mTrans.getR() = Get the nominal series resistance specified in Ω at the secondary voltage side.
+        double zb2 = Math.pow(nomiU2, 2) / snref;
+        double rpu2 = dr / zb2;  //...total line resistance  [p.u.](Base snref)
+        double xpu2 = dx / zb2;  //...total line reactance   [p.u.](Base snref)
+
+        //...leakage impedance [%] (base rate)
+        double ucc;
+        if (xpu2 < 0) {
+            ucc = xpu2 * 100 * rate / snref;
+        } else {
+            double zpu2 = Math.hypot(rpu2, xpu2);
+            ucc = zpu2 * 100 * rate / snref;
+        }
+
+        return new EsgDetailedTwoWindingTransformer.Tap(iplo, dephas, uno1, uno2, ucc);
+    }
+}
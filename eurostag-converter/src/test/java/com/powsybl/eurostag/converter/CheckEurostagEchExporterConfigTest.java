@@ -16,6 +16,7 @@ import org.junit.Test;
 
 import java.nio.file.FileSystem;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -80,4 +81,12 @@ public class CheckEurostagEchExporterConfigTest {
         assertTrue(config.isExportMainCCOnly());
     }
 
+    @Test
+    public void testConfigParallelism() {
+        assertEquals(1, getConfigFromFile(fileSystem, false, false).getParallelism());
+
+        MapModuleConfig moduleConfig = platformConfig.createModuleConfig("eurostag-ech-export");
+        moduleConfig.setStringProperty("parallelism", "4");
+        assertEquals(4, EurostagEchExportConfig.load(platformConfig).getParallelism());
+    }
 }
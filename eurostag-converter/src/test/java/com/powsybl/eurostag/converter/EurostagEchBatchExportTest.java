@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.converter;
+
+import com.google.common.io.CharStreams;
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+import com.powsybl.commons.PowsyblException;
+import com.powsybl.eurostag.model.EsgGeneralParameters;
+import com.powsybl.iidm.network.Network;
+import com.powsybl.iidm.network.test.EurostagTutorialExample1Factory;
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public class EurostagEchBatchExportTest {
+
+    private FileSystem fileSystem;
+
+    @Before
+    public void setUp() {
+        fileSystem = Jimfs.newFileSystem(Configuration.unix());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        fileSystem.close();
+    }
+
+    @Test
+    public void test() throws IOException {
+        Path inputDir = Files.createDirectories(fileSystem.getPath("/input"));
+        Path outputDir = Files.createDirectories(fileSystem.getPath("/output"));
+        for (String name : Arrays.asList("sim1.xiidm", "sim2.xiidm", "broken.xiidm")) {
+            Files.write(inputDir.resolve(name), new byte[1024]);
+        }
+        Files.write(fileSystem.getPath("/manifest.txt"), Arrays.asList("# networks", "input/sim2.xiidm", "", "input/sim1.xiidm"), StandardCharsets.UTF_8);
+
+        Function<Path, Network> importer = file -> {
+            if (file.getFileName().toString().startsWith("broken")) {
+                throw new PowsyblException("Unable to import " + file);
+            }
+            return EurostagTutorialExample1Factory.create();
+        };
+        EsgGeneralParameters parameters = new EsgGeneralParameters();
+        parameters.setEditDate(LocalDate.parse("2016-03-01"));
+        EurostagEchBatchExport batchExport = new EurostagEchBatchExport(new EurostagEchExportConfig(), parameters, importer, 2, 16L * 1024 * 1024);
+
+        EurostagEchBatchExport.Summary summary = batchExport.export(inputDir, outputDir);
+        assertEquals(3, summary.getResults().size());
+        assertEquals(1, summary.getFailures().size());
+        assertEquals(inputDir.resolve("broken.xiidm"), summary.getFailures().get(0).getInput());
+        assertTrue(summary.getFailures().get(0).getFailure().isPresent());
+
+        String reference = CharStreams.toString(new InputStreamReader(getClass().getResourceAsStream("/eurostag-tutorial-example1.ech"), StandardCharsets.UTF_8));
+        for (String name : Arrays.asList("sim1.ech", "sim2.ech")) {
+            assertEquals(reference, new String(Files.readAllBytes(outputDir.resolve(name)), StandardCharsets.UTF_8));
+        }
+        assertFalse(Files.exists(outputDir.resolve("broken.ech")));
+
+        List<Path> inputs = EurostagEchBatchExport.listInputs(fileSystem.getPath("/manifest.txt"));
+        assertEquals(Arrays.asList(inputDir.resolve("sim2.xiidm"), inputDir.resolve("sim1.xiidm")), inputs);
+
+        // only the last extension is removed, and two inputs can't be exported to the same file
+        List<Path> versions = Arrays.asList(inputDir.resolve("sim.v1.xiidm"), inputDir.resolve("sim.v2.xiidm"));
+        for (Path version : versions) {
+            Files.write(version, new byte[1024]);
+        }
+        summary = batchExport.export(versions, outputDir);
+        assertTrue(summary.getFailures().isEmpty());
+        assertTrue(Files.exists(outputDir.resolve("sim.v1.ech")));
+        assertTrue(Files.exists(outputDir.resolve("sim.v2.ech")));
+        List<Path> duplicates = Arrays.asList(inputDir.resolve("sim1.xiidm"), fileSystem.getPath("/sim1.xiidm"));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> batchExport.export(duplicates, outputDir));
+        assertEquals("Inputs /input/sim1.xiidm and /sim1.xiidm are exported to the same file /output/sim1.ech", e.getMessage());
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.converter;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+import com.powsybl.eurostag.model.EsgGeneralParameters;
+import com.powsybl.eurostag.model.EsgSpecialParameters;
+import com.powsybl.eurostag.model.io.EsgWriter;
+import com.powsybl.iidm.network.Network;
+import com.powsybl.iidm.network.test.EurostagTutorialExample1Factory;
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public class EurostagEchExportCacheTest {
+
+    private FileSystem fileSystem;
+
+    @Before
+    public void setUp() {
+        fileSystem = Jimfs.newFileSystem(Configuration.unix());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        fileSystem.close();
+    }
+
+    @Test
+    public void test() throws IOException {
+        Path cacheDir = fileSystem.getPath("/cache");
+        EurostagEchExportCache cache = new EurostagEchExportCache(cacheDir, 1024 * 1024, null);
+        EurostagEchExportConfig config = new EurostagEchExportConfig();
+        EsgGeneralParameters parameters = new EsgGeneralParameters();
+        parameters.setEditDate(LocalDate.parse("2016-03-01"));
+
+        Network network = EurostagTutorialExample1Factory.create();
+        Path ech1 = fileSystem.getPath("/sim1.ech");
+        Path dict1 = fileSystem.getPath("/sim1.dict");
+        assertFalse(cache.write(network, config, parameters, new EsgSpecialParameters(), ech1, dict1));
+        assertEquals(1, cache.getEntryCount());
+
+        // same data in another network instance
+        Path ech2 = fileSystem.getPath("/sim2.ech");
+        Path dict2 = fileSystem.getPath("/sim2.dict");
+        assertTrue(cache.write(EurostagTutorialExample1Factory.create(), config, parameters, new EsgSpecialParameters(), ech2, dict2));
+        assertArrayEquals(Files.readAllBytes(ech1), Files.readAllBytes(ech2));
+        assertArrayEquals(Files.readAllBytes(dict1), Files.readAllBytes(dict2));
+
+        // any change in the inputs is a miss
+        assertFalse(cache.write(network, config, parameters, null, ech2, dict2));
+        network.getLoad("LOAD").setP0(601);
+        assertFalse(cache.write(network, config, parameters, null, ech2, dict2));
+        assertEquals(3, cache.getEntryCount());
+
+        // entries are restored when the cache is reopened
+        EurostagEchExportCache cache2 = new EurostagEchExportCache(cacheDir, 1024 * 1024, null);
+        assertEquals(3, cache2.getEntryCount());
+        assertEquals(cache.getSize(), cache2.getSize());
+        assertTrue(cache2.write(network, config, parameters, null, ech2, dict2));
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        EsgGeneralParameters parameters = new EsgGeneralParameters();
+        parameters.setEditDate(LocalDate.parse("2016-03-01"));
+        EurostagEchExportConfig config = new EurostagEchExportConfig();
+        Path ech = fileSystem.getPath("/sim.ech");
+        Path dict = fileSystem.getPath("/sim.dict");
+
+        Network network = EurostagTutorialExample1Factory.create();
+        EurostagEchExportCache cache = new EurostagEchExportCache(fileSystem.getPath("/cache"), Long.MAX_VALUE, null);
+        cache.write(network, config, parameters, null, ech, dict);
+        long entrySize = cache.getSize();
+
+        // room for two entries only
+        cache = new EurostagEchExportCache(fileSystem.getPath("/cache2"), 2 * entrySize + entrySize / 2, null);
+        assertFalse(cache.write(network, config, parameters, null, ech, dict));
+        network.getLoad("LOAD").setP0(601);
+        assertFalse(cache.write(network, config, parameters, null, ech, dict));
+        network.getLoad("LOAD").setP0(600);
+        assertTrue(cache.write(network, config, parameters, null, ech, dict));
+        network.getLoad("LOAD").setP0(602);
+        assertFalse(cache.write(network, config, parameters, null, ech, dict));
+        assertEquals(2, cache.getEntryCount());
+
+        // the least recently used entry (P0=601) has been evicted
+        network.getLoad("LOAD").setP0(600);
+        assertTrue(cache.write(network, config, parameters, null, ech, dict));
+        network.getLoad("LOAD").setP0(601);
+        assertFalse(cache.write(network, config, parameters, null, ech, dict));
+    }
+
+    @Test
+    public void testDicoFile() throws IOException {
+        Path dicoFile = fileSystem.getPath("/dico.csv");
+        Files.write(dicoFile, Arrays.asList("IIDM_ID;EUROSTAG_ID", "GEN;MYGEN"));
+        EsgGeneralParameters parameters = new EsgGeneralParameters();
+        parameters.setEditDate(LocalDate.parse("2016-03-01"));
+        Path ech = fileSystem.getPath("/sim.ech");
+        Path dict = fileSystem.getPath("/sim.dict");
+
+        EurostagEchExportCache cache = new EurostagEchExportCache(fileSystem.getPath("/cache"), 1024 * 1024, dicoFile);
+        assertFalse(cache.write(EurostagTutorialExample1Factory.create(), new EurostagEchExportConfig(), parameters, null, ech, dict));
+        assertTrue(new String(Files.readAllBytes(ech), EsgWriter.CHARSET).contains("MYGEN"));
+        assertTrue(new String(Files.readAllBytes(dict), StandardCharsets.UTF_8).contains("MYGEN"));
+    }
+
+    @Test
+    public void testIncompleteEntries() throws IOException {
+        Path cacheDir = fileSystem.getPath("/cache");
+        EsgGeneralParameters parameters = new EsgGeneralParameters();
+        parameters.setEditDate(LocalDate.parse("2016-03-01"));
+        EurostagEchExportCache cache = new EurostagEchExportCache(cacheDir, 1024 * 1024, null);
+        cache.write(EurostagTutorialExample1Factory.create(), new EurostagEchExportConfig(), parameters, null,
+                fileSystem.getPath("/sim.ech"), fileSystem.getPath("/sim.dict"));
+
+        Files.write(cacheDir.resolve("orphan1.ech"), new byte[10]);
+        Files.write(cacheDir.resolve("orphan2.dict"), new byte[10]);
+        Files.write(cacheDir.resolve("orphan3.ech.tmp1"), new byte[10]);
+        Files.write(cacheDir.resolve("orphan3.dict.tmp1"), new byte[10]);
+
+        EurostagEchExportCache cache2 = new EurostagEchExportCache(cacheDir, 1024 * 1024, null);
+        assertEquals(1, cache2.getEntryCount());
+        assertEquals(cache.getSize(), cache2.getSize());
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            assertEquals(2, files.count());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.converter;
+
+import com.powsybl.eurostag.model.EsgGeneralParameters;
+import com.powsybl.eurostag.model.EsgNetwork;
+import com.powsybl.iidm.network.*;
+import com.powsybl.iidm.network.test.EurostagTutorialExample1Factory;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public class EurostagEchExportDiagnosticsTest {
+
+    @Test
+    public void test() {
+        Network network = EurostagTutorialExample1Factory.create();
+
+        // an isolated island with 3 loads
+        VoltageLevel vl = network.newSubstation()
+                .setId("ISLAND")
+                .setCountry(Country.FR)
+                .add()
+                .newVoltageLevel()
+                .setId("VLISLAND")
+                .setNominalV(20)
+                .setTopologyKind(TopologyKind.BUS_BREAKER)
+                .add();
+        vl.getBusBreakerView().newBus().setId("NISLAND").add();
+        for (String id : Arrays.asList("L1", "L2", "L3")) {
+            vl.newLoad().setId(id).setBus("NISLAND").setConnectableBus("NISLAND").setP0(1).setQ0(0).add();
+        }
+
+        EurostagEchExportConfig config = new EurostagEchExportConfig(false, false, "/%()^$,;?", '#', false, false, true);
+        EurostagEchExportDiagnostics diagnostics = new EurostagEchExportDiagnostics(2);
+        EsgNetwork esgNetwork = new EurostagEchExport(network, config).createNetwork(new EsgGeneralParameters(), diagnostics);
+        assertEquals(1, esgNetwork.getLoads().size());
+
+        assertEquals(EnumSet.of(EurostagEchExportDiagnostics.Category.BUS_NOT_IN_MAIN_COMPONENT,
+                EurostagEchExportDiagnostics.Category.LOAD_NOT_IN_MAIN_COMPONENT), diagnostics.getCategories());
+        assertEquals(1, diagnostics.getCount(EurostagEchExportDiagnostics.Category.BUS_NOT_IN_MAIN_COMPONENT));
+        assertEquals(3, diagnostics.getCount(EurostagEchExportDiagnostics.Category.LOAD_NOT_IN_MAIN_COMPONENT));
+        assertEquals(Arrays.asList("L1", "L2"), diagnostics.getSamples(EurostagEchExportDiagnostics.Category.LOAD_NOT_IN_MAIN_COMPONENT));
+        assertEquals(0, diagnostics.getCount(EurostagEchExportDiagnostics.Category.LINE_NOT_IN_MAIN_COMPONENT));
+        assertTrue(diagnostics.getSamples(EurostagEchExportDiagnostics.Category.LINE_NOT_IN_MAIN_COMPONENT).isEmpty());
+        assertFalse(diagnostics.isEmpty());
+    }
+}
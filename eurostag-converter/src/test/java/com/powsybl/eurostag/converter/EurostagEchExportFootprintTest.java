@@ -0,0 +1,52 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.converter;
+
+import com.powsybl.eurostag.model.EsgGeneralParameters;
+import com.powsybl.eurostag.model.EsgNetwork;
+import com.powsybl.iidm.network.Network;
+import com.powsybl.iidm.network.test.FourSubstationsNodeBreakerFactory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public class EurostagEchExportFootprintTest {
+
+    @Test
+    public void test() {
+        Network network = FourSubstationsNodeBreakerFactory.create();
+        // the LCC converter stations are not supported by the export
+        network.getHvdcLine("HVDC2").remove();
+        network.getLccConverterStation("LCC1").remove();
+        network.getLccConverterStation("LCC2").remove();
+        EurostagEchExportConfig config = new EurostagEchExportConfig();
+        EurostagEchExport export = new EurostagEchExport(network, config);
+        EsgNetwork esgNetwork = export.createNetwork(new EsgGeneralParameters());
+
+        Map<String, Long> sizes = EurostagEchExportFootprint.estimate(esgNetwork, export.dictionary, export.parallelIndexes, export.fakeNodes);
+        assertEquals(Arrays.asList("fakeNodes", "parallelIndexes", "dictionary", "network"), new ArrayList<>(sizes.keySet()));
+        sizes.values().forEach(size -> assertTrue(size > 0));
+        // the IIDM network referenced by the fake nodes is not counted
+        assertTrue(sizes.get("fakeNodes") < sizes.get("dictionary"));
+
+        long estimated = sizes.values().stream().mapToLong(Long::longValue).sum();
+        // all the switches are counted, although only the retained ones are exported
+        long predicted = EurostagEchExportFootprint.predictPeakHeap(network, config);
+        assertTrue("predicted: " + predicted + ", estimated: " + estimated, predicted >= estimated && predicted < estimated * 3);
+
+        // without the switches, the network and the context are smaller
+        EurostagEchExportConfig noSwitchConfig = new EurostagEchExportConfig(false, true);
+        assertTrue(EurostagEchExportFootprint.predictPeakHeap(network, noSwitchConfig) < predicted);
+    }
+}
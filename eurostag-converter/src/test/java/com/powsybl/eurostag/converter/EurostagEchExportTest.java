@@ -8,20 +8,38 @@
 package com.powsybl.eurostag.converter;
 
 import com.google.common.io.CharStreams;
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
 import com.powsybl.iidm.network.*;
 import com.powsybl.iidm.network.test.*;
+import com.powsybl.eurostag.model.EsgException;
 import com.powsybl.eurostag.model.EsgGeneralParameters;
 import com.powsybl.eurostag.model.EsgSpecialParameters;
+import com.powsybl.eurostag.model.io.EsgCompression;
 import org.joda.time.LocalDate;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThrows;
 
 /**
  * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
@@ -81,8 +99,7 @@ public class EurostagEchExportTest {
         test(network, "/three-winding.ech", LocalDate.parse("2020-01-02"), null);
     }
 
-    @Test
-    public void testHVDC() throws IOException {
+    private static Network createHvdcNetwork() {
         Network network = HvdcTestNetwork.createVsc();
 
         VoltageLevel vl = network.getVoltageLevel("VL1");
@@ -98,10 +115,87 @@ public class EurostagEchExportTest {
                 .setMinP(50.0)
                 .setMaxP(150.0)
                 .add();
+        return network;
+    }
+
+    @Test
+    public void testHVDC() throws IOException {
+        Network network = createHvdcNetwork();
         EsgSpecialParameters specialParameters = new EsgSpecialParameters();
         test(network, "/eurostag-hvdc-test.ech", LocalDate.parse("2016-01-01"), specialParameters);
     }
 
+    @Test
+    public void testConcurrentExports() throws Exception {
+        Network network = createHvdcNetwork();
+        List<String> variantIds = Arrays.asList("v1", "v2", "v3", "v4");
+        network.getVariantManager().cloneVariant(VariantManagerConstants.INITIAL_VARIANT_ID, variantIds);
+        network.getVariantManager().allowVariantMultiThreadAccess(true);
+
+        EsgGeneralParameters parameters = new EsgGeneralParameters();
+        parameters.setEditDate(LocalDate.parse("2016-01-01"));
+        EsgSpecialParameters specialParameters = new EsgSpecialParameters();
+        String reference = CharStreams.toString(new InputStreamReader(getClass().getResourceAsStream("/eurostag-hvdc-test.ech"), StandardCharsets.UTF_8));
+
+        // expected results, with one exporter per variant
+        List<String> expected = new ArrayList<>();
+        for (String variantId : variantIds) {
+            network.getVariantManager().setWorkingVariant(variantId);
+            StringWriter writer = new StringWriter();
+            new EurostagEchExport(network).write(writer, parameters, specialParameters);
+            expected.add(writer.toString());
+        }
+
+        // the same exporter is used by all the exports
+        EurostagEchExport export = new EurostagEchExport(network);
+        ExecutorService executor = Executors.newFixedThreadPool(variantIds.size());
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (String variantId : variantIds) {
+                futures.add(executor.submit(() -> {
+                    network.getVariantManager().setWorkingVariant(variantId);
+                    StringWriter writer = new StringWriter();
+                    export.write(writer, parameters, specialParameters);
+                    return writer.toString();
+                }));
+            }
+            for (int i = 0; i < variantIds.size(); i++) {
+                assertEquals(expected.get(i), futures.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // an export does not change the result of the next one
+        network.getVariantManager().setWorkingVariant(VariantManagerConstants.INITIAL_VARIANT_ID);
+        for (int i = 0; i < 2; i++) {
+            StringWriter writer = new StringWriter();
+            export.write(writer, parameters, specialParameters);
+            assertEquals(reference, writer.toString());
+        }
+    }
+
+    @Test
+    public void testFictitiousElements() {
+        Network network = createHvdcNetwork();
+        EurostagEchExport export = new EurostagEchExport(network);
+        assertEquals("fict_C1 ", export.dictionary.getEsgId("fict_C1"));
+        // the fictitious elements of a given dictionary are kept
+        EurostagEchExport export2 = new EurostagEchExport(network, export.config, export.parallelIndexes, export.dictionary, export.fakeNodes);
+        assertEquals("fict_C1 ", export2.dictionary.getEsgId("fict_C1"));
+
+        // a real element can't have the id of a fictitious one
+        network.getVoltageLevel("VL1").newLoad()
+                .setId("fict_C1")
+                .setBus("B1")
+                .setConnectableBus("B1")
+                .setP0(0)
+                .setQ0(0)
+                .add();
+        EsgException e = assertThrows(EsgException.class, () -> new EurostagEchExport(network));
+        assertEquals("iidmId fict_C1 already exists in dictionary", e.getMessage());
+    }
+
     private void addLine(Network network, VoltageLevel vlhv1, VoltageLevel vlhv2, String idLine, double g1, double g2, double b1, double b2) {
         Bus nhv1 = vlhv1.getBusBreakerView().newBus()
                 .setId("N1" + idLine)
@@ -202,4 +296,59 @@ public class EurostagEchExportTest {
         test(network, "/eurostag-tutorial-example1_vre.ech", LocalDate.parse("2016-03-01"), specialParameters, exportConfig);
     }
 
+    @Test
+    public void testCompression() throws IOException {
+        Network network = EurostagTutorialExample1Factory.create();
+        EsgGeneralParameters parameters = new EsgGeneralParameters();
+        parameters.setEditDate(LocalDate.parse("2016-03-01"));
+        String expected = CharStreams.toString(new InputStreamReader(getClass().getResourceAsStream("/eurostag-tutorial-example1.ech"), StandardCharsets.UTF_8));
+        try (FileSystem fileSystem = Jimfs.newFileSystem(Configuration.unix())) {
+            for (EsgCompression compression : EsgCompression.values()) {
+                Path file = fileSystem.getPath("sim1.ech" + compression.getExtension());
+                new EurostagEchExport(network).write(file, parameters, new EsgSpecialParameters(), new EurostagEchExportDiagnostics(), compression);
+                InputStream is = Files.newInputStream(file);
+                if (compression != EsgCompression.NONE) {
+                    is = new GZIPInputStream(is);
+                }
+                try (Reader reader = new InputStreamReader(is, StandardCharsets.UTF_8)) {
+                    assertEquals(compression.toString(), expected, CharStreams.toString(reader));
+                }
+            }
+        }
+    }
+
+    private static byte[] write(Network network, EurostagEchExportConfig config, Path file) throws IOException {
+        EsgGeneralParameters parameters = new EsgGeneralParameters();
+        parameters.setEditDate(LocalDate.parse("2016-01-01"));
+        new EurostagEchExport(network, config).write(file, parameters, new EsgSpecialParameters());
+        return Files.readAllBytes(file);
+    }
+
+    @Test
+    public void testParallelism() throws IOException {
+        Network hvdcNetwork = createHvdcNetwork();
+        hvdcNetwork.getVariantManager().allowVariantMultiThreadAccess(true);
+        Network fourSubstations = FourSubstationsNodeBreakerFactory.create();
+        fourSubstations.getHvdcLine("HVDC2").remove();
+        fourSubstations.getLccConverterStation("LCC1").remove();
+        fourSubstations.getLccConverterStation("LCC2").remove();
+        List<Network> networks = Arrays.asList(EurostagTutorialExample1Factory.create(), SvcTestCaseFactory.create(),
+                ThreeWindingsTransformerNetworkFactory.create(), hvdcNetwork, fourSubstations);
+
+        try (FileSystem fileSystem = Jimfs.newFileSystem(Configuration.unix())) {
+            for (Network network : networks) {
+                for (boolean noSwitch : new boolean[] {false, true}) {
+                    for (boolean exportMainCCOnly : new boolean[] {false, true}) {
+                        byte[] expected = write(network, new EurostagEchExportConfig(false, noSwitch, "/%()^$,;?", '#', false, false, exportMainCCOnly),
+                                fileSystem.getPath("sequential.ech"));
+                        byte[] actual = write(network, new EurostagEchExportConfig(false, noSwitch, "/%()^$,;?", '#', false, false, exportMainCCOnly, 4),
+                                fileSystem.getPath("parallel.ech"));
+                        assertArrayEquals(network.getId() + " noSwitch=" + noSwitch + " exportMainCCOnly=" + exportMainCCOnly, expected, actual);
+                    }
+                }
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new EurostagEchExportConfig(false, false, "/%()^$,;?", '#', false, false, false, 0));
+    }
 }
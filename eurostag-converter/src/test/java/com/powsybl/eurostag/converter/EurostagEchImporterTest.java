@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.converter;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+import com.powsybl.commons.datasource.FileDataSource;
+import com.powsybl.commons.datasource.ResourceDataSource;
+import com.powsybl.commons.datasource.ResourceSet;
+import com.powsybl.eurostag.model.*;
+import com.powsybl.iidm.network.*;
+import com.powsybl.iidm.network.test.EurostagTutorialExample1Factory;
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public class EurostagEchImporterTest {
+
+    private FileSystem fileSystem;
+
+    @Before
+    public void setUp() {
+        fileSystem = Jimfs.newFileSystem(Configuration.unix());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        fileSystem.close();
+    }
+
+    @Test
+    public void test() {
+        ResourceDataSource dataSource = new ResourceDataSource("eurostag-tutorial-example1", new ResourceSet("/", "eurostag-tutorial-example1.ech"));
+        EurostagEchImporter importer = new EurostagEchImporter();
+        assertEquals("ECH", importer.getFormat());
+        assertTrue(importer.exists(dataSource));
+
+        Network network = importer.importData(dataSource, NetworkFactory.findDefault(), new Properties());
+        assertEquals("eurostag-tutorial-example1", network.getId());
+        assertEquals(4, network.getBusBreakerView().getBusStream().count());
+        assertEquals(2, network.getLineCount());
+        assertEquals(2, network.getTwoWindingsTransformerCount());
+
+        // without dictionary, the Eurostag names are used
+        Generator generator = network.getGenerator("GEN");
+        assertNotNull(generator);
+        assertEquals(607.0, generator.getTargetP(), 0.0);
+        assertEquals(24.5, generator.getTargetV(), 0.0);
+        assertTrue(generator.isVoltageRegulatorOn());
+        assertEquals("NGEN", generator.getTerminal().getBusBreakerView().getBus().getId());
+
+        Load load = network.getLoad("LOAD");
+        assertEquals(600.0, load.getP0(), 0.0);
+        assertEquals(200.0, load.getQ0(), 0.0);
+
+        Line line = network.getLine("NHV1-NHV2-1");
+        assertNotNull(line);
+        assertEquals(3.0, line.getR(), 1e-2);
+        assertEquals(33.0, line.getX(), 1e-2);
+        assertEquals(1.93e-4, line.getB1(), 1e-8);
+
+        // the transformers connect the voltage levels of their substation
+        TwoWindingsTransformer twt = network.getTwoWindingsTransformer("NHV2-NLOAD-1");
+        assertNotNull(twt);
+        assertSame(twt.getTerminal1().getVoltageLevel().getSubstation().orElseThrow(), twt.getTerminal2().getVoltageLevel().getSubstation().orElseThrow());
+        RatioTapChanger rtc = twt.getRatioTapChanger();
+        assertNotNull(rtc);
+        assertEquals(3, rtc.getStepCount());
+        assertEquals(2, rtc.getTapPosition());
+        assertTrue(rtc.isRegulating());
+        assertEquals(158.0, rtc.getTargetV(), 0.0);
+        assertSame(twt.getTerminal2(), rtc.getRegulationTerminal());
+        assertEquals(1.0, rtc.getStep(2).getRho(), 1e-6);
+        assertNull(network.getTwoWindingsTransformer("NGEN-NHV1-1").getRatioTapChanger());
+    }
+
+    @Test
+    public void testDictionary() throws IOException {
+        Network network = EurostagTutorialExample1Factory.create();
+        EurostagEchExportConfig config = new EurostagEchExportConfig();
+        EurostagFakeNodes fakeNodes = EurostagFakeNodes.build(network, config);
+        BranchParallelIndexes parallelIndexes = BranchParallelIndexes.build(network, config, fakeNodes);
+        EurostagDictionary dictionary = EurostagDictionary.create(network, parallelIndexes, config, fakeNodes);
+        EurostagEchExport export = new EurostagEchExport(network, config, parallelIndexes, dictionary, fakeNodes);
+
+        EsgGeneralParameters parameters = new EsgGeneralParameters();
+        parameters.setEditDate(LocalDate.parse("2016-03-01"));
+        // the network id is the base name of the file, the same as the original one so that the general comments are equal
+        Path dir = Files.createDirectory(fileSystem.getPath("/ech"));
+        try (Writer writer = Files.newBufferedWriter(dir.resolve("sim1.ech"), StandardCharsets.UTF_8)) {
+            export.write(writer, parameters, new EsgSpecialParameters());
+        }
+        dictionary.dump(dir.resolve("sim1" + EurostagEchImporter.DICTIONARY_SUFFIX + "." + EurostagEchImporter.DICTIONARY_EXTENSION));
+
+        Network imported = new EurostagEchImporter().importData(new FileDataSource(dir, "sim1"), NetworkFactory.findDefault(), null);
+
+        // the file is mapped when imported from its path, with the same result
+        Network mapped = new EurostagEchImporter().importData(dir.resolve("sim1.ech"), NetworkFactory.findDefault(), null);
+        assertEquals(imported.getIdentifiables().size(), mapped.getIdentifiables().size());
+        assertNotNull(mapped.getGenerator("GEN"));
+
+        // the IIDM ids are restored
+        for (Identifiable<?> identifiable : new Identifiable<?>[] {network.getGenerator("GEN"), network.getLoad("LOAD"),
+            network.getLine("NHV1_NHV2_1"), network.getLine("NHV1_NHV2_2"), network.getTwoWindingsTransformer("NGEN_NHV1"),
+            network.getTwoWindingsTransformer("NHV2_NLOAD")}) {
+            assertNotNull(identifiable.getId(), imported.getIdentifiable(identifiable.getId()));
+        }
+
+        // the imported network is exported as the original one
+        StringWriter expected = new StringWriter();
+        export.write(expected, parameters, new EsgSpecialParameters());
+        StringWriter actual = new StringWriter();
+        new EurostagEchExport(imported).write(actual, parameters, new EsgSpecialParameters());
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    @Test
+    public void testUnsupported() {
+        EsgNetwork esgNetwork = new EsgNetwork();
+        Esg2charName area = new Esg2charName("FR");
+        esgNetwork.addArea(new EsgArea(area, EsgArea.Type.AC));
+        esgNetwork.addNode(new EsgNode(area, new Esg8charName("N1"), 380, 1, 0, true));
+        esgNetwork.addDCNode(new EsgDCNode(area, new Esg8charName("DC1"), 400, 1));
+        EsgGeneralParameters parameters = new EsgGeneralParameters();
+        parameters.setEditDate(LocalDate.parse("2016-03-01"));
+
+        // the DC elements are not dropped silently
+        EurostagEchImport esgImport = new EurostagEchImport(esgNetwork, parameters);
+        EsgException e = assertThrows(EsgException.class, () -> esgImport.toNetwork(NetworkFactory.findDefault(), "test"));
+        assertEquals("DC nodes, links and converters are not supported: 1 found", e.getMessage());
+    }
+}
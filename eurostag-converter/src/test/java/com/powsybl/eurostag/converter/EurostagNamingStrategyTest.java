@@ -17,9 +17,13 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.io.IOException;
 import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -140,4 +144,21 @@ public class EurostagNamingStrategyTest {
         });
     }
 
+    @Test
+    public void testDicoDiagnostics() throws IOException {
+        FileSystem fileSystem = Jimfs.newFileSystem(Configuration.unix());
+        Path dicoFile = fileSystem.getPath("/dico.csv");
+        Files.write(dicoFile, Arrays.asList("IIDM_ID;EUROSTAG_ID", "GEN1;MYGEN1", "GEN2;MYGENERATOR2"));
+
+        EurostagEchExportDiagnostics diagnostics = new EurostagEchExportDiagnostics();
+        DicoEurostagNamingStrategy strategy = new DicoEurostagNamingStrategy(dicoFile, diagnostics);
+        assertEquals(1, diagnostics.getCount(EurostagEchExportDiagnostics.Category.INVALID_DICO_MAPPING));
+        assertEquals(Collections.singletonList("GEN2"), diagnostics.getSamples(EurostagEchExportDiagnostics.Category.INVALID_DICO_MAPPING));
+
+        EurostagDictionary dictionary = EurostagDictionary.create(getConfig(null, null));
+        strategy.fillDictionary(dictionary, EurostagNamingStrategy.NameType.GENERATOR, new HashSet<>(Arrays.asList("GEN1", "GEN2", "GEN3")));
+        assertEquals("MYGEN1", dictionary.getEsgId("GEN1"));
+        assertEquals(2, diagnostics.getCount(EurostagEchExportDiagnostics.Category.DICO_MAPPING_NOT_FOUND));
+        assertEquals(Arrays.asList("GEN2", "GEN3"), diagnostics.getSamples(EurostagEchExportDiagnostics.Category.DICO_MAPPING_NOT_FOUND).stream().sorted().collect(Collectors.toList()));
+    }
 }
@@ -0,0 +1,44 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.converter;
+
+import com.powsybl.eurostag.model.EsgDetailedTwoWindingTransformer;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public class TapTablesTest {
+
+    @Test
+    public void test() {
+        TapTables tapTables = new TapTables();
+        double[] steps = {0.85, 0.5, 12.0, 0.0, 1.0, 0.5, 12.0, 0.0, 1.15, 0.5, 12.0, 0.0};
+
+        List<EsgDetailedTwoWindingTransformer.Tap> taps = tapTables.get(150.0, 100.0, 100.0, steps);
+        assertEquals(3, taps.size());
+        assertEquals(1, taps.get(0).getIplo());
+        assertEquals(3, taps.get(2).getIplo());
+        assertEquals(150.0 / 0.85, taps.get(0).getUno1(), 0.0);
+        assertEquals(150.0, taps.get(0).getUno2(), 0.0);
+
+        // same definition: same instance
+        assertSame(taps, tapTables.get(150.0, 100.0, 100.0, steps.clone()));
+        assertEquals(1, tapTables.size());
+
+        // the nominal voltage is part of the definition
+        assertNotSame(taps, tapTables.get(225.0, 100.0, 100.0, steps));
+        assertEquals(2, tapTables.size());
+
+        // shared tables cannot be modified
+        assertThrows(UnsupportedOperationException.class, taps::clear);
+    }
+}
@@ -0,0 +1,303 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import com.google.common.collect.Lists;
+
+import java.util.*;
+
+/**
+ * Base of the stores keeping the fields of the elements in columns, one row per element in insertion order.
+ * <p>
+ * The rows are indexed by an open addressing hash table of row numbers, so that no name string is kept. The removed
+ * rows are only marked as removed, so that the row of an element never changes.
+ * <p>
+ * The elements are returned as views of their row, subclasses of the element classes overriding the getters to read
+ * the columns on each call, so that nothing is copied from the columns before being read. The names are decoded once
+ * and interned by the name columns.
+ * <p>
+ * The iterations are flyweights: the iterator of {@link #values} moves a single view from row to row, so an element
+ * it returns is only valid until the next call of {@code next}. The copies of the collection ({@code toArray}, and the
+ * streams collected in a new collection) get their own views, as {@link #get} does.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+abstract class AbstractColumnarStore<T> implements EsgElementStore<T> {
+
+    static final Esg8charName PLACEHOLDER_NAME = new Esg8charName("");
+
+    static final Esg2charName PLACEHOLDER_AREA = new Esg2charName("");
+
+    private static final int MIN_CAPACITY = 16;
+
+    private int capacity;
+
+    /**
+     * Number of rows, including the removed ones
+     */
+    private int rowCount = 0;
+
+    private int size = 0;
+
+    private int[] hashes;
+
+    private final BitSet removed = new BitSet();
+
+    private boolean frozen = false;
+
+    /**
+     * Row + 1 of the elements, 0 for the empty slots
+     */
+    private int[] slots;
+
+    AbstractColumnarStore(int expectedSize) {
+        capacity = Math.max(expectedSize, MIN_CAPACITY);
+        hashes = new int[capacity];
+        slots = new int[tableSize(capacity)];
+    }
+
+    /**
+     * @return the number of rows allocated in the columns
+     */
+    protected int getCapacity() {
+        return capacity;
+    }
+
+    private static int tableSize(int capacity) {
+        // at most half full
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return a new empty store of the same type
+     */
+    protected abstract AbstractColumnarStore<T> create(int expectedSize);
+
+    /**
+     * Reallocate the columns to the given capacity
+     */
+    protected abstract void grow(int capacity);
+
+    /**
+     * Copy the fields of the element to the given row
+     */
+    protected abstract void set(int row, T element);
+
+    /**
+     * @return a new view of the given row, reading the columns on each call of its getters. The view must implement
+     * {@link RowView}.
+     */
+    protected abstract T view(int row);
+
+    /**
+     * @return true if the key of the given row is the given name
+     */
+    protected abstract boolean matches(int row, String name);
+
+    /**
+     * Implemented by the views, so that an iteration moves a single view from row to row
+     */
+    interface RowView {
+
+        void setRow(int row);
+    }
+
+    private int find(String name) {
+        int hash = name.hashCode();
+        int mask = slots.length - 1;
+        for (int i = mix(hash) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            int row = slots[i] - 1;
+            if (hashes[row] == hash && !removed.get(row) && matches(row, name)) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private void index(int row) {
+        int mask = slots.length - 1;
+        int i = mix(hashes[row]) & mask;
+        while (slots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        slots[i] = row + 1;
+    }
+
+    private void ensureCapacity() {
+        if (rowCount == capacity) {
+            capacity *= 2;
+            hashes = Arrays.copyOf(hashes, capacity);
+            grow(capacity);
+            slots = new int[tableSize(capacity)];
+            for (int row = 0; row < rowCount; row++) {
+                if (!removed.get(row)) {
+                    index(row);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(String name) {
+        return find(name) >= 0;
+    }
+
+    @Override
+    public T get(String name) {
+        int row = find(name);
+        return row >= 0 ? view(row) : null;
+    }
+
+    @Override
+    public void put(String name, T element) {
+        Objects.requireNonNull(element);
+        checkNotFrozen();
+        int existing = find(name);
+        if (existing >= 0) {
+            // replaced in place, as the insertion order of a map is not changed by a replacement
+            set(existing, element);
+            return;
+        }
+        ensureCapacity();
+        int row = rowCount++;
+        set(row, element);
+        hashes[row] = name.hashCode();
+        index(row);
+        size++;
+    }
+
+    @Override
+    public void remove(String name) {
+        checkNotFrozen();
+        int row = find(name);
+        if (row >= 0) {
+            removed.set(row);
+            size--;
+        }
+    }
+
+    /**
+     * Iterator over the rows that are not removed, moving a single view if {@code reuse} is true, otherwise returning a
+     * new view for each row
+     */
+    private final class RowIterator implements Iterator<T> {
+
+        private final boolean reuse;
+
+        private int next = removed.nextClearBit(0);
+
+        private T cursor;
+
+        private RowIterator(boolean reuse) {
+            this.reuse = reuse;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < rowCount;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T element;
+            if (!reuse) {
+                element = view(next);
+            } else if (cursor == null) {
+                cursor = view(next);
+                element = cursor;
+            } else {
+                ((RowView) cursor).setRow(next);
+                element = cursor;
+            }
+            next = removed.nextClearBit(next + 1);
+            return element;
+        }
+    }
+
+    @Override
+    public Collection<T> values() {
+        return new AbstractCollection<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return new RowIterator(true);
+            }
+
+            @Override
+            public Spliterator<T> spliterator() {
+                // the streams may keep the elements, and be split between threads
+                return Spliterators.spliterator(new RowIterator(false), size, Spliterator.ORDERED | Spliterator.NONNULL);
+            }
+
+            @Override
+            public Object[] toArray() {
+                return Lists.newArrayList(new RowIterator(false)).toArray();
+            }
+
+            @Override
+            public <E> E[] toArray(E[] a) {
+                return Lists.newArrayList(new RowIterator(false)).toArray(a);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * The frozen copy has no removed rows, and columns of the exact size
+     */
+    @Override
+    public EsgElementStore<T> freeze() {
+        if (frozen) {
+            return this;
+        }
+        AbstractColumnarStore<T> copy = create(size);
+        T cursor = null;
+        for (int row = removed.nextClearBit(0); row < rowCount; row = removed.nextClearBit(row + 1)) {
+            if (cursor == null) {
+                cursor = view(row);
+            } else {
+                ((RowView) cursor).setRow(row);
+            }
+            int copyRow = copy.rowCount++;
+            copy.set(copyRow, cursor);
+            copy.hashes[copyRow] = hashes[row];
+            copy.index(copyRow);
+        }
+        copy.size = size;
+        copy.frozen = true;
+        return copy;
+    }
+
+    /**
+     * Also called by the setters of the views, the columns of a frozen store being shared between threads
+     */
+    protected void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("The network is frozen");
+        }
+    }
+
+    static byte ordinal(Enum<?> value) {
+        return (byte) value.ordinal();
+    }
+}
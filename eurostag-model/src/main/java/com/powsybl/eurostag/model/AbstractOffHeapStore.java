@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Base of the stores keeping the fields of the elements in a buffer allocated outside of the heap, one fixed size slot
+ * per element. Only the index of the rows, inherited from {@link AbstractColumnarStore}, is kept on the heap.
+ * <p>
+ * The names are stored as chars, the enums as the byte of their ordinal. The slots are padded to a multiple of 8 bytes,
+ * so that the doubles, placed first, stay aligned. The elements are returned as views, moved from row to row by the
+ * iterations as the views of the columnar stores. The names read from the slots are looked up in a small direct-mapped
+ * cache before being decoded, so that reading the name of a node repeatedly does not allocate.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+abstract class AbstractOffHeapStore<T> extends AbstractColumnarStore<T> {
+
+    /**
+     * Size of an {@link EsgBranchName} in a slot: node1, node2 and xpp
+     */
+    static final int BRANCH_NAME_SIZE = 34;
+
+    private static final int BRANCH_KEY_LENGTH = 19;
+
+    private static final int SLOT_ALIGNMENT = Double.BYTES;
+
+    private static final int NAME_CACHE_SIZE = 1024;
+
+    private final OffHeapStorage storage;
+
+    private final int slotSize;
+
+    private ByteBuffer buffer;
+
+    /**
+     * Names decoded from the slots, by hash of their chars. The races between the readers of a frozen store are
+     * benign: the names are immutable, and checked against the slot before being returned.
+     */
+    private final EsgName[] nameCache = new EsgName[NAME_CACHE_SIZE];
+
+    private final EsgBranchName[] branchNameCache = new EsgBranchName[NAME_CACHE_SIZE];
+
+    AbstractOffHeapStore(OffHeapStorage storage, int slotSize, int expectedSize) {
+        super(expectedSize);
+        this.storage = storage;
+        this.slotSize = (slotSize + SLOT_ALIGNMENT - 1) / SLOT_ALIGNMENT * SLOT_ALIGNMENT;
+        buffer = storage.allocate(Math.multiplyExact(getCapacity(), this.slotSize), null);
+    }
+
+    int getSlotSize() {
+        return slotSize;
+    }
+
+    protected OffHeapStorage getStorage() {
+        return storage;
+    }
+
+    @Override
+    protected void grow(int capacity) {
+        ByteBuffer previous = buffer;
+        buffer = storage.allocate(Math.multiplyExact(capacity, slotSize), previous);
+        // the views read the buffer through this store, nothing references the previous one anymore
+        storage.release(previous);
+    }
+
+    private int position(int row, int field) {
+        return row * slotSize + field;
+    }
+
+    protected double getDouble(int row, int field) {
+        return buffer.getDouble(position(row, field));
+    }
+
+    protected void putDouble(int row, int field, double value) {
+        buffer.putDouble(position(row, field), value);
+    }
+
+    protected byte getByte(int row, int field) {
+        return buffer.get(position(row, field));
+    }
+
+    protected void putByte(int row, int field, byte value) {
+        buffer.put(position(row, field), value);
+    }
+
+    protected boolean getBoolean(int row, int field) {
+        return buffer.get(position(row, field)) != 0;
+    }
+
+    protected void putBoolean(int row, int field, boolean value) {
+        buffer.put(position(row, field), (byte) (value ? 1 : 0));
+    }
+
+    /**
+     * @param name the name, already padded to the given width by {@link EsgName}
+     */
+    protected void putName(int row, int field, int width, EsgName name) {
+        String s = name.toString();
+        int position = position(row, field);
+        for (int i = 0; i < width; i++) {
+            buffer.putChar(position + 2 * i, s.charAt(i));
+        }
+    }
+
+    private String getString(int row, int field, int width) {
+        char[] chars = new char[width];
+        int position = position(row, field);
+        for (int i = 0; i < width; i++) {
+            chars[i] = buffer.getChar(position + 2 * i);
+        }
+        return new String(chars);
+    }
+
+    private int hash(int row, int field, int width) {
+        // same as the hash code of the name string
+        int hash = 0;
+        int position = position(row, field);
+        for (int i = 0; i < width; i++) {
+            hash = 31 * hash + buffer.getChar(position + 2 * i);
+        }
+        return hash;
+    }
+
+    private static int cacheSlot(int hash) {
+        return (hash ^ (hash >>> 16)) & (NAME_CACHE_SIZE - 1);
+    }
+
+    private EsgName getCachedName(int row, int field, int width) {
+        int slot = cacheSlot(hash(row, field, width));
+        EsgName name = nameCache[slot];
+        if (name == null || name.toString().length() != width || !matchesName(row, field, width, name.toString(), 0)) {
+            String s = getString(row, field, width);
+            name = width == 8 ? new Esg8charName(s) : new Esg2charName(s);
+            nameCache[slot] = name;
+        }
+        return name;
+    }
+
+    protected Esg8charName get8charName(int row, int field) {
+        return (Esg8charName) getCachedName(row, field, 8);
+    }
+
+    protected Esg2charName get2charName(int row, int field) {
+        return (Esg2charName) getCachedName(row, field, 2);
+    }
+
+    /**
+     * @return true if the name stored in the slot is found in the string at the given offset
+     */
+    protected boolean matchesName(int row, int field, int width, String s, int offset) {
+        if (s.length() < offset + width) {
+            return false;
+        }
+        int position = position(row, field);
+        for (int i = 0; i < width; i++) {
+            if (buffer.getChar(position + 2 * i) != s.charAt(offset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected void putBranchName(int row, int field, EsgBranchName name) {
+        putName(row, field, 8, name.getNode1Name());
+        putName(row, field + 16, 8, name.getNode2Name());
+        buffer.putChar(position(row, field + 32), name.getXpp());
+    }
+
+    protected EsgBranchName getBranchName(int row, int field) {
+        char xpp = buffer.getChar(position(row, field + 32));
+        int slot = cacheSlot(31 * (31 * hash(row, field, 8) + hash(row, field + 16, 8)) + xpp);
+        EsgBranchName name = branchNameCache[slot];
+        if (name == null
+                || name.getXpp() != xpp
+                || !matchesName(row, field, 8, name.getNode1Name().toString(), 0)
+                || !matchesName(row, field + 16, 8, name.getNode2Name().toString(), 0)) {
+            name = new EsgBranchName(get8charName(row, field), get8charName(row, field + 16), xpp);
+            branchNameCache[slot] = name;
+        }
+        return name;
+    }
+
+    /**
+     * @return true if the branch name stored in the slot has the given key: node1-node2-xpp
+     */
+    protected boolean matchesBranchName(int row, int field, String key) {
+        return key.length() == BRANCH_KEY_LENGTH
+                && matchesName(row, field, 8, key, 0)
+                && key.charAt(8) == '-'
+                && matchesName(row, field + 16, 8, key, 9)
+                && key.charAt(17) == '-'
+                && key.charAt(18) == buffer.getChar(position(row, field + 32));
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import java.util.Arrays;
+
+/**
+ * Columns of the {@link EsgBranchName} of the branches. As in {@link NameColumn}, the names are built once, on their
+ * first access.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+final class BranchNameColumns {
+
+    /**
+     * Length of the key of a branch: node1-node2-xpp
+     */
+    private static final int KEY_LENGTH = 19;
+
+    private final NameColumn node1;
+
+    private final NameColumn node2;
+
+    private char[] xpp;
+
+    private EsgBranchName[] names;
+
+    BranchNameColumns(int capacity) {
+        node1 = new NameColumn(8, capacity);
+        node2 = new NameColumn(8, capacity);
+        xpp = new char[capacity];
+        names = new EsgBranchName[capacity];
+    }
+
+    void grow(int capacity) {
+        node1.grow(capacity);
+        node2.grow(capacity);
+        xpp = Arrays.copyOf(xpp, capacity);
+        names = Arrays.copyOf(names, capacity);
+    }
+
+    void set(int row, EsgBranchName name) {
+        node1.set(row, name.getNode1Name());
+        node2.set(row, name.getNode2Name());
+        xpp[row] = name.getXpp();
+        names[row] = null;
+    }
+
+    EsgBranchName get(int row) {
+        EsgBranchName name = names[row];
+        if (name == null) {
+            name = new EsgBranchName(node1.get8charName(row), node2.get8charName(row), xpp[row]);
+            names[row] = name;
+        }
+        return name;
+    }
+
+    boolean matches(int row, String key) {
+        return key.length() == KEY_LENGTH
+                && node1.matches(row, key, 0)
+                && key.charAt(8) == '-'
+                && node2.matches(row, key, 9)
+                && key.charAt(17) == '-'
+                && key.charAt(18) == xpp[row];
+    }
+}
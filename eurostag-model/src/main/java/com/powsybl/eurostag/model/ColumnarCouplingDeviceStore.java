@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import java.util.BitSet;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+final class ColumnarCouplingDeviceStore extends AbstractColumnarStore<EsgCouplingDevice> {
+
+    private static final EsgBranchName PLACEHOLDER = new EsgBranchName(PLACEHOLDER_NAME, PLACEHOLDER_NAME, ' ');
+
+    private final BranchNameColumns name;
+    private final BitSet open = new BitSet();
+
+    private final class CouplingDeviceView extends EsgCouplingDevice implements RowView {
+
+        private int row;
+
+        private CouplingDeviceView(int row) {
+            super(PLACEHOLDER, ConnectionStatus.CLOSED);
+            this.row = row;
+        }
+
+        @Override
+        public void setRow(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public EsgBranchName getName() {
+            return name.get(row);
+        }
+
+        @Override
+        public ConnectionStatus getConnectionStatus() {
+            return open.get(row) ? ConnectionStatus.OPEN : ConnectionStatus.CLOSED;
+        }
+    }
+
+    ColumnarCouplingDeviceStore(int expectedSize) {
+        super(expectedSize);
+        name = new BranchNameColumns(getCapacity());
+    }
+
+    @Override
+    protected AbstractColumnarStore<EsgCouplingDevice> create(int expectedSize) {
+        return new ColumnarCouplingDeviceStore(expectedSize);
+    }
+
+    @Override
+    protected void grow(int capacity) {
+        name.grow(capacity);
+    }
+
+    @Override
+    protected void set(int row, EsgCouplingDevice device) {
+        name.set(row, device.getName());
+        open.set(row, device.getConnectionStatus() == EsgCouplingDevice.ConnectionStatus.OPEN);
+    }
+
+    @Override
+    protected EsgCouplingDevice view(int row) {
+        return new CouplingDeviceView(row);
+    }
+
+    @Override
+    protected boolean matches(int row, String key) {
+        return name.matches(row, key);
+    }
+}
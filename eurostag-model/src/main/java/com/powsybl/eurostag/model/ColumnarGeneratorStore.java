@@ -0,0 +1,187 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+final class ColumnarGeneratorStore extends AbstractColumnarStore<EsgGenerator> {
+
+    private final NameColumn znamge;
+    private final NameColumn znodge;
+    private final NameColumn zregnoge;
+    private final BitSet disconnected = new BitSet();
+    private final BitSet regulating = new BitSet();
+    private double[] pgmin;
+    private double[] pgen;
+    private double[] pgmax;
+    private double[] qgmin;
+    private double[] qgen;
+    private double[] qgmax;
+    private double[] vregge;
+    private double[] qgensh;
+
+    private final class GeneratorView extends EsgGenerator implements RowView {
+
+        private int row;
+
+        private GeneratorView(int row) {
+            super(PLACEHOLDER_NAME, PLACEHOLDER_NAME, 0, 0, 0, 0, 0, 0, EsgRegulatingMode.NOT_REGULATING, 0, PLACEHOLDER_NAME, 0,
+                    EsgConnectionStatus.CONNECTED);
+            this.row = row;
+        }
+
+        @Override
+        public void setRow(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public double getPgen() {
+            return pgen[row];
+        }
+
+        @Override
+        public double getPgmax() {
+            return pgmax[row];
+        }
+
+        @Override
+        public double getPgmin() {
+            return pgmin[row];
+        }
+
+        @Override
+        public double getQgen() {
+            return qgen[row];
+        }
+
+        @Override
+        public double getQgensh() {
+            return qgensh[row];
+        }
+
+        @Override
+        public double getQgmax() {
+            return qgmax[row];
+        }
+
+        @Override
+        public double getQgmin() {
+            return qgmin[row];
+        }
+
+        @Override
+        public double getVregge() {
+            return vregge[row];
+        }
+
+        @Override
+        public void setVregge(double vregge) {
+            checkNotFrozen();
+            ColumnarGeneratorStore.this.vregge[row] = vregge;
+        }
+
+        @Override
+        public EsgConnectionStatus getXgenest() {
+            return disconnected.get(row) ? EsgConnectionStatus.NOT_CONNECTED : EsgConnectionStatus.CONNECTED;
+        }
+
+        @Override
+        public EsgRegulatingMode getXregge() {
+            return regulating.get(row) ? EsgRegulatingMode.REGULATING : EsgRegulatingMode.NOT_REGULATING;
+        }
+
+        @Override
+        public void setXregge(EsgRegulatingMode xregge) {
+            checkNotFrozen();
+            regulating.set(row, Objects.requireNonNull(xregge) == EsgRegulatingMode.REGULATING);
+        }
+
+        @Override
+        public Esg8charName getZnamge() {
+            return znamge.get8charName(row);
+        }
+
+        @Override
+        public Esg8charName getZnodge() {
+            return znodge.get8charName(row);
+        }
+
+        @Override
+        public Esg8charName getZregnoge() {
+            return zregnoge.get8charName(row);
+        }
+    }
+
+    ColumnarGeneratorStore(int expectedSize) {
+        super(expectedSize);
+        int capacity = getCapacity();
+        znamge = new NameColumn(8, capacity);
+        znodge = new NameColumn(8, capacity);
+        zregnoge = new NameColumn(8, capacity);
+        pgmin = new double[capacity];
+        pgen = new double[capacity];
+        pgmax = new double[capacity];
+        qgmin = new double[capacity];
+        qgen = new double[capacity];
+        qgmax = new double[capacity];
+        vregge = new double[capacity];
+        qgensh = new double[capacity];
+    }
+
+    @Override
+    protected AbstractColumnarStore<EsgGenerator> create(int expectedSize) {
+        return new ColumnarGeneratorStore(expectedSize);
+    }
+
+    @Override
+    protected void grow(int capacity) {
+        znamge.grow(capacity);
+        znodge.grow(capacity);
+        zregnoge.grow(capacity);
+        pgmin = Arrays.copyOf(pgmin, capacity);
+        pgen = Arrays.copyOf(pgen, capacity);
+        pgmax = Arrays.copyOf(pgmax, capacity);
+        qgmin = Arrays.copyOf(qgmin, capacity);
+        qgen = Arrays.copyOf(qgen, capacity);
+        qgmax = Arrays.copyOf(qgmax, capacity);
+        vregge = Arrays.copyOf(vregge, capacity);
+        qgensh = Arrays.copyOf(qgensh, capacity);
+    }
+
+    @Override
+    protected void set(int row, EsgGenerator generator) {
+        znamge.set(row, generator.getZnamge());
+        znodge.set(row, generator.getZnodge());
+        zregnoge.set(row, generator.getZregnoge());
+        disconnected.set(row, generator.getXgenest() == EsgConnectionStatus.NOT_CONNECTED);
+        regulating.set(row, generator.getXregge() == EsgRegulatingMode.REGULATING);
+        pgmin[row] = generator.getPgmin();
+        pgen[row] = generator.getPgen();
+        pgmax[row] = generator.getPgmax();
+        qgmin[row] = generator.getQgmin();
+        qgen[row] = generator.getQgen();
+        qgmax[row] = generator.getQgmax();
+        vregge[row] = generator.getVregge();
+        qgensh[row] = generator.getQgensh();
+    }
+
+    @Override
+    protected EsgGenerator view(int row) {
+        return new GeneratorView(row);
+    }
+
+    @Override
+    protected boolean matches(int row, String key) {
+        return key.length() == 8 && znamge.matches(row, key, 0);
+    }
+}
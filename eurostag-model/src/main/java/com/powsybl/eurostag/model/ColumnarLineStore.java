@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import java.util.Arrays;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+final class ColumnarLineStore extends AbstractColumnarStore<EsgLine> {
+
+    private static final EsgBranchConnectionStatus[] STATUSES = EsgBranchConnectionStatus.values();
+
+    private static final EsgBranchName PLACEHOLDER = new EsgBranchName(PLACEHOLDER_NAME, PLACEHOLDER_NAME, ' ');
+
+    private final BranchNameColumns name;
+    private byte[] status;
+    private double[] rb;
+    private double[] rxb;
+    private double[] gs;
+    private double[] bs;
+    private double[] rate;
+
+    private final class LineView extends EsgLine implements RowView {
+
+        private int row;
+
+        private LineView(int row) {
+            super(PLACEHOLDER, EsgBranchConnectionStatus.CLOSED_AT_BOTH_SIDE, 0, 0, 0, 0, 0);
+            this.row = row;
+        }
+
+        @Override
+        public void setRow(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public EsgBranchName getName() {
+            return name.get(row);
+        }
+
+        @Override
+        public EsgBranchConnectionStatus getStatus() {
+            return STATUSES[status[row]];
+        }
+
+        @Override
+        public double getRate() {
+            return rate[row];
+        }
+
+        @Override
+        public double getRb() {
+            return rb[row];
+        }
+
+        @Override
+        public double getRxb() {
+            return rxb[row];
+        }
+
+        @Override
+        public double getGs() {
+            return gs[row];
+        }
+
+        @Override
+        public double getBs() {
+            return bs[row];
+        }
+    }
+
+    ColumnarLineStore(int expectedSize) {
+        super(expectedSize);
+        int capacity = getCapacity();
+        name = new BranchNameColumns(capacity);
+        status = new byte[capacity];
+        rb = new double[capacity];
+        rxb = new double[capacity];
+        gs = new double[capacity];
+        bs = new double[capacity];
+        rate = new double[capacity];
+    }
+
+    @Override
+    protected AbstractColumnarStore<EsgLine> create(int expectedSize) {
+        return new ColumnarLineStore(expectedSize);
+    }
+
+    @Override
+    protected void grow(int capacity) {
+        name.grow(capacity);
+        status = Arrays.copyOf(status, capacity);
+        rb = Arrays.copyOf(rb, capacity);
+        rxb = Arrays.copyOf(rxb, capacity);
+        gs = Arrays.copyOf(gs, capacity);
+        bs = Arrays.copyOf(bs, capacity);
+        rate = Arrays.copyOf(rate, capacity);
+    }
+
+    @Override
+    protected void set(int row, EsgLine line) {
+        name.set(row, line.getName());
+        status[row] = ordinal(line.getStatus());
+        rb[row] = line.getRb();
+        rxb[row] = line.getRxb();
+        gs[row] = line.getGs();
+        bs[row] = line.getBs();
+        rate[row] = line.getRate();
+    }
+
+    @Override
+    protected EsgLine view(int row) {
+        return new LineView(row);
+    }
+
+    @Override
+    protected boolean matches(int row, String key) {
+        return name.matches(row, key);
+    }
+}
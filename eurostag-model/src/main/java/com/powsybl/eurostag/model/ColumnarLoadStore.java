@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+final class ColumnarLoadStore extends AbstractColumnarStore<EsgLoad> {
+
+    private final NameColumn znamlo;
+    private final NameColumn znodlo;
+    private final BitSet disconnected = new BitSet();
+    private double[] pldsti;
+    private double[] pldstz;
+    private double[] pldstp;
+    private double[] qldsti;
+    private double[] qldstz;
+    private double[] qldstp;
+
+    private final class LoadView extends EsgLoad implements RowView {
+
+        private int row;
+
+        private LoadView(int row) {
+            super(EsgConnectionStatus.CONNECTED, PLACEHOLDER_NAME, PLACEHOLDER_NAME, 0, 0, 0, 0, 0, 0);
+            this.row = row;
+        }
+
+        @Override
+        public void setRow(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public EsgConnectionStatus getIloadst() {
+            return disconnected.get(row) ? EsgConnectionStatus.NOT_CONNECTED : EsgConnectionStatus.CONNECTED;
+        }
+
+        @Override
+        public double getPldsti() {
+            return pldsti[row];
+        }
+
+        @Override
+        public double getPldstp() {
+            return pldstp[row];
+        }
+
+        @Override
+        public double getPldstz() {
+            return pldstz[row];
+        }
+
+        @Override
+        public double getQldsti() {
+            return qldsti[row];
+        }
+
+        @Override
+        public double getQldstp() {
+            return qldstp[row];
+        }
+
+        @Override
+        public double getQldstz() {
+            return qldstz[row];
+        }
+
+        @Override
+        public Esg8charName getZnamlo() {
+            return znamlo.get8charName(row);
+        }
+
+        @Override
+        public Esg8charName getZnodlo() {
+            return znodlo.get8charName(row);
+        }
+    }
+
+    ColumnarLoadStore(int expectedSize) {
+        super(expectedSize);
+        int capacity = getCapacity();
+        znamlo = new NameColumn(8, capacity);
+        znodlo = new NameColumn(8, capacity);
+        pldsti = new double[capacity];
+        pldstz = new double[capacity];
+        pldstp = new double[capacity];
+        qldsti = new double[capacity];
+        qldstz = new double[capacity];
+        qldstp = new double[capacity];
+    }
+
+    @Override
+    protected AbstractColumnarStore<EsgLoad> create(int expectedSize) {
+        return new ColumnarLoadStore(expectedSize);
+    }
+
+    @Override
+    protected void grow(int capacity) {
+        znamlo.grow(capacity);
+        znodlo.grow(capacity);
+        pldsti = Arrays.copyOf(pldsti, capacity);
+        pldstz = Arrays.copyOf(pldstz, capacity);
+        pldstp = Arrays.copyOf(pldstp, capacity);
+        qldsti = Arrays.copyOf(qldsti, capacity);
+        qldstz = Arrays.copyOf(qldstz, capacity);
+        qldstp = Arrays.copyOf(qldstp, capacity);
+    }
+
+    @Override
+    protected void set(int row, EsgLoad load) {
+        znamlo.set(row, load.getZnamlo());
+        znodlo.set(row, load.getZnodlo());
+        disconnected.set(row, load.getIloadst() == EsgConnectionStatus.NOT_CONNECTED);
+        pldsti[row] = load.getPldsti();
+        pldstz[row] = load.getPldstz();
+        pldstp[row] = load.getPldstp();
+        qldsti[row] = load.getQldsti();
+        qldstz[row] = load.getQldstz();
+        qldstp[row] = load.getQldstp();
+    }
+
+    @Override
+    protected EsgLoad view(int row) {
+        return new LoadView(row);
+    }
+
+    @Override
+    protected boolean matches(int row, String key) {
+        return key.length() == 8 && znamlo.matches(row, key, 0);
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+final class ColumnarNodeStore extends AbstractColumnarStore<EsgNode> {
+
+    private final NameColumn area;
+    private final NameColumn name;
+    private double[] vbase;
+    private double[] vinit;
+    private double[] vangl;
+    private final BitSet slackBus = new BitSet();
+
+    private final class NodeView extends EsgNode implements RowView {
+
+        private int row;
+
+        private NodeView(int row) {
+            super(PLACEHOLDER_AREA, PLACEHOLDER_NAME, 0, 0, 0, false);
+            this.row = row;
+        }
+
+        @Override
+        public void setRow(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public Esg2charName getArea() {
+            return area.get2charName(row);
+        }
+
+        @Override
+        public Esg8charName getName() {
+            return name.get8charName(row);
+        }
+
+        @Override
+        public double getVangl() {
+            return vangl[row];
+        }
+
+        @Override
+        public double getVbase() {
+            return vbase[row];
+        }
+
+        @Override
+        public double getVinit() {
+            return vinit[row];
+        }
+
+        @Override
+        public boolean isSlackBus() {
+            return slackBus.get(row);
+        }
+    }
+
+    ColumnarNodeStore(int expectedSize) {
+        super(expectedSize);
+        int capacity = getCapacity();
+        area = new NameColumn(2, capacity);
+        name = new NameColumn(8, capacity);
+        vbase = new double[capacity];
+        vinit = new double[capacity];
+        vangl = new double[capacity];
+    }
+
+    @Override
+    protected AbstractColumnarStore<EsgNode> create(int expectedSize) {
+        return new ColumnarNodeStore(expectedSize);
+    }
+
+    @Override
+    protected void grow(int capacity) {
+        area.grow(capacity);
+        name.grow(capacity);
+        vbase = Arrays.copyOf(vbase, capacity);
+        vinit = Arrays.copyOf(vinit, capacity);
+        vangl = Arrays.copyOf(vangl, capacity);
+    }
+
+    @Override
+    protected void set(int row, EsgNode node) {
+        area.set(row, node.getArea());
+        name.set(row, node.getName());
+        vbase[row] = node.getVbase();
+        vinit[row] = node.getVinit();
+        vangl[row] = node.getVangl();
+        slackBus.set(row, node.isSlackBus());
+    }
+
+    @Override
+    protected EsgNode view(int row) {
+        return new NodeView(row);
+    }
+
+    @Override
+    protected boolean matches(int row, String key) {
+        return key.length() == 8 && name.matches(row, key, 0);
+    }
+}
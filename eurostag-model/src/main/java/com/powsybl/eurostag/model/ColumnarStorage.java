@@ -0,0 +1,35 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+final class ColumnarStorage implements EsgStorage {
+
+    static final ColumnarStorage INSTANCE = new ColumnarStorage();
+
+    private ColumnarStorage() {
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> EsgElementStore<T> newStore(Class<T> type, int expectedSize) {
+        if (type == EsgNode.class) {
+            return (EsgElementStore<T>) new ColumnarNodeStore(expectedSize);
+        } else if (type == EsgLine.class) {
+            return (EsgElementStore<T>) new ColumnarLineStore(expectedSize);
+        } else if (type == EsgCouplingDevice.class) {
+            return (EsgElementStore<T>) new ColumnarCouplingDeviceStore(expectedSize);
+        } else if (type == EsgLoad.class) {
+            return (EsgElementStore<T>) new ColumnarLoadStore(expectedSize);
+        } else if (type == EsgGenerator.class) {
+            return (EsgElementStore<T>) new ColumnarGeneratorStore(expectedSize);
+        }
+        return MapElementStore.STORAGE.newStore(type, expectedSize);
+    }
+}
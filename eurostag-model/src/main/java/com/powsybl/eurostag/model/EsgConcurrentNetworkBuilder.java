@@ -0,0 +1,241 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Builder of an {@link EsgNetwork} which can be filled by several threads at the same time.
+ * <p>
+ * Each task gets its own {@link Buffer} with {@link #newBuffer()}, and adds its elements to it without any lock: a
+ * buffer must not be shared between concurrent tasks. Each element is added with a sequence number, and
+ * {@link #build()} adds the elements of each type to the network in the order of their sequence numbers, so that the
+ * network does not depend on the way the elements have been distributed between the tasks. The elements added with
+ * the same sequence number, for instance the elements created from a same IIDM equipment, keep the order in which
+ * they have been added, and so should be added to the same buffer.
+ * <p>
+ * To get the same network as a sequential conversion, the sequence number of an element is the position of its IIDM
+ * equipment in the iteration order of the sequential conversion.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public final class EsgConcurrentNetworkBuilder {
+
+    private static final class Entry {
+
+        private final long sequence;
+
+        /**
+         * Order of the element in its buffer
+         */
+        private final int order;
+
+        private final Object element;
+
+        private Entry(long sequence, int order, Object element) {
+            this.sequence = sequence;
+            this.order = order;
+            this.element = Objects.requireNonNull(element);
+        }
+    }
+
+    private static final Comparator<Entry> ENTRY_COMPARATOR = Comparator.<Entry>comparingLong(e -> e.sequence)
+            .thenComparingInt(e -> e.order);
+
+    /**
+     * Elements added by a task, by type. A buffer is not thread safe, each concurrent task needs its own buffer.
+     */
+    public final class Buffer {
+
+        private final Map<Class<?>, List<Entry>> entries = new HashMap<>();
+
+        private int count = 0;
+
+        private Buffer() {
+        }
+
+        private Buffer add(Class<?> type, long sequence, Object element) {
+            checkNotBuilt();
+            entries.computeIfAbsent(type, t -> new ArrayList<>()).add(new Entry(sequence, count++, element));
+            return this;
+        }
+
+        public Buffer addArea(long sequence, EsgArea area) {
+            return add(EsgArea.class, sequence, area);
+        }
+
+        public Buffer addNode(long sequence, EsgNode node) {
+            return add(EsgNode.class, sequence, node);
+        }
+
+        public Buffer addLine(long sequence, EsgLine line) {
+            return add(EsgLine.class, sequence, line);
+        }
+
+        public Buffer addDetailedTwoWindingTransformer(long sequence, EsgDetailedTwoWindingTransformer transformer) {
+            return add(EsgDetailedTwoWindingTransformer.class, sequence, transformer);
+        }
+
+        public Buffer addThreeWindingTransformer(long sequence, EsgThreeWindingTransformer transformer) {
+            return add(EsgThreeWindingTransformer.class, sequence, transformer);
+        }
+
+        public Buffer addDissymmetricalBranch(long sequence, EsgDissymmetricalBranch branch) {
+            return add(EsgDissymmetricalBranch.class, sequence, branch);
+        }
+
+        public Buffer addCouplingDevice(long sequence, EsgCouplingDevice device) {
+            return add(EsgCouplingDevice.class, sequence, device);
+        }
+
+        public Buffer addGenerator(long sequence, EsgGenerator generator) {
+            return add(EsgGenerator.class, sequence, generator);
+        }
+
+        public Buffer addLoad(long sequence, EsgLoad load) {
+            return add(EsgLoad.class, sequence, load);
+        }
+
+        public Buffer addCapacitorOrReactorBank(long sequence, EsgCapacitorOrReactorBank bank) {
+            return add(EsgCapacitorOrReactorBank.class, sequence, bank);
+        }
+
+        public Buffer addStaticVarCompensator(long sequence, EsgStaticVarCompensator svc) {
+            return add(EsgStaticVarCompensator.class, sequence, svc);
+        }
+
+        public Buffer addDCNode(long sequence, EsgDCNode node) {
+            return add(EsgDCNode.class, sequence, node);
+        }
+
+        public Buffer addDCLink(long sequence, EsgDCLink link) {
+            return add(EsgDCLink.class, sequence, link);
+        }
+
+        public Buffer addAcdcVscConverter(long sequence, EsgAcdcVscConverter converter) {
+            return add(EsgAcdcVscConverter.class, sequence, converter);
+        }
+    }
+
+    private EsgStorage storage = EsgStorage.heap();
+
+    private final Queue<Buffer> buffers = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean built = false;
+
+    EsgConcurrentNetworkBuilder() {
+    }
+
+    public EsgConcurrentNetworkBuilder setStorage(EsgStorage storage) {
+        this.storage = Objects.requireNonNull(storage);
+        return this;
+    }
+
+    private void checkNotBuilt() {
+        if (built) {
+            throw new IllegalStateException("The network has already been built");
+        }
+    }
+
+    /**
+     * @return a new buffer, for the elements of one task
+     */
+    public Buffer newBuffer() {
+        checkNotBuilt();
+        Buffer buffer = new Buffer();
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    /**
+     * @return the elements of the given type added to all the buffers, sorted by sequence number
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> merge(Class<T> type) {
+        List<Entry> entries = new ArrayList<>();
+        for (Buffer buffer : buffers) {
+            entries.addAll(buffer.entries.getOrDefault(type, List.of()));
+        }
+        entries.sort(ENTRY_COMPARATOR);
+        List<T> elements = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            elements.add((T) entry.element);
+        }
+        return elements;
+    }
+
+    /**
+     * Merge all the buffers into a new network. The tasks must have finished adding their elements, for instance by
+     * waiting for their completion, before calling this method. The buffers are emptied, so that they don't keep the
+     * elements alive if the tasks still reference them.
+     *
+     * @throws IllegalArgumentException if two elements of a same type have the same name
+     */
+    public EsgNetwork build() {
+        checkNotBuilt();
+        built = true;
+
+        List<EsgArea> areas = merge(EsgArea.class);
+        List<EsgNode> nodes = merge(EsgNode.class);
+        List<EsgLine> lines = merge(EsgLine.class);
+        List<EsgDetailedTwoWindingTransformer> detailedTwoWindingTransformers = merge(EsgDetailedTwoWindingTransformer.class);
+        List<EsgThreeWindingTransformer> threeWindingTransformers = merge(EsgThreeWindingTransformer.class);
+        List<EsgDissymmetricalBranch> dissymmetricalBranches = merge(EsgDissymmetricalBranch.class);
+        List<EsgCouplingDevice> couplingDevices = merge(EsgCouplingDevice.class);
+        List<EsgGenerator> generators = merge(EsgGenerator.class);
+        List<EsgLoad> loads = merge(EsgLoad.class);
+        List<EsgCapacitorOrReactorBank> banks = merge(EsgCapacitorOrReactorBank.class);
+        List<EsgStaticVarCompensator> svcs = merge(EsgStaticVarCompensator.class);
+        List<EsgDCNode> dcNodes = merge(EsgDCNode.class);
+        List<EsgDCLink> dcLinks = merge(EsgDCLink.class);
+        List<EsgAcdcVscConverter> converters = merge(EsgAcdcVscConverter.class);
+        for (Buffer buffer : buffers) {
+            buffer.entries.clear();
+        }
+        buffers.clear();
+
+        EsgNetwork network = EsgNetwork.builder()
+                .setStorage(storage)
+                .setExpectedAreaCount(areas.size())
+                .setExpectedNodeCount(nodes.size())
+                .setExpectedLineCount(lines.size())
+                .setExpectedDetailedTwoWindingTransformerCount(detailedTwoWindingTransformers.size())
+                .setExpectedThreeWindingTransformerCount(threeWindingTransformers.size())
+                .setExpectedDissymmetricalBranchCount(dissymmetricalBranches.size())
+                .setExpectedCouplingDeviceCount(couplingDevices.size())
+                .setExpectedGeneratorCount(generators.size())
+                .setExpectedLoadCount(loads.size())
+                .setExpectedCapacitorOrReactorBankCount(banks.size())
+                .setExpectedStaticVarCompensatorCount(svcs.size())
+                .setExpectedDCNodeCount(dcNodes.size())
+                .setExpectedDCLinkCount(dcLinks.size())
+                .setExpectedAcdcVscConverterCount(converters.size())
+                .build();
+        areas.forEach(network::addArea);
+        network.addNodes(nodes);
+        network.addLines(lines);
+        network.addDetailedTwoWindingTransformers(detailedTwoWindingTransformers);
+        threeWindingTransformers.forEach(network::addThreeWindingTransformer);
+        dissymmetricalBranches.forEach(network::addDissymmetricalBranch);
+        network.addCouplingDevices(couplingDevices);
+        network.addGenerators(generators);
+        network.addLoads(loads);
+        banks.forEach(network::addCapacitorsOrReactorBanks);
+        svcs.forEach(network::addStaticVarCompensator);
+        dcNodes.forEach(network::addDCNode);
+        dcLinks.forEach(network::addDCLink);
+        converters.forEach(network::addAcdcVscConverter);
+        return network;
+    }
+}
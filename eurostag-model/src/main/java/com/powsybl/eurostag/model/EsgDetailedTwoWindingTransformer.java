@@ -75,11 +75,30 @@ public class EsgDetailedTwoWindingTransformer {
     private final double pregmax; //  max active flux [MW]
     private final RegulatingMode xregtr; // regulating mode
 
-    private final List<Tap> taps = new ArrayList<>(1);
+    private final List<Tap> taps;
+
+    private final boolean sharedTaps;
 
     public EsgDetailedTwoWindingTransformer(EsgBranchName name, EsgBranchConnectionStatus status, double cmagn,
                                             double rate, double pcu, double pfer, double esat, int ktpnom, int ktap8, Esg8charName zbusr,
                                             double voltr, double pregmin, double pregmax, RegulatingMode xregtr) {
+        this(name, status, cmagn, rate, pcu, pfer, esat, ktpnom, ktap8, zbusr, voltr, pregmin, pregmax, xregtr, new ArrayList<>(1), false);
+    }
+
+    /**
+     * Create a transformer using the given tap table. The table is not copied, so that the same immutable list can be
+     * shared by several transformers.
+     */
+    public EsgDetailedTwoWindingTransformer(EsgBranchName name, EsgBranchConnectionStatus status, double cmagn,
+                                            double rate, double pcu, double pfer, double esat, int ktpnom, int ktap8, Esg8charName zbusr,
+                                            double voltr, double pregmin, double pregmax, RegulatingMode xregtr, List<Tap> taps) {
+        this(name, status, cmagn, rate, pcu, pfer, esat, ktpnom, ktap8, zbusr, voltr, pregmin, pregmax, xregtr, taps, true);
+    }
+
+    private EsgDetailedTwoWindingTransformer(EsgBranchName name, EsgBranchConnectionStatus status, double cmagn,
+                                             double rate, double pcu, double pfer, double esat, int ktpnom, int ktap8, Esg8charName zbusr,
+                                             double voltr, double pregmin, double pregmax, RegulatingMode xregtr, List<Tap> taps,
+                                             boolean sharedTaps) {
         this.name = Objects.requireNonNull(name);
         this.status = Objects.requireNonNull(status);
         this.cmagn = cmagn;
@@ -94,6 +113,8 @@ public class EsgDetailedTwoWindingTransformer {
         this.pregmin = pregmin;
         this.pregmax = pregmax;
         this.xregtr = Objects.requireNonNull(xregtr);
+        this.taps = Objects.requireNonNull(taps);
+        this.sharedTaps = sharedTaps;
     }
 
     public EsgBranchName getName() {
@@ -144,6 +165,13 @@ public class EsgDetailedTwoWindingTransformer {
         return taps;
     }
 
+    /**
+     * Return true if the tap table has been given at construction and may be shared with other transformers.
+     */
+    public boolean hasSharedTaps() {
+        return sharedTaps;
+    }
+
     public double getVoltr() {
         return voltr;
     }
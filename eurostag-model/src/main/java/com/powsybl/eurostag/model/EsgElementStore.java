@@ -0,0 +1,42 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import java.util.Collection;
+
+/**
+ * Storage of the elements of a type of an {@link EsgNetwork}, indexed by name and kept in insertion order. The
+ * network checks the duplicates and the unknown names before calling the store.
+ *
+ * @param <T> the type of the elements
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public interface EsgElementStore<T> {
+
+    int size();
+
+    boolean containsKey(String name);
+
+    /**
+     * @return the element, or null if there is no element with this name
+     */
+    T get(String name);
+
+    void put(String name, T element);
+
+    void remove(String name);
+
+    /**
+     * @return the elements, in insertion order
+     */
+    Collection<T> values();
+
+    /**
+     * @return an immutable copy of this store, or this store if it is already immutable
+     */
+    EsgElementStore<T> freeze();
+}
@@ -0,0 +1,346 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.AtomicLongMap;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimation of the heap retained by the Eurostag model, without a heap dump.
+ * <p>
+ * The object graph is walked from the given roots, each object being counted once, with the layout of a 64 bits JVM
+ * with compressed references: 12 bytes object headers, 16 bytes array headers, 4 bytes references and objects aligned
+ * on 8 bytes. The objects of the Eurostag packages are walked by reflection; the strings, arrays, boxed primitives and
+ * the JDK and Guava collections are estimated from their size. The other objects, for instance the IIDM network
+ * referenced by the fake nodes, are not owned by the Eurostag model and are not counted.
+ * <p>
+ * The buffers of the off-heap storages are not counted, as they are not in the heap.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public final class EsgFootprint {
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int ALIGNMENT = 8;
+
+    private static final int STRING = 24;
+    private static final int BOXED = 16;
+    private static final int BOXED_WIDE = 24;
+    private static final int COLLECTION = 24;
+    private static final int MAP = 48;
+    private static final int HASH_ENTRY = 32;
+    private static final int LINKED_HASH_ENTRY = 40;
+    private static final int TREE_ENTRY = 40;
+    private static final int BI_ENTRY = 48;
+    private static final int BUFFER = 64;
+
+    private static final String OWNED_PACKAGE = "com.powsybl.eurostag";
+
+    private static final Map<Class<?>, List<Field>> REFERENCE_FIELDS = new ConcurrentHashMap<>();
+
+    private static final Map<Class<?>, Long> SHALLOW_SIZES = new ConcurrentHashMap<>();
+
+    private EsgFootprint() {
+    }
+
+    /**
+     * Estimated heap retained by an element of each type in a network using the heap storage, including its entry in
+     * the store, measured on a prototype. The transformers have a single tap.
+     */
+    private static final class ElementBytes {
+
+        private static final Map<Class<?>, Long> BYTES = Map.ofEntries(
+                entry(new EsgArea(area(), EsgArea.Type.AC), false),
+                entry(new EsgNode(area(), name(), 380, 1, 0, false), false),
+                entry(new EsgLine(branchName(), EsgBranchConnectionStatus.CLOSED_AT_BOTH_SIDE, 0, 0, 0, 0, 0), true),
+                entry(createDetailedTwoWindingTransformer(), true),
+                entry(createThreeWindingTransformer(), false),
+                entry(new EsgDissymmetricalBranch(branchName(), EsgBranchConnectionStatus.CLOSED_AT_BOTH_SIDE, 0, 0, 0, 0, 0, 0, 0, 0, 0), true),
+                entry(new EsgCouplingDevice(branchName(), EsgCouplingDevice.ConnectionStatus.CLOSED), true),
+                entry(new EsgGenerator(name(), name(), 0, 0, 0, 0, 0, 0, EsgRegulatingMode.REGULATING, 0, name(), 0, EsgConnectionStatus.CONNECTED), false),
+                entry(new EsgLoad(EsgConnectionStatus.CONNECTED, name(), name(), 0, 0, 0, 0, 0, 0), false),
+                entry(new EsgCapacitorOrReactorBank(name(), name(), 1, 0, 0, 1, EsgCapacitorOrReactorBank.RegulatingMode.NOT_REGULATING), false),
+                entry(new EsgStaticVarCompensator(name(), EsgConnectionStatus.CONNECTED, name(), 0, 0, 0, EsgRegulatingMode.REGULATING, 0, 0), false),
+                entry(new EsgDCNode(area(), name(), 800, 1), false),
+                entry(new EsgDCLink(name(), name(), '1', 1f, EsgDCLink.LinkStatus.ON), true),
+                entry(new EsgAcdcVscConverter(name(), name(), name(), name(), EsgAcdcVscConverter.ConverterState.ON,
+                        EsgAcdcVscConverter.DCControlMode.DC_VOLTAGE, EsgAcdcVscConverter.ACControlMode.AC_REACTIVE_POWER,
+                        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0), false));
+
+        private static EsgDetailedTwoWindingTransformer createDetailedTwoWindingTransformer() {
+            EsgDetailedTwoWindingTransformer transformer = new EsgDetailedTwoWindingTransformer(branchName(), EsgBranchConnectionStatus.CLOSED_AT_BOTH_SIDE,
+                    0, 100, 0, 0, 1, 1, 1, name(), 0, 0, 0, EsgDetailedTwoWindingTransformer.RegulatingMode.NOT_REGULATING);
+            transformer.getTaps().add(new EsgDetailedTwoWindingTransformer.Tap(1, 0, 0, 0, 0));
+            return transformer;
+        }
+
+        private static EsgThreeWindingTransformer createThreeWindingTransformer() {
+            EsgThreeWindingTransformer transformer = new EsgThreeWindingTransformer(new EsgThreeWindingTransformer.EsgT3WName(name(), name(), name(), name()),
+                    EsgThreeWindingTransformer.EsgT3WConnectionStatus.CLOSED_AT_ALL_SIDES, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 1, name(), 0,
+                    EsgThreeWindingTransformer.RegulatingMode.NOT_REGULATING);
+            transformer.getTaps().add(new EsgThreeWindingTransformer.Tap(1, 0, 0, 0, 0, 0, 0, 0, 0, 0));
+            return transformer;
+        }
+
+        // a name object for each field, as created by the converter, wrapping a string shared with the dictionary
+        private static Esg2charName area() {
+            return new Esg2charName("FR");
+        }
+
+        private static Esg8charName name() {
+            return new Esg8charName("PROTOTYP");
+        }
+
+        private static EsgBranchName branchName() {
+            return new EsgBranchName(name(), name(), '1');
+        }
+
+        /**
+         * The element and its entry in a linked hash map. The key is the name of the element, unless it is built from
+         * the names of the nodes of a branch.
+         */
+        private static Map.Entry<Class<?>, Long> entry(Object prototype, boolean branchKey) {
+            long entryBytes = LINKED_HASH_ENTRY + 2 * REFERENCE + (branchKey ? stringSize(branchName().toString()) : 0);
+            return Map.entry(prototype.getClass(), sizeOf(prototype) + entryBytes);
+        }
+    }
+
+    /**
+     * Walk of an object graph, each object being counted once
+     */
+    private static final class Walker {
+
+        private final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        private final Deque<Object> pending = new ArrayDeque<>();
+
+        private long walk(Object root) {
+            long size = 0;
+            push(root);
+            while (!pending.isEmpty()) {
+                size += sizeOf(pending.pop());
+            }
+            return size;
+        }
+
+        private void push(Object o) {
+            if (o != null && visited.add(o)) {
+                pending.push(o);
+            }
+        }
+
+        private long sizeOf(Object o) {
+            Class<?> type = o.getClass();
+            if (type.isArray()) {
+                return arraySize(o, type.getComponentType());
+            } else if (o instanceof String) {
+                return stringSize((String) o);
+            } else if (o instanceof Enum || o instanceof Class) {
+                // shared
+                return 0;
+            } else if (o instanceof Long || o instanceof Double) {
+                return BOXED_WIDE;
+            } else if (o instanceof Number || o instanceof Character || o instanceof Boolean) {
+                return BOXED;
+            } else if (o instanceof BitSet) {
+                return COLLECTION + align(ARRAY_HEADER + (long) ((BitSet) o).size() / 8);
+            } else if (o instanceof ByteBuffer) {
+                ByteBuffer buffer = (ByteBuffer) o;
+                return BUFFER + (buffer.hasArray() ? align(ARRAY_HEADER + (long) buffer.capacity()) : 0);
+            } else if (o instanceof Map) {
+                return mapSize((Map<?, ?>) o);
+            } else if (o instanceof Multimap) {
+                return MAP + mapSize(((Multimap<?, ?>) o).asMap());
+            } else if (o instanceof AtomicLongMap) {
+                return BOXED + mapSize(((AtomicLongMap<?>) o).asMap());
+            } else if (o instanceof Collection) {
+                return collectionSize((Collection<?>) o);
+            } else if (type.getName().startsWith(OWNED_PACKAGE)) {
+                return objectSize(o, type);
+            }
+            // not owned by the Eurostag model
+            return 0;
+        }
+
+        private long arraySize(Object array, Class<?> componentType) {
+            if (!componentType.isPrimitive()) {
+                Object[] elements = (Object[]) array;
+                for (Object element : elements) {
+                    push(element);
+                }
+                return align(ARRAY_HEADER + (long) REFERENCE * elements.length);
+            }
+            return align(ARRAY_HEADER + (long) primitiveSize(componentType) * java.lang.reflect.Array.getLength(array));
+        }
+
+        private long mapSize(Map<?, ?> map) {
+            int entrySize;
+            int tables = 1;
+            if (map instanceof BiMap) {
+                // the inverse view shares the entries
+                visited.add(((BiMap<?, ?>) map).inverse());
+                entrySize = BI_ENTRY;
+                tables = 2;
+            } else if (map instanceof LinkedHashMap) {
+                entrySize = LINKED_HASH_ENTRY;
+            } else if (map instanceof TreeMap) {
+                entrySize = TREE_ENTRY;
+                tables = 0;
+            } else {
+                entrySize = HASH_ENTRY;
+            }
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                push(entry.getKey());
+                push(entry.getValue());
+            }
+            return MAP + (long) entrySize * map.size() + tables * tableSize(map.size());
+        }
+
+        private long collectionSize(Collection<?> collection) {
+            for (Object element : collection) {
+                push(element);
+            }
+            if (collection instanceof LinkedHashSet) {
+                return MAP + (long) LINKED_HASH_ENTRY * collection.size() + tableSize(collection.size());
+            } else if (collection instanceof Set) {
+                return MAP + (long) HASH_ENTRY * collection.size() + tableSize(collection.size());
+            }
+            return COLLECTION + align(ARRAY_HEADER + (long) REFERENCE * collection.size());
+        }
+
+        private long objectSize(Object o, Class<?> type) {
+            for (Field field : referenceFields(type)) {
+                try {
+                    push(field.get(o));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return SHALLOW_SIZES.computeIfAbsent(type, EsgFootprint::shallowSize);
+        }
+    }
+
+    private static long align(long size) {
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static long stringSize(String s) {
+        // compact strings: one byte per char, unless a char is not latin-1
+        int bytesPerChar = s.chars().allMatch(c -> c < 256) ? 1 : 2;
+        return STRING + align(ARRAY_HEADER + (long) bytesPerChar * s.length());
+    }
+
+    /**
+     * Size of the table of a hash map with the default load factor
+     */
+    private static long tableSize(int size) {
+        int capacity = Math.max(16, Integer.highestOneBit(Math.max(1, (int) (size / 0.75f)) * 2 - 1));
+        return align(ARRAY_HEADER + (long) REFERENCE * capacity);
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    private static long shallowSize(Class<?> type) {
+        long size = OBJECT_HEADER;
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    size += field.getType().isPrimitive() ? primitiveSize(field.getType()) : REFERENCE;
+                }
+            }
+        }
+        return align(size);
+    }
+
+    private static List<Field> referenceFields(Class<?> type) {
+        return REFERENCE_FIELDS.computeIfAbsent(type, t -> {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c = t; c != null && c.getName().startsWith(OWNED_PACKAGE); c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            return fields;
+        });
+    }
+
+    /**
+     * @return the estimated heap retained by the object graph of the given root, in bytes
+     */
+    public static long sizeOf(Object root) {
+        return new Walker().walk(Objects.requireNonNull(root));
+    }
+
+    /**
+     * Estimate the heap retained by several object graphs. The objects shared by several roots are counted in the first
+     * one, so that the sum of the sizes is the footprint of all the roots.
+     *
+     * @return the estimated size in bytes, by root name, in the order of the roots
+     */
+    public static Map<String, Long> sizesOf(Map<String, ?> roots) {
+        Objects.requireNonNull(roots);
+        Walker walker = new Walker();
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        roots.forEach((name, root) -> sizes.put(name, walker.walk(Objects.requireNonNull(root))));
+        return sizes;
+    }
+
+    /**
+     * Estimate the heap retained by each element collection of the network.
+     *
+     * @return the estimated size in bytes, by collection name
+     */
+    public static Map<String, Long> estimate(EsgNetwork network) {
+        return sizesOf(network.getStores());
+    }
+
+    /**
+     * @return the estimated heap retained by the given number of elements of the given type, in a network using the
+     * heap storage
+     */
+    static long predict(Class<?> type, int count) {
+        Long bytes = ElementBytes.BYTES.get(type);
+        if (bytes == null) {
+            throw new IllegalArgumentException("Unexpected element type: " + type.getName());
+        }
+        return bytes * count;
+    }
+}
@@ -7,12 +7,12 @@
  */
 package com.powsybl.eurostag.model;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -24,12 +24,12 @@ public class EsgNetwork {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(EsgNetwork.class);
 
-    private static final float MIN_REACTIVE_RANGE = 1f;
-
     private static final String UNKNOWN_REFERENCE_MESSAGE = "%s '%s' reference an unknown %s '%s'";
     private static final String ALREADY_EXISTS_MESSAGE = "%s '%s' already exists";
     private static final String DOES_NOT_EXIST_MESSAGE = "%s '%s' doesn't exist";
 
+    private static final int MAX_LOGGED_ISLANDS = 10;
+
     private static final String AREA = "Area";
     private static final String COUPLING_DEVICE = "Coupling device";
     private static final String DC_LINK = "DC link";
@@ -46,23 +46,411 @@ public class EsgNetwork {
     private static final String TRANSFORMER = "Transformer";
     private static final String VSC_CONVERTER_STATION = "VSC converter station";
 
+    private static final Function<EsgNode, String> NODE_NAME = node -> node.getName().toString();
+    private static final Function<EsgLine, String> LINE_NAME = line -> line.getName().toString();
+    private static final Function<EsgDetailedTwoWindingTransformer, String> DETAILED_TWT_NAME = transformer -> transformer.getName().toString();
+    private static final Function<EsgCouplingDevice, String> COUPLING_DEVICE_NAME = device -> device.getName().toString();
+    private static final Function<EsgGenerator, String> GENERATOR_NAME = generator -> generator.getZnamge().toString();
+    private static final Function<EsgLoad, String> LOAD_NAME = load -> load.getZnamlo().toString();
+
     private static final String CONNECTION_NODE = "connection node";
     private static final String REGULATING_NODE = "regulating node";
 
-    private final Map<String, EsgArea> areas = new LinkedHashMap<>();
-    private final Map<String, EsgNode> nodes = new LinkedHashMap<>();
-    private final Map<String, EsgLine> lines = new LinkedHashMap<>();
-    private final Map<String, EsgDetailedTwoWindingTransformer> detailedTwoWindingTransformers = new LinkedHashMap<>();
-    private final Map<String, EsgThreeWindingTransformer> threeWindingTransformers = new LinkedHashMap<>();
-    private final Map<String, EsgDissymmetricalBranch> dissymmetricalBranches = new LinkedHashMap<>();
-    private final Map<String, EsgCouplingDevice> couplingDevices = new LinkedHashMap<>();
-    private final Map<String, EsgGenerator> generators = new LinkedHashMap<>();
-    private final Map<String, EsgLoad> loads = new LinkedHashMap<>();
-    private final Map<String, EsgCapacitorOrReactorBank> capacitorsOrReactorBanks = new LinkedHashMap<>();
-    private final Map<String, EsgStaticVarCompensator> staticVarCompensators = new LinkedHashMap<>();
-    private final Map<String, EsgDCNode> dcNodes = new LinkedHashMap<>();
-    private final Map<String, EsgDCLink> dcLinks = new LinkedHashMap<>();
-    private final Map<String, EsgAcdcVscConverter> vscConverters = new LinkedHashMap<>();
+    private final EsgElementStore<EsgArea> areas;
+    private final EsgElementStore<EsgNode> nodes;
+    private final EsgElementStore<EsgLine> lines;
+    private final EsgElementStore<EsgDetailedTwoWindingTransformer> detailedTwoWindingTransformers;
+    private final EsgElementStore<EsgThreeWindingTransformer> threeWindingTransformers;
+    private final EsgElementStore<EsgDissymmetricalBranch> dissymmetricalBranches;
+    private final EsgElementStore<EsgCouplingDevice> couplingDevices;
+    private final EsgElementStore<EsgGenerator> generators;
+    private final EsgElementStore<EsgLoad> loads;
+    private final EsgElementStore<EsgCapacitorOrReactorBank> capacitorsOrReactorBanks;
+    private final EsgElementStore<EsgStaticVarCompensator> staticVarCompensators;
+    private final EsgElementStore<EsgDCNode> dcNodes;
+    private final EsgElementStore<EsgDCLink> dcLinks;
+    private final EsgElementStore<EsgAcdcVscConverter> vscConverters;
+
+    private final boolean frozen;
+
+    private volatile EsgTopology topology;
+
+    public EsgNetwork() {
+        this(EsgStorage.heap());
+    }
+
+    /**
+     * Builder of an empty network, with stores sized for the expected number of elements of each type, so that they are
+     * filled without being resized.
+     */
+    public static final class Builder {
+
+        private EsgStorage storage = EsgStorage.heap();
+
+        private int expectedAreaCount = 0;
+
+        private int expectedNodeCount = 0;
+
+        private int expectedLineCount = 0;
+
+        private int expectedDetailedTwoWindingTransformerCount = 0;
+
+        private int expectedThreeWindingTransformerCount = 0;
+
+        private int expectedDissymmetricalBranchCount = 0;
+
+        private int expectedCouplingDeviceCount = 0;
+
+        private int expectedGeneratorCount = 0;
+
+        private int expectedLoadCount = 0;
+
+        private int expectedCapacitorOrReactorBankCount = 0;
+
+        private int expectedStaticVarCompensatorCount = 0;
+
+        private int expectedDCNodeCount = 0;
+
+        private int expectedDCLinkCount = 0;
+
+        private int expectedAcdcVscConverterCount = 0;
+
+        private Builder() {
+        }
+
+        public Builder setStorage(EsgStorage storage) {
+            this.storage = Objects.requireNonNull(storage);
+            return this;
+        }
+
+        public Builder setExpectedAreaCount(int count) {
+            this.expectedAreaCount = checkCount(count);
+            return this;
+        }
+
+        public Builder setExpectedNodeCount(int count) {
+            this.expectedNodeCount = checkCount(count);
+            return this;
+        }
+
+        public Builder setExpectedLineCount(int count) {
+            this.expectedLineCount = checkCount(count);
+            return this;
+        }
+
+        public Builder setExpectedDetailedTwoWindingTransformerCount(int count) {
+            this.expectedDetailedTwoWindingTransformerCount = checkCount(count);
+            return this;
+        }
+
+        public Builder setExpectedThreeWindingTransformerCount(int count) {
+            this.expectedThreeWindingTransformerCount = checkCount(count);
+            return this;
+        }
+
+        public Builder setExpectedDissymmetricalBranchCount(int count) {
+            this.expectedDissymmetricalBranchCount = checkCount(count);
+            return this;
+        }
+
+        public Builder setExpectedCouplingDeviceCount(int count) {
+            this.expectedCouplingDeviceCount = checkCount(count);
+            return this;
+        }
+
+        public Builder setExpectedGeneratorCount(int count) {
+            this.expectedGeneratorCount = checkCount(count);
+            return this;
+        }
+
+        public Builder setExpectedLoadCount(int count) {
+            this.expectedLoadCount = checkCount(count);
+            return this;
+        }
+
+        public Builder setExpectedCapacitorOrReactorBankCount(int count) {
+            this.expectedCapacitorOrReactorBankCount = checkCount(count);
+            return this;
+        }
+
+        public Builder setExpectedStaticVarCompensatorCount(int count) {
+            this.expectedStaticVarCompensatorCount = checkCount(count);
+            return this;
+        }
+
+        public Builder setExpectedDCNodeCount(int count) {
+            this.expectedDCNodeCount = checkCount(count);
+            return this;
+        }
+
+        public Builder setExpectedDCLinkCount(int count) {
+            this.expectedDCLinkCount = checkCount(count);
+            return this;
+        }
+
+        public Builder setExpectedAcdcVscConverterCount(int count) {
+            this.expectedAcdcVscConverterCount = checkCount(count);
+            return this;
+        }
+
+        private static int checkCount(int count) {
+            if (count < 0) {
+                throw new IllegalArgumentException("Invalid expected count: " + count);
+            }
+            return count;
+        }
+
+        /**
+         * @return the estimated heap retained by the network once filled with the expected number of elements, when
+         * using the heap storage, see {@link EsgFootprint}
+         */
+        public long estimateFootprint() {
+            return EsgFootprint.predict(EsgArea.class, expectedAreaCount)
+                    + EsgFootprint.predict(EsgNode.class, expectedNodeCount)
+                    + EsgFootprint.predict(EsgLine.class, expectedLineCount)
+                    + EsgFootprint.predict(EsgDetailedTwoWindingTransformer.class, expectedDetailedTwoWindingTransformerCount)
+                    + EsgFootprint.predict(EsgThreeWindingTransformer.class, expectedThreeWindingTransformerCount)
+                    + EsgFootprint.predict(EsgDissymmetricalBranch.class, expectedDissymmetricalBranchCount)
+                    + EsgFootprint.predict(EsgCouplingDevice.class, expectedCouplingDeviceCount)
+                    + EsgFootprint.predict(EsgGenerator.class, expectedGeneratorCount)
+                    + EsgFootprint.predict(EsgLoad.class, expectedLoadCount)
+                    + EsgFootprint.predict(EsgCapacitorOrReactorBank.class, expectedCapacitorOrReactorBankCount)
+                    + EsgFootprint.predict(EsgStaticVarCompensator.class, expectedStaticVarCompensatorCount)
+                    + EsgFootprint.predict(EsgDCNode.class, expectedDCNodeCount)
+                    + EsgFootprint.predict(EsgDCLink.class, expectedDCLinkCount)
+                    + EsgFootprint.predict(EsgAcdcVscConverter.class, expectedAcdcVscConverterCount);
+        }
+
+        public EsgNetwork build() {
+            return new EsgNetwork(this);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return a builder which can be filled by several threads, see {@link EsgConcurrentNetworkBuilder}
+     */
+    public static EsgConcurrentNetworkBuilder concurrentBuilder() {
+        return new EsgConcurrentNetworkBuilder();
+    }
+
+    /**
+     * @param storage the storage of the elements of the network
+     */
+    public EsgNetwork(EsgStorage storage) {
+        this(builder().setStorage(storage));
+    }
+
+    private EsgNetwork(Builder builder) {
+        EsgStorage storage = builder.storage;
+        areas = storage.newStore(EsgArea.class, builder.expectedAreaCount);
+        nodes = storage.newStore(EsgNode.class, builder.expectedNodeCount);
+        lines = storage.newStore(EsgLine.class, builder.expectedLineCount);
+        detailedTwoWindingTransformers = storage.newStore(EsgDetailedTwoWindingTransformer.class, builder.expectedDetailedTwoWindingTransformerCount);
+        threeWindingTransformers = storage.newStore(EsgThreeWindingTransformer.class, builder.expectedThreeWindingTransformerCount);
+        dissymmetricalBranches = storage.newStore(EsgDissymmetricalBranch.class, builder.expectedDissymmetricalBranchCount);
+        couplingDevices = storage.newStore(EsgCouplingDevice.class, builder.expectedCouplingDeviceCount);
+        generators = storage.newStore(EsgGenerator.class, builder.expectedGeneratorCount);
+        loads = storage.newStore(EsgLoad.class, builder.expectedLoadCount);
+        capacitorsOrReactorBanks = storage.newStore(EsgCapacitorOrReactorBank.class, builder.expectedCapacitorOrReactorBankCount);
+        staticVarCompensators = storage.newStore(EsgStaticVarCompensator.class, builder.expectedStaticVarCompensatorCount);
+        dcNodes = storage.newStore(EsgDCNode.class, builder.expectedDCNodeCount);
+        dcLinks = storage.newStore(EsgDCLink.class, builder.expectedDCLinkCount);
+        vscConverters = storage.newStore(EsgAcdcVscConverter.class, builder.expectedAcdcVscConverterCount);
+        frozen = false;
+    }
+
+    /**
+     * Frozen copy or variant of the given network
+     */
+    private EsgNetwork(EsgNetwork other, boolean variant) {
+        areas = derive(other.areas, variant, area -> area.getName().toString());
+        nodes = derive(other.nodes, variant, NODE_NAME);
+        lines = derive(other.lines, variant, LINE_NAME);
+        detailedTwoWindingTransformers = derive(other.detailedTwoWindingTransformers, variant, DETAILED_TWT_NAME);
+        threeWindingTransformers = derive(other.threeWindingTransformers, variant, transformer -> transformer.getName().toString());
+        dissymmetricalBranches = derive(other.dissymmetricalBranches, variant, branch -> branch.getName().toString());
+        couplingDevices = derive(other.couplingDevices, variant, COUPLING_DEVICE_NAME);
+        generators = derive(other.generators, variant, GENERATOR_NAME);
+        loads = derive(other.loads, variant, LOAD_NAME);
+        capacitorsOrReactorBanks = derive(other.capacitorsOrReactorBanks, variant, bank -> bank.getZnamba().toString());
+        staticVarCompensators = derive(other.staticVarCompensators, variant, svc -> svc.getZnamsvc().toString());
+        dcNodes = derive(other.dcNodes, variant, node -> node.getName().toString());
+        dcLinks = derive(other.dcLinks, variant, EsgDCLink::toString);
+        vscConverters = derive(other.vscConverters, variant, converter -> converter.getZnconv().toString());
+        frozen = !variant;
+    }
+
+    private static <T> EsgElementStore<T> derive(EsgElementStore<T> store, boolean variant, Function<T, String> nameGetter) {
+        return variant ? new OverlayElementStore<>(store, nameGetter) : store.freeze();
+    }
+
+    /**
+     * Get an immutable copy of this network, which can be shared between threads. The elements are kept in arrays, in
+     * insertion order, and indexed by sorted names: the copy uses less memory than a network being built.
+     * <p>
+     * The elements themselves are shared with this network. As {@link #checkConsistency()} fixes some of them, it
+     * should be called before freezing the network: a frozen network can only be validated, its fixes are applied to
+     * a variant.
+     *
+     * @return the frozen copy, or this network if it is already frozen
+     */
+    public EsgNetwork freeze() {
+        return frozen ? this : new EsgNetwork(this, false);
+    }
+
+    /**
+     * Create a variant of this frozen network. The variant only keeps the elements which are replaced, removed or
+     * added, the other ones are read from this network, so that many variants can be created at the cost of their
+     * changes only. Each variant can be written on its own thread.
+     * <p>
+     * The elements of this network are shared with its variants: to change an element in a variant, replace it, for
+     * instance with {@link #replaceGenerator(EsgGenerator)}, rather than calling its setters. The fixes of
+     * {@link #repair()} are applied to copies of the elements in the variant.
+     */
+    public EsgNetwork newVariant() {
+        if (!frozen) {
+            throw new IllegalStateException("Only a frozen network can have variants");
+        }
+        return new EsgNetwork(this, true);
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * @return the stores of the elements, by collection name
+     */
+    Map<String, EsgElementStore<?>> getStores() {
+        Map<String, EsgElementStore<?>> stores = new LinkedHashMap<>();
+        stores.put("areas", areas);
+        stores.put("nodes", nodes);
+        stores.put("lines", lines);
+        stores.put("detailedTwoWindingTransformers", detailedTwoWindingTransformers);
+        stores.put("threeWindingTransformers", threeWindingTransformers);
+        stores.put("dissymmetricalBranches", dissymmetricalBranches);
+        stores.put("couplingDevices", couplingDevices);
+        stores.put("generators", generators);
+        stores.put("loads", loads);
+        stores.put("capacitorsOrReactorBanks", capacitorsOrReactorBanks);
+        stores.put("staticVarCompensators", staticVarCompensators);
+        stores.put("dcNodes", dcNodes);
+        stores.put("dcLinks", dcLinks);
+        stores.put("vscConverters", vscConverters);
+        return stores;
+    }
+
+    /**
+     * Get the adjacency of the nodes of this network. The topology is built on first call and then cached, until the
+     * network is modified: the changes of the elements it depends on, the nodes and the branches, clear the cache.
+     */
+    public EsgTopology getTopology() {
+        EsgTopology result = topology;
+        if (result == null) {
+            synchronized (this) {
+                result = topology;
+                if (result == null) {
+                    result = new EsgTopology(this);
+                    topology = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private void invalidateTopology() {
+        topology = null;
+    }
+
+    /**
+     * @return true if the element is read from the parent of a variant, and so can't be modified in place
+     */
+    private static boolean isInherited(EsgElementStore<?> store, String name) {
+        return store instanceof OverlayElementStore && !((OverlayElementStore<?>) store).isOverridden(name);
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("The network is frozen");
+        }
+    }
+
+    /**
+     * @return the generator, or a copy replacing it if it is inherited from the parent of a variant
+     * @throws UnsupportedOperationException if the network is frozen, its elements being shared
+     */
+    EsgGenerator writable(EsgGenerator generator) {
+        checkNotFrozen();
+        String name = generator.getZnamge().toString();
+        if (!isInherited(generators, name)) {
+            return generator;
+        }
+        EsgGenerator copy = new EsgGenerator(generator.getZnamge(), generator.getZnodge(), generator.getPgmin(), generator.getPgen(),
+                generator.getPgmax(), generator.getQgmin(), generator.getQgen(), generator.getQgmax(), generator.getXregge(),
+                generator.getVregge(), generator.getZregnoge(), generator.getQgensh(), generator.getXgenest());
+        generators.put(name, copy);
+        return copy;
+    }
+
+    /**
+     * @return the transformer, or a copy replacing it if it is inherited from the parent of a variant
+     * @throws UnsupportedOperationException if the network is frozen, its elements being shared
+     */
+    EsgDetailedTwoWindingTransformer writable(EsgDetailedTwoWindingTransformer transformer) {
+        checkNotFrozen();
+        String name = transformer.getName().toString();
+        if (!isInherited(detailedTwoWindingTransformers, name)) {
+            return transformer;
+        }
+        EsgDetailedTwoWindingTransformer copy;
+        if (transformer.hasSharedTaps()) {
+            copy = new EsgDetailedTwoWindingTransformer(transformer.getName(), transformer.getStatus(), transformer.getCmagn(),
+                    transformer.getRate(), transformer.getPcu(), transformer.getPfer(), transformer.getEsat(), transformer.getKtpnom(),
+                    transformer.getKtap8(), transformer.getZbusr(), transformer.getVoltr(), transformer.getPregmin(),
+                    transformer.getPregmax(), transformer.getXregtr(), transformer.getTaps());
+        } else {
+            copy = new EsgDetailedTwoWindingTransformer(transformer.getName(), transformer.getStatus(), transformer.getCmagn(),
+                    transformer.getRate(), transformer.getPcu(), transformer.getPfer(), transformer.getEsat(), transformer.getKtpnom(),
+                    transformer.getKtap8(), transformer.getZbusr(), transformer.getVoltr(), transformer.getPregmin(),
+                    transformer.getPregmax(), transformer.getXregtr());
+            copy.getTaps().addAll(transformer.getTaps());
+        }
+        detailedTwoWindingTransformers.put(name, copy);
+        return copy;
+    }
+
+    /**
+     * Add a batch of elements, the duplicates being checked once for the whole batch before adding any element
+     */
+    private static <T> void addAll(EsgElementStore<T> store, Collection<? extends T> elements, Function<T, String> nameGetter, String type) {
+        String[] names = new String[elements.size()];
+        int i = 0;
+        for (T element : elements) {
+            names[i++] = nameGetter.apply(element);
+        }
+        String[] sortedNames = names.clone();
+        Arrays.sort(sortedNames);
+        for (int j = 0; j < sortedNames.length; j++) {
+            if ((j > 0 && sortedNames[j].equals(sortedNames[j - 1])) || store.containsKey(sortedNames[j])) {
+                throw new IllegalArgumentException(String.format(ALREADY_EXISTS_MESSAGE, type, sortedNames[j]));
+            }
+        }
+        i = 0;
+        for (T element : elements) {
+            store.put(names[i++], element);
+        }
+    }
+
+    private static <T> void replace(EsgElementStore<T> store, String name, T element, String type) {
+        if (!store.containsKey(name)) {
+            throw new IllegalArgumentException(String.format(DOES_NOT_EXIST_MESSAGE, type, name));
+        }
+        store.put(name, element);
+    }
 
     private void checkBranchName(EsgBranchName name) {
         if (getNode(name.getNode1Name().toString()) == null) {
@@ -73,7 +461,45 @@ public class EsgNetwork {
         }
     }
 
+    /**
+     * Check the network, then fix the inconsistencies which would make the Eurostag load flow fail, with the rules of
+     * {@link EsgNetworkRepairer#getDefault()}.
+     *
+     * @throws EsgException if the network is not valid or can't be fixed
+     * @throws UnsupportedOperationException if the network is frozen
+     */
     public void checkConsistency() {
+        validate();
+        repair();
+    }
+
+    /**
+     * Fix the inconsistencies of the network with the rules of {@link EsgNetworkRepairer#getDefault()}
+     *
+     * @return the changes applied to the network
+     * @throws UnsupportedOperationException if the network is frozen: repair a variant of it instead
+     */
+    public List<EsgNetworkRepairer.Change> repair() {
+        return EsgNetworkRepairer.getDefault().repair(this);
+    }
+
+    /**
+     * Check the references between the elements of the network, without modifying it. The islands without slack bus
+     * are logged, their count and the first node of the first ones only.
+     *
+     * @throws EsgException if the network is not valid
+     */
+    public void validate() {
+        validate(null);
+    }
+
+    /**
+     * Check the references between the elements of the network, without modifying it, and report the nodes of each
+     * island without slack bus to the given consumer instead of logging them.
+     *
+     * @throws EsgException if the network is not valid
+     */
+    public void validate(Consumer<List<String>> islandWithoutSlackBusReporter) {
         // check there is at least one node and a slack bus
         if (nodes.size() < 1) {
             throw new EsgException("Network must have at least one node");
@@ -131,84 +557,16 @@ public class EsgNetwork {
             }
         }
 
-        // Fix generator small reactive range issue
-        List<String> minReactiveRangePb = new ArrayList<>();
-        for (EsgGenerator g : getGenerators()) {
-            if (g.getXregge() == EsgRegulatingMode.REGULATING && Math.abs(g.getQgmax() - g.getQgmin()) < MIN_REACTIVE_RANGE) {
-                minReactiveRangePb.add(g.getZnamge().toString());
-                g.setXregge(EsgRegulatingMode.NOT_REGULATING);
-            }
-        }
-        if (!minReactiveRangePb.isEmpty()) {
-            LOGGER.warn("Reactive range too small, switch regulator off: {}", minReactiveRangePb);
-        }
-
-        // Fix target voltage consistency issue
-        // Eurostag error message example:
-        // ERR-0194.0350:LE GEN CURBH6G0 ESSAIE D'IMPOSER UNE TENSION AU NOEUD BARNAP71 AUQUEL UN AUTRE EQUIPEMENT A DEJA IMPOSE UNE AUTRE TENSION
-        Multimap<String, EsgGenerator> generatorsConnectedToSameNode = HashMultimap.create();
-        for (EsgGenerator g : getGenerators()) {
-            if (g.getXregge() == EsgRegulatingMode.REGULATING) {
-                generatorsConnectedToSameNode.put(g.getZnodge().toString(), g);
-            }
-        }
-        for (Map.Entry<String, Collection<EsgGenerator>> e : generatorsConnectedToSameNode.asMap().entrySet()) {
-            String nodeName = e.getKey();
-            Collection<EsgGenerator> gens = e.getValue();
-            Set<Double> targetVoltageSet = gens.stream()
-                    .map(EsgGenerator::getVregge)
-                    .collect(Collectors.toSet());
-            if (targetVoltageSet.size() > 1) {
-                Collection<EsgGenerator> connectedGenerators = gens.stream()
-                        .filter(g -> g.getXgenest() == EsgConnectionStatus.CONNECTED)
-                        .collect(Collectors.toList());
-                targetVoltageSet = connectedGenerators.stream()
-                        .map(EsgGenerator::getVregge)
-                        .collect(Collectors.toSet());
-                if (!targetVoltageSet.isEmpty()) {
-                    if (targetVoltageSet.size() == 1) {
-                        Collection<EsgGenerator> diconnectedGenerators = gens.stream()
-                                .filter(g -> g.getXgenest() == EsgConnectionStatus.NOT_CONNECTED)
-                                .collect(Collectors.toList());
-                        LOGGER.warn("Fix target voltage of disconnected generators {} to be consistent with target voltage ({} Kv) of other generators connected to the same node ({})",
-                                diconnectedGenerators.stream().map(EsgGenerator::getZnamge).collect(Collectors.toList()),
-                                targetVoltageSet.iterator().next(), nodeName);
-                        double vregge = targetVoltageSet.iterator().next();
-                        for (EsgGenerator g : diconnectedGenerators) {
-                            g.setVregge(vregge);
-                        }
-                    } else {
-                        throw new EsgException(connectedGenerators.size() + " generators ("
-                                + connectedGenerators.stream().map(EsgGenerator::getZnamge).collect(Collectors.toList())
-                                + ") are connected to a same node (" + nodeName + ") and try to impose a different target voltage: "
-                                + targetVoltageSet);
-                    }
-                }
-            }
-        }
-
-        // check there is no regulating transformer connected to same bus with a different target voltage
-        Multimap<Esg8charName, EsgDetailedTwoWindingTransformer> transformersByRegulatedNode = HashMultimap.create();
-        for (EsgDetailedTwoWindingTransformer transfo : getDetailedTwoWindingTransformers()) {
-            if (transfo.getXregtr() == EsgDetailedTwoWindingTransformer.RegulatingMode.VOLTAGE) {
-                transformersByRegulatedNode.put(transfo.getZbusr(), transfo);
-            }
-        }
-        for (Map.Entry<Esg8charName, Collection<EsgDetailedTwoWindingTransformer>> e : transformersByRegulatedNode.asMap().entrySet()) {
-            Esg8charName regulatedNode = e.getKey();
-            Collection<EsgDetailedTwoWindingTransformer> transformers = e.getValue();
-
-            OptionalDouble chosenTargetVoltage = transformers.stream()
-                    .mapToDouble(EsgDetailedTwoWindingTransformer::getVoltr)
-                    .min();
-            if (chosenTargetVoltage.isPresent()) {
-                LOGGER.warn("Fix target voltage of transformers {} connected to same regulating bus {} to {} kV",
-                        transformers.stream().map(EsgDetailedTwoWindingTransformer::getName).collect(Collectors.toList()),
-                        regulatedNode, chosenTargetVoltage.getAsDouble());
-                for (EsgDetailedTwoWindingTransformer transformer : transformers) {
-                    transformer.setVoltr(chosenTargetVoltage.getAsDouble());
-                }
-            }
+        // Eurostag load flow fails on the islands without slack bus, but some of them may be out of service on purpose
+        List<List<String>> islands = getTopology().getIslandsWithoutSlackBus();
+        if (islandWithoutSlackBusReporter != null) {
+            islands.forEach(islandWithoutSlackBusReporter);
+        } else if (!islands.isEmpty()) {
+            List<String> samples = islands.stream()
+                    .limit(MAX_LOGGED_ISLANDS)
+                    .map(island -> island.get(0).trim() + " (" + island.size() + " nodes)")
+                    .collect(Collectors.toList());
+            LOGGER.warn("{} islands without slack bus, first ones: {}", islands.size(), samples);
         }
     }
 
@@ -243,13 +601,31 @@ public class EsgNetwork {
     }
 
     public void addNode(EsgNode node) {
+        invalidateTopology();
         if (nodes.containsKey(node.getName().toString())) {
             throw new IllegalArgumentException(String.format(ALREADY_EXISTS_MESSAGE, NODE, node.getName()));
         }
         nodes.put(node.getName().toString(), node);
     }
 
+    /**
+     * Add a batch of nodes, in the order of the collection. If one of them already exists, none is added.
+     */
+    public void addNodes(Collection<? extends EsgNode> nodes) {
+        invalidateTopology();
+        addAll(this.nodes, nodes, NODE_NAME, NODE);
+    }
+
+    /**
+     * Replace the node of the same name, keeping its position
+     */
+    public void replaceNode(EsgNode node) {
+        invalidateTopology();
+        replace(nodes, node.getName().toString(), node, NODE);
+    }
+
     public void removeNode(String node) {
+        invalidateTopology();
         if (!nodes.containsKey(node)) {
             throw new IllegalArgumentException(String.format(DOES_NOT_EXIST_MESSAGE, NODE, node));
         }
@@ -265,13 +641,31 @@ public class EsgNetwork {
     }
 
     public void addLine(EsgLine line) {
+        invalidateTopology();
         if (lines.containsKey(line.getName().toString())) {
             throw new IllegalArgumentException(String.format(ALREADY_EXISTS_MESSAGE, LINE, line.getName()));
         }
         lines.put(line.getName().toString(), line);
     }
 
+    /**
+     * Add a batch of lines, in the order of the collection. If one of them already exists, none is added.
+     */
+    public void addLines(Collection<? extends EsgLine> lines) {
+        invalidateTopology();
+        addAll(this.lines, lines, LINE_NAME, LINE);
+    }
+
+    /**
+     * Replace the line of the same name, keeping its position
+     */
+    public void replaceLine(EsgLine line) {
+        invalidateTopology();
+        replace(lines, line.getName().toString(), line, LINE);
+    }
+
     public void removeLine(String line) {
+        invalidateTopology();
         if (!lines.containsKey(line)) {
             throw new IllegalArgumentException(String.format(DOES_NOT_EXIST_MESSAGE, LINE, line));
         }
@@ -287,13 +681,31 @@ public class EsgNetwork {
     }
 
     public void addDetailedTwoWindingTransformer(EsgDetailedTwoWindingTransformer transformer) {
+        invalidateTopology();
         if (detailedTwoWindingTransformers.containsKey(transformer.getName().toString())) {
             throw new IllegalArgumentException(String.format(ALREADY_EXISTS_MESSAGE, DETAILED_TWT, transformer));
         }
         detailedTwoWindingTransformers.put(transformer.getName().toString(), transformer);
     }
 
+    /**
+     * Add a batch of transformers, in the order of the collection. If one of them already exists, none is added.
+     */
+    public void addDetailedTwoWindingTransformers(Collection<? extends EsgDetailedTwoWindingTransformer> detailedTwoWindingTransformers) {
+        invalidateTopology();
+        addAll(this.detailedTwoWindingTransformers, detailedTwoWindingTransformers, DETAILED_TWT_NAME, DETAILED_TWT);
+    }
+
+    /**
+     * Replace the transformer of the same name, keeping its position
+     */
+    public void replaceDetailedTwoWindingTransformer(EsgDetailedTwoWindingTransformer transformer) {
+        invalidateTopology();
+        replace(detailedTwoWindingTransformers, transformer.getName().toString(), transformer, DETAILED_TWT);
+    }
+
     public void removeDetailedTwoWindingTransformer(String transformer) {
+        invalidateTopology();
         if (!detailedTwoWindingTransformers.containsKey(transformer)) {
             throw new IllegalArgumentException(String.format(DOES_NOT_EXIST_MESSAGE, DETAILED_TWT, transformer));
         }
@@ -301,6 +713,7 @@ public class EsgNetwork {
     }
 
     public void addThreeWindingTransformer(EsgThreeWindingTransformer t3wTransformer) {
+        invalidateTopology();
         if (threeWindingTransformers.containsKey(t3wTransformer.getName().toString())) {
             throw new IllegalArgumentException(String.format(ALREADY_EXISTS_MESSAGE, T3WT, t3wTransformer));
         }
@@ -320,6 +733,7 @@ public class EsgNetwork {
     }
 
     public void addDissymmetricalBranch(EsgDissymmetricalBranch branch) {
+        invalidateTopology();
         if (dissymmetricalBranches.containsKey(branch.getName().toString())) {
             throw new IllegalArgumentException(String.format(ALREADY_EXISTS_MESSAGE, DISSYMMETRICAL_BRANCH, branch));
         }
@@ -327,6 +741,7 @@ public class EsgNetwork {
     }
 
     public void removeDissymmetricalBranch(String branch) {
+        invalidateTopology();
         if (!dissymmetricalBranches.containsKey(branch)) {
             throw new IllegalArgumentException(String.format(DOES_NOT_EXIST_MESSAGE, DISSYMMETRICAL_BRANCH, branch));
         }
@@ -342,13 +757,31 @@ public class EsgNetwork {
     }
 
     public void addCouplingDevice(EsgCouplingDevice device) {
+        invalidateTopology();
         if (couplingDevices.containsKey(device.getName().toString())) {
             throw new IllegalArgumentException(String.format(ALREADY_EXISTS_MESSAGE, COUPLING_DEVICE, device));
         }
         couplingDevices.put(device.getName().toString(), device);
     }
 
+    /**
+     * Add a batch of coupling devices, in the order of the collection. If one of them already exists, none is added.
+     */
+    public void addCouplingDevices(Collection<? extends EsgCouplingDevice> couplingDevices) {
+        invalidateTopology();
+        addAll(this.couplingDevices, couplingDevices, COUPLING_DEVICE_NAME, COUPLING_DEVICE);
+    }
+
+    /**
+     * Replace the coupling device of the same name, keeping its position
+     */
+    public void replaceCouplingDevice(EsgCouplingDevice device) {
+        invalidateTopology();
+        replace(couplingDevices, device.getName().toString(), device, COUPLING_DEVICE);
+    }
+
     public void removeCouplingDevice(String device) {
+        invalidateTopology();
         if (!couplingDevices.containsKey(device)) {
             throw new IllegalArgumentException(String.format(DOES_NOT_EXIST_MESSAGE, COUPLING_DEVICE, device));
         }
@@ -370,6 +803,20 @@ public class EsgNetwork {
         generators.put(generator.getZnamge().toString(), generator);
     }
 
+    /**
+     * Add a batch of generators, in the order of the collection. If one of them already exists, none is added.
+     */
+    public void addGenerators(Collection<? extends EsgGenerator> generators) {
+        addAll(this.generators, generators, GENERATOR_NAME, GENERATOR);
+    }
+
+    /**
+     * Replace the generator of the same name, keeping its position
+     */
+    public void replaceGenerator(EsgGenerator generator) {
+        replace(generators, generator.getZnamge().toString(), generator, GENERATOR);
+    }
+
     public void removeGenerator(String generator) {
         if (!generators.containsKey(generator)) {
             throw new IllegalArgumentException(String.format(DOES_NOT_EXIST_MESSAGE, GENERATOR, generator));
@@ -392,6 +839,20 @@ public class EsgNetwork {
         loads.put(load.getZnamlo().toString(), load);
     }
 
+    /**
+     * Add a batch of loads, in the order of the collection. If one of them already exists, none is added.
+     */
+    public void addLoads(Collection<? extends EsgLoad> loads) {
+        addAll(this.loads, loads, LOAD_NAME, LOAD);
+    }
+
+    /**
+     * Replace the load of the same name, keeping its position
+     */
+    public void replaceLoad(EsgLoad load) {
+        replace(loads, load.getZnamlo().toString(), load, LOAD);
+    }
+
     public void removeLoad(String load) {
         if (!loads.containsKey(load)) {
             throw new IllegalArgumentException(String.format(DOES_NOT_EXIST_MESSAGE, LOAD, load));
@@ -441,6 +902,7 @@ public class EsgNetwork {
     }
 
     public void addDCNode(EsgDCNode node) {
+        invalidateTopology();
         if (dcNodes.containsKey(node.getName().toString())) {
             throw new IllegalArgumentException(String.format(ALREADY_EXISTS_MESSAGE, DC_NODE, node.getName()));
         }
@@ -448,6 +910,7 @@ public class EsgNetwork {
     }
 
     public void removeDCNode(String node) {
+        invalidateTopology();
         if (!dcNodes.containsKey(node)) {
             throw new IllegalArgumentException(String.format(DOES_NOT_EXIST_MESSAGE, DC_NODE, node));
         }
@@ -463,6 +926,7 @@ public class EsgNetwork {
     }
 
     public void addDCLink(EsgDCLink dclink) {
+        invalidateTopology();
         if (dcLinks.containsKey(dclink.toString())) {
             throw new IllegalArgumentException(String.format(ALREADY_EXISTS_MESSAGE, DC_LINK, dclink.toString()));
         }
@@ -470,6 +934,7 @@ public class EsgNetwork {
     }
 
     public void removeDCLink(String dcLinkStr) {
+        invalidateTopology();
         if (!lines.containsKey(dcLinkStr)) {
             throw new IllegalArgumentException(String.format(DOES_NOT_EXIST_MESSAGE, DC_LINK, dcLinkStr));
         }
@@ -485,6 +950,7 @@ public class EsgNetwork {
     }
 
     public void addAcdcVscConverter(EsgAcdcVscConverter vscConverter) {
+        invalidateTopology();
         if (vscConverters.containsKey(vscConverter.getZnconv().toString())) {
             throw new IllegalArgumentException(String.format(ALREADY_EXISTS_MESSAGE, VSC_CONVERTER_STATION, vscConverter.getZnconv()));
         }
@@ -492,6 +958,7 @@ public class EsgNetwork {
     }
 
     public void removeAcdcVscConverter(String name) {
+        invalidateTopology();
         if (!vscConverters.containsKey(name)) {
             throw new IllegalArgumentException(String.format(DOES_NOT_EXIST_MESSAGE, VSC_CONVERTER_STATION, name));
         }
@@ -0,0 +1,395 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Fixes the inconsistencies of an {@link EsgNetwork} which would make the Eurostag load flow fail, by applying a list
+ * of rules in order.
+ * <p>
+ * Each rule only reads the network and returns the changes it would make, so that its checks can run in parallel;
+ * the changes are then applied by the repairer, in a deterministic order, before the next rule is checked. The
+ * changes of a variant are applied to copies of the elements it inherits. A frozen network shares its elements, so it
+ * can't be repaired: its variants can. As a rule only returns the changes of the values which are not already fixed,
+ * repairing a fixed network does not modify it.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public final class EsgNetworkRepairer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EsgNetworkRepairer.class);
+
+    private static final float MIN_REACTIVE_RANGE = 1f;
+
+    private static final int MAX_LOGGED_CHANGES = 10;
+
+    private static final String GENERATOR = "Generator";
+    private static final String TRANSFORMER = "Transformer";
+
+    /**
+     * A change of an attribute of an element of the network
+     */
+    public static final class Change {
+
+        private final String rule;
+
+        private final String elementType;
+
+        private final String elementName;
+
+        private final String attribute;
+
+        private final Object oldValue;
+
+        private final Object newValue;
+
+        private final Consumer<EsgNetwork> action;
+
+        public Change(String rule, String elementType, String elementName, String attribute, Object oldValue, Object newValue,
+                      Consumer<EsgNetwork> action) {
+            this.rule = Objects.requireNonNull(rule);
+            this.elementType = Objects.requireNonNull(elementType);
+            this.elementName = Objects.requireNonNull(elementName);
+            this.attribute = Objects.requireNonNull(attribute);
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+            this.action = Objects.requireNonNull(action);
+        }
+
+        /**
+         * Change an attribute of a generator, or of its copy if it is inherited from the parent of a variant
+         */
+        public static <T> Change generator(String rule, EsgGenerator generator, String attribute, T oldValue, T newValue,
+                                           BiConsumer<EsgGenerator, T> setter) {
+            String name = generator.getZnamge().toString();
+            return new Change(rule, GENERATOR, name, attribute, oldValue, newValue,
+                network -> setter.accept(network.writable(network.getGenerator(name)), newValue));
+        }
+
+        /**
+         * Change an attribute of a transformer, or of its copy if it is inherited from the parent of a variant
+         */
+        public static <T> Change transformer(String rule, EsgDetailedTwoWindingTransformer transformer, String attribute, T oldValue,
+                                             T newValue, BiConsumer<EsgDetailedTwoWindingTransformer, T> setter) {
+            String name = transformer.getName().toString();
+            return new Change(rule, TRANSFORMER, name, attribute, oldValue, newValue,
+                network -> setter.accept(network.writable(network.getDetailedTwoWindingTransformer(name)), newValue));
+        }
+
+        public String getRule() {
+            return rule;
+        }
+
+        public String getElementType() {
+            return elementType;
+        }
+
+        public String getElementName() {
+            return elementName;
+        }
+
+        public String getAttribute() {
+            return attribute;
+        }
+
+        public Object getOldValue() {
+            return oldValue;
+        }
+
+        public Object getNewValue() {
+            return newValue;
+        }
+
+        private void apply(EsgNetwork network) {
+            action.accept(network);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s '%s' %s: %s -> %s", elementType, elementName, attribute, oldValue, newValue);
+        }
+    }
+
+    /**
+     * A rule of the repairer. A rule must not modify the network, it only returns the changes to apply.
+     */
+    public interface Rule {
+
+        String getName();
+
+        /**
+         * @return the changes to apply to the network of the context, in a deterministic order
+         * @throws EsgException if the network can't be fixed
+         */
+        List<Change> check(Context context);
+    }
+
+    /**
+     * The network being repaired, and the index of its nodes
+     */
+    public static final class Context {
+
+        private final EsgNetwork network;
+
+        private final int nodeCount;
+
+        private final Map<String, Integer> nodeIndexes = new HashMap<>();
+
+        private Context(EsgNetwork network) {
+            this.network = network;
+            for (EsgNode node : network.getNodes()) {
+                nodeIndexes.put(node.getName().toString(), nodeIndexes.size());
+            }
+            nodeCount = nodeIndexes.size();
+        }
+
+        public EsgNetwork getNetwork() {
+            return network;
+        }
+
+        public int getNodeCount() {
+            return nodeCount;
+        }
+
+        /**
+         * @return the index of the node, or -1 if the node is unknown
+         */
+        public int getNodeIndex(Esg8charName nodeName) {
+            if (nodeName == null) {
+                return -1;
+            }
+            return nodeIndexes.getOrDefault(nodeName.toString(), -1);
+        }
+
+        /**
+         * Group the elements by node. The nodes of the elements are indexed in parallel, and the elements are then
+         * sorted by node index, with a counting sort keeping their order within each node. The elements without node,
+         * or with a node which is not in the network, are grouped by node name as well, so that for instance the
+         * transformers without regulated node still share a target voltage.
+         *
+         * @return the groups of elements, in the order of the nodes, followed by the groups of the missing nodes in the
+         * order of their first element
+         */
+        public <T> List<List<T>> groupByNode(Collection<T> elements, Function<T, Esg8charName> nodeGetter) {
+            List<T> list = new ArrayList<>(elements);
+            int[] keys = new int[list.size()];
+            IntStream.range(0, list.size()).parallel().forEach(i -> keys[i] = getNodeIndex(nodeGetter.apply(list.get(i))));
+
+            int[] offsets = new int[nodeCount + 1];
+            for (int key : keys) {
+                if (key >= 0) {
+                    offsets[key + 1]++;
+                }
+            }
+            for (int node = 0; node < nodeCount; node++) {
+                offsets[node + 1] += offsets[node];
+            }
+            int[] next = Arrays.copyOf(offsets, nodeCount);
+            List<T> sorted = new ArrayList<>(Collections.nCopies(offsets[nodeCount], null));
+            // the null name is a key of its own
+            Map<String, List<T>> missingNodeGroups = new LinkedHashMap<>();
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] >= 0) {
+                    sorted.set(next[keys[i]]++, list.get(i));
+                } else {
+                    Esg8charName nodeName = nodeGetter.apply(list.get(i));
+                    missingNodeGroups.computeIfAbsent(nodeName != null ? nodeName.toString() : null, name -> new ArrayList<>()).add(list.get(i));
+                }
+            }
+
+            List<List<T>> groups = new ArrayList<>();
+            for (int node = 0; node < nodeCount; node++) {
+                if (offsets[node + 1] > offsets[node]) {
+                    groups.add(sorted.subList(offsets[node], offsets[node + 1]));
+                }
+            }
+            groups.addAll(missingNodeGroups.values());
+            return groups;
+        }
+    }
+
+    /**
+     * Switch off the voltage regulation of the generators whose reactive range is too small
+     */
+    public static final Rule SMALL_REACTIVE_RANGE = new Rule() {
+
+        @Override
+        public String getName() {
+            return "Reactive range too small, switch regulator off";
+        }
+
+        @Override
+        public List<Change> check(Context context) {
+            return new ArrayList<>(context.getNetwork().getGenerators()).parallelStream()
+                    .filter(g -> g.getXregge() == EsgRegulatingMode.REGULATING && Math.abs(g.getQgmax() - g.getQgmin()) < MIN_REACTIVE_RANGE)
+                    .map(g -> Change.generator(getName(), g, "xregge", g.getXregge(), EsgRegulatingMode.NOT_REGULATING, EsgGenerator::setXregge))
+                    .collect(Collectors.toList());
+        }
+    };
+
+    /**
+     * Changes of the generators of a node, or the error preventing to fix them
+     */
+    private static final class NodeFix {
+
+        private final List<Change> changes;
+
+        private final EsgException error;
+
+        private NodeFix(List<Change> changes, EsgException error) {
+            this.changes = changes;
+            this.error = error;
+        }
+    }
+
+    private static final class GeneratorTargetVoltageRule implements Rule {
+
+        @Override
+        public String getName() {
+            return "Fix target voltage of disconnected generators to be consistent with target voltage of other generators connected to the same node";
+        }
+
+        @Override
+        public List<Change> check(Context context) {
+            List<EsgGenerator> regulatingGenerators = context.getNetwork().getGenerators().stream()
+                    .filter(g -> g.getXregge() == EsgRegulatingMode.REGULATING)
+                    .collect(Collectors.toList());
+            List<NodeFix> fixes = context.groupByNode(regulatingGenerators, EsgGenerator::getZnodge).parallelStream()
+                    .map(this::check)
+                    .collect(Collectors.toList());
+            // throw the error of the first node, whatever the thread which found it
+            List<Change> changes = new ArrayList<>();
+            for (NodeFix fix : fixes) {
+                if (fix.error != null) {
+                    throw fix.error;
+                }
+                changes.addAll(fix.changes);
+            }
+            return changes;
+        }
+
+        private NodeFix check(List<EsgGenerator> generators) {
+            Set<Double> targetVoltageSet = generators.stream()
+                    .map(EsgGenerator::getVregge)
+                    .collect(Collectors.toSet());
+            if (targetVoltageSet.size() <= 1) {
+                return new NodeFix(Collections.emptyList(), null);
+            }
+            List<EsgGenerator> connectedGenerators = generators.stream()
+                    .filter(g -> g.getXgenest() == EsgConnectionStatus.CONNECTED)
+                    .collect(Collectors.toList());
+            targetVoltageSet = connectedGenerators.stream()
+                    .map(EsgGenerator::getVregge)
+                    .collect(Collectors.toCollection(TreeSet::new));
+            if (targetVoltageSet.isEmpty()) {
+                return new NodeFix(Collections.emptyList(), null);
+            }
+            if (targetVoltageSet.size() > 1) {
+                return new NodeFix(null, new EsgException(connectedGenerators.size() + " generators ("
+                        + connectedGenerators.stream().map(EsgGenerator::getZnamge).collect(Collectors.toList())
+                        + ") are connected to a same node (" + generators.get(0).getZnodge() + ") and try to impose a different target voltage: "
+                        + targetVoltageSet));
+            }
+            double vregge = targetVoltageSet.iterator().next();
+            return new NodeFix(generators.stream()
+                    .filter(g -> g.getXgenest() == EsgConnectionStatus.NOT_CONNECTED && Double.compare(g.getVregge(), vregge) != 0)
+                    .map(g -> Change.generator(getName(), g, "vregge", g.getVregge(), vregge, EsgGenerator::setVregge))
+                    .collect(Collectors.toList()), null);
+        }
+    }
+
+    /**
+     * Align the target voltage of the disconnected generators with the one of the connected generators regulating the
+     * same node. Eurostag error message example:
+     * ERR-0194.0350:LE GEN CURBH6G0 ESSAIE D'IMPOSER UNE TENSION AU NOEUD BARNAP71 AUQUEL UN AUTRE EQUIPEMENT A DEJA IMPOSE UNE AUTRE TENSION
+     */
+    public static final Rule GENERATOR_TARGET_VOLTAGE = new GeneratorTargetVoltageRule();
+
+    /**
+     * Set the target voltage of the transformers regulating the same node to the minimum of their target voltages
+     */
+    public static final Rule TRANSFORMER_TARGET_VOLTAGE = new Rule() {
+
+        @Override
+        public String getName() {
+            return "Fix target voltage of transformers connected to same regulating bus";
+        }
+
+        @Override
+        public List<Change> check(Context context) {
+            List<EsgDetailedTwoWindingTransformer> regulatingTransformers = context.getNetwork().getDetailedTwoWindingTransformers().stream()
+                    .filter(t -> t.getXregtr() == EsgDetailedTwoWindingTransformer.RegulatingMode.VOLTAGE)
+                    .collect(Collectors.toList());
+            return context.groupByNode(regulatingTransformers, EsgDetailedTwoWindingTransformer::getZbusr).parallelStream()
+                    .flatMap(transformers -> {
+                        double voltr = transformers.stream().mapToDouble(EsgDetailedTwoWindingTransformer::getVoltr).min().orElseThrow();
+                        return transformers.stream()
+                                .filter(t -> Double.compare(t.getVoltr(), voltr) != 0)
+                                .map(t -> Change.transformer(getName(), t, "voltr", t.getVoltr(), voltr, EsgDetailedTwoWindingTransformer::setVoltr));
+                    })
+                    .collect(Collectors.toList());
+        }
+    };
+
+    private static final EsgNetworkRepairer DEFAULT = new EsgNetworkRepairer(List.of(SMALL_REACTIVE_RANGE, GENERATOR_TARGET_VOLTAGE,
+            TRANSFORMER_TARGET_VOLTAGE));
+
+    private final List<Rule> rules;
+
+    public EsgNetworkRepairer(List<Rule> rules) {
+        this.rules = List.copyOf(rules);
+    }
+
+    /**
+     * @return the repairer of {@link EsgNetwork#checkConsistency()}: small reactive ranges, then target voltages of the
+     * generators, then target voltages of the transformers
+     */
+    public static EsgNetworkRepairer getDefault() {
+        return DEFAULT;
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    /**
+     * Apply the rules to the network, in order
+     *
+     * @return the changes applied to the network, in the order of the rules
+     * @throws EsgException if the network can't be fixed
+     */
+    public List<Change> repair(EsgNetwork network) {
+        Objects.requireNonNull(network);
+        if (network.isFrozen()) {
+            throw new UnsupportedOperationException("The network is frozen, repair a variant of it");
+        }
+        Context context = new Context(network);
+        List<Change> changes = new ArrayList<>();
+        for (Rule rule : rules) {
+            List<Change> ruleChanges = rule.check(context);
+            if (!ruleChanges.isEmpty()) {
+                // the changes are returned to the caller, only a sample of them is logged
+                LOGGER.warn("{}: {} changes, first ones: {}", rule.getName(), ruleChanges.size(),
+                        ruleChanges.subList(0, Math.min(ruleChanges.size(), MAX_LOGGED_CHANGES)));
+                for (Change change : ruleChanges) {
+                    change.apply(network);
+                }
+                changes.addAll(ruleChanges);
+            }
+        }
+        return changes;
+    }
+}
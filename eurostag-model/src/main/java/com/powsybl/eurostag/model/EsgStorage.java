@@ -0,0 +1,56 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import java.nio.file.Path;
+
+/**
+ * Factory of the {@link EsgElementStore} of an {@link EsgNetwork}, one store per element type.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public interface EsgStorage {
+
+    /**
+     * @param type the type of the elements
+     * @param expectedSize the expected number of elements, 0 if unknown
+     */
+    <T> EsgElementStore<T> newStore(Class<T> type, int expectedSize);
+
+    /**
+     * One object per element, in a {@link java.util.LinkedHashMap}
+     */
+    static EsgStorage heap() {
+        return MapElementStore.STORAGE;
+    }
+
+    /**
+     * The nodes, lines, coupling devices, loads and generators are stored in primitive columns, with their names
+     * packed in char arrays. The elements returned by the network are views on a row of the columns: their getters
+     * read the columns and their setters write them. Other elements are stored as with {@link #heap()}.
+     */
+    static EsgStorage columnar() {
+        return ColumnarStorage.INSTANCE;
+    }
+
+    /**
+     * The nodes, lines, coupling devices, loads and generators are stored in direct buffers, one fixed size slot per
+     * element, so that only the index of their names is kept on the heap. As with {@link #columnar()}, the elements
+     * returned by the network are views on a slot, and the other elements are stored as with {@link #heap()}.
+     */
+    static EsgStorage offHeap() {
+        return OffHeapStorage.DIRECT;
+    }
+
+    /**
+     * Same as {@link #offHeap()}, with the slots in temporary files of the given directory, mapped in memory. The files
+     * are deleted as soon as they are mapped, and so are not left behind.
+     */
+    static EsgStorage memoryMapped(Path directory) {
+        return OffHeapStorage.mapped(directory);
+    }
+}
@@ -0,0 +1,384 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Adjacency of the nodes of an {@link EsgNetwork}, stored in compressed sparse row arrays: the neighbours of the node
+ * of index {@code i} are stored in {@code targets[offsets[i]..offsets[i + 1]]}.
+ * <p>
+ * The AC nodes are indexed first, in the order of the network, followed by the DC nodes. The adjacency covers the
+ * lines, coupling devices, dissymmetrical branches, two and three windings transformers, DC links and VSC
+ * converters, whatever their connection status. The connected components only follow the connections which are
+ * closed at both ends: a line open at one side does not connect its nodes. Branch ends referencing an unknown node
+ * are ignored.
+ * <p>
+ * A topology is a snapshot of the network when it was built: it is not updated when the network is modified.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public final class EsgTopology {
+
+    private final int acNodeCount;
+    private final String[] nodeNames;
+    private final Map<String, Integer> acIndexes;
+    private final Map<String, Integer> dcIndexes;
+    private final BitSet slackBuses = new BitSet();
+
+    private final List<String> branchNames = new ArrayList<>();
+    private final int[] degrees;
+
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] branches;
+    private final BitSet closed = new BitSet();
+
+    private final int[] components;
+    private final int componentCount;
+
+    /**
+     * Connections collected before being sorted by node.
+     */
+    private static final class Edges {
+
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private int[] branch = new int[16];
+        private final BitSet closed = new BitSet();
+        private int size = 0;
+
+        private void add(int node1, int node2, int branchIndex, boolean isClosed) {
+            if (size == from.length) {
+                from = Arrays.copyOf(from, size * 2);
+                to = Arrays.copyOf(to, size * 2);
+                branch = Arrays.copyOf(branch, size * 2);
+            }
+            from[size] = node1;
+            to[size] = node2;
+            branch[size] = branchIndex;
+            closed.set(size, isClosed);
+            size++;
+        }
+    }
+
+    EsgTopology(EsgNetwork network) {
+        Objects.requireNonNull(network);
+        Collection<EsgNode> acNodes = network.getNodes();
+        Collection<EsgDCNode> dcNodes = network.getDCNodes();
+        acNodeCount = acNodes.size();
+        nodeNames = new String[acNodeCount + dcNodes.size()];
+        acIndexes = new HashMap<>(capacity(acNodeCount));
+        dcIndexes = new HashMap<>(capacity(dcNodes.size()));
+        int index = 0;
+        for (EsgNode node : acNodes) {
+            nodeNames[index] = node.getName().toString();
+            acIndexes.put(nodeNames[index], index);
+            slackBuses.set(index, node.isSlackBus());
+            index++;
+        }
+        for (EsgDCNode node : dcNodes) {
+            nodeNames[index] = node.getName().toString();
+            dcIndexes.put(nodeNames[index], index);
+            index++;
+        }
+        degrees = new int[nodeNames.length];
+
+        Edges edges = new Edges();
+        for (EsgLine line : network.getLines()) {
+            addBranch(edges, line.getName(), line.getStatus() == EsgBranchConnectionStatus.CLOSED_AT_BOTH_SIDE);
+        }
+        for (EsgCouplingDevice device : network.getCouplingDevices()) {
+            addBranch(edges, device.getName(), device.getConnectionStatus() == EsgCouplingDevice.ConnectionStatus.CLOSED);
+        }
+        for (EsgDissymmetricalBranch branch : network.getDissymmetricalBranches()) {
+            addBranch(edges, branch.getName(), branch.getStatus() == EsgBranchConnectionStatus.CLOSED_AT_BOTH_SIDE);
+        }
+        for (EsgDetailedTwoWindingTransformer transformer : network.getDetailedTwoWindingTransformers()) {
+            addBranch(edges, transformer.getName(), transformer.getStatus() == EsgBranchConnectionStatus.CLOSED_AT_BOTH_SIDE);
+        }
+        for (EsgThreeWindingTransformer transformer : network.getThreeWindingTransformers()) {
+            addThreeWindingTransformer(edges, transformer);
+        }
+        for (EsgDCLink link : network.getDCLinks()) {
+            int branchIndex = newBranch(link.toString());
+            addEdge(edges, dcIndex(link.getNode1Name()), dcIndex(link.getNode2Name()), branchIndex,
+                    link.getLinkStatus() == EsgDCLink.LinkStatus.ON);
+        }
+        for (EsgAcdcVscConverter converter : network.getAcdcVscConverters()) {
+            int branchIndex = newBranch(converter.getZnconv().toString());
+            int acNode = acIndex(converter.getAcNode());
+            boolean on = converter.getXstate() == EsgAcdcVscConverter.ConverterState.ON;
+            addEdge(edges, acNode, dcIndex(converter.getDcNode1()), branchIndex, on);
+            addEdge(edges, acNode, dcIndex(converter.getDcNode2()), branchIndex, on);
+        }
+
+        // each connection is stored at both ends
+        offsets = new int[nodeNames.length + 1];
+        for (int i = 0; i < edges.size; i++) {
+            offsets[edges.from[i] + 1]++;
+            offsets[edges.to[i] + 1]++;
+        }
+        for (int i = 0; i < nodeNames.length; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        targets = new int[offsets[nodeNames.length]];
+        branches = new int[targets.length];
+        int[] next = Arrays.copyOf(offsets, nodeNames.length);
+        for (int i = 0; i < edges.size; i++) {
+            boolean isClosed = edges.closed.get(i);
+            int position = next[edges.from[i]]++;
+            targets[position] = edges.to[i];
+            branches[position] = edges.branch[i];
+            closed.set(position, isClosed);
+            position = next[edges.to[i]]++;
+            targets[position] = edges.from[i];
+            branches[position] = edges.branch[i];
+            closed.set(position, isClosed);
+        }
+
+        components = new int[nodeNames.length];
+        componentCount = computeComponents();
+    }
+
+    private static int capacity(int expectedSize) {
+        return (int) (expectedSize / 0.75f) + 1;
+    }
+
+    private int acIndex(Esg8charName name) {
+        Integer index = acIndexes.get(name.toString());
+        return index != null ? index : -1;
+    }
+
+    private int dcIndex(Esg8charName name) {
+        Integer index = dcIndexes.get(name.toString());
+        return index != null ? index : -1;
+    }
+
+    private int newBranch(String name) {
+        branchNames.add(name);
+        return branchNames.size() - 1;
+    }
+
+    private void addBranch(Edges edges, EsgBranchName name, boolean isClosed) {
+        int branchIndex = newBranch(name.toString());
+        addEdge(edges, acIndex(name.getNode1Name()), acIndex(name.getNode2Name()), branchIndex, isClosed);
+    }
+
+    private void addThreeWindingTransformer(Edges edges, EsgThreeWindingTransformer transformer) {
+        EsgThreeWindingTransformer.EsgT3WName name = transformer.getName();
+        int branchIndex = newBranch(name.gett3wName().toString());
+        int node1 = acIndex(name.getNode1Name());
+        int node2 = acIndex(name.getNode2Name());
+        int node3 = acIndex(name.getNode3Name());
+        boolean closed1;
+        boolean closed2;
+        boolean closed3;
+        switch (transformer.getStatus()) {
+            case CLOSED_AT_ALL_SIDES:
+                closed1 = closed2 = closed3 = true;
+                break;
+            case OPEN_AT_1_END_SIDE:
+                closed1 = false;
+                closed2 = closed3 = true;
+                break;
+            case OPEN_AT_2_END_SIDE:
+                closed2 = false;
+                closed1 = closed3 = true;
+                break;
+            case OPEN_AT_3_END_SIDE:
+                closed3 = false;
+                closed1 = closed2 = true;
+                break;
+            default:
+                // at most one leg is closed: no node is connected to another one
+                closed1 = closed2 = closed3 = false;
+                break;
+        }
+        // the legs are stored as the three sides of a triangle, but each leg counts once in the degree of its node
+        addEdge(edges, node1, node2, branchIndex, closed1 && closed2, false);
+        addEdge(edges, node1, node3, branchIndex, closed1 && closed3, false);
+        addEdge(edges, node2, node3, branchIndex, closed2 && closed3, false);
+        for (int node : new int[] {node1, node2, node3}) {
+            if (node >= 0) {
+                degrees[node]++;
+            }
+        }
+    }
+
+    private void addEdge(Edges edges, int node1, int node2, int branchIndex, boolean isClosed) {
+        addEdge(edges, node1, node2, branchIndex, isClosed, true);
+    }
+
+    private void addEdge(Edges edges, int node1, int node2, int branchIndex, boolean isClosed, boolean countDegree) {
+        if (countDegree) {
+            if (node1 >= 0) {
+                degrees[node1]++;
+            }
+            if (node2 >= 0) {
+                degrees[node2]++;
+            }
+        }
+        if (node1 >= 0 && node2 >= 0) {
+            edges.add(node1, node2, branchIndex, isClosed);
+        }
+    }
+
+    /**
+     * Breadth-first search of the connected components, in linear time.
+     */
+    private int computeComponents() {
+        Arrays.fill(components, -1);
+        int[] queue = new int[nodeNames.length];
+        int count = 0;
+        for (int start = 0; start < nodeNames.length; start++) {
+            if (components[start] >= 0) {
+                continue;
+            }
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            components[start] = count;
+            while (head < tail) {
+                int node = queue[head++];
+                for (int position = offsets[node]; position < offsets[node + 1]; position++) {
+                    int target = targets[position];
+                    if (closed.get(position) && components[target] < 0) {
+                        components[target] = count;
+                        queue[tail++] = target;
+                    }
+                }
+            }
+            count++;
+        }
+        return count;
+    }
+
+    public int getNodeCount() {
+        return nodeNames.length;
+    }
+
+    /**
+     * @return the index of the AC or DC node of the given name, or -1 if there is no such node
+     */
+    public int getIndex(String nodeName) {
+        Objects.requireNonNull(nodeName);
+        Integer index = acIndexes.get(nodeName);
+        if (index == null) {
+            index = dcIndexes.get(nodeName);
+        }
+        return index != null ? index : -1;
+    }
+
+    public String getNodeName(int index) {
+        return nodeNames[index];
+    }
+
+    public boolean isDCNode(int index) {
+        Objects.checkIndex(index, nodeNames.length);
+        return index >= acNodeCount;
+    }
+
+    /**
+     * @return the number of branches, transformer legs, DC links and converters connected to the node, whatever their
+     * connection status
+     */
+    public int getDegree(int index) {
+        return degrees[index];
+    }
+
+    public int getDegree(String nodeName) {
+        return degrees[checkIndex(nodeName)];
+    }
+
+    /**
+     * @return the indexes of the nodes linked to the given one, once per connection, whatever its status
+     */
+    public int[] getNeighbors(int index) {
+        return Arrays.copyOfRange(targets, offsets[index], offsets[index + 1]);
+    }
+
+    /**
+     * @return the names of the branches, three windings transformers, DC links and converters connected to the node
+     */
+    public List<String> getConnectedBranches(String nodeName) {
+        int index = checkIndex(nodeName);
+        Set<String> names = new LinkedHashSet<>();
+        for (int position = offsets[index]; position < offsets[index + 1]; position++) {
+            names.add(branchNames.get(branches[position]));
+        }
+        return new ArrayList<>(names);
+    }
+
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    /**
+     * @return the number of the connected component of the node, the components being numbered from 0 in the order of
+     * their first node
+     */
+    public int getComponent(int index) {
+        return components[index];
+    }
+
+    public int getComponent(String nodeName) {
+        return components[checkIndex(nodeName)];
+    }
+
+    /**
+     * Get the connected components which have at least one AC node, but no slack bus, so that Eurostag load flow can't
+     * solve them. The nodes which are not connected to any other one are not reported: the fake nodes created at the
+     * open ends of branches are isolated by design.
+     *
+     * @return the names of the nodes of each island
+     */
+    public List<List<String>> getIslandsWithoutSlackBus() {
+        int[] sizes = new int[componentCount];
+        BitSet withAcNode = new BitSet(componentCount);
+        BitSet withSlackBus = new BitSet(componentCount);
+        for (int index = 0; index < nodeNames.length; index++) {
+            int component = components[index];
+            sizes[component]++;
+            if (index < acNodeCount) {
+                withAcNode.set(component);
+                withSlackBus.set(component, withSlackBus.get(component) || slackBuses.get(index));
+            }
+        }
+        Map<Integer, List<String>> islands = new HashMap<>();
+        List<List<String>> result = new ArrayList<>();
+        for (int index = 0; index < nodeNames.length; index++) {
+            int component = components[index];
+            if (sizes[component] > 1 && withAcNode.get(component) && !withSlackBus.get(component)) {
+                islands.computeIfAbsent(component, c -> {
+                    List<String> island = new ArrayList<>(sizes[c]);
+                    result.add(island);
+                    return island;
+                }).add(nodeNames[index]);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private int checkIndex(String nodeName) {
+        int index = getIndex(nodeName);
+        if (index < 0) {
+            throw new IllegalArgumentException(String.format("Node '%s' doesn't exist", nodeName));
+        }
+        return index;
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import java.util.*;
+
+/**
+ * Immutable store of the elements of a frozen {@link EsgNetwork}: the elements are kept in an array in insertion
+ * order, and indexed by their names sorted in a second array. The name strings are the ones of the elements, so
+ * that the index only costs two references and an int per element.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+final class FrozenElementStore<T> implements EsgElementStore<T> {
+
+    private final Object[] elements;
+
+    private final String[] sortedNames;
+
+    /**
+     * Position in {@link #elements} of the element of each sorted name
+     */
+    private final int[] positions;
+
+    FrozenElementStore(Map<String, T> elements) {
+        int size = elements.size();
+        this.elements = new Object[size];
+        String[] names = new String[size];
+        int i = 0;
+        for (Map.Entry<String, T> e : elements.entrySet()) {
+            names[i] = e.getKey();
+            this.elements[i] = e.getValue();
+            i++;
+        }
+        Integer[] order = new Integer[size];
+        Arrays.setAll(order, j -> j);
+        Arrays.sort(order, Comparator.comparing(j -> names[j]));
+        sortedNames = new String[size];
+        positions = new int[size];
+        for (int j = 0; j < size; j++) {
+            sortedNames[j] = names[order[j]];
+            positions[j] = order[j];
+        }
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+
+    @Override
+    public boolean containsKey(String name) {
+        return Arrays.binarySearch(sortedNames, name) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(String name) {
+        int i = Arrays.binarySearch(sortedNames, name);
+        return i >= 0 ? (T) elements[positions[i]] : null;
+    }
+
+    @Override
+    public void put(String name, T element) {
+        throw new UnsupportedOperationException("The network is frozen");
+    }
+
+    @Override
+    public void remove(String name) {
+        throw new UnsupportedOperationException("The network is frozen");
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Collection<T> values() {
+        return (Collection<T>) Collections.unmodifiableList(Arrays.asList(elements));
+    }
+
+    @Override
+    public EsgElementStore<T> freeze() {
+        return this;
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+final class MapElementStore<T> implements EsgElementStore<T> {
+
+    static final EsgStorage STORAGE = new EsgStorage() {
+        @Override
+        public <T> EsgElementStore<T> newStore(Class<T> type, int expectedSize) {
+            return new MapElementStore<>(expectedSize);
+        }
+    };
+
+    private final Map<String, T> elements;
+
+    MapElementStore(int expectedSize) {
+        // sized so that the expected elements are added without any rehash
+        elements = expectedSize > 0 ? new LinkedHashMap<>((int) (expectedSize / 0.75f) + 1) : new LinkedHashMap<>();
+    }
+
+    @Override
+    public int size() {
+        return elements.size();
+    }
+
+    @Override
+    public boolean containsKey(String name) {
+        return elements.containsKey(name);
+    }
+
+    @Override
+    public T get(String name) {
+        return elements.get(name);
+    }
+
+    @Override
+    public void put(String name, T element) {
+        elements.put(name, element);
+    }
+
+    @Override
+    public void remove(String name) {
+        elements.remove(name);
+    }
+
+    @Override
+    public Collection<T> values() {
+        return elements.values();
+    }
+
+    @Override
+    public EsgElementStore<T> freeze() {
+        return new FrozenElementStore<>(elements);
+    }
+}
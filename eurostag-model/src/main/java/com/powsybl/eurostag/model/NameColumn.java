@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import java.util.Arrays;
+
+/**
+ * Column of fixed width names, packed in a single char array.
+ * <p>
+ * The names are decoded once, on their first access, and kept in a cache of the same capacity. The decoded names are
+ * interned, so that the rows of all the columns referencing the same name, the connection nodes of the elements for
+ * instance, share a single instance.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+final class NameColumn {
+
+    private static final Interner<EsgName> INTERNER = Interners.newWeakInterner();
+
+    private final int width;
+
+    private char[] chars;
+
+    /**
+     * Decoded names, null until their first access. The races between the readers of a frozen store are benign: the
+     * names are immutable and a lost update only decodes the name again.
+     */
+    private EsgName[] names;
+
+    NameColumn(int width, int capacity) {
+        this.width = width;
+        this.chars = new char[width * capacity];
+        this.names = new EsgName[capacity];
+    }
+
+    void grow(int capacity) {
+        chars = Arrays.copyOf(chars, width * capacity);
+        names = Arrays.copyOf(names, capacity);
+    }
+
+    /**
+     * @param name the name, already padded to the width of the column by {@link EsgName}
+     */
+    void set(int row, EsgName name) {
+        name.toString().getChars(0, width, chars, row * width);
+        names[row] = null;
+    }
+
+    String get(int row) {
+        return new String(chars, row * width, width);
+    }
+
+    Esg8charName get8charName(int row) {
+        EsgName name = names[row];
+        if (name == null) {
+            name = INTERNER.intern(new Esg8charName(get(row)));
+            names[row] = name;
+        }
+        return (Esg8charName) name;
+    }
+
+    Esg2charName get2charName(int row) {
+        EsgName name = names[row];
+        if (name == null) {
+            name = INTERNER.intern(new Esg2charName(get(row)));
+            names[row] = name;
+        }
+        return (Esg2charName) name;
+    }
+
+    /**
+     * @return true if the name of the row is found in the string at the given offset
+     */
+    boolean matches(int row, String s, int offset) {
+        if (s.length() < offset + width) {
+            return false;
+        }
+        int start = row * width;
+        for (int i = 0; i < width; i++) {
+            if (chars[start + i] != s.charAt(offset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
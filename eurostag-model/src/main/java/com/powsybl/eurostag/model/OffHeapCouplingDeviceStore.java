@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+final class OffHeapCouplingDeviceStore extends AbstractOffHeapStore<EsgCouplingDevice> {
+
+    private static final EsgBranchName PLACEHOLDER = new EsgBranchName(PLACEHOLDER_NAME, PLACEHOLDER_NAME, ' ');
+
+    private static final int NAME = 0;
+    private static final int OPEN = NAME + BRANCH_NAME_SIZE;
+    private static final int SLOT_SIZE = OPEN + 1;
+
+    private final class CouplingDeviceView extends EsgCouplingDevice implements RowView {
+
+        private int row;
+
+        private CouplingDeviceView(int row) {
+            super(PLACEHOLDER, ConnectionStatus.CLOSED);
+            this.row = row;
+        }
+
+        @Override
+        public void setRow(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public EsgBranchName getName() {
+            return getBranchName(row, NAME);
+        }
+
+        @Override
+        public ConnectionStatus getConnectionStatus() {
+            return getBoolean(row, OPEN) ? ConnectionStatus.OPEN : ConnectionStatus.CLOSED;
+        }
+    }
+
+    OffHeapCouplingDeviceStore(OffHeapStorage storage, int expectedSize) {
+        super(storage, SLOT_SIZE, expectedSize);
+    }
+
+    @Override
+    protected AbstractColumnarStore<EsgCouplingDevice> create(int expectedSize) {
+        return new OffHeapCouplingDeviceStore(getStorage(), expectedSize);
+    }
+
+    @Override
+    protected void set(int row, EsgCouplingDevice device) {
+        putBranchName(row, NAME, device.getName());
+        putBoolean(row, OPEN, device.getConnectionStatus() == EsgCouplingDevice.ConnectionStatus.OPEN);
+    }
+
+    @Override
+    protected EsgCouplingDevice view(int row) {
+        return new CouplingDeviceView(row);
+    }
+
+    @Override
+    protected boolean matches(int row, String key) {
+        return matchesBranchName(row, NAME, key);
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import java.util.Objects;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+final class OffHeapGeneratorStore extends AbstractOffHeapStore<EsgGenerator> {
+
+    private static final int PGMIN = 0;
+    private static final int PGEN = 8;
+    private static final int PGMAX = 16;
+    private static final int QGMIN = 24;
+    private static final int QGEN = 32;
+    private static final int QGMAX = 40;
+    private static final int VREGGE = 48;
+    private static final int QGENSH = 56;
+    private static final int ZNAMGE = 64;
+    private static final int ZNODGE = 80;
+    private static final int ZREGNOGE = 96;
+    private static final int DISCONNECTED = 112;
+    private static final int REGULATING = 113;
+    private static final int SLOT_SIZE = 114;
+
+    private final class GeneratorView extends EsgGenerator implements RowView {
+
+        private int row;
+
+        private GeneratorView(int row) {
+            super(PLACEHOLDER_NAME, PLACEHOLDER_NAME, 0, 0, 0, 0, 0, 0, EsgRegulatingMode.NOT_REGULATING, 0, PLACEHOLDER_NAME, 0,
+                    EsgConnectionStatus.CONNECTED);
+            this.row = row;
+        }
+
+        @Override
+        public void setRow(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public double getPgen() {
+            return getDouble(row, PGEN);
+        }
+
+        @Override
+        public double getPgmax() {
+            return getDouble(row, PGMAX);
+        }
+
+        @Override
+        public double getPgmin() {
+            return getDouble(row, PGMIN);
+        }
+
+        @Override
+        public double getQgen() {
+            return getDouble(row, QGEN);
+        }
+
+        @Override
+        public double getQgensh() {
+            return getDouble(row, QGENSH);
+        }
+
+        @Override
+        public double getQgmax() {
+            return getDouble(row, QGMAX);
+        }
+
+        @Override
+        public double getQgmin() {
+            return getDouble(row, QGMIN);
+        }
+
+        @Override
+        public double getVregge() {
+            return getDouble(row, VREGGE);
+        }
+
+        @Override
+        public void setVregge(double vregge) {
+            checkNotFrozen();
+            putDouble(row, VREGGE, vregge);
+        }
+
+        @Override
+        public EsgConnectionStatus getXgenest() {
+            return getBoolean(row, DISCONNECTED) ? EsgConnectionStatus.NOT_CONNECTED : EsgConnectionStatus.CONNECTED;
+        }
+
+        @Override
+        public EsgRegulatingMode getXregge() {
+            return getBoolean(row, REGULATING) ? EsgRegulatingMode.REGULATING : EsgRegulatingMode.NOT_REGULATING;
+        }
+
+        @Override
+        public void setXregge(EsgRegulatingMode xregge) {
+            checkNotFrozen();
+            putBoolean(row, REGULATING, Objects.requireNonNull(xregge) == EsgRegulatingMode.REGULATING);
+        }
+
+        @Override
+        public Esg8charName getZnamge() {
+            return get8charName(row, ZNAMGE);
+        }
+
+        @Override
+        public Esg8charName getZnodge() {
+            return get8charName(row, ZNODGE);
+        }
+
+        @Override
+        public Esg8charName getZregnoge() {
+            return get8charName(row, ZREGNOGE);
+        }
+    }
+
+    OffHeapGeneratorStore(OffHeapStorage storage, int expectedSize) {
+        super(storage, SLOT_SIZE, expectedSize);
+    }
+
+    @Override
+    protected AbstractColumnarStore<EsgGenerator> create(int expectedSize) {
+        return new OffHeapGeneratorStore(getStorage(), expectedSize);
+    }
+
+    @Override
+    protected void set(int row, EsgGenerator generator) {
+        putDouble(row, PGMIN, generator.getPgmin());
+        putDouble(row, PGEN, generator.getPgen());
+        putDouble(row, PGMAX, generator.getPgmax());
+        putDouble(row, QGMIN, generator.getQgmin());
+        putDouble(row, QGEN, generator.getQgen());
+        putDouble(row, QGMAX, generator.getQgmax());
+        putDouble(row, VREGGE, generator.getVregge());
+        putDouble(row, QGENSH, generator.getQgensh());
+        putName(row, ZNAMGE, 8, generator.getZnamge());
+        putName(row, ZNODGE, 8, generator.getZnodge());
+        putName(row, ZREGNOGE, 8, generator.getZregnoge());
+        putBoolean(row, DISCONNECTED, generator.getXgenest() == EsgConnectionStatus.NOT_CONNECTED);
+        putBoolean(row, REGULATING, generator.getXregge() == EsgRegulatingMode.REGULATING);
+    }
+
+    @Override
+    protected EsgGenerator view(int row) {
+        return new GeneratorView(row);
+    }
+
+    @Override
+    protected boolean matches(int row, String key) {
+        return key.length() == 8 && matchesName(row, ZNAMGE, 8, key, 0);
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+final class OffHeapLineStore extends AbstractOffHeapStore<EsgLine> {
+
+    private static final EsgBranchConnectionStatus[] STATUSES = EsgBranchConnectionStatus.values();
+
+    private static final EsgBranchName PLACEHOLDER = new EsgBranchName(PLACEHOLDER_NAME, PLACEHOLDER_NAME, ' ');
+
+    private static final int RB = 0;
+    private static final int RXB = 8;
+    private static final int GS = 16;
+    private static final int BS = 24;
+    private static final int RATE = 32;
+    private static final int NAME = 40;
+    private static final int STATUS = NAME + BRANCH_NAME_SIZE;
+    private static final int SLOT_SIZE = STATUS + 1;
+
+    private final class LineView extends EsgLine implements RowView {
+
+        private int row;
+
+        private LineView(int row) {
+            super(PLACEHOLDER, EsgBranchConnectionStatus.CLOSED_AT_BOTH_SIDE, 0, 0, 0, 0, 0);
+            this.row = row;
+        }
+
+        @Override
+        public void setRow(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public EsgBranchName getName() {
+            return getBranchName(row, NAME);
+        }
+
+        @Override
+        public EsgBranchConnectionStatus getStatus() {
+            return STATUSES[getByte(row, STATUS)];
+        }
+
+        @Override
+        public double getRate() {
+            return getDouble(row, RATE);
+        }
+
+        @Override
+        public double getRb() {
+            return getDouble(row, RB);
+        }
+
+        @Override
+        public double getRxb() {
+            return getDouble(row, RXB);
+        }
+
+        @Override
+        public double getGs() {
+            return getDouble(row, GS);
+        }
+
+        @Override
+        public double getBs() {
+            return getDouble(row, BS);
+        }
+    }
+
+    OffHeapLineStore(OffHeapStorage storage, int expectedSize) {
+        super(storage, SLOT_SIZE, expectedSize);
+    }
+
+    @Override
+    protected AbstractColumnarStore<EsgLine> create(int expectedSize) {
+        return new OffHeapLineStore(getStorage(), expectedSize);
+    }
+
+    @Override
+    protected void set(int row, EsgLine line) {
+        putDouble(row, RB, line.getRb());
+        putDouble(row, RXB, line.getRxb());
+        putDouble(row, GS, line.getGs());
+        putDouble(row, BS, line.getBs());
+        putDouble(row, RATE, line.getRate());
+        putBranchName(row, NAME, line.getName());
+        putByte(row, STATUS, ordinal(line.getStatus()));
+    }
+
+    @Override
+    protected EsgLine view(int row) {
+        return new LineView(row);
+    }
+
+    @Override
+    protected boolean matches(int row, String key) {
+        return matchesBranchName(row, NAME, key);
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+final class OffHeapLoadStore extends AbstractOffHeapStore<EsgLoad> {
+
+    private static final int PLDSTI = 0;
+    private static final int PLDSTZ = 8;
+    private static final int PLDSTP = 16;
+    private static final int QLDSTI = 24;
+    private static final int QLDSTZ = 32;
+    private static final int QLDSTP = 40;
+    private static final int ZNAMLO = 48;
+    private static final int ZNODLO = 64;
+    private static final int DISCONNECTED = 80;
+    private static final int SLOT_SIZE = 81;
+
+    private final class LoadView extends EsgLoad implements RowView {
+
+        private int row;
+
+        private LoadView(int row) {
+            super(EsgConnectionStatus.CONNECTED, PLACEHOLDER_NAME, PLACEHOLDER_NAME, 0, 0, 0, 0, 0, 0);
+            this.row = row;
+        }
+
+        @Override
+        public void setRow(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public EsgConnectionStatus getIloadst() {
+            return getBoolean(row, DISCONNECTED) ? EsgConnectionStatus.NOT_CONNECTED : EsgConnectionStatus.CONNECTED;
+        }
+
+        @Override
+        public double getPldsti() {
+            return getDouble(row, PLDSTI);
+        }
+
+        @Override
+        public double getPldstp() {
+            return getDouble(row, PLDSTP);
+        }
+
+        @Override
+        public double getPldstz() {
+            return getDouble(row, PLDSTZ);
+        }
+
+        @Override
+        public double getQldsti() {
+            return getDouble(row, QLDSTI);
+        }
+
+        @Override
+        public double getQldstp() {
+            return getDouble(row, QLDSTP);
+        }
+
+        @Override
+        public double getQldstz() {
+            return getDouble(row, QLDSTZ);
+        }
+
+        @Override
+        public Esg8charName getZnamlo() {
+            return get8charName(row, ZNAMLO);
+        }
+
+        @Override
+        public Esg8charName getZnodlo() {
+            return get8charName(row, ZNODLO);
+        }
+    }
+
+    OffHeapLoadStore(OffHeapStorage storage, int expectedSize) {
+        super(storage, SLOT_SIZE, expectedSize);
+    }
+
+    @Override
+    protected AbstractColumnarStore<EsgLoad> create(int expectedSize) {
+        return new OffHeapLoadStore(getStorage(), expectedSize);
+    }
+
+    @Override
+    protected void set(int row, EsgLoad load) {
+        putDouble(row, PLDSTI, load.getPldsti());
+        putDouble(row, PLDSTZ, load.getPldstz());
+        putDouble(row, PLDSTP, load.getPldstp());
+        putDouble(row, QLDSTI, load.getQldsti());
+        putDouble(row, QLDSTZ, load.getQldstz());
+        putDouble(row, QLDSTP, load.getQldstp());
+        putName(row, ZNAMLO, 8, load.getZnamlo());
+        putName(row, ZNODLO, 8, load.getZnodlo());
+        putBoolean(row, DISCONNECTED, load.getIloadst() == EsgConnectionStatus.NOT_CONNECTED);
+    }
+
+    @Override
+    protected EsgLoad view(int row) {
+        return new LoadView(row);
+    }
+
+    @Override
+    protected boolean matches(int row, String key) {
+        return key.length() == 8 && matchesName(row, ZNAMLO, 8, key, 0);
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+final class OffHeapNodeStore extends AbstractOffHeapStore<EsgNode> {
+
+    private static final int VBASE = 0;
+    private static final int VINIT = 8;
+    private static final int VANGL = 16;
+    private static final int AREA = 24;
+    private static final int NAME = 28;
+    private static final int SLACK_BUS = 44;
+    private static final int SLOT_SIZE = 45;
+
+    private final class NodeView extends EsgNode implements RowView {
+
+        private int row;
+
+        private NodeView(int row) {
+            super(PLACEHOLDER_AREA, PLACEHOLDER_NAME, 0, 0, 0, false);
+            this.row = row;
+        }
+
+        @Override
+        public void setRow(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public Esg2charName getArea() {
+            return get2charName(row, AREA);
+        }
+
+        @Override
+        public Esg8charName getName() {
+            return get8charName(row, NAME);
+        }
+
+        @Override
+        public double getVangl() {
+            return getDouble(row, VANGL);
+        }
+
+        @Override
+        public double getVbase() {
+            return getDouble(row, VBASE);
+        }
+
+        @Override
+        public double getVinit() {
+            return getDouble(row, VINIT);
+        }
+
+        @Override
+        public boolean isSlackBus() {
+            return getBoolean(row, SLACK_BUS);
+        }
+    }
+
+    OffHeapNodeStore(OffHeapStorage storage, int expectedSize) {
+        super(storage, SLOT_SIZE, expectedSize);
+    }
+
+    @Override
+    protected AbstractColumnarStore<EsgNode> create(int expectedSize) {
+        return new OffHeapNodeStore(getStorage(), expectedSize);
+    }
+
+    @Override
+    protected void set(int row, EsgNode node) {
+        putDouble(row, VBASE, node.getVbase());
+        putDouble(row, VINIT, node.getVinit());
+        putDouble(row, VANGL, node.getVangl());
+        putName(row, AREA, 2, node.getArea());
+        putName(row, NAME, 8, node.getName());
+        putBoolean(row, SLACK_BUS, node.isSlackBus());
+    }
+
+    @Override
+    protected EsgNode view(int row) {
+        return new NodeView(row);
+    }
+
+    @Override
+    protected boolean matches(int row, String key) {
+        return key.length() == 8 && matchesName(row, NAME, 8, key, 0);
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+final class OffHeapStorage implements EsgStorage {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapStorage.class);
+
+    static final OffHeapStorage DIRECT = new OffHeapStorage(null);
+
+    /**
+     * Unsafe instance and its invokeCleaner method, to free the direct buffers and unmap the mapped ones without
+     * waiting for the garbage collection. Null if not available, the buffers are then left to the garbage collector.
+     */
+    private static final Object UNSAFE;
+
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.debug("Direct buffers cannot be released explicitly: {}", e.toString());
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    /**
+     * Directory of the mapped files, null for direct buffers
+     */
+    private final Path directory;
+
+    private OffHeapStorage(Path directory) {
+        this.directory = directory;
+    }
+
+    static OffHeapStorage mapped(Path directory) {
+        return new OffHeapStorage(Objects.requireNonNull(directory));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> EsgElementStore<T> newStore(Class<T> type, int expectedSize) {
+        if (type == EsgNode.class) {
+            return (EsgElementStore<T>) new OffHeapNodeStore(this, expectedSize);
+        } else if (type == EsgLine.class) {
+            return (EsgElementStore<T>) new OffHeapLineStore(this, expectedSize);
+        } else if (type == EsgCouplingDevice.class) {
+            return (EsgElementStore<T>) new OffHeapCouplingDeviceStore(this, expectedSize);
+        } else if (type == EsgLoad.class) {
+            return (EsgElementStore<T>) new OffHeapLoadStore(this, expectedSize);
+        } else if (type == EsgGenerator.class) {
+            return (EsgElementStore<T>) new OffHeapGeneratorStore(this, expectedSize);
+        }
+        return MapElementStore.STORAGE.newStore(type, expectedSize);
+    }
+
+    /**
+     * Allocate a buffer of the given size, outside of the heap, and copy the content of the previous buffer into it.
+     */
+    ByteBuffer allocate(int size, ByteBuffer previous) {
+        ByteBuffer buffer = directory == null ? ByteBuffer.allocateDirect(size) : map(size);
+        buffer.order(ByteOrder.nativeOrder());
+        if (previous != null) {
+            ByteBuffer source = previous.duplicate();
+            source.clear();
+            buffer.put(source);
+            buffer.clear();
+        }
+        return buffer;
+    }
+
+    /**
+     * Free the memory of a buffer allocated by {@link #allocate}, or unmap it. The buffer must not be used anymore.
+     */
+    void release(ByteBuffer buffer) {
+        if (INVOKE_CLEANER == null || buffer == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.debug("Buffer cannot be released explicitly: {}", e.toString());
+        }
+    }
+
+    private ByteBuffer map(int size) {
+        try {
+            Path file = Files.createTempFile(directory, "esg", ".slots");
+            // the mapping stays valid once the channel is closed, and the file deleted
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE)) {
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
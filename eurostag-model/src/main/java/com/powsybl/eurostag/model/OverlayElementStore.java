@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import com.google.common.collect.Iterators;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Store of a variant of a frozen {@link EsgNetwork}: only the replaced, removed and added elements are kept, the
+ * other ones are read from the store of the parent network.
+ * <p>
+ * As with a {@link LinkedHashMap}, a replaced element keeps the position of the element of the parent, and the added
+ * elements are after the ones of the parent.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+final class OverlayElementStore<T> implements EsgElementStore<T> {
+
+    private final EsgElementStore<T> parent;
+
+    /**
+     * Name of an element, as used as key by the network
+     */
+    private final Function<T, String> nameGetter;
+
+    private final Map<String, T> replaced;
+
+    private final Set<String> removed;
+
+    private final Map<String, T> added;
+
+    private final boolean frozen;
+
+    OverlayElementStore(EsgElementStore<T> parent, Function<T, String> nameGetter) {
+        this(parent, nameGetter, new HashMap<>(), new HashSet<>(), new LinkedHashMap<>(), false);
+    }
+
+    private OverlayElementStore(EsgElementStore<T> parent, Function<T, String> nameGetter, Map<String, T> replaced,
+                                Set<String> removed, Map<String, T> added, boolean frozen) {
+        this.parent = Objects.requireNonNull(parent);
+        this.nameGetter = Objects.requireNonNull(nameGetter);
+        this.replaced = replaced;
+        this.removed = removed;
+        this.added = added;
+        this.frozen = frozen;
+    }
+
+    /**
+     * @return true if the element is not the one of the parent
+     */
+    boolean isOverridden(String name) {
+        return replaced.containsKey(name) || added.containsKey(name);
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("The network is frozen");
+        }
+    }
+
+    private boolean isInParent(String name) {
+        return !removed.contains(name) && parent.containsKey(name);
+    }
+
+    @Override
+    public int size() {
+        return parent.size() - removed.size() + added.size();
+    }
+
+    @Override
+    public boolean containsKey(String name) {
+        return added.containsKey(name) || isInParent(name);
+    }
+
+    @Override
+    public T get(String name) {
+        T element = added.get(name);
+        if (element == null && !removed.contains(name)) {
+            element = replaced.get(name);
+            if (element == null) {
+                element = parent.get(name);
+            }
+        }
+        return element;
+    }
+
+    @Override
+    public void put(String name, T element) {
+        Objects.requireNonNull(element);
+        checkNotFrozen();
+        if (isInParent(name)) {
+            replaced.put(name, element);
+        } else {
+            added.put(name, element);
+        }
+    }
+
+    @Override
+    public void remove(String name) {
+        checkNotFrozen();
+        if (added.remove(name) == null && isInParent(name)) {
+            replaced.remove(name);
+            removed.add(name);
+        }
+    }
+
+    @Override
+    public Collection<T> values() {
+        return new AbstractCollection<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                Iterator<T> parentElements = parent.values().iterator();
+                if (!replaced.isEmpty() || !removed.isEmpty()) {
+                    parentElements = Iterators.filter(Iterators.transform(parentElements, element -> {
+                        String name = nameGetter.apply(element);
+                        return removed.contains(name) ? null : replaced.getOrDefault(name, element);
+                    }), Objects::nonNull);
+                }
+                return Iterators.unmodifiableIterator(Iterators.concat(parentElements, added.values().iterator()));
+            }
+
+            @Override
+            public int size() {
+                return OverlayElementStore.this.size();
+            }
+        };
+    }
+
+    /**
+     * The frozen copy keeps the same parent, with a copy of the changes
+     */
+    @Override
+    public EsgElementStore<T> freeze() {
+        if (frozen) {
+            return this;
+        }
+        return new OverlayElementStore<>(parent, nameGetter, new HashMap<>(replaced), new HashSet<>(removed), new LinkedHashMap<>(added), true);
+    }
+}
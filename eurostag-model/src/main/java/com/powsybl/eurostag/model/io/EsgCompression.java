@@ -0,0 +1,55 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compression of the written ECH files.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public enum EsgCompression {
+    NONE(""),
+    /**
+     * Standard gzip, compressed by a background thread
+     */
+    GZIP(".gz"),
+    /**
+     * Gzip members compressed concurrently by the common pool
+     */
+    PARALLEL_GZIP(".gz");
+
+    private final String extension;
+
+    EsgCompression(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Extension to append to the name of the file
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    public OutputStream wrap(OutputStream os) throws IOException {
+        switch (this) {
+            case NONE:
+                return os;
+            case GZIP:
+                return GzipBlockOutputStream.gzip(os, GzipBlockOutputStream.DEFAULT_BLOCK_SIZE, 2);
+            case PARALLEL_GZIP:
+                ForkJoinPool pool = ForkJoinPool.commonPool();
+                return GzipBlockOutputStream.parallel(os, pool, GzipBlockOutputStream.DEFAULT_BLOCK_SIZE, 2 * pool.getParallelism());
+            default:
+                throw new IllegalStateException("Unknown compression: " + this);
+        }
+    }
+}
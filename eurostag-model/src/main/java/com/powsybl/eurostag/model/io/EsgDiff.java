@@ -0,0 +1,369 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model.io;
+
+import com.powsybl.eurostag.model.EsgException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Compare two ECH files record by record. The records are matched by the key of their element, as given by
+ * {@link EsgRecordIndex}, so that the order of the records does not matter, and the fields of the matched records are
+ * compared one by one, with the columns of the layouts of {@link EsgRecordLayouts}: the numeric fields are compared
+ * with an absolute tolerance, the other fields as text.
+ * <p>
+ * The files are walked together, without being indexed: only the records not matched yet are kept, by their offsets,
+ * so that the memory used is bounded by the records out of order between the files rather than by the size of the
+ * files. The lines of the matched records are compared as bytes, and only the lines that differ are decoded. The
+ * header, the parameters and the comments are not compared.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public final class EsgDiff {
+
+    /**
+     * A field that differs between the two records, or the end of a line beyond the fields of its layout
+     */
+    public static final class FieldDiff {
+
+        private final int line;
+
+        private final int column;
+
+        private final String name;
+
+        private final String value1;
+
+        private final String value2;
+
+        private FieldDiff(int line, int column, String name, String value1, String value2) {
+            this.line = line;
+            this.column = column;
+            this.name = name;
+            this.value1 = value1;
+            this.value2 = value2;
+        }
+
+        /**
+         * Line of the field in the record, starting from 1
+         */
+        public int getLine() {
+            return line;
+        }
+
+        /**
+         * First column of the field
+         */
+        public int getColumn() {
+            return column;
+        }
+
+        /**
+         * Name of the field in its layout, or null for the end of the line
+         */
+        public String getName() {
+            return name;
+        }
+
+        public String getValue1() {
+            return value1;
+        }
+
+        public String getValue2() {
+            return value2;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + line + ", column " + column + (name != null ? " (" + name + ")" : "") + ": '" + value1 + "' -> '" + value2 + "'";
+        }
+    }
+
+    public static final class RecordDiff {
+
+        private final String key;
+
+        private final List<FieldDiff> fields;
+
+        private RecordDiff(String key, List<FieldDiff> fields) {
+            this.key = key;
+            this.fields = fields;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public List<FieldDiff> getFields() {
+            return Collections.unmodifiableList(fields);
+        }
+    }
+
+    public static final class SectionDiff {
+
+        private final EsgRecordIndex.RecordType type;
+
+        private final List<String> added = new ArrayList<>();
+
+        private final List<String> removed = new ArrayList<>();
+
+        private final List<RecordDiff> changed = new ArrayList<>();
+
+        private SectionDiff(EsgRecordIndex.RecordType type) {
+            this.type = type;
+        }
+
+        public EsgRecordIndex.RecordType getType() {
+            return type;
+        }
+
+        /**
+         * Keys of the elements only in the second file, in the order of the file
+         */
+        public List<String> getAdded() {
+            return Collections.unmodifiableList(added);
+        }
+
+        /**
+         * Keys of the elements only in the first file, in the order of the file
+         */
+        public List<String> getRemoved() {
+            return Collections.unmodifiableList(removed);
+        }
+
+        /**
+         * Records of the elements in both files that differ, in the order they are matched
+         */
+        public List<RecordDiff> getChanged() {
+            return Collections.unmodifiableList(changed);
+        }
+
+        public boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+        }
+    }
+
+    /**
+     * Layouts of the lines of each type of record, the last one being repeated for the following lines, such as the
+     * taps of the transformers
+     */
+    private static final Map<EsgRecordIndex.RecordType, List<RecordLayout<?>>> LAYOUTS = new EnumMap<>(EsgRecordIndex.RecordType.class);
+
+    static {
+        LAYOUTS.put(EsgRecordIndex.RecordType.AREA, List.of(EsgRecordLayouts.AREA));
+        LAYOUTS.put(EsgRecordIndex.RecordType.NODE, List.of(EsgRecordLayouts.NODE, EsgRecordLayouts.SLACK_BUS));
+        LAYOUTS.put(EsgRecordIndex.RecordType.COUPLING_DEVICE, List.of(EsgRecordLayouts.COUPLING_DEVICE));
+        LAYOUTS.put(EsgRecordIndex.RecordType.LINE, List.of(EsgRecordLayouts.LINE));
+        LAYOUTS.put(EsgRecordIndex.RecordType.DISSYMMETRICAL_BRANCH, List.of(EsgRecordLayouts.DISSYMMETRICAL_BRANCH,
+                EsgRecordLayouts.DISSYMMETRICAL_BRANCH_2));
+        LAYOUTS.put(EsgRecordIndex.RecordType.DETAILED_TWO_WINDING_TRANSFORMER, List.of(EsgRecordLayouts.DETAILED_TWO_WINDING_TRANSFORMER,
+                EsgRecordLayouts.DETAILED_TWO_WINDING_TRANSFORMER_2, EsgRecordLayouts.DETAILED_TWO_WINDING_TRANSFORMER_TAP));
+        LAYOUTS.put(EsgRecordIndex.RecordType.THREE_WINDING_TRANSFORMER, List.of(EsgRecordLayouts.THREE_WINDING_TRANSFORMER,
+                EsgRecordLayouts.THREE_WINDING_TRANSFORMER_2, EsgRecordLayouts.THREE_WINDING_TRANSFORMER_TAP));
+        LAYOUTS.put(EsgRecordIndex.RecordType.LOAD, List.of(EsgRecordLayouts.LOAD));
+        LAYOUTS.put(EsgRecordIndex.RecordType.GENERATOR, List.of(EsgRecordLayouts.GENERATOR));
+        LAYOUTS.put(EsgRecordIndex.RecordType.CAPACITOR_OR_REACTOR_BANK, List.of(EsgRecordLayouts.CAPACITOR_OR_REACTOR_BANK));
+        LAYOUTS.put(EsgRecordIndex.RecordType.STATIC_VAR_COMPENSATOR, List.of(EsgRecordLayouts.STATIC_VAR_COMPENSATOR));
+        LAYOUTS.put(EsgRecordIndex.RecordType.DC_NODE, List.of(EsgRecordLayouts.DC_NODE));
+        LAYOUTS.put(EsgRecordIndex.RecordType.DC_LINK, List.of(EsgRecordLayouts.DC_LINK));
+        LAYOUTS.put(EsgRecordIndex.RecordType.ACDC_VSC_CONVERTER, List.of(EsgRecordLayouts.ACDC_VSC_CONVERTER,
+                EsgRecordLayouts.ACDC_VSC_CONVERTER_2));
+    }
+
+    private final double tolerance;
+
+    public EsgDiff(double tolerance) {
+        if (tolerance < 0) {
+            throw new IllegalArgumentException("Invalid tolerance: " + tolerance);
+        }
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Position of a record not matched yet
+     */
+    private static final class Slice {
+
+        private final int start;
+
+        private final int end;
+
+        private Slice(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * @return the differences of the sections, only for the sections with differences
+     */
+    public Map<EsgRecordIndex.RecordType, SectionDiff> compare(EsgReader reader1, EsgReader reader2) throws IOException {
+        Objects.requireNonNull(reader1);
+        Objects.requireNonNull(reader2);
+        ByteBuffer buffer1 = reader1.getBuffer();
+        ByteBuffer buffer2 = reader2.getBuffer();
+        EsgReader.RecordScanner scanner1 = reader1.scan();
+        EsgReader.RecordScanner scanner2 = reader2.scan();
+
+        Map<EsgRecordIndex.RecordType, SectionDiff> diffs = new EnumMap<>(EsgRecordIndex.RecordType.class);
+        Map<EsgRecordIndex.RecordType, Map<String, Slice>> pending1 = new EnumMap<>(EsgRecordIndex.RecordType.class);
+        Map<EsgRecordIndex.RecordType, Map<String, Slice>> pending2 = new EnumMap<>(EsgRecordIndex.RecordType.class);
+        boolean more1 = scanner1.next();
+        boolean more2 = scanner2.next();
+        while (more1 || more2) {
+            if (more1 && more2 && scanner1.getType() == scanner2.getType() && scanner1.getKey().equals(scanner2.getKey())) {
+                compare(scanner1.getType(), scanner1.getKey(), buffer1, new Slice(scanner1.getStart(), scanner1.getEnd()),
+                        buffer2, new Slice(scanner2.getStart(), scanner2.getEnd()), diffs);
+            } else {
+                if (more1) {
+                    Slice slice2 = remove(pending2, scanner1.getType(), scanner1.getKey());
+                    if (slice2 != null) {
+                        compare(scanner1.getType(), scanner1.getKey(), buffer1, new Slice(scanner1.getStart(), scanner1.getEnd()), buffer2, slice2, diffs);
+                    } else {
+                        addPending(pending1, scanner1);
+                    }
+                }
+                if (more2) {
+                    Slice slice1 = remove(pending1, scanner2.getType(), scanner2.getKey());
+                    if (slice1 != null) {
+                        compare(scanner2.getType(), scanner2.getKey(), buffer1, slice1, buffer2, new Slice(scanner2.getStart(), scanner2.getEnd()), diffs);
+                    } else {
+                        addPending(pending2, scanner2);
+                    }
+                }
+            }
+            more1 = more1 && scanner1.next();
+            more2 = more2 && scanner2.next();
+        }
+        pending1.forEach((type, slices) -> getSectionDiff(diffs, type).removed.addAll(slices.keySet()));
+        pending2.forEach((type, slices) -> getSectionDiff(diffs, type).added.addAll(slices.keySet()));
+        return diffs;
+    }
+
+    private static Slice remove(Map<EsgRecordIndex.RecordType, Map<String, Slice>> pending, EsgRecordIndex.RecordType type, String key) {
+        Map<String, Slice> slices = pending.get(type);
+        if (slices == null) {
+            return null;
+        }
+        Slice slice = slices.remove(key);
+        if (slices.isEmpty()) {
+            pending.remove(type);
+        }
+        return slice;
+    }
+
+    private static void addPending(Map<EsgRecordIndex.RecordType, Map<String, Slice>> pending, EsgReader.RecordScanner scanner) {
+        // linked, the keys left at the end are reported in the order of the file
+        Map<String, Slice> slices = pending.computeIfAbsent(scanner.getType(), type -> new LinkedHashMap<>());
+        if (slices.put(scanner.getKey(), new Slice(scanner.getStart(), scanner.getEnd())) != null) {
+            throw new EsgException("Duplicate record " + scanner.getType() + " '" + scanner.getKey() + "'");
+        }
+    }
+
+    private static SectionDiff getSectionDiff(Map<EsgRecordIndex.RecordType, SectionDiff> diffs, EsgRecordIndex.RecordType type) {
+        return diffs.computeIfAbsent(type, SectionDiff::new);
+    }
+
+    private void compare(EsgRecordIndex.RecordType type, String key, ByteBuffer buffer1, Slice slice1, ByteBuffer buffer2, Slice slice2,
+                         Map<EsgRecordIndex.RecordType, SectionDiff> diffs) {
+        List<RecordLayout<?>> layouts = LAYOUTS.get(type);
+        List<FieldDiff> fields = new ArrayList<>();
+        int start1 = slice1.start;
+        int start2 = slice2.start;
+        for (int line = 1; start1 < slice1.end || start2 < slice2.end; line++) {
+            int end1 = getLineEnd(buffer1, start1, slice1.end);
+            int end2 = getLineEnd(buffer2, start2, slice2.end);
+            if (!equals(buffer1, start1, end1, buffer2, start2, end2)) {
+                compare(line, layouts.get(Math.min(line - 1, layouts.size() - 1)), decode(buffer1, start1, end1),
+                        decode(buffer2, start2, end2), fields);
+            }
+            start1 = Math.min(getNextLineStart(buffer1, end1, slice1.end), slice1.end);
+            start2 = Math.min(getNextLineStart(buffer2, end2, slice2.end), slice2.end);
+        }
+        if (!fields.isEmpty()) {
+            getSectionDiff(diffs, type).changed.add(new RecordDiff(key, fields));
+        }
+    }
+
+    /**
+     * @return the end of the line starting at the position, without its line separator
+     */
+    private static int getLineEnd(ByteBuffer buffer, int start, int limit) {
+        int end = start;
+        while (end < limit && buffer.get(end) != '\n') {
+            end++;
+        }
+        return end > start && buffer.get(end - 1) == '\r' ? end - 1 : end;
+    }
+
+    private static int getNextLineStart(ByteBuffer buffer, int end, int limit) {
+        int next = end;
+        if (next < limit && buffer.get(next) == '\r') {
+            next++;
+        }
+        return next < limit ? next + 1 : next;
+    }
+
+    private static boolean equals(ByteBuffer buffer1, int start1, int end1, ByteBuffer buffer2, int start2, int end2) {
+        if (end1 - start1 != end2 - start2) {
+            return false;
+        }
+        for (int i = 0; i < end1 - start1; i++) {
+            if (buffer1.get(start1 + i) != buffer2.get(start2 + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String decode(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, EsgWriter.CHARSET);
+    }
+
+    private void compare(int line, RecordLayout<?> layout, String line1, String line2, List<FieldDiff> diffs) {
+        int colEnd = 0;
+        for (RecordLayout.Field<?> field : layout.getFields()) {
+            String value1 = getValue(line1, field.getColStart(), field.getColEnd());
+            String value2 = getValue(line2, field.getColStart(), field.getColEnd());
+            boolean numeric = field.getType() == RecordLayout.FieldType.DOUBLE || field.getType() == RecordLayout.FieldType.INT;
+            if (!value1.equals(value2) && !(numeric && equals(value1, value2))) {
+                diffs.add(new FieldDiff(line, field.getColStart(), field.getName(), value1, value2));
+            }
+            colEnd = field.getColEnd();
+        }
+        // the columns beyond the fields of the layout should be blank
+        String end1 = getValue(line1, colEnd + 1, Math.max(line1.length(), colEnd + 1));
+        String end2 = getValue(line2, colEnd + 1, Math.max(line2.length(), colEnd + 1));
+        if (!end1.equals(end2)) {
+            diffs.add(new FieldDiff(line, colEnd + 1, null, end1, end2));
+        }
+    }
+
+    /**
+     * @return the value of the columns, without its leading and trailing blanks
+     */
+    private static String getValue(String line, int colStart, int colEnd) {
+        if (colStart > line.length()) {
+            return "";
+        }
+        return line.substring(colStart - 1, Math.min(colEnd, line.length())).trim();
+    }
+
+    private boolean equals(String value1, String value2) {
+        try {
+            return Math.abs(Double.parseDouble(value1) - Double.parseDouble(value2)) <= tolerance;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
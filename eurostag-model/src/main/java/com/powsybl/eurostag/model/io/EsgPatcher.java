@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model.io;
+
+import com.powsybl.eurostag.model.EsgException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Overwrite the numeric fields of the injections directly in an ECH file, using the {@link EsgRecordIndex} written
+ * with the file. The values are formatted as {@link EsgWriter} does, so that the patched file is the same as the one
+ * written from the modified network.
+ * <p>
+ * The topology cannot be changed, and a field can only be patched if it has been written in the record.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public final class EsgPatcher implements Closeable {
+
+    public enum Field {
+        GENERATOR_PGEN(EsgRecordIndex.RecordType.GENERATOR, EsgRecordLayouts.GENERATOR, "pgen"),
+        GENERATOR_QGEN(EsgRecordIndex.RecordType.GENERATOR, EsgRecordLayouts.GENERATOR, "qgen"),
+        GENERATOR_VREGGE(EsgRecordIndex.RecordType.GENERATOR, EsgRecordLayouts.GENERATOR, "vregge"),
+        LOAD_PLDSTZ(EsgRecordIndex.RecordType.LOAD, EsgRecordLayouts.LOAD, "pldstz"),
+        LOAD_PLDSTI(EsgRecordIndex.RecordType.LOAD, EsgRecordLayouts.LOAD, "pldsti"),
+        LOAD_PLDSTP(EsgRecordIndex.RecordType.LOAD, EsgRecordLayouts.LOAD, "pldstp"),
+        LOAD_QLDSTI(EsgRecordIndex.RecordType.LOAD, EsgRecordLayouts.LOAD, "qldsti"),
+        LOAD_QLDSTZ(EsgRecordIndex.RecordType.LOAD, EsgRecordLayouts.LOAD, "qldstz"),
+        LOAD_QLDSTP(EsgRecordIndex.RecordType.LOAD, EsgRecordLayouts.LOAD, "qldstp"),
+        BANK_IELEBA(EsgRecordIndex.RecordType.CAPACITOR_OR_REACTOR_BANK, EsgRecordLayouts.CAPACITOR_OR_REACTOR_BANK, "ieleba");
+
+        private final EsgRecordIndex.RecordType recordType;
+
+        private final int colStart;
+
+        private final int colEnd;
+
+        private final boolean integer;
+
+        Field(EsgRecordIndex.RecordType recordType, RecordLayout<?> layout, String name) {
+            this.recordType = recordType;
+            RecordLayout.Field<?> field = layout.getField(name);
+            this.colStart = field.getColStart();
+            this.colEnd = field.getColEnd();
+            this.integer = field.getType() == RecordLayout.FieldType.INT;
+        }
+
+        public EsgRecordIndex.RecordType getRecordType() {
+            return recordType;
+        }
+    }
+
+    private final EsgRecordIndex index;
+
+    private final FileChannel channel;
+
+    /**
+     * The mapped file, or its content if the file system does not support memory mapping
+     */
+    private final ByteBuffer buffer;
+
+    private boolean modified = false;
+
+    /**
+     * Patch the given file in place
+     */
+    public EsgPatcher(Path file, EsgRecordIndex index) throws IOException {
+        Objects.requireNonNull(file);
+        this.index = Objects.requireNonNull(index);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            EsgReader.checkMappable(file, size);
+            if (size != index.getFileSize()) {
+                throw new EsgException("The index does not match " + file + ": " + index.getFileSize() + " bytes indexed, " + size + " bytes read");
+            }
+            buffer = map(channel, file, size);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Copy the base file to the target one, and patch the copy
+     */
+    public static EsgPatcher copy(Path baseFile, EsgRecordIndex index, Path targetFile) throws IOException {
+        Files.copy(baseFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
+        return new EsgPatcher(targetFile, index);
+    }
+
+    private static ByteBuffer map(FileChannel channel, Path file, long size) throws IOException {
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (UnsupportedOperationException e) {
+            return ByteBuffer.wrap(Files.readAllBytes(file));
+        }
+    }
+
+    public void setValue(Field field, String key, int value) {
+        Objects.requireNonNull(field);
+        if (field.integer) {
+            write(field, key, Integer.toString(value));
+        } else {
+            setValue(field, key, (double) value);
+        }
+    }
+
+    public void setValue(Field field, String key, double value) {
+        Objects.requireNonNull(field);
+        if (field.integer) {
+            if (value % 1 != 0) {
+                throw new EsgException("Field " + field + " expects an integer value: " + value);
+            }
+            setValue(field, key, (int) value);
+        } else {
+            write(field, key, RecordWriter.format(value, field.colEnd - field.colStart));
+        }
+    }
+
+    private void write(Field field, String key, String value) {
+        Objects.requireNonNull(field);
+        EsgRecordIndex.Entry entry = index.getEntry(field.recordType, key);
+        if (entry == null) {
+            throw new EsgException("No record " + field.recordType + " '" + key + "' in the index");
+        }
+        int size = 1 + field.colEnd - field.colStart;
+        if (value.length() > size) {
+            throw new EsgException("Value '" + value + "' of field " + field + " exceeds " + size + " characters");
+        }
+        int start = EsgReader.getPosition(buffer, entry);
+        if (getLineLength(start, start + entry.getLength()) < field.colEnd) {
+            throw new EsgException("Field " + field + " has not been written in the record of '" + key + "'");
+        }
+        byte[] bytes = String.format(Locale.US, "%" + size + "s", value).getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < size; i++) {
+            buffer.put(start + field.colStart - 1 + i, bytes[i]);
+        }
+        modified = true;
+    }
+
+    private int getLineLength(int start, int end) {
+        int i = start;
+        while (i < end && buffer.get(i) != '\n' && buffer.get(i) != '\r') {
+            i++;
+        }
+        return i - start;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (buffer instanceof MappedByteBuffer) {
+                ((MappedByteBuffer) buffer).force();
+            } else if (modified) {
+                ByteBuffer content = ByteBuffer.wrap(buffer.array());
+                while (content.hasRemaining()) {
+                    channel.write(content, content.position());
+                }
+            }
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,1102 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model.io;
+
+import com.powsybl.eurostag.model.*;
+import org.joda.time.LocalDate;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Read an ECH file, as written by {@link EsgWriter}, into an {@link EsgNetwork}.
+ * <p>
+ * The file is memory-mapped and scanned with a {@link RecordReader}. The columns are counted in bytes, so the names are
+ * expected to be ASCII. The general parameters, the special parameters and the general comment are available once the
+ * file has been read.
+ * <p>
+ * Large files can be read with {@link #read(ForkJoinPool)}: the file is split on section boundaries, the sections are
+ * parsed concurrently and merged into the network in the order of the file.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public class EsgReader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EsgReader.class);
+
+    private static final DateTimeFormatter EDIT_DATE_FORMAT = DateTimeFormat.forPattern("dd/MM/yy");
+
+    private static final String TWO_WINDINGS_TRANSFORMER_RECORD = "48";
+    private static final String THREE_WINDINGS_TRANSFORMER_RECORD = "44";
+
+    /**
+     * Number of sections per thread of the pool, so that the threads stay busy when the sections are unbalanced
+     */
+    private static final int SECTIONS_PER_THREAD = 4;
+
+    private static final int MIN_SECTION_SIZE = 64 * 1024;
+
+    /**
+     * Elements read from a part of the file
+     */
+    private static final class Section {
+
+        private final EsgNetwork network = new EsgNetwork();
+
+        private final Set<String> slackBuses = new HashSet<>();
+
+        private final Set<String> unsupportedRecords = new LinkedHashSet<>();
+
+        private LocalDate editDate;
+
+        private EsgGeneralParameters parameters;
+
+        private EsgSpecialParameters specialParameters;
+
+        private String comment;
+    }
+
+    private final Path file;
+
+    /**
+     * Content of the source, the file being mapped on first access
+     */
+    private ByteBuffer content;
+
+    /**
+     * Name of the source, used in the logs
+     */
+    private final String name;
+
+    private EsgGeneralParameters parameters;
+
+    private EsgSpecialParameters specialParameters;
+
+    private String comment;
+
+    public EsgReader(Path file) {
+        this.file = Objects.requireNonNull(file);
+        this.content = null;
+        this.name = file.toString();
+    }
+
+    /**
+     * Read the ECH content of a buffer, for the sources that are not a file
+     */
+    public EsgReader(ByteBuffer buffer, String name) {
+        this.file = null;
+        this.content = Objects.requireNonNull(buffer);
+        this.name = Objects.requireNonNull(name);
+    }
+
+    ByteBuffer getBuffer() throws IOException {
+        if (content == null) {
+            content = map(file);
+        }
+        return content.duplicate();
+    }
+
+    /**
+     * The files are mapped as a single buffer, indexed by int: the larger files are rejected rather than read or
+     * patched at a truncated offset.
+     *
+     * @throws EsgException if the file is larger than {@link Integer#MAX_VALUE} bytes
+     */
+    static void checkMappable(Path file, long size) {
+        if (size > Integer.MAX_VALUE) {
+            throw new EsgException("File " + file + " is too large to be mapped: " + size + " bytes");
+        }
+    }
+
+    /**
+     * @return the position in the buffer of the record of the entry
+     */
+    static int getPosition(ByteBuffer buffer, EsgRecordIndex.Entry entry) {
+        return Math.toIntExact(buffer.position() + entry.getOffset());
+    }
+
+    /**
+     * Map the file in memory. The file systems that do not support it fall back to a heap buffer.
+     */
+    static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            checkMappable(file, size);
+            try {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } catch (UnsupportedOperationException e) {
+                return ByteBuffer.wrap(Files.readAllBytes(file));
+            }
+        }
+    }
+
+    public EsgNetwork read() throws IOException {
+        return merge(Collections.singletonList(readSection(getBuffer(), 1)));
+    }
+
+    /**
+     * Give a direct access to the record of an element, using the index written with the file.
+     *
+     * @return a reader over the lines of the record, or null if the element is not in the index
+     */
+    public RecordReader getRecord(EsgRecordIndex index, EsgRecordIndex.RecordType type, String key) throws IOException {
+        Objects.requireNonNull(index);
+        EsgRecordIndex.Entry entry = index.getEntry(type, key);
+        if (entry == null) {
+            return null;
+        }
+        ByteBuffer buffer = getBuffer();
+        if (buffer.remaining() != index.getFileSize()) {
+            throw new EsgException("The index does not match " + name + ": " + index.getFileSize() + " bytes indexed, " + buffer.remaining() + " bytes read");
+        }
+        int start = getPosition(buffer, entry);
+        buffer.position(start);
+        buffer.limit(start + entry.getLength());
+        return new RecordReader(buffer);
+    }
+
+    /**
+     * Read only the records of the given elements, using the index written with the file. The returned network only
+     * contains these elements, and is not consistent. The record of a node includes its slack bus line, if any.
+     */
+    public EsgNetwork read(EsgRecordIndex index, EsgRecordIndex.RecordType type, Collection<String> keys) throws IOException {
+        Objects.requireNonNull(keys);
+        Section section = new Section();
+        for (String key : keys) {
+            RecordReader reader = getRecord(index, type, key);
+            if (reader == null) {
+                throw new EsgException("No record " + type + " '" + key + "' in the index of " + name);
+            }
+            if (!reader.nextLine() || !readRecord(reader, section)) {
+                throw new EsgException("Invalid record " + type + " '" + key + "' in " + name);
+            }
+            while (reader.nextLine()) {
+                if (type == EsgRecordIndex.RecordType.NODE && reader.startsWith("5")) {
+                    section.slackBuses.add(EsgRecordLayouts.SLACK_BUS.cursor(reader).nextName("name").toString());
+                } else {
+                    throw new EsgException("Invalid record " + type + " '" + key + "' in " + name);
+                }
+            }
+        }
+        setSlackBuses(section.network, section.slackBuses);
+        return section.network;
+    }
+
+    /**
+     * Walk of the records of the elements of the file, in the order of the file. Only the current record is kept, so
+     * that the files can be walked with a bounded memory: the names are not shared between the records.
+     */
+    static final class RecordScanner {
+
+        private final RecordReader reader;
+
+        private EsgRecordIndex.RecordType type;
+
+        private String key;
+
+        private int start;
+
+        private int end;
+
+        private RecordScanner(ByteBuffer buffer) {
+            reader = new RecordReader(buffer, false);
+        }
+
+        /**
+         * Move to the next record of an element, the other lines being skipped.
+         *
+         * @return false if the end of the file has been reached
+         */
+        boolean next() {
+            while (reader.nextLine()) {
+                start = reader.getLineOffset();
+                type = null;
+                key = null;
+                if (reader.startsWith("AA") || reader.startsWith("DA")) {
+                    type = EsgRecordIndex.RecordType.AREA;
+                    key = new Esg2charName(EsgRecordLayouts.AREA.cursor(reader).nextString("name")).toString();
+                } else if (reader.startsWith("1")) {
+                    type = EsgRecordIndex.RecordType.NODE;
+                    key = readNode(reader).getName().toString();
+                    // the slack bus record written right after its node belongs to the record of the node
+                    if (reader.nextLine() && !(reader.startsWith("5") && key.equals(EsgRecordLayouts.SLACK_BUS.cursor(reader).nextName("name").toString()))) {
+                        reader.pushBack();
+                    }
+                } else if (reader.startsWith("6")) {
+                    type = EsgRecordIndex.RecordType.COUPLING_DEVICE;
+                    key = readCouplingDevice(reader).getName().toString();
+                } else if (reader.startsWith("3")) {
+                    type = EsgRecordIndex.RecordType.LINE;
+                    key = readLine(reader).getName().toString();
+                } else if (reader.startsWith("P")) {
+                    type = EsgRecordIndex.RecordType.DISSYMMETRICAL_BRANCH;
+                    key = readDissymmetricalBranch(reader).getName().toString();
+                } else if (reader.startsWith(TWO_WINDINGS_TRANSFORMER_RECORD)) {
+                    type = EsgRecordIndex.RecordType.DETAILED_TWO_WINDING_TRANSFORMER;
+                    key = readDetailedTwoWindingTransformer(reader).getName().toString();
+                } else if (reader.startsWith(THREE_WINDINGS_TRANSFORMER_RECORD)) {
+                    type = EsgRecordIndex.RecordType.THREE_WINDING_TRANSFORMER;
+                    key = readThreeWindingTransformer(reader).getName().toString();
+                } else if (reader.startsWith("CH")) {
+                    type = EsgRecordIndex.RecordType.LOAD;
+                    key = readLoad(reader).getZnamlo().toString();
+                } else if (reader.startsWith("C")) {
+                    type = EsgRecordIndex.RecordType.CAPACITOR_OR_REACTOR_BANK;
+                    key = readCapacitorOrReactorBank(reader).getZnamba().toString();
+                } else if (reader.startsWith("G") && !reader.startsWith("GC")) {
+                    type = EsgRecordIndex.RecordType.GENERATOR;
+                    key = readGenerator(reader).getZnamge().toString();
+                } else if (reader.startsWith("SV")) {
+                    type = EsgRecordIndex.RecordType.STATIC_VAR_COMPENSATOR;
+                    key = readStaticVarCompensator(reader).getZnamsvc().toString();
+                } else if (reader.startsWith("DC N")) {
+                    type = EsgRecordIndex.RecordType.DC_NODE;
+                    key = readDCNode(reader).getName().toString();
+                } else if (reader.startsWith("DC L")) {
+                    type = EsgRecordIndex.RecordType.DC_LINK;
+                    key = readDCLink(reader).toString();
+                } else if (reader.startsWith("DC V")) {
+                    type = EsgRecordIndex.RecordType.ACDC_VSC_CONVERTER;
+                    key = readAcdcVscConverter(reader).getZnconv().toString();
+                }
+                if (type != null) {
+                    end = reader.getNextLineOffset();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        EsgRecordIndex.RecordType getType() {
+            return type;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        /**
+         * Position in the buffer of the first byte of the record
+         */
+        int getStart() {
+            return start;
+        }
+
+        /**
+         * Position in the buffer of the first byte after the record
+         */
+        int getEnd() {
+            return end;
+        }
+    }
+
+    /**
+     * Build the index of the records of the file, for the files written without one. The records are parsed to be
+     * validated, but the elements are not kept.
+     */
+    public EsgRecordIndex index() throws IOException {
+        ByteBuffer buffer = getBuffer();
+        int base = buffer.position();
+        RecordScanner scanner = new RecordScanner(buffer);
+        EsgRecordIndex index = new EsgRecordIndex();
+        while (scanner.next()) {
+            index.add(scanner.getType(), scanner.getKey(), scanner.getStart() - base, scanner.getEnd() - base);
+        }
+        index.setFileSize(buffer.remaining());
+        return index;
+    }
+
+    /**
+     * Walk the records of the file, for the comparisons that do not need the whole index
+     */
+    RecordScanner scan() throws IOException {
+        return new RecordScanner(getBuffer());
+    }
+
+    /**
+     * Read the file, its sections being parsed concurrently by the given pool. The elements are added to the network
+     * in the order of the file, as with {@link #read()}.
+     */
+    public EsgNetwork read(ForkJoinPool pool) throws IOException {
+        Objects.requireNonNull(pool);
+        ByteBuffer buffer = getBuffer();
+        int maxSections = (int) Math.min(pool.getParallelism() * SECTIONS_PER_THREAD, Math.max(1, buffer.remaining() / MIN_SECTION_SIZE));
+        int[] boundaries = split(buffer, maxSections);
+
+        List<Callable<Section>> tasks = new ArrayList<>(boundaries.length - 1);
+        for (int i = 0; i < boundaries.length - 1; i++) {
+            ByteBuffer sectionBuffer = buffer.duplicate();
+            sectionBuffer.position(boundaries[i]).limit(boundaries[i + 1]);
+            int firstLineNumber = i == 0 ? 1 : 0;
+            tasks.add(() -> readSection(sectionBuffer, firstLineNumber));
+        }
+
+        List<Section> sections = new ArrayList<>(tasks.size());
+        try {
+            for (Future<Section> future : pool.invokeAll(tasks)) {
+                sections.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof EsgException) {
+                throw (EsgException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return merge(sections);
+    }
+
+    /**
+     * Split the buffer in at most {@code maxSections} parts. A part starts on a blank line or on a single line record,
+     * so that a multiline record is never split.
+     *
+     * @return the offsets of the parts, followed by the limit of the buffer
+     */
+    static int[] split(ByteBuffer buffer, int maxSections) {
+        int start = buffer.position();
+        int limit = buffer.limit();
+        int size = (limit - start) / Math.max(1, maxSections);
+        List<Integer> boundaries = new ArrayList<>(maxSections + 1);
+        boundaries.add(start);
+        int pos = start;
+        for (int i = 1; i < maxSections; i++) {
+            pos = Math.max(pos, start + i * size);
+            // move to the beginning of a line...
+            while (pos < limit && buffer.get(pos - 1) != '\n') {
+                pos++;
+            }
+            // ...which can start a section
+            while (pos < limit && !isSectionStart(buffer, pos, limit)) {
+                while (pos < limit && buffer.get(pos++) != '\n') {
+                    // skip the line
+                }
+            }
+            if (pos >= limit) {
+                break;
+            }
+            if (pos > boundaries.get(boundaries.size() - 1)) {
+                boundaries.add(pos);
+            }
+        }
+        boundaries.add(limit);
+        return boundaries.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static boolean isSectionStart(ByteBuffer buffer, int pos, int limit) {
+        switch (buffer.get(pos)) {
+            case '\r':
+            case '\n':
+            case '1': // node
+            case '3': // line
+            case '6': // coupling device
+            case 'C': // load, capacitor or reactor bank
+            case 'G': // generator, general comment
+                return true;
+            case 'S': // static VAR compensator
+                return pos + 1 < limit && buffer.get(pos + 1) == 'V';
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Read a part of the file
+     *
+     * @param firstLineNumber the line number of the first line of the buffer, 0 if unknown
+     */
+    private Section readSection(ByteBuffer buffer, int firstLineNumber) {
+        Section section = new Section();
+        RecordReader reader = new RecordReader(buffer);
+        try {
+            while (reader.nextLine()) {
+                if (reader.startsWith("5")) {
+                    section.slackBuses.add(EsgRecordLayouts.SLACK_BUS.cursor(reader).nextName("name").toString());
+                } else if (!reader.isBlankLine() && !readRecord(reader, section)) {
+                    section.unsupportedRecords.add(reader.getString(1, 2));
+                }
+            }
+        } catch (EsgException e) {
+            if (firstLineNumber > 0) {
+                throw e;
+            }
+            // the line numbers are relative to the section: the line number of the section is only computed on error
+            throw new EsgException("Invalid record in the section starting at line " + getLineNumber(buffer) + ": " + e.getMessage(), e);
+        }
+        return section;
+    }
+
+    private static int getLineNumber(ByteBuffer sectionBuffer) {
+        int lineNumber = 1;
+        for (int i = 0; i < sectionBuffer.position(); i++) {
+            if (sectionBuffer.get(i) == '\n') {
+                lineNumber++;
+            }
+        }
+        return lineNumber;
+    }
+
+    /**
+     * Merge the sections, in the order of the file
+     */
+    private EsgNetwork merge(List<Section> sections) {
+        parameters = null;
+        specialParameters = null;
+        comment = null;
+        LocalDate editDate = null;
+        Set<String> unsupportedRecords = new LinkedHashSet<>();
+        Set<String> slackBuses = new HashSet<>();
+
+        EsgNetwork network = sections.get(0).network;
+        for (Section section : sections) {
+            if (section.network != network) {
+                addAll(section.network, network);
+            }
+            if (section.parameters != null) {
+                parameters = section.parameters;
+            }
+            if (section.specialParameters != null) {
+                specialParameters = section.specialParameters;
+            }
+            if (section.comment != null) {
+                comment = section.comment;
+            }
+            if (section.editDate != null) {
+                editDate = section.editDate;
+            }
+            unsupportedRecords.addAll(section.unsupportedRecords);
+            slackBuses.addAll(section.slackBuses);
+        }
+        if (parameters == null) {
+            parameters = new EsgGeneralParameters();
+        }
+        if (editDate != null) {
+            parameters.setEditDate(editDate);
+        }
+        unsupportedRecords.forEach(type -> LOGGER.warn("Unsupported record '{}' in {}, skipped", type, name));
+        setSlackBuses(network, slackBuses);
+        return network;
+    }
+
+    private static void addAll(EsgNetwork from, EsgNetwork to) {
+        from.getAreas().forEach(to::addArea);
+        from.getNodes().forEach(to::addNode);
+        from.getCouplingDevices().forEach(to::addCouplingDevice);
+        from.getLines().forEach(to::addLine);
+        from.getDissymmetricalBranches().forEach(to::addDissymmetricalBranch);
+        from.getDetailedTwoWindingTransformers().forEach(to::addDetailedTwoWindingTransformer);
+        from.getThreeWindingTransformers().forEach(to::addThreeWindingTransformer);
+        from.getLoads().forEach(to::addLoad);
+        from.getGenerators().forEach(to::addGenerator);
+        from.getCapacitorOrReactorBanks().forEach(to::addCapacitorsOrReactorBanks);
+        from.getStaticVarCompensators().forEach(to::addStaticVarCompensator);
+        from.getDCNodes().forEach(to::addDCNode);
+        from.getDCLinks().forEach(to::addDCLink);
+        from.getAcdcVscConverters().forEach(to::addAcdcVscConverter);
+    }
+
+    /**
+     * Slack bus records are usually written right after their node, but may also be grouped in a separate section
+     */
+    private static void setSlackBuses(EsgNetwork network, Set<String> slackBuses) {
+        if (slackBuses.isEmpty()) {
+            return;
+        }
+        for (String slackBus : slackBuses) {
+            if (network.getNode(slackBus) == null) {
+                throw new EsgException("Slack bus record references an unknown node '" + slackBus + "'");
+            }
+        }
+        // the nodes are immutable: they are all added again to keep their order
+        List<EsgNode> nodes = new ArrayList<>(network.getNodes());
+        for (EsgNode node : nodes) {
+            network.removeNode(node.getName().toString());
+        }
+        for (EsgNode node : nodes) {
+            boolean slackBus = node.isSlackBus() || slackBuses.contains(node.getName().toString());
+            network.addNode(new EsgNode(node.getArea(), node.getName(), node.getVbase(), node.getVinit(), node.getVangl(), slackBus));
+        }
+    }
+
+    public EsgGeneralParameters getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Special parameters, null if the file has no SP records
+     */
+    public EsgSpecialParameters getSpecialParameters() {
+        return specialParameters;
+    }
+
+    public String getComment() {
+        return comment;
+    }
+
+    /**
+     * Read the record starting at the current line.
+     *
+     * @return false if the record is not supported
+     */
+    private boolean readRecord(RecordReader reader, Section section) {
+        EsgNetwork network = section.network;
+        switch (reader.getChar(1)) {
+            case 'H':
+                return reader.startsWith("HEADER") && readHeader(reader, section);
+            case 'B':
+                // start of the data
+                return reader.isBlank(2, 2);
+            case '9':
+                section.parameters = readGeneralParameters(reader);
+                return true;
+            case 'S':
+                if (reader.startsWith("SP")) {
+                    readSpecialParameter(reader, section);
+                    return true;
+                } else if (reader.startsWith("SV")) {
+                    network.addStaticVarCompensator(readStaticVarCompensator(reader));
+                    return true;
+                }
+                return false;
+            case 'G':
+                if (reader.startsWith("GC")) {
+                    section.comment = reader.getString(4, reader.getLineLength());
+                } else {
+                    network.addGenerator(readGenerator(reader));
+                }
+                return true;
+            case 'A':
+            case 'D':
+                return readAreaOrDcRecord(reader, network);
+            case '1':
+                network.addNode(readNode(reader));
+                return true;
+            case '6':
+                network.addCouplingDevice(readCouplingDevice(reader));
+                return true;
+            case '3':
+                network.addLine(readLine(reader));
+                return true;
+            case 'P':
+                network.addDissymmetricalBranch(readDissymmetricalBranch(reader));
+                return true;
+            case '4':
+                if (reader.startsWith(TWO_WINDINGS_TRANSFORMER_RECORD)) {
+                    network.addDetailedTwoWindingTransformer(readDetailedTwoWindingTransformer(reader));
+                    return true;
+                } else if (reader.startsWith(THREE_WINDINGS_TRANSFORMER_RECORD)) {
+                    network.addThreeWindingTransformer(readThreeWindingTransformer(reader));
+                    return true;
+                }
+                return false;
+            case 'C':
+                if (reader.startsWith("CH")) {
+                    network.addLoad(readLoad(reader));
+                } else {
+                    network.addCapacitorsOrReactorBanks(readCapacitorOrReactorBank(reader));
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private boolean readAreaOrDcRecord(RecordReader reader, EsgNetwork network) {
+        if (reader.startsWith("AA")) {
+            network.addArea(new EsgArea(new Esg2charName(EsgRecordLayouts.AREA.cursor(reader).nextString("name")), EsgArea.Type.AC));
+        } else if (reader.startsWith("DA")) {
+            network.addArea(new EsgArea(new Esg2charName(EsgRecordLayouts.AREA.cursor(reader).nextString("name")), EsgArea.Type.DC));
+        } else if (reader.startsWith("DC N")) {
+            network.addDCNode(readDCNode(reader));
+        } else if (reader.startsWith("DC L")) {
+            network.addDCLink(readDCLink(reader));
+        } else if (reader.startsWith("DC V")) {
+            network.addAcdcVscConverter(readAcdcVscConverter(reader));
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static EsgException invalidValue(RecordReader reader, String what, char value) {
+        return new EsgException("Invalid " + what + " '" + value + "' at line " + reader.getLineNumber());
+    }
+
+    private static void nextLine(RecordReader reader, String type) {
+        if (!reader.nextLine() || !reader.startsWith(type)) {
+            throw new EsgException("Incomplete record '" + type + "' at line " + reader.getLineNumber());
+        }
+    }
+
+    private boolean readHeader(RecordReader reader, Section section) {
+        String editDate = reader.getString(12, 19);
+        if (!editDate.isEmpty()) {
+            section.editDate = EDIT_DATE_FORMAT.parseLocalDate(editDate);
+        }
+        String version = reader.getString(21, 28);
+        if (!EsgNetwork.VERSION.equals(version)) {
+            LOGGER.warn("ECH file {} has version '{}', expected {}", name, version, EsgNetwork.VERSION);
+        }
+        return true;
+    }
+
+    private static EsgGeneralParameters readGeneralParameters(RecordReader reader) {
+        EsgGeneralParameters parameters = new EsgGeneralParameters();
+        parameters.setMaxNumIteration(reader.getInt(13, 14));
+        parameters.setTolerance((float) reader.getDouble(16, 23));
+        char startMode = reader.getChar(65);
+        if (startMode == ' ') {
+            parameters.setStartMode(EsgGeneralParameters.StartMode.FLAT_START);
+        } else if (startMode == '1') {
+            parameters.setStartMode(EsgGeneralParameters.StartMode.WARM_START);
+        } else {
+            throw invalidValue(reader, "start mode", startMode);
+        }
+        parameters.setSnref((float) reader.getDouble(67, 74));
+        parameters.setTransformerVoltageControl(reader.getChar(76) == ' ');
+        parameters.setSvcVoltageControl(reader.getChar(78) == ' ');
+        return parameters;
+    }
+
+    private static void readSpecialParameter(RecordReader reader, Section section) {
+        if (section.specialParameters == null) {
+            section.specialParameters = new EsgSpecialParameters();
+        }
+        EsgSpecialParameters specialParameters = section.specialParameters;
+        String name = reader.getString(4, 11);
+        switch (name) {
+            case "INPVPQ":
+                specialParameters.setInpvpq(reader.getInt(13, 22));
+                break;
+            case "THMAX":
+                specialParameters.setThmax((float) reader.getDouble(13, 22));
+                break;
+            case "EMAXF":
+                specialParameters.setEmaxf((float) reader.getDouble(13, 22));
+                break;
+            case "ZMIN":
+                specialParameters.setZmin((float) reader.getDouble(13, 22));
+                break;
+            case "RAMIN":
+                specialParameters.setRamin((float) reader.getDouble(13, 22));
+                break;
+            case "RAMAX":
+                specialParameters.setRamax((float) reader.getDouble(13, 22));
+                break;
+            case "TOLPLO":
+                specialParameters.setTolplo((float) reader.getDouble(13, 22));
+                break;
+            default:
+                LOGGER.warn("Unknown special parameter '{}' at line {}, skipped", name, reader.getLineNumber());
+                break;
+        }
+    }
+
+    private static EsgNode readNode(RecordReader reader) {
+        RecordLayout<EsgNode>.Cursor cursor = EsgRecordLayouts.NODE.cursor(reader);
+        return new EsgNode(new Esg2charName(cursor.nextString("area")),
+                cursor.nextName("name"),
+                cursor.nextDouble("vbase"),
+                cursor.nextDouble("vinit"),
+                cursor.nextDouble("vangl"),
+                false);
+    }
+
+    private static EsgBranchConnectionStatus toBranchConnectionStatus(RecordReader reader, char c) {
+        switch (c) {
+            case ' ':
+                return EsgBranchConnectionStatus.CLOSED_AT_BOTH_SIDE;
+            case '-':
+                return EsgBranchConnectionStatus.OPEN_AT_BOTH_SIDES;
+            case '<':
+                return EsgBranchConnectionStatus.OPEN_AT_RECEIVING_SIDE;
+            case '>':
+                return EsgBranchConnectionStatus.OPEN_AT_SENDING_SIDE;
+            default:
+                throw invalidValue(reader, "branch status", c);
+        }
+    }
+
+    private static EsgConnectionStatus toConnectionStatus(RecordReader reader, char c) {
+        switch (c) {
+            case 'Y':
+                return EsgConnectionStatus.CONNECTED;
+            case 'N':
+                return EsgConnectionStatus.NOT_CONNECTED;
+            default:
+                throw invalidValue(reader, "connection status", c);
+        }
+    }
+
+    private static EsgRegulatingMode toRegulatingMode(RecordReader reader, char c) {
+        switch (c) {
+            case 'V':
+                return EsgRegulatingMode.REGULATING;
+            case 'N':
+                return EsgRegulatingMode.NOT_REGULATING;
+            default:
+                throw invalidValue(reader, "regulating mode", c);
+        }
+    }
+
+    private static EsgCouplingDevice readCouplingDevice(RecordReader reader) {
+        RecordLayout<EsgCouplingDevice>.Cursor cursor = EsgRecordLayouts.COUPLING_DEVICE.cursor(reader);
+        Esg8charName node1 = cursor.nextName("node1");
+        char status = cursor.nextChar("status");
+        EsgCouplingDevice.ConnectionStatus connectionStatus;
+        if (status == ' ') {
+            connectionStatus = EsgCouplingDevice.ConnectionStatus.CLOSED;
+        } else if (status == '-') {
+            connectionStatus = EsgCouplingDevice.ConnectionStatus.OPEN;
+        } else {
+            throw invalidValue(reader, "coupling device status", status);
+        }
+        return new EsgCouplingDevice(new EsgBranchName(node1, cursor.nextName("node2"), cursor.nextChar("xpp")), connectionStatus);
+    }
+
+    private static EsgLine readLine(RecordReader reader) {
+        RecordLayout<EsgLine>.Cursor cursor = EsgRecordLayouts.LINE.cursor(reader);
+        Esg8charName node1 = cursor.nextName("node1");
+        EsgBranchConnectionStatus status = toBranchConnectionStatus(reader, cursor.nextChar("status"));
+        return new EsgLine(new EsgBranchName(node1, cursor.nextName("node2"), cursor.nextChar("xpp")),
+                status,
+                cursor.nextDouble("rb"),
+                cursor.nextDouble("rxb"),
+                cursor.nextDouble("gs"),
+                cursor.nextDouble("bs"),
+                cursor.nextDouble("rate"));
+    }
+
+    private static EsgDissymmetricalBranch readDissymmetricalBranch(RecordReader reader) {
+        RecordLayout<EsgDissymmetricalBranch>.Cursor cursor = EsgRecordLayouts.DISSYMMETRICAL_BRANCH.cursor(reader);
+        Esg8charName node1 = cursor.nextName("node1");
+        EsgBranchConnectionStatus status = toBranchConnectionStatus(reader, cursor.nextChar("status"));
+        EsgBranchName name = new EsgBranchName(node1, cursor.nextName("node2"), cursor.nextChar("xpp"));
+        double rb = cursor.nextDouble("rb");
+        double rxb = cursor.nextDouble("rxb");
+        double gs = cursor.nextDouble("gs");
+        double bs = cursor.nextDouble("bs");
+        double rate = cursor.nextDouble("rate");
+
+        //...second line record
+        nextLine(reader, "P");
+        cursor = EsgRecordLayouts.DISSYMMETRICAL_BRANCH_2.cursor(reader);
+        return new EsgDissymmetricalBranch(name, status, rb, rxb, gs, bs, rate,
+                cursor.nextDouble("rb2"),
+                cursor.nextDouble("rxb2"),
+                cursor.nextDouble("gs2"),
+                cursor.nextDouble("bs2"));
+    }
+
+    private static EsgDetailedTwoWindingTransformer.RegulatingMode toTwoWindingsRegulatingMode(RecordReader reader, char c) {
+        switch (c) {
+            case '1':
+                return EsgDetailedTwoWindingTransformer.RegulatingMode.ACTIVE_FLUX_SIDE_1;
+            case '2':
+                return EsgDetailedTwoWindingTransformer.RegulatingMode.ACTIVE_FLUX_SIDE_2;
+            case 'N':
+                return EsgDetailedTwoWindingTransformer.RegulatingMode.NOT_REGULATING;
+            case 'V':
+                return EsgDetailedTwoWindingTransformer.RegulatingMode.VOLTAGE;
+            default:
+                throw invalidValue(reader, "regulating mode", c);
+        }
+    }
+
+    /**
+     * Tap records follow the second line of a transformer record, and have no name
+     */
+    private static boolean nextTapLine(RecordReader reader, String type) {
+        if (!reader.nextLine()) {
+            return false;
+        }
+        if (reader.startsWith(type) && reader.isBlank(3, 21)) {
+            return true;
+        }
+        reader.pushBack();
+        return false;
+    }
+
+    private static EsgDetailedTwoWindingTransformer readDetailedTwoWindingTransformer(RecordReader reader) {
+        RecordLayout<EsgDetailedTwoWindingTransformer>.Cursor cursor = EsgRecordLayouts.DETAILED_TWO_WINDING_TRANSFORMER.cursor(reader);
+        Esg8charName node1 = cursor.nextName("node1");
+        EsgBranchConnectionStatus status = toBranchConnectionStatus(reader, cursor.nextChar("status"));
+        EsgBranchName name = new EsgBranchName(node1, cursor.nextName("node2"), cursor.nextChar("xpp"));
+        double rate = cursor.nextDouble("rate");
+        double pcu = cursor.nextDouble("pcu");
+        double pfer = cursor.nextDouble("pfer");
+        double cmagn = cursor.nextDouble("cmagn");
+        double esat = cursor.nextDouble("esat");
+
+        // second line record
+        nextLine(reader, TWO_WINDINGS_TRANSFORMER_RECORD);
+        cursor = EsgRecordLayouts.DETAILED_TWO_WINDING_TRANSFORMER_2.cursor(reader);
+        EsgDetailedTwoWindingTransformer transformer = new EsgDetailedTwoWindingTransformer(name, status, cmagn, rate, pcu, pfer, esat,
+                cursor.nextInt("ktpnom"),
+                cursor.nextInt("ktap8"),
+                cursor.nextName("zbusr"),
+                cursor.nextDouble("voltr"),
+                cursor.nextDouble("pregmin"),
+                cursor.nextDouble("pregmax"),
+                toTwoWindingsRegulatingMode(reader, cursor.nextChar("xregtr")));
+
+        // tap records
+        while (nextTapLine(reader, TWO_WINDINGS_TRANSFORMER_RECORD)) {
+            RecordLayout<EsgDetailedTwoWindingTransformer.Tap>.Cursor tapCursor = EsgRecordLayouts.DETAILED_TWO_WINDING_TRANSFORMER_TAP.cursor(reader);
+            int iplo = tapCursor.nextInt("iplo");
+            double uno1 = tapCursor.nextDouble("uno1");
+            double uno2 = tapCursor.nextDouble("uno2");
+            double ucc = tapCursor.nextDouble("ucc");
+            double dephas = tapCursor.nextDouble("dephas");
+            transformer.getTaps().add(new EsgDetailedTwoWindingTransformer.Tap(iplo, dephas, uno1, uno2, ucc));
+        }
+        return transformer;
+    }
+
+    private static EsgThreeWindingTransformer.EsgT3WConnectionStatus toT3WConnectionStatus(RecordReader reader, char c) {
+        switch (c) {
+            case ' ':
+                return EsgThreeWindingTransformer.EsgT3WConnectionStatus.CLOSED_AT_ALL_SIDES;
+            case '1':
+                return EsgThreeWindingTransformer.EsgT3WConnectionStatus.OPEN_AT_1_END_SIDE;
+            case '2':
+                return EsgThreeWindingTransformer.EsgT3WConnectionStatus.OPEN_AT_2_END_SIDE;
+            case '3':
+                return EsgThreeWindingTransformer.EsgT3WConnectionStatus.OPEN_AT_3_END_SIDE;
+            case '4':
+                return EsgThreeWindingTransformer.EsgT3WConnectionStatus.OPEN_AT_12_END_SIDES;
+            case '5':
+                return EsgThreeWindingTransformer.EsgT3WConnectionStatus.OPEN_AT_13_END_SIDES;
+            case '6':
+                return EsgThreeWindingTransformer.EsgT3WConnectionStatus.OPEN_AT_23_END_SIDES;
+            case '-':
+                return EsgThreeWindingTransformer.EsgT3WConnectionStatus.OPEN_AT_ALL_SIDES;
+            default:
+                throw invalidValue(reader, "connection status", c);
+        }
+    }
+
+    private static EsgThreeWindingTransformer readThreeWindingTransformer(RecordReader reader) {
+        RecordLayout<EsgThreeWindingTransformer>.Cursor cursor = EsgRecordLayouts.THREE_WINDING_TRANSFORMER.cursor(reader);
+        Esg8charName t3wName = cursor.nextName("name");
+        EsgThreeWindingTransformer.EsgT3WConnectionStatus status = toT3WConnectionStatus(reader, cursor.nextChar("status"));
+        EsgThreeWindingTransformer.EsgT3WName name = new EsgThreeWindingTransformer.EsgT3WName(t3wName,
+                cursor.nextName("node1"), cursor.nextName("node2"), cursor.nextName("node3"));
+        double rate1 = cursor.nextDouble("rate1");
+        double rate2 = cursor.nextDouble("rate2");
+        double rate3 = cursor.nextDouble("rate3");
+        double pcu12 = cursor.nextDouble("pcu12");
+        double pcu13 = cursor.nextDouble("pcu13");
+        double pcu23 = cursor.nextDouble("pcu23");
+        double pfer = cursor.nextDouble("pfer");
+        double cmagn = cursor.nextDouble("cmagn");
+        double esat = cursor.nextDouble("esat");
+
+        // second line record
+        nextLine(reader, THREE_WINDINGS_TRANSFORMER_RECORD);
+        cursor = EsgRecordLayouts.THREE_WINDING_TRANSFORMER_2.cursor(reader);
+        int ktpnom = cursor.nextInt("ktpnom");
+        int ktap8 = cursor.nextInt("ktap8");
+        Esg8charName zbusr = cursor.nextName("zbusr");
+        double voltr = cursor.nextDouble("voltr");
+        char xregtr = cursor.nextChar("xregtr");
+        EsgThreeWindingTransformer.RegulatingMode regulatingMode;
+        if (xregtr == 'N') {
+            regulatingMode = EsgThreeWindingTransformer.RegulatingMode.NOT_REGULATING;
+        } else if (xregtr == 'V') {
+            regulatingMode = EsgThreeWindingTransformer.RegulatingMode.VOLTAGE;
+        } else {
+            throw invalidValue(reader, "regulating mode", xregtr);
+        }
+        EsgThreeWindingTransformer transformer = new EsgThreeWindingTransformer(name, status, cmagn, rate1, rate2, rate3,
+                pcu12, pcu13, pcu23, pfer, esat, ktpnom, ktap8, zbusr, voltr, regulatingMode);
+
+        // tap records
+        while (nextTapLine(reader, THREE_WINDINGS_TRANSFORMER_RECORD)) {
+            RecordLayout<EsgThreeWindingTransformer.Tap>.Cursor tapCursor = EsgRecordLayouts.THREE_WINDING_TRANSFORMER_TAP.cursor(reader);
+            int iplo = tapCursor.nextInt("iplo");
+            double uno1 = tapCursor.nextDouble("uno1");
+            double uno2 = tapCursor.nextDouble("uno2");
+            double uno3 = tapCursor.nextDouble("uno3");
+            double ucc12 = tapCursor.nextDouble("ucc12");
+            double ucc13 = tapCursor.nextDouble("ucc13");
+            double ucc23 = tapCursor.nextDouble("ucc23");
+            transformer.getTaps().add(new EsgThreeWindingTransformer.Tap(iplo,
+                    tapCursor.nextDouble("dephas1"),
+                    tapCursor.nextDouble("dephas2"),
+                    tapCursor.nextDouble("dephas3"),
+                    uno1, uno2, uno3, ucc12, ucc13, ucc23));
+        }
+        return transformer;
+    }
+
+    private static EsgLoad readLoad(RecordReader reader) {
+        RecordLayout<EsgLoad>.Cursor cursor = EsgRecordLayouts.LOAD.cursor(reader);
+        Esg8charName znamlo = cursor.nextName("znamlo");
+        EsgConnectionStatus status = toConnectionStatus(reader, cursor.nextChar("iloadst"));
+        Esg8charName znodlo = cursor.nextName("znodlo");
+        double pldstz = cursor.nextDouble("pldstz");
+        double pldsti = cursor.nextDouble("pldsti");
+        return new EsgLoad(status, znamlo, znodlo, pldsti, pldstz,
+                cursor.nextDouble("pldstp"),
+                cursor.nextDouble("qldsti"),
+                cursor.nextDouble("qldstz"),
+                cursor.nextDouble("qldstp"));
+    }
+
+    private static EsgGenerator readGenerator(RecordReader reader) {
+        RecordLayout<EsgGenerator>.Cursor cursor = EsgRecordLayouts.GENERATOR.cursor(reader);
+        Esg8charName znamge = cursor.nextName("znamge");
+        EsgConnectionStatus status = toConnectionStatus(reader, cursor.nextChar("xgenest"));
+        return new EsgGenerator(znamge,
+                cursor.nextName("znodge"),
+                cursor.nextDouble("pgmin"),
+                cursor.nextDouble("pgen"),
+                cursor.nextDouble("pgmax"),
+                cursor.nextDouble("qgmin"),
+                cursor.nextDouble("qgen"),
+                cursor.nextDouble("qgmax"),
+                toRegulatingMode(reader, cursor.nextChar("xregge")),
+                cursor.nextDouble("vregge"),
+                cursor.nextName("zregnoge"),
+                cursor.nextDouble("qgensh"),
+                status);
+    }
+
+    private static EsgCapacitorOrReactorBank readCapacitorOrReactorBank(RecordReader reader) {
+        RecordLayout<EsgCapacitorOrReactorBank>.Cursor cursor = EsgRecordLayouts.CAPACITOR_OR_REACTOR_BANK.cursor(reader);
+        Esg8charName znamba = cursor.nextName("znamba");
+        Esg8charName znodba = cursor.nextName("znodba");
+        int ieleba = cursor.nextInt("ieleba");
+        double plosba = cursor.nextDouble("plosba");
+        double rcapba = cursor.nextDouble("rcapba");
+        int imaxba = cursor.nextInt("imaxba");
+        char xregba = cursor.nextChar("xregba");
+        if (xregba != 'N') {
+            throw invalidValue(reader, "regulating mode", xregba);
+        }
+        return new EsgCapacitorOrReactorBank(znamba, znodba, ieleba, plosba, rcapba, imaxba, EsgCapacitorOrReactorBank.RegulatingMode.NOT_REGULATING);
+    }
+
+    private static EsgStaticVarCompensator readStaticVarCompensator(RecordReader reader) {
+        RecordLayout<EsgStaticVarCompensator>.Cursor cursor = EsgRecordLayouts.STATIC_VAR_COMPENSATOR.cursor(reader);
+        return new EsgStaticVarCompensator(cursor.nextName("znamsvc"),
+                toConnectionStatus(reader, cursor.nextChar("xsvcst")),
+                cursor.nextName("znodsvc"),
+                cursor.nextDouble("bmin"),
+                cursor.nextDouble("binit"),
+                cursor.nextDouble("bmax"),
+                toRegulatingMode(reader, cursor.nextChar("xregsvc")),
+                cursor.nextDouble("vregsvc"),
+                cursor.nextDouble("qsvcsh"));
+    }
+
+    private static EsgDCNode readDCNode(RecordReader reader) {
+        RecordLayout<EsgDCNode>.Cursor cursor = EsgRecordLayouts.DC_NODE.cursor(reader);
+        Esg8charName name = cursor.nextName("name");
+        return new EsgDCNode(new Esg2charName(cursor.nextString("area")),
+                name,
+                cursor.nextDouble("vbase"),
+                cursor.nextDouble("vinit"));
+    }
+
+    private static EsgDCLink readDCLink(RecordReader reader) {
+        RecordLayout<EsgDCLink>.Cursor cursor = EsgRecordLayouts.DC_LINK.cursor(reader);
+        Esg8charName node1 = cursor.nextName("node1");
+        Esg8charName node2 = cursor.nextName("node2");
+        char xpp = cursor.nextChar("xpp");
+        float rldc = (float) cursor.nextDouble("rldc");
+        char status = cursor.nextChar("status");
+        EsgDCLink.LinkStatus linkStatus;
+        if (status == ' ') {
+            linkStatus = EsgDCLink.LinkStatus.ON;
+        } else if (status == 'S') {
+            linkStatus = EsgDCLink.LinkStatus.OFF;
+        } else {
+            throw invalidValue(reader, "link status", status);
+        }
+        return new EsgDCLink(node1, node2, xpp, rldc, linkStatus);
+    }
+
+    private static EsgAcdcVscConverter readAcdcVscConverter(RecordReader reader) {
+        RecordLayout<EsgAcdcVscConverter>.Cursor cursor = EsgRecordLayouts.ACDC_VSC_CONVERTER.cursor(reader);
+        Esg8charName znconv = cursor.nextName("znconv");
+        Esg8charName dcNode1 = cursor.nextName("dcNode1");
+        Esg8charName dcNode2 = cursor.nextName("dcNode2");
+        Esg8charName acNode = cursor.nextName("acNode");
+
+        char state = cursor.nextChar("xstate");
+        EsgAcdcVscConverter.ConverterState xstate;
+        if (state == ' ') {
+            xstate = EsgAcdcVscConverter.ConverterState.ON;
+        } else if (state == 'S') {
+            xstate = EsgAcdcVscConverter.ConverterState.OFF;
+        } else {
+            throw invalidValue(reader, "converter state", state);
+        }
+
+        char dcMode = cursor.nextChar("xregl");
+        EsgAcdcVscConverter.DCControlMode xregl;
+        if (dcMode == 'P') {
+            xregl = EsgAcdcVscConverter.DCControlMode.AC_ACTIVE_POWER;
+        } else if (dcMode == 'V') {
+            xregl = EsgAcdcVscConverter.DCControlMode.DC_VOLTAGE;
+        } else {
+            throw invalidValue(reader, "DC control mode", dcMode);
+        }
+
+        char acMode = cursor.nextChar("xoper");
+        EsgAcdcVscConverter.ACControlMode xoper;
+        if (acMode == 'V') {
+            xoper = EsgAcdcVscConverter.ACControlMode.AC_VOLTAGE;
+        } else if (acMode == 'Q') {
+            xoper = EsgAcdcVscConverter.ACControlMode.AC_REACTIVE_POWER;
+        } else if (acMode == 'A') {
+            xoper = EsgAcdcVscConverter.ACControlMode.AC_POWER_FACTOR;
+        } else {
+            throw invalidValue(reader, "AC control mode", acMode);
+        }
+
+        double rrdc = cursor.nextDouble("rrdc");
+        double rxdc = cursor.nextDouble("rxdc");
+        double pac = cursor.nextDouble("pac");
+        double pvd = cursor.nextDouble("pvd");
+        double pva = cursor.nextDouble("pva");
+        double pre = cursor.nextDouble("pre");
+        double pco = cursor.nextDouble("pco");
+        double qvscsh = cursor.nextDouble("qvscsh");
+
+        // second line record
+        nextLine(reader, "DC V");
+        cursor = EsgRecordLayouts.ACDC_VSC_CONVERTER_2.cursor(reader);
+        return new EsgAcdcVscConverter(znconv, dcNode1, dcNode2, acNode, xstate, xregl, xoper, rrdc, rxdc,
+                pac, pvd, pva, pre, pco, qvscsh,
+                cursor.nextDouble("pvscmin"),
+                cursor.nextDouble("pvscmax"),
+                cursor.nextDouble("qvscmin"),
+                cursor.nextDouble("qvscmax"),
+                cursor.nextDouble("vsb0"),
+                cursor.nextDouble("vsb1"),
+                cursor.nextDouble("vsb2"),
+                cursor.nextDouble("mvm"),
+                cursor.nextDouble("mva"));
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model.io;
+
+import com.powsybl.eurostag.model.EsgException;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Sidecar index of an ECH file, giving the byte offset and length of the record of each element. The keys of the
+ * elements are the ones of the {@link com.powsybl.eurostag.model.EsgNetwork} maps, i.e. the padded names.
+ * <p>
+ * The index is filled by {@link EsgWriter#write(Writer, String, EsgRecordIndex)} and used by
+ * {@link EsgReader#getRecord(EsgRecordIndex, RecordType, String)} to access a record without parsing the whole file.
+ * The offsets are counted in characters, so the ECH file must be written with a single byte encoding, which is the
+ * case of ASCII names.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public class EsgRecordIndex {
+
+    private static final int MAGIC = 0x45534749; // "ESGI"
+
+    private static final int VERSION = 1;
+
+    public enum RecordType {
+        AREA,
+        NODE,
+        COUPLING_DEVICE,
+        LINE,
+        DISSYMMETRICAL_BRANCH,
+        DETAILED_TWO_WINDING_TRANSFORMER,
+        THREE_WINDING_TRANSFORMER,
+        LOAD,
+        GENERATOR,
+        CAPACITOR_OR_REACTOR_BANK,
+        STATIC_VAR_COMPENSATOR,
+        DC_NODE,
+        DC_LINK,
+        ACDC_VSC_CONVERTER
+    }
+
+    public static final class Entry {
+
+        private final long offset;
+
+        private final int length;
+
+        private Entry(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * Length of the record, including the line separators of all its lines
+         */
+        public int getLength() {
+            return length;
+        }
+    }
+
+    private final Map<RecordType, Map<String, Entry>> entries = new EnumMap<>(RecordType.class);
+
+    private long fileSize = -1;
+
+    void add(RecordType type, String key, long offset, long end) {
+        if (entries.computeIfAbsent(type, t -> new LinkedHashMap<>()).put(key, new Entry(offset, Math.toIntExact(end - offset))) != null) {
+            throw new EsgException("Duplicate record " + type + " '" + key + "' in the index");
+        }
+    }
+
+    void setFileSize(long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    /**
+     * Size of the indexed file, or -1 if the index is not complete
+     */
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * @return the entry of the record, or null if the element is not in the index
+     */
+    public Entry getEntry(RecordType type, String key) {
+        Objects.requireNonNull(type);
+        Objects.requireNonNull(key);
+        return entries.getOrDefault(type, Collections.emptyMap()).get(key);
+    }
+
+    /**
+     * The keys of the records of the given type, in the order of the file
+     */
+    public Set<String> getKeys(RecordType type) {
+        return Collections.unmodifiableSet(entries.getOrDefault(Objects.requireNonNull(type), Collections.emptyMap()).keySet());
+    }
+
+    public int size() {
+        return entries.values().stream().mapToInt(Map::size).sum();
+    }
+
+    public void save(Path file) throws IOException {
+        try (OutputStream os = Files.newOutputStream(file)) {
+            save(os);
+        }
+    }
+
+    public void save(OutputStream os) throws IOException {
+        if (fileSize < 0) {
+            throw new EsgException("The index is not complete");
+        }
+        DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(os));
+        dos.writeInt(MAGIC);
+        dos.writeInt(VERSION);
+        dos.writeLong(fileSize);
+        dos.writeInt(size());
+        for (Map.Entry<RecordType, Map<String, Entry>> e : entries.entrySet()) {
+            for (Map.Entry<String, Entry> e2 : e.getValue().entrySet()) {
+                dos.writeByte(e.getKey().ordinal());
+                dos.writeUTF(e2.getKey());
+                dos.writeLong(e2.getValue().offset);
+                dos.writeInt(e2.getValue().length);
+            }
+        }
+        dos.flush();
+    }
+
+    public static EsgRecordIndex load(Path file) throws IOException {
+        try (InputStream is = Files.newInputStream(file)) {
+            return load(is);
+        }
+    }
+
+    public static EsgRecordIndex load(InputStream is) throws IOException {
+        DataInputStream dis = new DataInputStream(new BufferedInputStream(is));
+        if (dis.readInt() != MAGIC) {
+            throw new EsgException("Not an ECH record index");
+        }
+        int version = dis.readInt();
+        if (version != VERSION) {
+            throw new EsgException("Unsupported ECH record index version " + version);
+        }
+        EsgRecordIndex index = new EsgRecordIndex();
+        index.fileSize = dis.readLong();
+        int size = dis.readInt();
+        RecordType[] types = RecordType.values();
+        for (int i = 0; i < size; i++) {
+            RecordType type = types[dis.readUnsignedByte()];
+            String key = dis.readUTF();
+            long offset = dis.readLong();
+            int length = dis.readInt();
+            index.add(type, key, offset, offset + length);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,435 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model.io;
+
+import com.powsybl.eurostag.model.*;
+
+/**
+ * Layouts of the lines of the ECH network records, shared by {@link EsgWriter} and {@link EsgReader}. The header and
+ * the parameter records are not described here.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public final class EsgRecordLayouts {
+
+    public static final RecordLayout<EsgArea> AREA = RecordLayout.<EsgArea>builder("area")
+            .string("type", 1, 2, area -> toTypeCard(area.getType()))
+            .name("name", 4, 5, EsgArea::getName)
+            .constant("unused", 6, 20, "")
+            .build();
+
+    public static final RecordLayout<EsgNode> NODE = RecordLayout.<EsgNode>builder("node")
+            .constant("code", 1, 1, "1")
+            .name("area", 2, 3, EsgNode::getArea)
+            .name("name", 4, 11, EsgNode::getName)
+            .number("vbase", 85, 92, EsgNode::getVbase)
+            .number("vinit", 99, 106, EsgNode::getVinit)
+            .number("vangl", 108, 115, EsgNode::getVangl)
+            .constant("free1", 117, 124, "0.", RecordSink.Alignment.RIGHT)
+            .constant("free2", 126, 133, "0.", RecordSink.Alignment.RIGHT)
+            .build();
+
+    public static final RecordLayout<EsgNode> SLACK_BUS = RecordLayout.<EsgNode>builder("slack bus")
+            .constant("code", 1, 1, "5")
+            .name("name", 4, 11, EsgNode::getName)
+            .number("vangl", 40, 47, EsgNode::getVangl)
+            .build();
+
+    public static final RecordLayout<EsgCouplingDevice> COUPLING_DEVICE = RecordLayout.<EsgCouplingDevice>builder("coupling device")
+            .constant("code", 1, 1, "6")
+            .name("node1", 3, 10, cd -> cd.getName().getNode1Name())
+            .character("status", 11, cd -> toChar(cd.getConnectionStatus()))
+            .name("node2", 12, 19, cd -> cd.getName().getNode2Name())
+            .character("xpp", 20, cd -> cd.getName().getXpp())
+            .constant("free1", 67, 74, 0)
+            .constant("free2", 76, 83, 0)
+            .build();
+
+    public static final RecordLayout<EsgLine> LINE = RecordLayout.<EsgLine>builder("line")
+            .constant("code", 1, 1, "3")
+            .name("node1", 3, 10, line -> line.getName().getNode1Name())
+            .character("status", 11, line -> toChar(line.getStatus()))
+            .name("node2", 12, 19, line -> line.getName().getNode2Name())
+            .character("xpp", 20, line -> line.getName().getXpp())
+            .number("rb", 22, 29, EsgLine::getRb)
+            .number("rxb", 31, 38, EsgLine::getRxb)
+            .number("gs", 40, 47, EsgLine::getGs)
+            .number("bs", 49, 56, EsgLine::getBs)
+            .number("rate", 58, 65, EsgLine::getRate)
+            .constant("free1", 67, 74, 0)
+            .constant("free2", 76, 83, 0)
+            .build();
+
+    public static final RecordLayout<EsgDissymmetricalBranch> DISSYMMETRICAL_BRANCH = RecordLayout.<EsgDissymmetricalBranch>builder("dissymmetrical branch")
+            .constant("code", 1, 1, "P")
+            .name("node1", 3, 10, branch -> branch.getName().getNode1Name())
+            .character("status", 11, branch -> toChar(branch.getStatus()))
+            .name("node2", 12, 19, branch -> branch.getName().getNode2Name())
+            .character("xpp", 20, branch -> branch.getName().getXpp())
+            .number("rb", 22, 29, EsgDissymmetricalBranch::getRb)
+            .number("rxb", 31, 38, EsgDissymmetricalBranch::getRxb)
+            .number("gs", 40, 47, EsgDissymmetricalBranch::getGs)
+            .number("bs", 49, 56, EsgDissymmetricalBranch::getBs)
+            .number("rate", 58, 65, EsgDissymmetricalBranch::getRate)
+            .build();
+
+    public static final RecordLayout<EsgDissymmetricalBranch> DISSYMMETRICAL_BRANCH_2 = RecordLayout.<EsgDissymmetricalBranch>builder("dissymmetrical branch, second line")
+            .constant("code", 1, 1, "P")
+            .number("rb2", 22, 29, EsgDissymmetricalBranch::getRb2)
+            .number("rxb2", 31, 38, EsgDissymmetricalBranch::getRxb2)
+            .number("gs2", 40, 47, EsgDissymmetricalBranch::getGs2)
+            .number("bs2", 49, 56, EsgDissymmetricalBranch::getBs2)
+            .build();
+
+    public static final RecordLayout<EsgDetailedTwoWindingTransformer> DETAILED_TWO_WINDING_TRANSFORMER = RecordLayout.<EsgDetailedTwoWindingTransformer>builder("detailed two winding transformer")
+            .constant("code", 1, 2, "48")
+            .name("node1", 3, 10, t -> t.getName().getNode1Name())
+            .character("status", 11, t -> toChar(t.getStatus()))
+            .name("node2", 12, 19, t -> t.getName().getNode2Name())
+            .character("xpp", 20, t -> t.getName().getXpp())
+            .number("rate", 22, 29, EsgDetailedTwoWindingTransformer::getRate)
+            .number("pcu", 30, 37, EsgDetailedTwoWindingTransformer::getPcu)
+            .number("pfer", 39, 46, EsgDetailedTwoWindingTransformer::getPfer)
+            .number("cmagn", 48, 55, EsgDetailedTwoWindingTransformer::getCmagn)
+            .number("esat", 57, 64, EsgDetailedTwoWindingTransformer::getEsat)
+            .constant("free1", 66, 73, 0)
+            .constant("free2", 75, 82, 0)
+            .build();
+
+    public static final RecordLayout<EsgDetailedTwoWindingTransformer> DETAILED_TWO_WINDING_TRANSFORMER_2 = RecordLayout.<EsgDetailedTwoWindingTransformer>builder("detailed two winding transformer, second line")
+            .constant("code", 1, 2, "48")
+            .integer("ktpnom", 22, 25, EsgDetailedTwoWindingTransformer::getKtpnom)
+            .integer("ktap8", 27, 30, EsgDetailedTwoWindingTransformer::getKtap8)
+            .name("zbusr", 32, 39, EsgDetailedTwoWindingTransformer::getZbusr, RecordLayout.NullRule.OPTIONAL)
+            .number("voltr", 41, 48, EsgDetailedTwoWindingTransformer::getVoltr)
+            .number("pregmin", 50, 57, EsgDetailedTwoWindingTransformer::getPregmin)
+            .number("pregmax", 59, 66, EsgDetailedTwoWindingTransformer::getPregmax)
+            .character("xregtr", 68, t -> toChar(t.getXregtr()))
+            .build();
+
+    public static final RecordLayout<EsgDetailedTwoWindingTransformer.Tap> DETAILED_TWO_WINDING_TRANSFORMER_TAP = RecordLayout.<EsgDetailedTwoWindingTransformer.Tap>builder("detailed two winding transformer tap")
+            .constant("code", 1, 2, "48")
+            .integer("iplo", 22, 25, EsgDetailedTwoWindingTransformer.Tap::getIplo)
+            .number("uno1", 27, 34, EsgDetailedTwoWindingTransformer.Tap::getUno1)
+            .number("uno2", 36, 43, EsgDetailedTwoWindingTransformer.Tap::getUno2)
+            .number("ucc", 45, 52, EsgDetailedTwoWindingTransformer.Tap::getUcc)
+            .number("dephas", 54, 61, EsgDetailedTwoWindingTransformer.Tap::getDephas)
+            .build();
+
+    public static final RecordLayout<EsgThreeWindingTransformer> THREE_WINDING_TRANSFORMER = RecordLayout.<EsgThreeWindingTransformer>builder("three winding transformer")
+            .constant("code", 1, 2, "44")
+            .name("name", 3, 10, t3w -> t3w.getName().gett3wName())
+            .character("status", 11, t3w -> toChar(t3w.getStatus()))
+            .name("node1", 12, 19, t3w -> t3w.getName().getNode1Name())
+            .name("node2", 21, 28, t3w -> t3w.getName().getNode2Name())
+            .name("node3", 30, 37, t3w -> t3w.getName().getNode3Name())
+            .number("rate1", 39, 46, EsgThreeWindingTransformer::getRate1)
+            .number("rate2", 48, 55, EsgThreeWindingTransformer::getRate2)
+            .number("rate3", 57, 64, EsgThreeWindingTransformer::getRate3)
+            .number("pcu12", 66, 73, EsgThreeWindingTransformer::getPcu12)
+            .number("pcu13", 75, 82, EsgThreeWindingTransformer::getPcu13)
+            .number("pcu23", 84, 91, EsgThreeWindingTransformer::getPcu23)
+            .number("pfer", 93, 100, EsgThreeWindingTransformer::getPfer)
+            .number("cmagn", 102, 109, EsgThreeWindingTransformer::getCmagn)
+            .number("esat", 111, 118, EsgThreeWindingTransformer::getEsat)
+            .constant("free1", 119, 126, 0)
+            .constant("free2", 137, 144, 0)
+            .build();
+
+    public static final RecordLayout<EsgThreeWindingTransformer> THREE_WINDING_TRANSFORMER_2 = RecordLayout.<EsgThreeWindingTransformer>builder("three winding transformer, second line")
+            .constant("code", 1, 2, "44")
+            .integer("ktpnom", 22, 25, EsgThreeWindingTransformer::getKtpnom)
+            .integer("ktap8", 27, 30, EsgThreeWindingTransformer::getKtap8)
+            .name("zbusr", 32, 39, EsgThreeWindingTransformer::getZbusr, RecordLayout.NullRule.OPTIONAL)
+            .number("voltr", 41, 48, EsgThreeWindingTransformer::getVoltr)
+            .constant("unused1", 50, 57, 0)
+            .constant("unused2", 59, 66, 0)
+            .character("xregtr", 68, t3w -> toChar(t3w.getXregtr()))
+            .build();
+
+    public static final RecordLayout<EsgThreeWindingTransformer.Tap> THREE_WINDING_TRANSFORMER_TAP = RecordLayout.<EsgThreeWindingTransformer.Tap>builder("three winding transformer tap")
+            .constant("code", 1, 2, "44")
+            .integer("iplo", 22, 25, EsgThreeWindingTransformer.Tap::getIplo)
+            .number("uno1", 27, 34, EsgThreeWindingTransformer.Tap::getUno1)
+            .number("uno2", 36, 43, EsgThreeWindingTransformer.Tap::getUno2)
+            .number("uno3", 45, 52, EsgThreeWindingTransformer.Tap::getUno3)
+            .number("ucc12", 54, 61, EsgThreeWindingTransformer.Tap::getUcc12)
+            .number("ucc13", 63, 70, EsgThreeWindingTransformer.Tap::getUcc13)
+            .number("ucc23", 72, 79, EsgThreeWindingTransformer.Tap::getUcc23)
+            .number("dephas1", 81, 88, EsgThreeWindingTransformer.Tap::getDephas1)
+            .number("dephas2", 90, 97, EsgThreeWindingTransformer.Tap::getDephas2)
+            .number("dephas3", 99, 106, EsgThreeWindingTransformer.Tap::getDephas3)
+            .build();
+
+    public static final RecordLayout<EsgLoad> LOAD = RecordLayout.<EsgLoad>builder("load")
+            .constant("code", 1, 2, "CH")
+            .name("znamlo", 4, 11, EsgLoad::getZnamlo)
+            .character("iloadst", 13, load -> toChar(load.getIloadst()))
+            .name("znodlo", 15, 22, EsgLoad::getZnodlo)
+            .number("pldstz", 24, 31, EsgLoad::getPldstz)
+            .number("pldsti", 33, 40, EsgLoad::getPldsti)
+            .number("pldstp", 42, 49, EsgLoad::getPldstp)
+            .number("qldsti", 51, 58, EsgLoad::getQldsti)
+            .number("qldstz", 60, 67, EsgLoad::getQldstz)
+            .number("qldstp", 69, 76, EsgLoad::getQldstp)
+            .constant("free1", 78, 85, 0)
+            .constant("free2", 87, 94, 0)
+            .build();
+
+    public static final RecordLayout<EsgGenerator> GENERATOR = RecordLayout.<EsgGenerator>builder("generator")
+            .constant("code", 1, 1, "G")
+            .name("znamge", 4, 11, EsgGenerator::getZnamge)
+            .character("xgenest", 13, generator -> toChar(generator.getXgenest()))
+            .name("znodge", 15, 22, EsgGenerator::getZnodge)
+            .number("pgmin", 24, 31, EsgGenerator::getPgmin)
+            .number("pgen", 33, 40, EsgGenerator::getPgen)
+            .number("pgmax", 42, 49, EsgGenerator::getPgmax)
+            .number("qgmin", 51, 58, EsgGenerator::getQgmin)
+            .number("qgen", 60, 67, EsgGenerator::getQgen)
+            .number("qgmax", 69, 76, EsgGenerator::getQgmax)
+            .character("xregge", 78, generator -> toChar(generator.getXregge()))
+            .number("vregge", 80, 87, EsgGenerator::getVregge)
+            .name("zregnoge", 89, 96, EsgGenerator::getZregnoge, RecordLayout.NullRule.OPTIONAL)
+            .number("qgensh", 98, 105, EsgGenerator::getQgensh)
+            .constant("free1", 107, 114, 0)
+            .constant("free2", 116, 123, 0)
+            .build();
+
+    public static final RecordLayout<EsgCapacitorOrReactorBank> CAPACITOR_OR_REACTOR_BANK = RecordLayout.<EsgCapacitorOrReactorBank>builder("capacitor or reactor bank")
+            .constant("code", 1, 1, "C")
+            .name("znamba", 3, 10, EsgCapacitorOrReactorBank::getZnamba)
+            .name("znodba", 12, 19, EsgCapacitorOrReactorBank::getZnodba)
+            .integer("ieleba", 39, 41, EsgCapacitorOrReactorBank::getIeleba)
+            .number("plosba", 43, 50, EsgCapacitorOrReactorBank::getPlosba)
+            .number("rcapba", 52, 59, EsgCapacitorOrReactorBank::getRcapba)
+            .integer("imaxba", 61, 63, EsgCapacitorOrReactorBank::getImaxba)
+            .character("xregba", 65, bank -> toChar(bank.getXregba()))
+            .constant("unused1", 67, 74, 0)
+            .constant("unused2", 76, 83, " ")
+            .constant("free1", 85, 92, 0)
+            .constant("free2", 94, 101, 0)
+            .constant("free3", 103, 110, " ")
+            .build();
+
+    public static final RecordLayout<EsgStaticVarCompensator> STATIC_VAR_COMPENSATOR = RecordLayout.<EsgStaticVarCompensator>builder("static var compensator")
+            .constant("code", 1, 2, "SV")
+            .name("znamsvc", 4, 11, EsgStaticVarCompensator::getZnamsvc)
+            .character("xsvcst", 13, svc -> toChar(svc.getXsvcst()))
+            .name("znodsvc", 15, 22, EsgStaticVarCompensator::getZnodsvc)
+            .number("bmin", 24, 31, EsgStaticVarCompensator::getBmin)
+            .number("binit", 33, 40, EsgStaticVarCompensator::getBinit)
+            .number("bmax", 42, 49, EsgStaticVarCompensator::getBmax)
+            .character("xregsvc", 78, svc -> toChar(svc.getXregsvc()))
+            .number("vregsvc", 80, 87, EsgStaticVarCompensator::getVregsvc)
+            .number("qsvcsh", 98, 105, EsgStaticVarCompensator::getQsvcsh)
+            .constant("free1", 107, 114, 0)
+            .constant("free2", 116, 123, 0)
+            .constant("free3", 125, 132, " ")
+            .build();
+
+    public static final RecordLayout<EsgDCNode> DC_NODE = RecordLayout.<EsgDCNode>builder("DC node")
+            .constant("code", 1, 4, "DC N")
+            .name("name", 6, 13, EsgDCNode::getName)
+            .name("area", 15, 16, EsgDCNode::getArea)
+            .number("vbase", 18, 25, EsgDCNode::getVbase)
+            .number("vinit", 27, 34, EsgDCNode::getVinit)
+            .build();
+
+    public static final RecordLayout<EsgDCLink> DC_LINK = RecordLayout.<EsgDCLink>builder("DC link")
+            .constant("code", 1, 4, "DC L")
+            .name("node1", 6, 13, EsgDCLink::getNode1Name)
+            .name("node2", 15, 22, EsgDCLink::getNode2Name)
+            .character("xpp", 24, EsgDCLink::getXpp)
+            .number("rldc", 26, 33, EsgDCLink::getRldc)
+            .character("status", 35, link -> toChar(link.getLinkStatus()))
+            .build();
+
+    public static final RecordLayout<EsgAcdcVscConverter> ACDC_VSC_CONVERTER = RecordLayout.<EsgAcdcVscConverter>builder("AC/DC VSC converter")
+            .constant("code", 1, 4, "DC V")
+            .name("znconv", 6, 13, EsgAcdcVscConverter::getZnconv)
+            .name("dcNode1", 15, 22, EsgAcdcVscConverter::getDcNode1)
+            .name("dcNode2", 24, 31, EsgAcdcVscConverter::getDcNode2)
+            .name("acNode", 33, 40, EsgAcdcVscConverter::getAcNode)
+            .character("xstate", 42, vsc -> toChar(vsc.getXstate()))
+            .character("xregl", 44, vsc -> toChar(vsc.getXregl()))
+            .character("xoper", 46, vsc -> toChar(vsc.getXoper()))
+            .number("rrdc", 48, 55, EsgAcdcVscConverter::getRrdc)
+            .number("rxdc", 57, 64, EsgAcdcVscConverter::getRxdc)
+            .number("pac", 66, 73, EsgAcdcVscConverter::getPac, RecordLayout.NullRule.SKIP)
+            .number("pvd", 75, 82, EsgAcdcVscConverter::getPvd, RecordLayout.NullRule.SKIP)
+            .number("pva", 84, 91, EsgAcdcVscConverter::getPva, RecordLayout.NullRule.SKIP)
+            .number("pre", 93, 100, EsgAcdcVscConverter::getPre, RecordLayout.NullRule.SKIP)
+            .number("pco", 102, 109, EsgAcdcVscConverter::getPco, RecordLayout.NullRule.SKIP)
+            .number("qvscsh", 111, 118, EsgAcdcVscConverter::getQvscsh, RecordLayout.NullRule.SKIP)
+            .build();
+
+    public static final RecordLayout<EsgAcdcVscConverter> ACDC_VSC_CONVERTER_2 = RecordLayout.<EsgAcdcVscConverter>builder("AC/DC VSC converter, second line")
+            .constant("code", 1, 4, "DC V")
+            .number("pvscmin", 6, 13, EsgAcdcVscConverter::getPvscmin)
+            .number("pvscmax", 15, 22, EsgAcdcVscConverter::getPvscmax)
+            .number("qvscmin", 24, 31, EsgAcdcVscConverter::getQvscmin)
+            .number("qvscmax", 33, 40, EsgAcdcVscConverter::getQvscmax)
+            .number("vsb0", 42, 49, EsgAcdcVscConverter::getVsb0)
+            .number("vsb1", 51, 58, EsgAcdcVscConverter::getVsb1)
+            .number("vsb2", 60, 67, EsgAcdcVscConverter::getVsb2)
+            .number("mvm", 69, 76, EsgAcdcVscConverter::getMvm)
+            .number("mva", 78, 85, EsgAcdcVscConverter::getMva)
+            .build();
+
+    private EsgRecordLayouts() {
+    }
+
+    private static String toTypeCard(EsgArea.Type type) {
+        switch (type) {
+            case AC:
+                return "AA";
+            case DC:
+                return "DA";
+            default:
+                throw new IllegalArgumentException("Invalid area type: " + type);
+        }
+    }
+
+    private static char toChar(EsgBranchConnectionStatus status) {
+        switch (status) {
+            case CLOSED_AT_BOTH_SIDE:
+                return ' ';
+            case OPEN_AT_BOTH_SIDES:
+                return '-';
+            case OPEN_AT_RECEIVING_SIDE:
+                return '<';
+            case OPEN_AT_SENDING_SIDE:
+                return '>';
+            default:
+                throw new IllegalArgumentException("Invalid status: " + status);
+        }
+    }
+
+    private static char toChar(EsgCouplingDevice.ConnectionStatus code) {
+        switch (code) {
+            case OPEN:
+                return '-';
+            case CLOSED:
+                return ' ';
+            default:
+                throw new IllegalArgumentException("Invalid connection status: " + code);
+        }
+    }
+
+    private static char toChar(EsgDetailedTwoWindingTransformer.RegulatingMode mode) {
+        switch (mode) {
+            case ACTIVE_FLUX_SIDE_1:
+                return '1';
+            case ACTIVE_FLUX_SIDE_2:
+                return '2';
+            case NOT_REGULATING:
+                return 'N';
+            case VOLTAGE:
+                return 'V';
+            default:
+                throw new IllegalArgumentException("Invalid regulating mode: " + mode);
+        }
+    }
+
+    private static char toChar(EsgConnectionStatus status) {
+        switch (status) {
+            case CONNECTED:
+                return 'Y';
+            case NOT_CONNECTED:
+                return 'N';
+            default:
+                throw new IllegalArgumentException("Invalid connection status: " + status);
+        }
+    }
+
+    private static char toChar(EsgThreeWindingTransformer.RegulatingMode mode) {
+        switch (mode) {
+            case NOT_REGULATING:
+                return 'N';
+            case VOLTAGE:
+                return 'V';
+            default:
+                throw new IllegalArgumentException("Invalid regulating mode: " + mode);
+        }
+    }
+
+    private static char toChar(EsgThreeWindingTransformer.EsgT3WConnectionStatus status) {
+        switch (status) {
+            case CLOSED_AT_ALL_SIDES:
+                return ' ';
+            case OPEN_AT_1_END_SIDE:
+                return '1';
+            case OPEN_AT_2_END_SIDE:
+                return '2';
+            case OPEN_AT_3_END_SIDE:
+                return '3';
+            case OPEN_AT_12_END_SIDES:
+                return '4';
+            case OPEN_AT_13_END_SIDES:
+                return '5';
+            case OPEN_AT_23_END_SIDES:
+                return '6';
+            case OPEN_AT_ALL_SIDES:
+                return '-';
+            default:
+                throw new IllegalArgumentException("Invalid connection status: " + status);
+        }
+    }
+
+    private static char toChar(EsgRegulatingMode mode) {
+        switch (mode) {
+            case REGULATING:
+                return 'V';
+            case NOT_REGULATING:
+                return 'N';
+            default:
+                throw new IllegalArgumentException("Invalid mode: " + mode);
+        }
+    }
+
+    private static char toChar(EsgCapacitorOrReactorBank.RegulatingMode mode) {
+        switch (mode) {
+            case NOT_REGULATING:
+                return 'N';
+            default:
+                throw new IllegalArgumentException("Invalid mode: " + mode);
+        }
+    }
+
+    private static char toChar(EsgDCLink.LinkStatus linkStatus) {
+        switch (linkStatus) {
+            case ON: return ' ';
+            case OFF: return 'S';
+            default: throw new InternalError();
+        }
+    }
+
+    private static char toChar(EsgAcdcVscConverter.ConverterState state) {
+        switch (state) {
+            case OFF: return 'S';
+            case ON: return ' ';
+            default: throw new InternalError();
+        }
+    }
+
+    private static char toChar(EsgAcdcVscConverter.DCControlMode dcMode) {
+        switch (dcMode) {
+            case AC_ACTIVE_POWER: return 'P';
+            case DC_VOLTAGE: return 'V';
+            default: throw new InternalError();
+        }
+    }
+
+    private static char toChar(EsgAcdcVscConverter.ACControlMode acMode) {
+        switch (acMode) {
+            case AC_VOLTAGE: return 'V';
+            case AC_REACTIVE_POWER: return 'Q';
+            case AC_POWER_FACTOR: return 'A';
+            default: throw new InternalError();
+        }
+    }
+}
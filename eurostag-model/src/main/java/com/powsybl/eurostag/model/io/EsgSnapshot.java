@@ -0,0 +1,675 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model.io;
+
+import com.powsybl.eurostag.model.*;
+import org.joda.time.LocalDate;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Binary snapshot of an {@link EsgNetwork} and of its parameters, to get the network back without converting it
+ * again.
+ * <p>
+ * The elements are written with their primitive fields and their names packed on a fixed number of chars, in the
+ * order of the network, so that the snapshot is read in a single pass without any parsing. The tap tables shared by
+ * several transformers are written once. The enums are written as their ordinal, so any change of the model has to
+ * increase {@link #VERSION}.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public final class EsgSnapshot {
+
+    private static final int MAGIC = 0x45534753; // "ESGS"
+
+    public static final int VERSION = 1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Upper bound of the size of a record, taps excluded
+     */
+    private static final int MAX_RECORD_SIZE = 512;
+
+    private static final byte OWN_TAPS = 0;
+    private static final byte NEW_SHARED_TAPS = 1;
+    private static final byte SHARED_TAPS = 2;
+
+    private static final EsgArea.Type[] AREA_TYPES = EsgArea.Type.values();
+    private static final EsgBranchConnectionStatus[] BRANCH_STATUSES = EsgBranchConnectionStatus.values();
+    private static final EsgCouplingDevice.ConnectionStatus[] COUPLING_DEVICE_STATUSES = EsgCouplingDevice.ConnectionStatus.values();
+    private static final EsgDetailedTwoWindingTransformer.RegulatingMode[] TWT_REGULATING_MODES = EsgDetailedTwoWindingTransformer.RegulatingMode.values();
+    private static final EsgThreeWindingTransformer.EsgT3WConnectionStatus[] T3WT_STATUSES = EsgThreeWindingTransformer.EsgT3WConnectionStatus.values();
+    private static final EsgThreeWindingTransformer.RegulatingMode[] T3WT_REGULATING_MODES = EsgThreeWindingTransformer.RegulatingMode.values();
+    private static final EsgConnectionStatus[] CONNECTION_STATUSES = EsgConnectionStatus.values();
+    private static final EsgRegulatingMode[] REGULATING_MODES = EsgRegulatingMode.values();
+    private static final EsgCapacitorOrReactorBank.RegulatingMode[] BANK_REGULATING_MODES = EsgCapacitorOrReactorBank.RegulatingMode.values();
+    private static final EsgDCLink.LinkStatus[] LINK_STATUSES = EsgDCLink.LinkStatus.values();
+    private static final EsgAcdcVscConverter.ConverterState[] CONVERTER_STATES = EsgAcdcVscConverter.ConverterState.values();
+    private static final EsgAcdcVscConverter.DCControlMode[] DC_CONTROL_MODES = EsgAcdcVscConverter.DCControlMode.values();
+    private static final EsgAcdcVscConverter.ACControlMode[] AC_CONTROL_MODES = EsgAcdcVscConverter.ACControlMode.values();
+    private static final EsgGeneralParameters.StartMode[] START_MODES = EsgGeneralParameters.StartMode.values();
+
+    private final EsgNetwork network;
+
+    private final EsgGeneralParameters parameters;
+
+    private final EsgSpecialParameters specialParameters;
+
+    public EsgSnapshot(EsgNetwork network, EsgGeneralParameters parameters, EsgSpecialParameters specialParameters) {
+        this.network = Objects.requireNonNull(network);
+        this.parameters = Objects.requireNonNull(parameters);
+        this.specialParameters = Objects.requireNonNull(specialParameters);
+    }
+
+    public EsgNetwork getNetwork() {
+        return network;
+    }
+
+    public EsgGeneralParameters getParameters() {
+        return parameters;
+    }
+
+    public EsgSpecialParameters getSpecialParameters() {
+        return specialParameters;
+    }
+
+    /**
+     * Buffered output to a file channel
+     */
+    private static final class Output implements Closeable {
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        private Output(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        /**
+         * @return the buffer, with at least the given number of bytes remaining
+         */
+        private ByteBuffer ensure(int size) throws IOException {
+            if (buffer.remaining() < size) {
+                flush();
+            }
+            return buffer;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    public void write(Path file) throws IOException {
+        try (Output out = new Output(file)) {
+            ByteBuffer buffer = out.ensure(MAX_RECORD_SIZE);
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            writeParameters(buffer);
+            writeElements(out);
+        }
+    }
+
+    private void writeParameters(ByteBuffer buffer) {
+        buffer.putInt(parameters.getMaxNumIteration());
+        buffer.putFloat(parameters.getTolerance());
+        putEnum(buffer, parameters.getStartMode());
+        buffer.putFloat(parameters.getSnref());
+        putBoolean(buffer, parameters.isTransformerVoltageControl());
+        putBoolean(buffer, parameters.isSvcVoltageControl());
+        LocalDate editDate = Objects.requireNonNull(parameters.getEditDate());
+        buffer.putInt(editDate.getYear());
+        buffer.put((byte) editDate.getMonthOfYear());
+        buffer.put((byte) editDate.getDayOfMonth());
+
+        buffer.putInt(specialParameters.getInpvpq());
+        buffer.putFloat(specialParameters.getThmax());
+        buffer.putFloat(specialParameters.getEmaxf());
+        buffer.putFloat(specialParameters.getZmin());
+        buffer.putFloat(specialParameters.getRamin());
+        buffer.putFloat(specialParameters.getRamax());
+        buffer.putFloat(specialParameters.getTolplo());
+    }
+
+    private void writeElements(Output out) throws IOException {
+        out.ensure(Integer.BYTES).putInt(network.getAreas().size());
+        for (EsgArea area : network.getAreas()) {
+            ByteBuffer buffer = out.ensure(MAX_RECORD_SIZE);
+            putName(buffer, area.getName());
+            putEnum(buffer, area.getType());
+        }
+
+        out.ensure(Integer.BYTES).putInt(network.getNodes().size());
+        for (EsgNode node : network.getNodes()) {
+            ByteBuffer buffer = out.ensure(MAX_RECORD_SIZE);
+            putName(buffer, node.getArea());
+            putName(buffer, node.getName());
+            buffer.putDouble(node.getVbase());
+            buffer.putDouble(node.getVinit());
+            buffer.putDouble(node.getVangl());
+            putBoolean(buffer, node.isSlackBus());
+        }
+
+        out.ensure(Integer.BYTES).putInt(network.getCouplingDevices().size());
+        for (EsgCouplingDevice device : network.getCouplingDevices()) {
+            ByteBuffer buffer = out.ensure(MAX_RECORD_SIZE);
+            putBranchName(buffer, device.getName());
+            putEnum(buffer, device.getConnectionStatus());
+        }
+
+        out.ensure(Integer.BYTES).putInt(network.getLines().size());
+        for (EsgLine line : network.getLines()) {
+            ByteBuffer buffer = out.ensure(MAX_RECORD_SIZE);
+            putBranchName(buffer, line.getName());
+            putEnum(buffer, line.getStatus());
+            buffer.putDouble(line.getRb());
+            buffer.putDouble(line.getRxb());
+            buffer.putDouble(line.getGs());
+            buffer.putDouble(line.getBs());
+            buffer.putDouble(line.getRate());
+        }
+
+        out.ensure(Integer.BYTES).putInt(network.getDissymmetricalBranches().size());
+        for (EsgDissymmetricalBranch branch : network.getDissymmetricalBranches()) {
+            ByteBuffer buffer = out.ensure(MAX_RECORD_SIZE);
+            putBranchName(buffer, branch.getName());
+            putEnum(buffer, branch.getStatus());
+            buffer.putDouble(branch.getRb());
+            buffer.putDouble(branch.getRxb());
+            buffer.putDouble(branch.getGs());
+            buffer.putDouble(branch.getBs());
+            buffer.putDouble(branch.getRate());
+            buffer.putDouble(branch.getRb2());
+            buffer.putDouble(branch.getRxb2());
+            buffer.putDouble(branch.getGs2());
+            buffer.putDouble(branch.getBs2());
+        }
+
+        writeDetailedTwoWindingTransformers(out);
+        writeThreeWindingTransformers(out);
+
+        out.ensure(Integer.BYTES).putInt(network.getLoads().size());
+        for (EsgLoad load : network.getLoads()) {
+            ByteBuffer buffer = out.ensure(MAX_RECORD_SIZE);
+            putEnum(buffer, load.getIloadst());
+            putName(buffer, load.getZnamlo());
+            putName(buffer, load.getZnodlo());
+            buffer.putDouble(load.getPldsti());
+            buffer.putDouble(load.getPldstz());
+            buffer.putDouble(load.getPldstp());
+            buffer.putDouble(load.getQldsti());
+            buffer.putDouble(load.getQldstz());
+            buffer.putDouble(load.getQldstp());
+        }
+
+        out.ensure(Integer.BYTES).putInt(network.getGenerators().size());
+        for (EsgGenerator generator : network.getGenerators()) {
+            ByteBuffer buffer = out.ensure(MAX_RECORD_SIZE);
+            putName(buffer, generator.getZnamge());
+            putName(buffer, generator.getZnodge());
+            buffer.putDouble(generator.getPgmin());
+            buffer.putDouble(generator.getPgen());
+            buffer.putDouble(generator.getPgmax());
+            buffer.putDouble(generator.getQgmin());
+            buffer.putDouble(generator.getQgen());
+            buffer.putDouble(generator.getQgmax());
+            putEnum(buffer, generator.getXregge());
+            buffer.putDouble(generator.getVregge());
+            putName(buffer, generator.getZregnoge());
+            buffer.putDouble(generator.getQgensh());
+            putEnum(buffer, generator.getXgenest());
+        }
+
+        out.ensure(Integer.BYTES).putInt(network.getCapacitorOrReactorBanks().size());
+        for (EsgCapacitorOrReactorBank bank : network.getCapacitorOrReactorBanks()) {
+            ByteBuffer buffer = out.ensure(MAX_RECORD_SIZE);
+            putName(buffer, bank.getZnamba());
+            putName(buffer, bank.getZnodba());
+            buffer.putInt(bank.getIeleba());
+            buffer.putDouble(bank.getPlosba());
+            buffer.putDouble(bank.getRcapba());
+            buffer.putInt(bank.getImaxba());
+            putEnum(buffer, bank.getXregba());
+        }
+
+        out.ensure(Integer.BYTES).putInt(network.getStaticVarCompensators().size());
+        for (EsgStaticVarCompensator svc : network.getStaticVarCompensators()) {
+            ByteBuffer buffer = out.ensure(MAX_RECORD_SIZE);
+            putName(buffer, svc.getZnamsvc());
+            putEnum(buffer, svc.getXsvcst());
+            putName(buffer, svc.getZnodsvc());
+            buffer.putDouble(svc.getBmin());
+            buffer.putDouble(svc.getBinit());
+            buffer.putDouble(svc.getBmax());
+            putEnum(buffer, svc.getXregsvc());
+            buffer.putDouble(svc.getVregsvc());
+            buffer.putDouble(svc.getQsvcsh());
+        }
+
+        out.ensure(Integer.BYTES).putInt(network.getDCNodes().size());
+        for (EsgDCNode node : network.getDCNodes()) {
+            ByteBuffer buffer = out.ensure(MAX_RECORD_SIZE);
+            putName(buffer, node.getArea());
+            putName(buffer, node.getName());
+            buffer.putDouble(node.getVbase());
+            buffer.putDouble(node.getVinit());
+        }
+
+        out.ensure(Integer.BYTES).putInt(network.getDCLinks().size());
+        for (EsgDCLink link : network.getDCLinks()) {
+            ByteBuffer buffer = out.ensure(MAX_RECORD_SIZE);
+            putName(buffer, link.getNode1Name());
+            putName(buffer, link.getNode2Name());
+            buffer.putChar(link.getXpp());
+            buffer.putFloat(link.getRldc());
+            putEnum(buffer, link.getLinkStatus());
+        }
+
+        out.ensure(Integer.BYTES).putInt(network.getAcdcVscConverters().size());
+        for (EsgAcdcVscConverter converter : network.getAcdcVscConverters()) {
+            ByteBuffer buffer = out.ensure(MAX_RECORD_SIZE);
+            putName(buffer, converter.getZnconv());
+            putName(buffer, converter.getDcNode1());
+            putName(buffer, converter.getDcNode2());
+            putName(buffer, converter.getAcNode());
+            putEnum(buffer, converter.getXstate());
+            putEnum(buffer, converter.getXregl());
+            putEnum(buffer, converter.getXoper());
+            buffer.putDouble(converter.getRrdc());
+            buffer.putDouble(converter.getRxdc());
+            buffer.putDouble(converter.getPac());
+            buffer.putDouble(converter.getPvd());
+            buffer.putDouble(converter.getPva());
+            buffer.putDouble(converter.getPre());
+            buffer.putDouble(converter.getPco());
+            buffer.putDouble(converter.getQvscsh());
+            buffer.putDouble(converter.getPvscmin());
+            buffer.putDouble(converter.getPvscmax());
+            buffer.putDouble(converter.getQvscmin());
+            buffer.putDouble(converter.getQvscmax());
+            buffer.putDouble(converter.getVsb0());
+            buffer.putDouble(converter.getVsb1());
+            buffer.putDouble(converter.getVsb2());
+            buffer.putDouble(converter.getMvm());
+            buffer.putDouble(converter.getMva());
+        }
+    }
+
+    private void writeDetailedTwoWindingTransformers(Output out) throws IOException {
+        Map<List<EsgDetailedTwoWindingTransformer.Tap>, Integer> sharedTaps = new IdentityHashMap<>();
+        out.ensure(Integer.BYTES).putInt(network.getDetailedTwoWindingTransformers().size());
+        for (EsgDetailedTwoWindingTransformer transformer : network.getDetailedTwoWindingTransformers()) {
+            ByteBuffer buffer = out.ensure(MAX_RECORD_SIZE);
+            putBranchName(buffer, transformer.getName());
+            putEnum(buffer, transformer.getStatus());
+            buffer.putDouble(transformer.getCmagn());
+            buffer.putDouble(transformer.getRate());
+            buffer.putDouble(transformer.getPcu());
+            buffer.putDouble(transformer.getPfer());
+            buffer.putDouble(transformer.getEsat());
+            buffer.putInt(transformer.getKtpnom());
+            buffer.putInt(transformer.getKtap8());
+            putNullableName(buffer, transformer.getZbusr());
+            buffer.putDouble(transformer.getVoltr());
+            buffer.putDouble(transformer.getPregmin());
+            buffer.putDouble(transformer.getPregmax());
+            putEnum(buffer, transformer.getXregtr());
+
+            List<EsgDetailedTwoWindingTransformer.Tap> taps = transformer.getTaps();
+            if (transformer.hasSharedTaps()) {
+                Integer id = sharedTaps.get(taps);
+                if (id != null) {
+                    buffer.put(SHARED_TAPS);
+                    buffer.putInt(id);
+                    continue;
+                }
+                sharedTaps.put(taps, sharedTaps.size());
+                buffer.put(NEW_SHARED_TAPS);
+            } else {
+                buffer.put(OWN_TAPS);
+            }
+            buffer.putInt(taps.size());
+            for (EsgDetailedTwoWindingTransformer.Tap tap : taps) {
+                ByteBuffer tapBuffer = out.ensure(Integer.BYTES + 4 * Double.BYTES);
+                tapBuffer.putInt(tap.getIplo());
+                tapBuffer.putDouble(tap.getDephas());
+                tapBuffer.putDouble(tap.getUno1());
+                tapBuffer.putDouble(tap.getUno2());
+                tapBuffer.putDouble(tap.getUcc());
+            }
+        }
+    }
+
+    private void writeThreeWindingTransformers(Output out) throws IOException {
+        out.ensure(Integer.BYTES).putInt(network.getThreeWindingTransformers().size());
+        for (EsgThreeWindingTransformer transformer : network.getThreeWindingTransformers()) {
+            ByteBuffer buffer = out.ensure(MAX_RECORD_SIZE);
+            EsgThreeWindingTransformer.EsgT3WName name = transformer.getName();
+            putName(buffer, name.gett3wName());
+            putName(buffer, name.getNode1Name());
+            putName(buffer, name.getNode2Name());
+            putName(buffer, name.getNode3Name());
+            putEnum(buffer, transformer.getStatus());
+            buffer.putDouble(transformer.getCmagn());
+            buffer.putDouble(transformer.getRate1());
+            buffer.putDouble(transformer.getRate2());
+            buffer.putDouble(transformer.getRate3());
+            buffer.putDouble(transformer.getPcu12());
+            buffer.putDouble(transformer.getPcu13());
+            buffer.putDouble(transformer.getPcu23());
+            buffer.putDouble(transformer.getPfer());
+            buffer.putDouble(transformer.getEsat());
+            buffer.putInt(transformer.getKtpnom());
+            buffer.putInt(transformer.getKtap8());
+            putNullableName(buffer, transformer.getZbusr());
+            buffer.putDouble(transformer.getVoltr());
+            putEnum(buffer, transformer.getXregtr());
+            buffer.putInt(transformer.getTaps().size());
+            for (EsgThreeWindingTransformer.Tap tap : transformer.getTaps()) {
+                ByteBuffer tapBuffer = out.ensure(Integer.BYTES + 9 * Double.BYTES);
+                tapBuffer.putInt(tap.getIplo());
+                tapBuffer.putDouble(tap.getDephas1());
+                tapBuffer.putDouble(tap.getDephas2());
+                tapBuffer.putDouble(tap.getDephas3());
+                tapBuffer.putDouble(tap.getUno1());
+                tapBuffer.putDouble(tap.getUno2());
+                tapBuffer.putDouble(tap.getUno3());
+                tapBuffer.putDouble(tap.getUcc12());
+                tapBuffer.putDouble(tap.getUcc13());
+                tapBuffer.putDouble(tap.getUcc23());
+            }
+        }
+    }
+
+    public static EsgSnapshot read(Path file) throws IOException {
+        return read(file, EsgStorage.heap(), false);
+    }
+
+    /**
+     * @param storage the storage of the elements of the network
+     * @param memoryMapped true to map the file in memory instead of reading it
+     */
+    public static EsgSnapshot read(Path file, EsgStorage storage, boolean memoryMapped) throws IOException {
+        Objects.requireNonNull(storage);
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (memoryMapped) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                buffer = ByteBuffer.allocate(Math.toIntExact(size));
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // read until the end of the file
+                }
+                buffer.flip();
+            }
+        }
+        return read(buffer, storage);
+    }
+
+    public static EsgSnapshot read(ByteBuffer buffer, EsgStorage storage) {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new EsgException("Not an EsgNetwork snapshot");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new EsgException("Unsupported EsgNetwork snapshot version " + version);
+            }
+            int maxNumIteration = buffer.getInt();
+            float tolerance = buffer.getFloat();
+            EsgGeneralParameters.StartMode startMode = getEnum(buffer, START_MODES);
+            float snref = buffer.getFloat();
+            boolean transformerVoltageControl = getBoolean(buffer);
+            boolean svcVoltageControl = getBoolean(buffer);
+            LocalDate editDate = new LocalDate(buffer.getInt(), buffer.get(), buffer.get());
+            EsgGeneralParameters parameters = new EsgGeneralParameters(maxNumIteration, snref, startMode, svcVoltageControl, tolerance,
+                    transformerVoltageControl, editDate);
+
+            EsgSpecialParameters specialParameters = new EsgSpecialParameters(buffer.getInt(), buffer.getFloat(), buffer.getFloat(),
+                    buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+
+            EsgNetwork network = new EsgNetwork(storage);
+            readElements(buffer, network);
+            if (buffer.hasRemaining()) {
+                throw new EsgException("Unexpected data at the end of the EsgNetwork snapshot");
+            }
+            return new EsgSnapshot(network, parameters, specialParameters);
+        } catch (BufferUnderflowException e) {
+            throw new EsgException("Truncated EsgNetwork snapshot");
+        }
+    }
+
+    private static void readElements(ByteBuffer buffer, EsgNetwork network) {
+        for (int i = buffer.getInt(); i > 0; i--) {
+            network.addArea(new EsgArea(get2charName(buffer), getEnum(buffer, AREA_TYPES)));
+        }
+
+        for (int i = buffer.getInt(); i > 0; i--) {
+            network.addNode(new EsgNode(get2charName(buffer), get8charName(buffer), buffer.getDouble(), buffer.getDouble(),
+                    buffer.getDouble(), getBoolean(buffer)));
+        }
+
+        for (int i = buffer.getInt(); i > 0; i--) {
+            network.addCouplingDevice(new EsgCouplingDevice(getBranchName(buffer), getEnum(buffer, COUPLING_DEVICE_STATUSES)));
+        }
+
+        for (int i = buffer.getInt(); i > 0; i--) {
+            network.addLine(new EsgLine(getBranchName(buffer), getEnum(buffer, BRANCH_STATUSES), buffer.getDouble(), buffer.getDouble(),
+                    buffer.getDouble(), buffer.getDouble(), buffer.getDouble()));
+        }
+
+        for (int i = buffer.getInt(); i > 0; i--) {
+            network.addDissymmetricalBranch(new EsgDissymmetricalBranch(getBranchName(buffer), getEnum(buffer, BRANCH_STATUSES),
+                    buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                    buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble()));
+        }
+
+        readDetailedTwoWindingTransformers(buffer, network);
+        readThreeWindingTransformers(buffer, network);
+
+        for (int i = buffer.getInt(); i > 0; i--) {
+            network.addLoad(new EsgLoad(getEnum(buffer, CONNECTION_STATUSES), get8charName(buffer), get8charName(buffer),
+                    buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble()));
+        }
+
+        for (int i = buffer.getInt(); i > 0; i--) {
+            network.addGenerator(new EsgGenerator(get8charName(buffer), get8charName(buffer), buffer.getDouble(), buffer.getDouble(),
+                    buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), getEnum(buffer, REGULATING_MODES),
+                    buffer.getDouble(), get8charName(buffer), buffer.getDouble(), getEnum(buffer, CONNECTION_STATUSES)));
+        }
+
+        for (int i = buffer.getInt(); i > 0; i--) {
+            network.addCapacitorsOrReactorBanks(new EsgCapacitorOrReactorBank(get8charName(buffer), get8charName(buffer), buffer.getInt(),
+                    buffer.getDouble(), buffer.getDouble(), buffer.getInt(), getEnum(buffer, BANK_REGULATING_MODES)));
+        }
+
+        for (int i = buffer.getInt(); i > 0; i--) {
+            network.addStaticVarCompensator(new EsgStaticVarCompensator(get8charName(buffer), getEnum(buffer, CONNECTION_STATUSES),
+                    get8charName(buffer), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), getEnum(buffer, REGULATING_MODES),
+                    buffer.getDouble(), buffer.getDouble()));
+        }
+
+        for (int i = buffer.getInt(); i > 0; i--) {
+            network.addDCNode(new EsgDCNode(get2charName(buffer), get8charName(buffer), buffer.getDouble(), buffer.getDouble()));
+        }
+
+        for (int i = buffer.getInt(); i > 0; i--) {
+            network.addDCLink(new EsgDCLink(get8charName(buffer), get8charName(buffer), buffer.getChar(), buffer.getFloat(),
+                    getEnum(buffer, LINK_STATUSES)));
+        }
+
+        for (int i = buffer.getInt(); i > 0; i--) {
+            network.addAcdcVscConverter(new EsgAcdcVscConverter(get8charName(buffer), get8charName(buffer), get8charName(buffer),
+                    get8charName(buffer), getEnum(buffer, CONVERTER_STATES), getEnum(buffer, DC_CONTROL_MODES), getEnum(buffer, AC_CONTROL_MODES),
+                    buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                    buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                    buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                    buffer.getDouble(), buffer.getDouble()));
+        }
+    }
+
+    private static void readDetailedTwoWindingTransformers(ByteBuffer buffer, EsgNetwork network) {
+        List<List<EsgDetailedTwoWindingTransformer.Tap>> sharedTaps = new ArrayList<>();
+        for (int i = buffer.getInt(); i > 0; i--) {
+            EsgBranchName name = getBranchName(buffer);
+            EsgBranchConnectionStatus status = getEnum(buffer, BRANCH_STATUSES);
+            double cmagn = buffer.getDouble();
+            double rate = buffer.getDouble();
+            double pcu = buffer.getDouble();
+            double pfer = buffer.getDouble();
+            double esat = buffer.getDouble();
+            int ktpnom = buffer.getInt();
+            int ktap8 = buffer.getInt();
+            Esg8charName zbusr = getNullableName(buffer);
+            double voltr = buffer.getDouble();
+            double pregmin = buffer.getDouble();
+            double pregmax = buffer.getDouble();
+            EsgDetailedTwoWindingTransformer.RegulatingMode xregtr = getEnum(buffer, TWT_REGULATING_MODES);
+
+            byte tapsKind = buffer.get();
+            EsgDetailedTwoWindingTransformer transformer;
+            if (tapsKind == OWN_TAPS) {
+                transformer = new EsgDetailedTwoWindingTransformer(name, status, cmagn, rate, pcu, pfer, esat, ktpnom, ktap8, zbusr,
+                        voltr, pregmin, pregmax, xregtr);
+                readTaps(buffer, transformer.getTaps());
+            } else {
+                List<EsgDetailedTwoWindingTransformer.Tap> taps;
+                if (tapsKind == NEW_SHARED_TAPS) {
+                    List<EsgDetailedTwoWindingTransformer.Tap> newTaps = new ArrayList<>();
+                    readTaps(buffer, newTaps);
+                    taps = Collections.unmodifiableList(newTaps);
+                    sharedTaps.add(taps);
+                } else if (tapsKind == SHARED_TAPS) {
+                    taps = sharedTaps.get(buffer.getInt());
+                } else {
+                    throw new EsgException("Invalid tap table of transformer '" + name + "' in the EsgNetwork snapshot");
+                }
+                transformer = new EsgDetailedTwoWindingTransformer(name, status, cmagn, rate, pcu, pfer, esat, ktpnom, ktap8, zbusr,
+                        voltr, pregmin, pregmax, xregtr, taps);
+            }
+            network.addDetailedTwoWindingTransformer(transformer);
+        }
+    }
+
+    private static void readTaps(ByteBuffer buffer, List<EsgDetailedTwoWindingTransformer.Tap> taps) {
+        for (int i = buffer.getInt(); i > 0; i--) {
+            taps.add(new EsgDetailedTwoWindingTransformer.Tap(buffer.getInt(), buffer.getDouble(), buffer.getDouble(),
+                    buffer.getDouble(), buffer.getDouble()));
+        }
+    }
+
+    private static void readThreeWindingTransformers(ByteBuffer buffer, EsgNetwork network) {
+        for (int i = buffer.getInt(); i > 0; i--) {
+            EsgThreeWindingTransformer.EsgT3WName name = new EsgThreeWindingTransformer.EsgT3WName(get8charName(buffer),
+                    get8charName(buffer), get8charName(buffer), get8charName(buffer));
+            EsgThreeWindingTransformer transformer = new EsgThreeWindingTransformer(name, getEnum(buffer, T3WT_STATUSES),
+                    buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                    buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getInt(), buffer.getInt(),
+                    getNullableName(buffer), buffer.getDouble(), getEnum(buffer, T3WT_REGULATING_MODES));
+            for (int j = buffer.getInt(); j > 0; j--) {
+                transformer.getTaps().add(new EsgThreeWindingTransformer.Tap(buffer.getInt(), buffer.getDouble(), buffer.getDouble(),
+                        buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                        buffer.getDouble(), buffer.getDouble()));
+            }
+            network.addThreeWindingTransformer(transformer);
+        }
+    }
+
+    private static void putEnum(ByteBuffer buffer, Enum<?> value) {
+        buffer.put((byte) value.ordinal());
+    }
+
+    /**
+     * @throws EsgException if the ordinal is not one of the values, the snapshot being corrupted
+     */
+    private static <E extends Enum<E>> E getEnum(ByteBuffer buffer, E[] values) {
+        int ordinal = buffer.get();
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new EsgException("Invalid " + values.getClass().getComponentType().getSimpleName() + " ordinal " + ordinal
+                    + " in the EsgNetwork snapshot");
+        }
+        return values[ordinal];
+    }
+
+    private static void putBoolean(ByteBuffer buffer, boolean value) {
+        buffer.put(value ? (byte) 1 : (byte) 0);
+    }
+
+    private static boolean getBoolean(ByteBuffer buffer) {
+        return buffer.get() != 0;
+    }
+
+    /**
+     * The name is already padded by {@link EsgName}, so its length is the one of its type
+     */
+    private static void putName(ByteBuffer buffer, EsgName name) {
+        String s = name.toString();
+        for (int i = 0; i < s.length(); i++) {
+            buffer.putChar(s.charAt(i));
+        }
+    }
+
+    private static void putNullableName(ByteBuffer buffer, Esg8charName name) {
+        putBoolean(buffer, name != null);
+        if (name != null) {
+            putName(buffer, name);
+        }
+    }
+
+    private static void putBranchName(ByteBuffer buffer, EsgBranchName name) {
+        putName(buffer, name.getNode1Name());
+        putName(buffer, name.getNode2Name());
+        buffer.putChar(name.getXpp());
+    }
+
+    private static String getChars(ByteBuffer buffer, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = buffer.getChar();
+        }
+        return new String(chars);
+    }
+
+    private static Esg2charName get2charName(ByteBuffer buffer) {
+        return new Esg2charName(getChars(buffer, 2));
+    }
+
+    private static Esg8charName get8charName(ByteBuffer buffer) {
+        return new Esg8charName(getChars(buffer, 8));
+    }
+
+    private static Esg8charName getNullableName(ByteBuffer buffer) {
+        return getBoolean(buffer) ? get8charName(buffer) : null;
+    }
+
+    private static EsgBranchName getBranchName(ByteBuffer buffer) {
+        return new EsgBranchName(get8charName(buffer), get8charName(buffer), buffer.getChar());
+    }
+}
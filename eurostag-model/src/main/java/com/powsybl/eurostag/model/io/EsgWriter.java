@@ -7,12 +7,26 @@
  */
 package com.powsybl.eurostag.model.io;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.CharStreams;
 import com.powsybl.eurostag.model.*;
 
 import java.io.IOException;
 import java.io.Writer;
-import java.util.Comparator;
-import java.util.Objects;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -20,19 +34,133 @@ import java.util.stream.Collectors;
  */
 public class EsgWriter {
 
+    /**
+     * Charset of the ECH files: one byte per character, so that the columns and the offsets of the records are
+     * counted the same way in characters and in bytes. The characters out of this charset are written as '?'.
+     */
+    public static final Charset CHARSET = StandardCharsets.ISO_8859_1;
+
+    /**
+     * Sections of the ECH file, in the order of the file
+     */
+    public enum Section {
+        HEADER,
+        AREAS,
+        NODES,
+        COUPLING_DEVICES,
+        LINES,
+        DISSYMMETRICAL_BRANCHES,
+        DETAILED_TWO_WINDING_TRANSFORMERS,
+        THREE_WINDING_TRANSFORMERS,
+        LOADS,
+        GENERATORS,
+        CAPACITOR_OR_REACTOR_BANKS,
+        STATIC_VAR_COMPENSATORS,
+        DC_NODES,
+        DC_LINKS,
+        ACDC_VSC_CONVERTERS;
+
+        public String getFileName() {
+            return String.format("%02d-%s.ech", ordinal(), name().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private static final String FINGERPRINT_EXTENSION = ".fingerprint";
+
+    /**
+     * Writer computing the fingerprint of the characters written, and forwarding them to the delegate writer if any
+     */
+    private static final class HashingWriter extends Writer {
+
+        private final Writer delegate;
+
+        private final Hasher hasher = Hashing.murmur3_128().newHasher();
+
+        private HashingWriter(Writer delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                hasher.putChar(cbuf[i]);
+            }
+            if (delegate != null) {
+                delegate.write(cbuf, off, len);
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                hasher.putChar(str.charAt(i));
+            }
+            if (delegate != null) {
+                delegate.write(str, off, len);
+            }
+        }
+
+        private String hash() {
+            return hasher.hash().toString();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (delegate != null) {
+                delegate.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (delegate != null) {
+                delegate.close();
+            }
+        }
+    }
+
     private final EsgNetwork network;
 
     private final EsgGeneralParameters parameters;
 
     private final EsgSpecialParameters specialParameters;
 
+    private boolean repair = true;
+
+    private Consumer<List<String>> islandWithoutSlackBusReporter;
+
     public EsgWriter(EsgNetwork network, EsgGeneralParameters parameters, EsgSpecialParameters specialParameters) {
         this.network = Objects.requireNonNull(network);
         this.parameters = Objects.requireNonNull(parameters);
         this.specialParameters = specialParameters;
     }
 
-    private void writeHeader(RecordWriter recordWriter) throws IOException {
+    /**
+     * Set whether the network is repaired before being written, which is the default. A network already repaired, or
+     * written for validation only, is just validated, as well as a frozen network, which can't be modified.
+     */
+    public EsgWriter setRepair(boolean repair) {
+        this.repair = repair;
+        return this;
+    }
+
+    /**
+     * Set the consumer of the nodes of the islands without slack bus found by the validation of the network, which are
+     * logged by default
+     */
+    public EsgWriter setIslandWithoutSlackBusReporter(Consumer<List<String>> islandWithoutSlackBusReporter) {
+        this.islandWithoutSlackBusReporter = islandWithoutSlackBusReporter;
+        return this;
+    }
+
+    private void checkNetwork() {
+        network.validate(islandWithoutSlackBusReporter);
+        if (repair && !network.isFrozen()) {
+            network.repair();
+        }
+    }
+
+    private void writeHeader(RecordSink recordWriter) throws IOException {
         recordWriter.addValue("HEADER", 1, 6);
         recordWriter.addValue(parameters.getEditDate().toString("dd/MM/yy"), 12, 19);
         recordWriter.addValue(EsgNetwork.VERSION, 21, 28);
@@ -58,7 +186,7 @@ public class EsgWriter {
         return b ? ' ' : '1';
     }
 
-    private void writeGeneralParameters(RecordWriter recordWriter) throws IOException {
+    private void writeGeneralParameters(RecordSink recordWriter) throws IOException {
         recordWriter.addValue("9", 1);
         recordWriter.addValue("1", 3); //...print-out of data in the ".lf" file.
         recordWriter.addValue("0", 5); //...no interrupt after reading and processing data
@@ -79,7 +207,7 @@ public class EsgWriter {
         recordWriter.addNewLine();
     }
 
-    private void writeSpecialParameters(RecordWriter recordWriter) throws IOException {
+    private void writeSpecialParameters(RecordSink recordWriter) throws IOException {
         recordWriter.addValue("SP", 1, 2);
         recordWriter.addValue("INPVPQ", 4, 11);
         recordWriter.addValue(specialParameters.getInpvpq(), 13, 22);
@@ -111,574 +239,284 @@ public class EsgWriter {
         recordWriter.addNewLine();
     }
 
-    private static void writeGeneralComment(RecordWriter recordWriter, String comment) throws IOException {
+    private static void writeGeneralComment(RecordSink recordWriter, String comment) throws IOException {
         recordWriter.addValue("GC", 1, 2);
         recordWriter.addValue(comment != null ? comment : "", 4, 80);
         recordWriter.addNewLine();
         recordWriter.addNewLine();
     }
 
-    private static void writeArea(EsgArea area, RecordWriter recordWriter) throws IOException {
-        String typecard;
-        switch (area.getType()) {
-            case AC:
-                typecard = "AA";
-                break;
-            case DC:
-                typecard = "DA";
-                break;
-            default:
-                throw new IllegalArgumentException("Invalid area type: " + area.getType());
-        }
-        recordWriter.addValue(typecard, 1, 2);
-        recordWriter.addValue(area.getName().toString(), 4, 5);
-        recordWriter.addValue("", 6, 20);
-        recordWriter.addNewLine();
-    }
-
-    private static void writeNode(EsgNode node, RecordWriter recordWriter) throws IOException {
-        recordWriter.addValue("1", 1);
-        recordWriter.addValue(node.getArea().toString(), 2, 3);
-        recordWriter.addValue(node.getName().toString(), 4, 11);
-        recordWriter.addValue(node.getVbase(), 85, 92);
-        recordWriter.addValue(node.getVinit(), 99, 106);
-        recordWriter.addValue(node.getVangl(), 108, 115);
-        recordWriter.addValue("0.", 117, 124, RecordWriter.Alignment.RIGHT);
-        recordWriter.addValue("0.", 126, 133, RecordWriter.Alignment.RIGHT);
-        recordWriter.addNewLine();
+    private static void writeNode(EsgNode node, RecordSink recordWriter) throws IOException {
+        EsgRecordLayouts.NODE.write(node, recordWriter);
         if (node.isSlackBus()) {
-            recordWriter.addValue("5", 1);
-            recordWriter.addValue(node.getName().toString(), 4, 11);
-            recordWriter.addValue(node.getVangl(), 40, 47);
-            recordWriter.addNewLine();
-        }
-    }
-
-    private static char toChar(EsgBranchConnectionStatus status) {
-        switch (status) {
-            case CLOSED_AT_BOTH_SIDE:
-                return ' ';
-            case OPEN_AT_BOTH_SIDES:
-                return '-';
-            case OPEN_AT_RECEIVING_SIDE:
-                return '<';
-            case OPEN_AT_SENDING_SIDE:
-                return '>';
-            default:
-                throw new IllegalArgumentException("Invalid status: " + status);
-        }
-    }
-
-    private static void writeLine(EsgLine line, RecordWriter recordWriter) throws IOException {
-        recordWriter.addValue("3", 1);
-        recordWriter.addValue(line.getName().getNode1Name().toString(), 3, 10);
-        recordWriter.addValue(toChar(line.getStatus()), 11);
-        recordWriter.addValue(line.getName().getNode2Name().toString(), 12, 19);
-        recordWriter.addValue(line.getName().getXpp(), 20);
-        recordWriter.addValue(line.getRb(), 22, 29);
-        recordWriter.addValue(line.getRxb(), 31, 38);
-        recordWriter.addValue(line.getGs(), 40, 47);
-        recordWriter.addValue(line.getBs(), 49, 56);
-        recordWriter.addValue(line.getRate(), 58, 65);
-        recordWriter.addValue(0.f, 67, 74);   //...Free numeric attribute 1
-        recordWriter.addValue(0.f, 76, 83);   //...Free numeric attribute 2
-        recordWriter.addNewLine();
-    }
-
-    private static char toChar(EsgCouplingDevice.ConnectionStatus code) {
-        switch (code) {
-            case OPEN:
-                return '-';
-            case CLOSED:
-                return ' ';
-            default:
-                throw new IllegalArgumentException("Invalid connection status: " + code);
+            EsgRecordLayouts.SLACK_BUS.write(node, recordWriter);
         }
     }
 
-    private static void writeCouplingDevice(EsgCouplingDevice couplingDevice, RecordWriter recordWriter) throws IOException {
-        recordWriter.addValue("6", 1);
-        recordWriter.addValue(couplingDevice.getName().getNode1Name().toString(), 3, 10);
-        recordWriter.addValue(toChar(couplingDevice.getConnectionStatus()), 11);
-        recordWriter.addValue(couplingDevice.getName().getNode2Name().toString(), 12, 19);
-        recordWriter.addValue(couplingDevice.getName().getXpp(), 20);
-        recordWriter.addValue(0.f, 67, 74);   //...Free numeric attribute 1
-        recordWriter.addValue(0.f, 76, 83);   //...Free numeric attribute 2
-        recordWriter.addNewLine();
-    }
-
-    private static void writeDissymmetricalBranch(EsgDissymmetricalBranch dissymmetricalBranch, RecordWriter recordWriter) throws IOException {
-        recordWriter.addValue("P", 1);
-        recordWriter.addValue(dissymmetricalBranch.getName().getNode1Name().toString(), 3, 10);
-        recordWriter.addValue(toChar(dissymmetricalBranch.getStatus()), 11);
-        recordWriter.addValue(dissymmetricalBranch.getName().getNode2Name().toString(), 12, 19);
-        recordWriter.addValue(dissymmetricalBranch.getName().getXpp(), 20);
-        recordWriter.addValue(dissymmetricalBranch.getRb(), 22, 29);
-        recordWriter.addValue(dissymmetricalBranch.getRxb(), 31, 38);
-        recordWriter.addValue(dissymmetricalBranch.getGs(), 40, 47);
-        recordWriter.addValue(dissymmetricalBranch.getBs(), 49, 56);
-        recordWriter.addValue(dissymmetricalBranch.getRate(), 58, 65);
-        recordWriter.addNewLine();
-
-        //...second line record
-        recordWriter.addValue("P", 1);
-        recordWriter.addValue(dissymmetricalBranch.getRb2(), 22, 29);
-        recordWriter.addValue(dissymmetricalBranch.getRxb2(), 31, 38);
-        recordWriter.addValue(dissymmetricalBranch.getGs2(), 40, 47);
-        recordWriter.addValue(dissymmetricalBranch.getBs2(), 49, 56);
-        recordWriter.addNewLine();
+    private static void writeDissymmetricalBranch(EsgDissymmetricalBranch dissymmetricalBranch, RecordSink recordWriter) throws IOException {
+        EsgRecordLayouts.DISSYMMETRICAL_BRANCH.write(dissymmetricalBranch, recordWriter);
+        EsgRecordLayouts.DISSYMMETRICAL_BRANCH_2.write(dissymmetricalBranch, recordWriter);
     }
 
-    private static char toChar(EsgDetailedTwoWindingTransformer.RegulatingMode mode) {
-        switch (mode) {
-            case ACTIVE_FLUX_SIDE_1:
-                return '1';
-            case ACTIVE_FLUX_SIDE_2:
-                return '2';
-            case NOT_REGULATING:
-                return 'N';
-            case VOLTAGE:
-                return 'V';
-            default:
-                throw new IllegalArgumentException("Invalid regulating mode: " + mode);
+    private static void writeTaps(List<EsgDetailedTwoWindingTransformer.Tap> taps, RecordSink recordWriter) throws IOException {
+        for (EsgDetailedTwoWindingTransformer.Tap tap : taps) {
+            EsgRecordLayouts.DETAILED_TWO_WINDING_TRANSFORMER_TAP.write(tap, recordWriter);
         }
     }
 
-    private static void writeDetailedTwoWindingTransformer(EsgDetailedTwoWindingTransformer transformer, RecordWriter recordWriter) throws IOException {
-        recordWriter.addValue("48", 1, 2);
-        recordWriter.addValue(transformer.getName().getNode1Name().toString(), 3, 10);
-        recordWriter.addValue(toChar(transformer.getStatus()), 11);
-        recordWriter.addValue(transformer.getName().getNode2Name().toString(), 12, 19);
-        recordWriter.addValue(transformer.getName().getXpp(), 20);
-        recordWriter.addValue(transformer.getRate(), 22, 29);
-        recordWriter.addValue(transformer.getPcu(), 30, 37);
-        recordWriter.addValue(transformer.getPfer(), 39, 46);
-        recordWriter.addValue(transformer.getCmagn(), 48, 55);
-        recordWriter.addValue(transformer.getEsat(), 57, 64);
-        recordWriter.addValue(0.f, 66, 73);   //...Free numeric attribute 1
-        recordWriter.addValue(0.f, 75, 82);   //...Free numeric attribute 2
-        recordWriter.addNewLine();
-
-        // second line record
-        recordWriter.addValue("48", 1, 2);
-        recordWriter.addValue(transformer.getKtpnom(), 22, 25);
-        recordWriter.addValue(transformer.getKtap8(), 27, 30);
-        recordWriter.addValue(transformer.getZbusr() != null ? transformer.getZbusr().toString() : "", 32, 39);
-        recordWriter.addValue(transformer.getVoltr(), 41, 48);
-        recordWriter.addValue(transformer.getPregmin(), 50, 57);
-        recordWriter.addValue(transformer.getPregmax(), 59, 66);
-        recordWriter.addValue(toChar(transformer.getXregtr()), 68);
-        recordWriter.addNewLine();
+    private static void writeDetailedTwoWindingTransformer(EsgDetailedTwoWindingTransformer transformer, RecordSink recordWriter,
+                                                           Map<List<EsgDetailedTwoWindingTransformer.Tap>, StringBuilder> renderedTaps) throws IOException {
+        EsgRecordLayouts.DETAILED_TWO_WINDING_TRANSFORMER.write(transformer, recordWriter);
+        EsgRecordLayouts.DETAILED_TWO_WINDING_TRANSFORMER_2.write(transformer, recordWriter);
 
-        // tap records
-        for (EsgDetailedTwoWindingTransformer.Tap tap : transformer.getTaps()) {
-            recordWriter.addValue("48", 1, 2);
-            recordWriter.addValue(tap.getIplo(), 22, 25);
-            recordWriter.addValue(tap.getUno1(), 27, 34);
-            recordWriter.addValue(tap.getUno2(), 36, 43);
-            recordWriter.addValue(tap.getUcc(), 45, 52);
-            recordWriter.addValue(tap.getDephas(), 54, 61);
-            recordWriter.addNewLine();
-        }
-    }
-
-    private static char toChar(EsgConnectionStatus status) {
-        switch (status) {
-            case CONNECTED:
-                return 'Y';
-            case NOT_CONNECTED:
-                return 'N';
-            default:
-                throw new IllegalArgumentException("Invalid connection status: " + status);
-        }
-    }
-
-    private static char toChar(EsgThreeWindingTransformer.RegulatingMode mode) {
-        switch (mode) {
-            case NOT_REGULATING:
-                return 'N';
-            case VOLTAGE:
-                return 'V';
-            default:
-                throw new IllegalArgumentException("Invalid regulating mode: " + mode);
+        // tap records, shared tap tables are formatted only once
+        if (transformer.hasSharedTaps()) {
+            StringBuilder lines = renderedTaps.get(transformer.getTaps());
+            if (lines == null) {
+                lines = new StringBuilder();
+                writeTaps(transformer.getTaps(), new RecordWriter(CharStreams.asWriter(lines)));
+                renderedTaps.put(transformer.getTaps(), lines);
+            }
+            recordWriter.addLines(lines);
+        } else {
+            writeTaps(transformer.getTaps(), recordWriter);
         }
     }
 
-    private static void writeThreeWindingTransformer(EsgThreeWindingTransformer t3w, RecordWriter recordWriter) throws IOException {
-        recordWriter.addValue("44", 1, 2);
-        recordWriter.addValue(t3w.getName().gett3wName().toString(), 3, 10);
-        recordWriter.addValue(toChar(t3w.getStatus()), 11);
-        recordWriter.addValue(t3w.getName().getNode1Name().toString(), 12, 19);
-        recordWriter.addValue(t3w.getName().getNode2Name().toString(), 21, 28);
-        recordWriter.addValue(t3w.getName().getNode3Name().toString(), 30, 37);
-        recordWriter.addValue(t3w.getRate1(), 39, 46);
-        recordWriter.addValue(t3w.getRate2(), 48, 55);
-        recordWriter.addValue(t3w.getRate3(), 57, 64);
-        recordWriter.addValue(t3w.getPcu12(), 66, 73);
-        recordWriter.addValue(t3w.getPcu13(), 75, 82);
-        recordWriter.addValue(t3w.getPcu23(), 84, 91);
-
-        recordWriter.addValue(t3w.getPfer(), 93, 100);
-        recordWriter.addValue(t3w.getCmagn(), 102, 109);
-        recordWriter.addValue(t3w.getEsat(), 111, 118);
-        recordWriter.addValue(0.f, 119, 126);   //...Free numeric attribute 1
-        recordWriter.addValue(0.f, 137, 144);   //...Free numeric attribute 2
-        recordWriter.addNewLine();
-
-        // second line record
-        recordWriter.addValue("44", 1, 2);
-        recordWriter.addValue(t3w.getKtpnom(), 22, 25);
-        recordWriter.addValue(t3w.getKtap8(), 27, 30);
-        recordWriter.addValue(t3w.getZbusr() != null ? t3w.getZbusr().toString() : "", 32, 39);
-        recordWriter.addValue(t3w.getVoltr(), 41, 48);
-        recordWriter.addValue(0.f, 50, 57);
-        recordWriter.addValue(0.f, 59, 66);
-        recordWriter.addValue(toChar(t3w.getXregtr()), 68);
-        recordWriter.addNewLine();
-
-        // tap records
+    private static void writeThreeWindingTransformer(EsgThreeWindingTransformer t3w, RecordSink recordWriter) throws IOException {
+        EsgRecordLayouts.THREE_WINDING_TRANSFORMER.write(t3w, recordWriter);
+        EsgRecordLayouts.THREE_WINDING_TRANSFORMER_2.write(t3w, recordWriter);
         for (EsgThreeWindingTransformer.Tap tap : t3w.getTaps()) {
-            recordWriter.addValue("44", 1, 2);
-            recordWriter.addValue(tap.getIplo(), 22, 25);
-            recordWriter.addValue(tap.getUno1(), 27, 34);
-            recordWriter.addValue(tap.getUno2(), 36, 43);
-            recordWriter.addValue(tap.getUno3(), 45, 52);
-            recordWriter.addValue(tap.getUcc12(), 54, 61);
-            recordWriter.addValue(tap.getUcc13(), 63, 70);
-            recordWriter.addValue(tap.getUcc23(), 72, 79);
-            recordWriter.addValue(tap.getDephas1(), 81, 88);
-            recordWriter.addValue(tap.getDephas2(), 90, 97);
-            recordWriter.addValue(tap.getDephas3(), 99, 106);
-            recordWriter.addNewLine();
-        }
-    }
-
-    private static char toChar(EsgThreeWindingTransformer.EsgT3WConnectionStatus status) {
-        switch (status) {
-            case CLOSED_AT_ALL_SIDES:
-                return ' ';
-            case OPEN_AT_1_END_SIDE:
-                return '1';
-            case OPEN_AT_2_END_SIDE:
-                return '2';
-            case OPEN_AT_3_END_SIDE:
-                return '3';
-            case OPEN_AT_12_END_SIDES:
-                return '4';
-            case OPEN_AT_13_END_SIDES:
-                return '5';
-            case OPEN_AT_23_END_SIDES:
-                return '6';
-            case OPEN_AT_ALL_SIDES:
-                return '-';
-            default:
-                throw new IllegalArgumentException("Invalid connection status: " + status);
-        }
-    }
-
-    private static void writeLoad(EsgLoad load, RecordWriter recordWriter) throws IOException {
-        recordWriter.addValue("CH", 1, 2);
-        recordWriter.addValue(load.getZnamlo().toString(), 4, 11);
-        recordWriter.addValue(toChar(load.getIloadst()), 13);
-        recordWriter.addValue(load.getZnodlo().toString(), 15, 22);
-        recordWriter.addValue(load.getPldstz(), 24, 31);
-        recordWriter.addValue(load.getPldsti(), 33, 40);
-        recordWriter.addValue(load.getPldstp(), 42, 49);
-        recordWriter.addValue(load.getQldsti(), 51, 58);
-        recordWriter.addValue(load.getQldstz(), 60, 67);
-        recordWriter.addValue(load.getQldstp(), 69, 76);
-        recordWriter.addValue(0.f, 78, 85);       //...Free numeric attribute 1
-        recordWriter.addValue(0.f, 87, 94);       //...Free numeric attribute 2
-        recordWriter.addNewLine();
-    }
-
-    private static char toChar(EsgRegulatingMode mode) {
-        switch (mode) {
-            case REGULATING:
-                return 'V';
-            case NOT_REGULATING:
-                return 'N';
-            default:
-                throw new IllegalArgumentException("Invalid mode: " + mode);
-        }
-    }
-
-    private static void writeGenerator(EsgGenerator generator, RecordWriter recordWriter) throws IOException {
-        recordWriter.addValue("G", 1);
-        recordWriter.addValue(generator.getZnamge().toString(), 4, 11);
-        recordWriter.addValue(toChar(generator.getXgenest()), 13);
-        recordWriter.addValue(generator.getZnodge().toString(), 15, 22);
-        recordWriter.addValue(generator.getPgmin(), 24, 31);
-        recordWriter.addValue(generator.getPgen(), 33, 40);
-        recordWriter.addValue(generator.getPgmax(), 42, 49);
-        recordWriter.addValue(generator.getQgmin(), 51, 58);
-        recordWriter.addValue(generator.getQgen(), 60, 67);
-        recordWriter.addValue(generator.getQgmax(), 69, 76);
-        recordWriter.addValue(toChar(generator.getXregge()), 78);
-        recordWriter.addValue(generator.getVregge(), 80, 87);
-        recordWriter.addValue(generator.getZregnoge() != null ? generator.getZregnoge().toString() : "", 89, 96);
-        recordWriter.addValue(generator.getQgensh(), 98, 105);
-        recordWriter.addValue(0.f, 107, 114);       //...Free numeric attribute 1
-        recordWriter.addValue(0.f, 116, 123);       //...Free numeric attribute 2
-        recordWriter.addNewLine();
-    }
-
-    private static char toChar(EsgCapacitorOrReactorBank.RegulatingMode mode) {
-        switch (mode) {
-            case NOT_REGULATING:
-                return 'N';
-            default:
-                throw new IllegalArgumentException("Invalid mode: " + mode);
+            EsgRecordLayouts.THREE_WINDING_TRANSFORMER_TAP.write(tap, recordWriter);
         }
     }
 
-    private static void writeCapacitorOrReactorBank(EsgCapacitorOrReactorBank bank, RecordWriter recordWriter) throws IOException {
-        recordWriter.addValue('C', 1);
-        recordWriter.addValue(bank.getZnamba().toString(), 3, 10);
-        recordWriter.addValue(bank.getZnodba().toString(), 12, 19);
-        recordWriter.addValue(bank.getIeleba(), 39, 41);
-        recordWriter.addValue(bank.getPlosba(), 43, 50);
-        recordWriter.addValue(bank.getRcapba(), 52, 59);
-        recordWriter.addValue(bank.getImaxba(), 61, 63);
-        recordWriter.addValue(toChar(bank.getXregba()), 65, 65);
-
-        recordWriter.addValue(0.f, 67, 74);       //...Unused
-        recordWriter.addValue(" ", 76, 83);       //...Unused
-        recordWriter.addValue(0.f, 85, 92);       //...Free numeric attribute 1
-        recordWriter.addValue(0.f, 94, 101);      //...Free numeric attribute 2
-        recordWriter.addValue(" ", 103, 110);      //...Free alphanumeric attribute
-        recordWriter.addNewLine();
-    }
-
-    private static void writeStaticVarCompensator(EsgStaticVarCompensator svc, RecordWriter recordWriter) throws IOException {
-        recordWriter.addValue("SV", 1, 2);
-        recordWriter.addValue(svc.getZnamsvc().toString(), 4, 11);
-        recordWriter.addValue(toChar(svc.getXsvcst()), 13, 13);
-        recordWriter.addValue(svc.getZnodsvc().toString(), 15, 22);
-        recordWriter.addValue(svc.getBmin(), 24, 31);
-        recordWriter.addValue(svc.getBinit(), 33, 40);
-        recordWriter.addValue(svc.getBmax(), 42, 49);
-        recordWriter.addValue(toChar(svc.getXregsvc()), 78, 78);
-        recordWriter.addValue(svc.getVregsvc(), 80, 87);
-        recordWriter.addValue(svc.getQsvcsh(), 98, 105);
-
-        recordWriter.addValue(0.f, 107, 114); //...Free numeric attribute 1
-        recordWriter.addValue(0.f, 116, 123); //...Free numeric attribute 2
-        recordWriter.addValue(" ", 125, 132); //...Free alphanumeric attribute
-        recordWriter.addNewLine();
-    }
-
-    private static void writeDCNode(EsgDCNode dcNode, RecordWriter recordWriter) throws IOException {
-        recordWriter.addValue("DC N", 1, 4);
-        recordWriter.addValue(dcNode.getName().toString(), 6, 13);
-        recordWriter.addValue(dcNode.getArea().toString(), 15, 16);
-        recordWriter.addValue(dcNode.getVbase(), 18, 25);
-        recordWriter.addValue(dcNode.getVinit(), 27, 34);
-        recordWriter.addNewLine();
-    }
-
-    private static char toChar(EsgDCLink.LinkStatus linkStatus) {
-        switch (linkStatus) {
-            case ON: return ' ';
-            case OFF: return 'S';
-            default: throw new InternalError();
-        }
+    private static void writeAcdcVscConverter(EsgAcdcVscConverter vscConverter, RecordSink recordWriter) throws IOException {
+        EsgRecordLayouts.ACDC_VSC_CONVERTER.write(vscConverter, recordWriter);
+        EsgRecordLayouts.ACDC_VSC_CONVERTER_2.write(vscConverter, recordWriter);
     }
 
-    private static void writeDCLink(EsgDCLink link, RecordWriter recordWriter) throws IOException {
-        recordWriter.addValue("DC L", 1, 4);
-        recordWriter.addValue(link.getNode1Name().toString(), 6, 13);
-        recordWriter.addValue(link.getNode2Name().toString(), 15, 22);
-        recordWriter.addValue(link.getXpp(), 24);
-        recordWriter.addValue(link.getRldc(), 26, 33);
-        recordWriter.addValue(toChar(link.getLinkStatus()), 35, 35);
-        recordWriter.addNewLine();
-    }
-
-    private static char toChar(EsgAcdcVscConverter.ConverterState state) {
-        switch (state) {
-            case OFF: return 'S';
-            case ON: return ' ';
-            default: throw new InternalError();
-        }
-    }
-
-    private static char toChar(EsgAcdcVscConverter.DCControlMode dcMode) {
-        switch (dcMode) {
-            case AC_ACTIVE_POWER: return 'P';
-            case DC_VOLTAGE: return 'V';
-            default: throw new InternalError();
-        }
+    public void write(Writer writer) throws IOException {
+        write(writer, null);
     }
 
-    private static char toChar(EsgAcdcVscConverter.ACControlMode acMode) {
-        switch (acMode) {
-            case AC_VOLTAGE: return 'V';
-            case AC_REACTIVE_POWER: return 'Q';
-            case AC_POWER_FACTOR: return 'A';
-            default: throw new InternalError();
+    public void write(Writer writer, String comment) throws IOException {
+        write(writer, comment, null);
+    }
+
+    private static void index(EsgRecordIndex index, EsgRecordIndex.RecordType type, Object key, long offset, RecordSink recordWriter) {
+        if (index != null) {
+            // the key as written in the file, to be found by the reader
+            index.add(type, RecordWriter.toCharset(key.toString()), offset, recordWriter.getPosition());
+        }
+    }
+
+    /**
+     * Write the network, and fill the given index, if not null, with the offset and length of the record of each
+     * element, so that it can be saved aside the ECH file.
+     */
+    public void write(Writer writer, String comment, EsgRecordIndex index) throws IOException {
+        write(new RecordWriter(writer), comment, index);
+    }
+
+    /**
+     * Write the network to the given sink, and fill the given index if not null
+     */
+    public void write(RecordSink recordWriter, String comment, EsgRecordIndex index) throws IOException {
+        checkNetwork();
+        for (Section section : Section.values()) {
+            writeSection(section, recordWriter, comment, index);
+        }
+        if (index != null) {
+            index.setFileSize(recordWriter.getPosition());
+        }
+    }
+
+    /**
+     * Write each section of the network to its own file of the given directory, concurrently, and return the files
+     * in the order of the ECH file. A fingerprint of the content is saved aside each file: the sections of the
+     * {@code reused} set are rendered to compute their fingerprint only, and their file is kept if the fingerprint
+     * matches the saved one. The header, which depends on the parameters and the comment, is always written.
+     */
+    public Map<Section, Path> writeSections(Path directory, String comment, Set<Section> reused, ForkJoinPool pool) throws IOException {
+        Objects.requireNonNull(directory);
+        Objects.requireNonNull(reused);
+        Objects.requireNonNull(pool);
+        checkNetwork();
+        Map<Section, Path> files = new EnumMap<>(Section.class);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (Section section : Section.values()) {
+            Path file = directory.resolve(section.getFileName());
+            files.put(section, file);
+            boolean reusable = section != Section.HEADER && reused.contains(section);
+            tasks.add(() -> {
+                Path fingerprintFile = directory.resolve(section.getFileName() + FINGERPRINT_EXTENSION);
+                if (reusable && Files.exists(file) && Files.exists(fingerprintFile)) {
+                    HashingWriter hashingWriter = new HashingWriter(null);
+                    writeSection(section, new RecordWriter(hashingWriter), comment, null);
+                    if (hashingWriter.hash().equals(new String(Files.readAllBytes(fingerprintFile), StandardCharsets.US_ASCII))) {
+                        return null;
+                    }
+                }
+                // the fingerprint is removed first: a file interrupted while being written is never reused
+                Files.deleteIfExists(fingerprintFile);
+                String fingerprint;
+                try (HashingWriter writer = new HashingWriter(Files.newBufferedWriter(file, CHARSET))) {
+                    writeSection(section, new RecordWriter(writer), comment, null);
+                    fingerprint = writer.hash();
+                }
+                Files.write(fingerprintFile, fingerprint.getBytes(StandardCharsets.US_ASCII));
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof EsgException) {
+                throw (EsgException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return files;
+    }
+
+    /**
+     * Write the network to the given file, rendering the sections concurrently in the given directory, and
+     * concatenating them with {@link #concatenate}
+     */
+    public void write(Path file, String comment, Path directory, ForkJoinPool pool) throws IOException {
+        concatenate(writeSections(directory, comment, Collections.emptySet(), pool).values(), file);
+    }
+
+    /**
+     * Concatenate the files into the target file. The bytes are transferred between the channels, without being
+     * copied to the heap.
+     */
+    public static void concatenate(Collection<Path> files, Path target) throws IOException {
+        Objects.requireNonNull(files);
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Path file : files) {
+                try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                    long size = in.size();
+                    long position = 0;
+                    while (position < size) {
+                        position += in.transferTo(position, size - position, out);
+                    }
+                }
+            }
         }
     }
 
-    private static void writeAcdcVscConverter(EsgAcdcVscConverter vscConverter, RecordWriter recordWriter) throws IOException {
-        recordWriter.addValue("DC V", 1, 4);
-        recordWriter.addValue(vscConverter.getZnconv().toString(), 6, 13);
-        recordWriter.addValue(vscConverter.getDcNode1().toString(), 15, 22);
-        recordWriter.addValue(vscConverter.getDcNode2().toString(), 24, 31);
-        recordWriter.addValue(vscConverter.getAcNode().toString(), 33, 40);
-        recordWriter.addValue(toChar(vscConverter.getXstate()), 42, 42);
-        recordWriter.addValue(toChar(vscConverter.getXregl()), 44, 44);
-        recordWriter.addValue(toChar(vscConverter.getXoper()), 46, 46);
-        recordWriter.addValue(vscConverter.getRrdc(), 48, 55);
-        recordWriter.addValue(vscConverter.getRxdc(), 57, 64);
-        if (!Double.isNaN(vscConverter.getPac())) {
-            recordWriter.addValue(vscConverter.getPac(), 66, 73);
-        }
-        if (!Double.isNaN(vscConverter.getPvd())) {
-            recordWriter.addValue(vscConverter.getPvd(), 75, 82);
-        }
-        if (!Double.isNaN(vscConverter.getPva())) {
-            recordWriter.addValue(vscConverter.getPva(), 84, 91);
-        }
-        if (!Double.isNaN(vscConverter.getPre())) {
-            recordWriter.addValue(vscConverter.getPre(), 93, 100);
-        }
-        if (!Double.isNaN(vscConverter.getPco())) {
-            recordWriter.addValue(vscConverter.getPco(), 102, 109);
-        }
-        if (!Double.isNaN(vscConverter.getQvscsh())) {
-            recordWriter.addValue(vscConverter.getQvscsh(), 111, 118);
-        }
-        recordWriter.addNewLine();
-        recordWriter.addValue("DC V", 1, 4);
-        recordWriter.addValue(vscConverter.getPvscmin(), 6, 13);
-        recordWriter.addValue(vscConverter.getPvscmax(), 15, 22);
-        recordWriter.addValue(vscConverter.getQvscmin(), 24, 31);
-        recordWriter.addValue(vscConverter.getQvscmax(), 33, 40);
-        recordWriter.addValue(vscConverter.getVsb0(), 42, 49);
-        recordWriter.addValue(vscConverter.getVsb1(), 51, 58);
-        recordWriter.addValue(vscConverter.getVsb2(), 60, 67);
-        recordWriter.addValue(vscConverter.getMvm(), 69, 76);
-        recordWriter.addValue(vscConverter.getMva(), 78, 85);
-        recordWriter.addNewLine();
-    }
+    private void writeSection(Section section, RecordSink recordWriter, String comment, EsgRecordIndex index) throws IOException {
+        switch (section) {
+            case HEADER:
+                writeHeader(recordWriter);
+                writeGeneralParameters(recordWriter);
+                if (specialParameters != null) {
+                    writeSpecialParameters(recordWriter);
+                }
+                writeGeneralComment(recordWriter, comment);
+                break;
 
-    public void write(Writer writer) throws IOException {
-        write(writer, null);
-    }
+            case AREAS:
+                List<EsgArea> areas = network.getAreas()
+                        .stream()
+                        .sorted(Comparator.comparing(EsgArea::getType).thenComparing(area -> area.getName().toString()))
+                        .collect(Collectors.toList());
+                writeSection(areas, recordWriter, index, EsgRecordIndex.RecordType.AREA, EsgArea::getName, EsgRecordLayouts.AREA::write);
+                break;
 
-    public void write(Writer writer, String comment) throws IOException {
+            case NODES:
+                writeSection(network.getNodes(), recordWriter, index, EsgRecordIndex.RecordType.NODE, EsgNode::getName, EsgWriter::writeNode);
+                break;
 
-        network.checkConsistency();
+            case COUPLING_DEVICES:
+                writeSection(network.getCouplingDevices(), recordWriter, index, EsgRecordIndex.RecordType.COUPLING_DEVICE,
+                        EsgCouplingDevice::getName, EsgRecordLayouts.COUPLING_DEVICE::write);
+                break;
 
-        RecordWriter recordWriter = new RecordWriter(writer);
+            case LINES:
+                writeSection(network.getLines(), recordWriter, index, EsgRecordIndex.RecordType.LINE, EsgLine::getName, EsgRecordLayouts.LINE::write);
+                break;
 
-        writeHeader(recordWriter);
-        writeGeneralParameters(recordWriter);
-        if (specialParameters != null) {
-            writeSpecialParameters(recordWriter);
-        }
-        writeGeneralComment(recordWriter, comment);
-
-        if (!network.getAreas().isEmpty()) {
-            for (EsgArea area : network.getAreas()
-                    .stream()
-                    .sorted(Comparator.comparing(EsgArea::getType).thenComparing(area -> area.getName().toString()))
-                    .collect(Collectors.toList())) {
-                writeArea(area, recordWriter);
-            }
-            recordWriter.addNewLine();
-        }
+            case DISSYMMETRICAL_BRANCHES:
+                writeSection(network.getDissymmetricalBranches(), recordWriter, index, EsgRecordIndex.RecordType.DISSYMMETRICAL_BRANCH,
+                        EsgDissymmetricalBranch::getName, EsgWriter::writeDissymmetricalBranch);
+                break;
 
-        if (!network.getNodes().isEmpty()) {
-            for (EsgNode node : network.getNodes()) {
-                writeNode(node, recordWriter);
-            }
-            recordWriter.addNewLine();
-        }
+            case DETAILED_TWO_WINDING_TRANSFORMERS:
+                Map<List<EsgDetailedTwoWindingTransformer.Tap>, StringBuilder> renderedTaps = new IdentityHashMap<>();
+                writeSection(network.getDetailedTwoWindingTransformers(), recordWriter, index, EsgRecordIndex.RecordType.DETAILED_TWO_WINDING_TRANSFORMER,
+                        EsgDetailedTwoWindingTransformer::getName, (transformer, sink) -> writeDetailedTwoWindingTransformer(transformer, sink, renderedTaps));
+                break;
 
-        if (!network.getCouplingDevices().isEmpty()) {
-            for (EsgCouplingDevice couplingDevice : network.getCouplingDevices()) {
-                writeCouplingDevice(couplingDevice, recordWriter);
-            }
-            recordWriter.addNewLine();
-        }
+            case THREE_WINDING_TRANSFORMERS:
+                writeSection(network.getThreeWindingTransformers(), recordWriter, index, EsgRecordIndex.RecordType.THREE_WINDING_TRANSFORMER,
+                        EsgThreeWindingTransformer::getName, EsgWriter::writeThreeWindingTransformer);
+                break;
 
-        if (!network.getLines().isEmpty()) {
-            for (EsgLine line : network.getLines()) {
-                writeLine(line, recordWriter);
-            }
-            recordWriter.addNewLine();
-        }
+            case LOADS:
+                writeSection(network.getLoads(), recordWriter, index, EsgRecordIndex.RecordType.LOAD, EsgLoad::getZnamlo, EsgRecordLayouts.LOAD::write);
+                break;
 
-        if (!network.getDissymmetricalBranches().isEmpty()) {
-            for (EsgDissymmetricalBranch branch : network.getDissymmetricalBranches()) {
-                writeDissymmetricalBranch(branch, recordWriter);
-            }
-            recordWriter.addNewLine();
-        }
+            case GENERATORS:
+                writeSection(network.getGenerators(), recordWriter, index, EsgRecordIndex.RecordType.GENERATOR, EsgGenerator::getZnamge,
+                        EsgRecordLayouts.GENERATOR::write);
+                break;
 
-        if (!network.getDetailedTwoWindingTransformers().isEmpty()) {
-            for (EsgDetailedTwoWindingTransformer transformer : network.getDetailedTwoWindingTransformers()) {
-                writeDetailedTwoWindingTransformer(transformer, recordWriter);
-            }
-            recordWriter.addNewLine();
-        }
+            case CAPACITOR_OR_REACTOR_BANKS:
+                writeSection(network.getCapacitorOrReactorBanks(), recordWriter, index, EsgRecordIndex.RecordType.CAPACITOR_OR_REACTOR_BANK,
+                        EsgCapacitorOrReactorBank::getZnamba, EsgRecordLayouts.CAPACITOR_OR_REACTOR_BANK::write);
+                break;
 
-        if (!network.getThreeWindingTransformers().isEmpty()) {
-            for (EsgThreeWindingTransformer tfo3w : network.getThreeWindingTransformers()) {
-                writeThreeWindingTransformer(tfo3w, recordWriter);
-            }
-            recordWriter.addNewLine();
-        }
+            case STATIC_VAR_COMPENSATORS:
+                writeSection(network.getStaticVarCompensators(), recordWriter, index, EsgRecordIndex.RecordType.STATIC_VAR_COMPENSATOR,
+                        EsgStaticVarCompensator::getZnamsvc, EsgRecordLayouts.STATIC_VAR_COMPENSATOR::write);
+                break;
 
-        if (!network.getLoads().isEmpty()) {
-            for (EsgLoad load : network.getLoads()) {
-                writeLoad(load, recordWriter);
-            }
-            recordWriter.addNewLine();
-        }
+            case DC_NODES:
+                writeSection(network.getDCNodes(), recordWriter, index, EsgRecordIndex.RecordType.DC_NODE, EsgDCNode::getName, EsgRecordLayouts.DC_NODE::write);
+                break;
 
-        if (!network.getGenerators().isEmpty()) {
-            for (EsgGenerator generator : network.getGenerators()) {
-                writeGenerator(generator, recordWriter);
-            }
-            recordWriter.addNewLine();
-        }
+            case DC_LINKS:
+                writeSection(network.getDCLinks(), recordWriter, index, EsgRecordIndex.RecordType.DC_LINK, dcLink -> dcLink, EsgRecordLayouts.DC_LINK::write);
+                break;
 
-        if (!network.getCapacitorOrReactorBanks().isEmpty()) {
-            for (EsgCapacitorOrReactorBank bank : network.getCapacitorOrReactorBanks()) {
-                writeCapacitorOrReactorBank(bank, recordWriter);
-            }
-            recordWriter.addNewLine();
-        }
+            case ACDC_VSC_CONVERTERS:
+                writeSection(network.getAcdcVscConverters(), recordWriter, index, EsgRecordIndex.RecordType.ACDC_VSC_CONVERTER,
+                        EsgAcdcVscConverter::getZnconv, EsgWriter::writeAcdcVscConverter);
+                break;
 
-        if (!network.getStaticVarCompensators().isEmpty()) {
-            for (EsgStaticVarCompensator svc : network.getStaticVarCompensators()) {
-                writeStaticVarCompensator(svc, recordWriter);
-            }
-            recordWriter.addNewLine();
+            default:
+                throw new IllegalStateException("Unknown section: " + section);
         }
+    }
 
-        if (!network.getDCNodes().isEmpty()) {
-            for (EsgDCNode dcNode : network.getDCNodes()) {
-                writeDCNode(dcNode, recordWriter);
-            }
-            recordWriter.addNewLine();
-        }
+    @FunctionalInterface
+    private interface ElementWriter<T> {
+        void write(T element, RecordSink recordWriter) throws IOException;
+    }
 
-        if (!network.getDCLinks().isEmpty()) {
-            for (EsgDCLink dcLink : network.getDCLinks()) {
-                writeDCLink(dcLink, recordWriter);
-            }
-            recordWriter.addNewLine();
+    /**
+     * Write the records of the elements, followed by an empty line, nothing if there is no element
+     */
+    private static <T> void writeSection(Collection<T> elements, RecordSink recordWriter, EsgRecordIndex index, EsgRecordIndex.RecordType type,
+                                         Function<T, Object> key, ElementWriter<T> elementWriter) throws IOException {
+        if (elements.isEmpty()) {
+            return;
         }
-
-        if (!network.getAcdcVscConverters().isEmpty()) {
-            for (EsgAcdcVscConverter vscConv : network.getAcdcVscConverters()) {
-                writeAcdcVscConverter(vscConv, recordWriter);
-            }
-            recordWriter.addNewLine();
+        for (T element : elements) {
+            long offset = recordWriter.getPosition();
+            elementWriter.write(element, recordWriter);
+            index(index, type, key.apply(element), offset, recordWriter);
         }
+        recordWriter.addNewLine();
     }
 }
@@ -0,0 +1,279 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model.io;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip output stream compressing the data by blocks on other threads, so that the compression overlaps with the
+ * production of the data. The number of blocks waiting for their compression is bounded: the producer is blocked when
+ * the compression is late. The blocks are recycled once compressed, so that at most {@code maxPendingBlocks + 1} blocks
+ * are allocated.
+ * <p>
+ * Two modes are supported:
+ * <ul>
+ *     <li>{@link #gzip}: the blocks are compressed in order by a single thread, into a standard gzip stream,</li>
+ *     <li>{@link #parallel}: the blocks are compressed concurrently, each one into its own gzip member. The members
+ *     are concatenated in order, which is still a valid gzip file for the standard tools.</li>
+ * </ul>
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public final class GzipBlockOutputStream extends OutputStream {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    private final OutputStream out;
+
+    private final ExecutorService executor;
+
+    /**
+     * True if the executor has been created by the stream, and so has to be shut down on close
+     */
+    private final boolean ownsExecutor;
+
+    /**
+     * The single gzip stream of the sequential mode, null in the parallel mode
+     */
+    private final GZIPOutputStream gzip;
+
+    private final int blockSize;
+
+    private final int maxPendingBlocks;
+
+    /**
+     * Compression of a block. A task which has not started when the stream fails is claimed by the stream, so that it
+     * does not run, the tasks already running being awaited.
+     */
+    private final class PendingBlock implements Callable<byte[]> {
+
+        private final byte[] data;
+
+        private final int length;
+
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+
+        private Future<byte[]> future;
+
+        private PendingBlock(byte[] data, int length) {
+            this.data = data;
+            this.length = length;
+        }
+
+        @Override
+        public byte[] call() throws IOException {
+            if (!claimed.compareAndSet(false, true)) {
+                return null;
+            }
+            if (gzip != null) {
+                gzip.write(data, 0, length);
+                return null;
+            }
+            return compress(data, length);
+        }
+
+        /**
+         * Cancel the compression, or wait for its end if it has already started
+         */
+        private void cancel() {
+            if (claimed.compareAndSet(false, true)) {
+                future.cancel(false);
+            } else {
+                try {
+                    Uninterruptibles.getUninterruptibly(future);
+                } catch (ExecutionException e) {
+                    // already reported, or superseded by the error which has closed the stream
+                }
+            }
+        }
+    }
+
+    private final Deque<PendingBlock> pendingBlocks = new ArrayDeque<>();
+
+    /**
+     * Blocks whose compression is done, reused for the next blocks
+     */
+    private final Deque<byte[]> freeBlocks = new ArrayDeque<>();
+
+    private byte[] block;
+
+    private int count = 0;
+
+    private boolean submitted = false;
+
+    private boolean closed = false;
+
+    private GzipBlockOutputStream(OutputStream out, ExecutorService executor, boolean ownsExecutor, boolean parallel, int blockSize,
+                                  int maxPendingBlocks) throws IOException {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Invalid block size: " + blockSize);
+        }
+        if (maxPendingBlocks <= 0) {
+            throw new IllegalArgumentException("Invalid max pending blocks: " + maxPendingBlocks);
+        }
+        this.out = Objects.requireNonNull(out);
+        this.executor = Objects.requireNonNull(executor);
+        this.ownsExecutor = ownsExecutor;
+        this.gzip = parallel ? null : new GZIPOutputStream(out, blockSize);
+        this.blockSize = blockSize;
+        this.maxPendingBlocks = maxPendingBlocks;
+        this.block = new byte[blockSize];
+    }
+
+    /**
+     * Standard gzip stream, compressed by a dedicated thread
+     */
+    public static GzipBlockOutputStream gzip(OutputStream out, int blockSize, int maxPendingBlocks) throws IOException {
+        return new GzipBlockOutputStream(out, Executors.newSingleThreadExecutor(), true, false, blockSize, maxPendingBlocks);
+    }
+
+    /**
+     * Gzip stream made of independent members, compressed concurrently by the given executor, which is not shut down
+     * by the stream
+     */
+    public static GzipBlockOutputStream parallel(OutputStream out, ExecutorService executor, int blockSize, int maxPendingBlocks) throws IOException {
+        return new GzipBlockOutputStream(out, executor, false, true, blockSize, maxPendingBlocks);
+    }
+
+    /**
+     * Gzip stream made of independent members, compressed concurrently by a pool of the given number of threads, which
+     * is shut down when the stream is closed
+     */
+    public static GzipBlockOutputStream parallel(OutputStream out, int threads, int blockSize, int maxPendingBlocks) throws IOException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Invalid number of threads: " + threads);
+        }
+        return new GzipBlockOutputStream(out, Executors.newFixedThreadPool(threads), true, true, blockSize, maxPendingBlocks);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == blockSize) {
+            submit();
+        }
+        block[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            if (count == blockSize) {
+                submit();
+            }
+            int n = Math.min(remaining, blockSize - count);
+            System.arraycopy(b, offset, block, count, n);
+            count += n;
+            offset += n;
+            remaining -= n;
+        }
+    }
+
+    private void submit() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        while (pendingBlocks.size() >= maxPendingBlocks) {
+            writePendingBlock();
+        }
+        PendingBlock pendingBlock = new PendingBlock(block, count);
+        pendingBlock.future = executor.submit(pendingBlock);
+        pendingBlocks.add(pendingBlock);
+        block = freeBlocks.isEmpty() ? new byte[blockSize] : freeBlocks.pop();
+        count = 0;
+        submitted = true;
+    }
+
+    private static byte[] compress(byte[] data, int length) throws IOException {
+        ByteArrayOutputStream member = new ByteArrayOutputStream(length / 4 + 64);
+        try (GZIPOutputStream os = new GZIPOutputStream(member)) {
+            os.write(data, 0, length);
+        }
+        return member.toByteArray();
+    }
+
+    private void writePendingBlock() throws IOException {
+        PendingBlock pendingBlock = pendingBlocks.getFirst();
+        try {
+            byte[] member = pendingBlock.future.get();
+            pendingBlocks.removeFirst();
+            freeBlocks.push(pendingBlock.data);
+            if (member != null) {
+                out.write(member);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the compression of a block");
+        } catch (ExecutionException e) {
+            pendingBlocks.removeFirst();
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Wait for the compression of the blocks already submitted. The current block is not submitted, so that the
+     * members keep the block size.
+     */
+    @Override
+    public void flush() throws IOException {
+        while (!pendingBlocks.isEmpty()) {
+            writePendingBlock();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            // an empty member is written for an empty stream, to keep a valid gzip file
+            if (count > 0 || !submitted) {
+                submit();
+            }
+            while (!pendingBlocks.isEmpty()) {
+                writePendingBlock();
+            }
+            if (gzip != null) {
+                // also releases the deflater, and closes the underlying stream
+                gzip.close();
+            }
+        } finally {
+            closed = true;
+            // on error, the pending tasks are cancelled, and the running ones awaited before closing the stream they write to
+            pendingBlocks.forEach(PendingBlock::cancel);
+            pendingBlocks.clear();
+            freeBlocks.clear();
+            if (ownsExecutor) {
+                executor.shutdownNow();
+            }
+            // no effect if already closed by the gzip stream
+            out.close();
+        }
+    }
+}
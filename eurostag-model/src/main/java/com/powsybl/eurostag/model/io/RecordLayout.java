@@ -0,0 +1,420 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model.io;
+
+import com.powsybl.eurostag.model.Esg8charName;
+import com.powsybl.eurostag.model.EsgException;
+import com.powsybl.eurostag.model.EsgName;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Declarative layout of a line of an ECH record: the fields, with their column range, type, alignment and null rule,
+ * and the accessors to their values. The layouts are defined in {@link EsgRecordLayouts}.
+ * <p>
+ * The fields are compiled once, when the layout is built, into an array of typed fields that {@link #write} walks
+ * without any lookup, into the plan of the fields that a {@link Cursor} reads in column order, and into an index by
+ * name.
+ *
+ * @param <T> the type of the written objects
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public final class RecordLayout<T> {
+
+    public enum FieldType {
+        STRING,
+        NAME,
+        CHAR,
+        INT,
+        DOUBLE
+    }
+
+    public enum NullRule {
+        /**
+         * Null names and NaN numbers are written as blanks. Blank names are read as names of blanks.
+         */
+        BLANK,
+        /**
+         * Null names and NaN numbers are written as blanks. Blank names are read as null.
+         */
+        OPTIONAL,
+        /**
+         * Null names and NaN numbers are not written at all.
+         */
+        SKIP
+    }
+
+    @FunctionalInterface
+    public interface ToCharFunction<T> {
+        char applyAsChar(T value);
+    }
+
+    public static final class Field<T> {
+
+        /**
+         * Name of the layout, for the error messages
+         */
+        private final String layoutName;
+
+        private final String name;
+
+        private final int colStart;
+
+        private final int colEnd;
+
+        private final FieldType type;
+
+        private final RecordSink.Alignment alignment;
+
+        private final NullRule nullRule;
+
+        /**
+         * The constant fields are written but not read
+         */
+        private final boolean constant;
+
+        /**
+         * Only one of the accessors is set, depending on the type
+         */
+        private final Function<T, ?> objectAccessor;
+
+        private final ToCharFunction<T> charAccessor;
+
+        private final ToIntFunction<T> intAccessor;
+
+        private final ToDoubleFunction<T> doubleAccessor;
+
+        private Field(String layoutName, String name, int colStart, int colEnd, FieldType type, RecordSink.Alignment alignment, NullRule nullRule,
+                      boolean constant, Function<T, ?> objectAccessor, ToCharFunction<T> charAccessor, ToIntFunction<T> intAccessor,
+                      ToDoubleFunction<T> doubleAccessor) {
+            this.layoutName = Objects.requireNonNull(layoutName);
+            this.name = Objects.requireNonNull(name);
+            this.colStart = colStart;
+            this.colEnd = colEnd;
+            this.type = Objects.requireNonNull(type);
+            this.alignment = Objects.requireNonNull(alignment);
+            this.nullRule = Objects.requireNonNull(nullRule);
+            this.constant = constant;
+            this.objectAccessor = objectAccessor;
+            this.charAccessor = charAccessor;
+            this.intAccessor = intAccessor;
+            this.doubleAccessor = doubleAccessor;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getColStart() {
+            return colStart;
+        }
+
+        public int getColEnd() {
+            return colEnd;
+        }
+
+        public FieldType getType() {
+            return type;
+        }
+
+        public RecordSink.Alignment getAlignment() {
+            return alignment;
+        }
+
+        public NullRule getNullRule() {
+            return nullRule;
+        }
+
+        public boolean isConstant() {
+            return constant;
+        }
+
+        private void checkType(FieldType expectedType) {
+            if (type != expectedType) {
+                throw new IllegalArgumentException("Field '" + name + "' of layout " + layoutName + " is a " + type + ", not a " + expectedType);
+            }
+        }
+
+        public double readDouble(RecordReader reader) {
+            checkType(FieldType.DOUBLE);
+            return reader.getDouble(colStart, colEnd);
+        }
+
+        public int readInt(RecordReader reader) {
+            checkType(FieldType.INT);
+            return reader.getInt(colStart, colEnd);
+        }
+
+        public char readChar(RecordReader reader) {
+            checkType(FieldType.CHAR);
+            return reader.getChar(colStart);
+        }
+
+        /**
+         * @return the string, without its trailing blanks
+         */
+        public String readString(RecordReader reader) {
+            if (type != FieldType.STRING && type != FieldType.NAME) {
+                throw new IllegalArgumentException("Field '" + name + "' of layout " + layoutName + " is a " + type);
+            }
+            return reader.getString(colStart, colEnd);
+        }
+
+        /**
+         * @return the 8 characters name, or null if the field is blank and optional
+         */
+        public Esg8charName readName(RecordReader reader) {
+            checkType(FieldType.NAME);
+            if (nullRule == NullRule.OPTIONAL && reader.isBlank(colStart, colEnd)) {
+                return null;
+            }
+            return reader.getEsg8charName(colStart, colEnd);
+        }
+
+        private void write(T value, RecordSink sink) throws IOException {
+            switch (type) {
+                case STRING:
+                    sink.addValue((String) objectAccessor.apply(value), colStart, colEnd, alignment);
+                    break;
+                case NAME:
+                    EsgName esgName = (EsgName) objectAccessor.apply(value);
+                    if (esgName != null) {
+                        sink.addValue(esgName, colStart, colEnd);
+                    } else if (nullRule != NullRule.SKIP) {
+                        sink.addValue("", colStart, colEnd);
+                    }
+                    break;
+                case CHAR:
+                    sink.addValue(charAccessor.applyAsChar(value), colStart, colEnd);
+                    break;
+                case INT:
+                    sink.addValue(intAccessor.applyAsInt(value), colStart, colEnd);
+                    break;
+                case DOUBLE:
+                    double d = doubleAccessor.applyAsDouble(value);
+                    if (!Double.isNaN(d) || nullRule != NullRule.SKIP) {
+                        sink.addValue(d, colStart, colEnd);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown field type: " + type);
+            }
+        }
+    }
+
+    public static final class Builder<T> {
+
+        private final String name;
+
+        private final List<Field<T>> fields = new ArrayList<>();
+
+        private Builder(String name) {
+            this.name = Objects.requireNonNull(name);
+        }
+
+        private Builder<T> add(Field<T> field) {
+            fields.add(field);
+            return this;
+        }
+
+        public Builder<T> string(String name, int colStart, int colEnd, Function<T, String> accessor, RecordSink.Alignment alignment) {
+            return add(new Field<>(this.name, name, colStart, colEnd, FieldType.STRING, alignment, NullRule.BLANK, false, accessor, null, null, null));
+        }
+
+        public Builder<T> string(String name, int colStart, int colEnd, Function<T, String> accessor) {
+            return string(name, colStart, colEnd, accessor, RecordSink.Alignment.LEFT);
+        }
+
+        /**
+         * A string written as is, for the record codes and the unused fields
+         */
+        public Builder<T> constant(String name, int colStart, int colEnd, String value, RecordSink.Alignment alignment) {
+            Objects.requireNonNull(value);
+            return add(new Field<>(this.name, name, colStart, colEnd, FieldType.STRING, alignment, NullRule.BLANK, true, t -> value, null, null, null));
+        }
+
+        public Builder<T> constant(String name, int colStart, int colEnd, String value) {
+            return constant(name, colStart, colEnd, value, RecordSink.Alignment.LEFT);
+        }
+
+        /**
+         * A number written as is, for the free numeric attributes
+         */
+        public Builder<T> constant(String name, int colStart, int colEnd, double value) {
+            return add(new Field<>(this.name, name, colStart, colEnd, FieldType.DOUBLE, RecordSink.Alignment.RIGHT, NullRule.BLANK, true, null, null, null, t -> value));
+        }
+
+        public Builder<T> name(String name, int colStart, int colEnd, Function<T, ? extends EsgName> accessor, NullRule nullRule) {
+            return add(new Field<>(this.name, name, colStart, colEnd, FieldType.NAME, RecordSink.Alignment.LEFT, nullRule, false, accessor, null, null, null));
+        }
+
+        public Builder<T> name(String name, int colStart, int colEnd, Function<T, ? extends EsgName> accessor) {
+            return name(name, colStart, colEnd, accessor, NullRule.BLANK);
+        }
+
+        public Builder<T> character(String name, int col, ToCharFunction<T> accessor) {
+            return add(new Field<>(this.name, name, col, col, FieldType.CHAR, RecordSink.Alignment.LEFT, NullRule.BLANK, false, null, accessor, null, null));
+        }
+
+        public Builder<T> integer(String name, int colStart, int colEnd, ToIntFunction<T> accessor) {
+            return add(new Field<>(this.name, name, colStart, colEnd, FieldType.INT, RecordSink.Alignment.RIGHT, NullRule.BLANK, false, null, null, accessor, null));
+        }
+
+        public Builder<T> number(String name, int colStart, int colEnd, ToDoubleFunction<T> accessor, NullRule nullRule) {
+            return add(new Field<>(this.name, name, colStart, colEnd, FieldType.DOUBLE, RecordSink.Alignment.RIGHT, nullRule, false, null, null, null, accessor));
+        }
+
+        public Builder<T> number(String name, int colStart, int colEnd, ToDoubleFunction<T> accessor) {
+            return number(name, colStart, colEnd, accessor, NullRule.BLANK);
+        }
+
+        public RecordLayout<T> build() {
+            return new RecordLayout<>(name, fields);
+        }
+    }
+
+    private final String name;
+
+    private final Field<T>[] fields;
+
+    /**
+     * Fields read by a cursor: the fields which are not constant, in column order
+     */
+    private final Field<T>[] readFields;
+
+    private final Map<String, Field<T>> fieldsByName = new HashMap<>();
+
+    @SuppressWarnings("unchecked")
+    private RecordLayout(String name, List<Field<T>> fields) {
+        this.name = name;
+        this.fields = fields.toArray(new Field[0]);
+        int previousColEnd = 0;
+        for (Field<T> field : this.fields) {
+            if (field.colStart <= previousColEnd || field.colEnd < field.colStart) {
+                throw new EsgException("Invalid columns " + field.colStart + "-" + field.colEnd + " of field '" + field.name + "' in layout " + name);
+            }
+            if (fieldsByName.put(field.name, field) != null) {
+                throw new EsgException("Duplicate field '" + field.name + "' in layout " + name);
+            }
+            previousColEnd = field.colEnd;
+        }
+        this.readFields = fields.stream().filter(field -> !field.constant).toArray(Field[]::new);
+    }
+
+    /**
+     * Read the fields of a line in column order, following the plan of the layout rather than looking up the fields by
+     * name. Each read gives the name of the expected field, which is compared with the next fields of the plan, so
+     * that a reader which does not follow the layout fails instead of reading another column. The fields which are not
+     * needed are skipped.
+     */
+    public final class Cursor {
+
+        private final RecordReader reader;
+
+        private int next = 0;
+
+        private Cursor(RecordReader reader) {
+            this.reader = Objects.requireNonNull(reader);
+        }
+
+        private Field<T> next(String fieldName) {
+            while (next < readFields.length) {
+                Field<T> field = readFields[next++];
+                // the names are literals, so that they are usually compared by reference
+                if (field.name.equals(fieldName)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("Field '" + fieldName + "' is not after the fields already read in layout " + name);
+        }
+
+        public double nextDouble(String fieldName) {
+            return next(fieldName).readDouble(reader);
+        }
+
+        public int nextInt(String fieldName) {
+            return next(fieldName).readInt(reader);
+        }
+
+        public char nextChar(String fieldName) {
+            return next(fieldName).readChar(reader);
+        }
+
+        public String nextString(String fieldName) {
+            return next(fieldName).readString(reader);
+        }
+
+        public Esg8charName nextName(String fieldName) {
+            return next(fieldName).readName(reader);
+        }
+    }
+
+    public static <T> Builder<T> builder(String name) {
+        return new Builder<>(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Field<T>> getFields() {
+        return Collections.unmodifiableList(Arrays.asList(fields));
+    }
+
+    public Field<T> getField(String name) {
+        Field<T> field = fieldsByName.get(name);
+        if (field == null) {
+            throw new IllegalArgumentException("Unknown field '" + name + "' in layout " + this.name);
+        }
+        return field;
+    }
+
+    /**
+     * @return a cursor over the fields of the current line of the reader
+     */
+    public Cursor cursor(RecordReader reader) {
+        return new Cursor(reader);
+    }
+
+    /**
+     * Write the fields of the value, and end the line
+     */
+    public void write(T value, RecordSink sink) throws IOException {
+        for (Field<T> field : fields) {
+            field.write(value, sink);
+        }
+        sink.addNewLine();
+    }
+
+    /**
+     * Read a double value with the field of the given name. The field is looked up on each call: the hot paths should
+     * read the records with a {@link #cursor(RecordReader)}.
+     */
+    public double getDouble(RecordReader reader, String name) {
+        return getField(name).readDouble(reader);
+    }
+
+    public int getInt(RecordReader reader, String name) {
+        return getField(name).readInt(reader);
+    }
+
+    public char getChar(RecordReader reader, String name) {
+        return getField(name).readChar(reader);
+    }
+
+    public String getString(RecordReader reader, String name) {
+        return getField(name).readString(reader);
+    }
+
+    public Esg8charName getName(RecordReader reader, String name) {
+        return getField(name).readName(reader);
+    }
+}
@@ -0,0 +1,307 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model.io;
+
+import com.powsybl.eurostag.model.Esg8charName;
+import com.powsybl.eurostag.model.EsgException;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fixed-column scanner of ECH records, the counterpart of {@link RecordWriter}. Columns are 1-based and inclusive, a
+ * column beyond the end of the line is read as a blank.
+ * <p>
+ * All the values are decoded with {@link EsgWriter#CHARSET}, one character per byte, as written by {@link RecordWriter}: the columns
+ * and the offsets of the records, used by the record index, are counted in bytes as well as in characters.
+ * <p>
+ * The values are decoded directly from the bytes of the buffer: numbers are parsed without any intermediate string,
+ * and 8 characters names are cached so that a node referenced by many records is only decoded once.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public class RecordReader {
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Above this value, the mantissa is not exactly represented by a double
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private final ByteBuffer buffer;
+
+    private final int limit;
+
+    private int lineStart = -1;
+
+    private int lineEnd = -1;
+
+    private int nextLineStart;
+
+    private int lineNumber = 0;
+
+    private boolean pushedBack = false;
+
+    private final Map<Long, Esg8charName> names;
+
+    public RecordReader(ByteBuffer buffer) {
+        this(buffer, true);
+    }
+
+    /**
+     * @param shareNames if false, a new name is created for each field read, so that the memory used by the reader
+     *                   does not grow with the number of names of the buffer
+     */
+    RecordReader(ByteBuffer buffer, boolean shareNames) {
+        this.buffer = buffer;
+        this.nextLineStart = buffer.position();
+        this.limit = buffer.limit();
+        this.names = shareNames ? new HashMap<>() : null;
+    }
+
+    /**
+     * Move to the next line.
+     *
+     * @return false if the end of the buffer has been reached
+     */
+    public boolean nextLine() {
+        if (pushedBack) {
+            pushedBack = false;
+            return true;
+        }
+        if (nextLineStart >= limit) {
+            return false;
+        }
+        lineStart = nextLineStart;
+        int i = lineStart;
+        while (i < limit && buffer.get(i) != '\n') {
+            i++;
+        }
+        nextLineStart = i + 1;
+        lineEnd = i > lineStart && buffer.get(i - 1) == '\r' ? i - 1 : i;
+        lineNumber++;
+        return true;
+    }
+
+    /**
+     * The next call to {@link #nextLine()} will stay on the current line. This is used by multiline records to
+     * give back a line belonging to the next record.
+     */
+    public void pushBack() {
+        if (lineStart < 0) {
+            throw new IllegalStateException("No line to push back");
+        }
+        pushedBack = true;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Number of bytes of the current line, without the line separator
+     */
+    public int getLineLength() {
+        return lineEnd - lineStart;
+    }
+
+    /**
+     * Offset in the buffer of the first byte of the current line
+     */
+    public int getLineOffset() {
+        return lineStart;
+    }
+
+    /**
+     * Offset in the buffer of the first byte of the next line, that is the end of the lines read so far
+     */
+    public int getNextLineOffset() {
+        return pushedBack ? lineStart : Math.min(nextLineStart, limit);
+    }
+
+    private byte byteAt(int col) {
+        int i = lineStart + col - 1;
+        return i < lineEnd ? buffer.get(i) : (byte) ' ';
+    }
+
+    public char getChar(int col) {
+        return (char) (byteAt(col) & 0xFF);
+    }
+
+    public boolean startsWith(String prefix) {
+        for (int i = 0; i < prefix.length(); i++) {
+            if (getChar(i + 1) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isBlank(int colStart, int colEnd) {
+        for (int col = colStart; col <= colEnd; col++) {
+            if (byteAt(col) != ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isBlankLine() {
+        return isBlank(1, getLineLength());
+    }
+
+    /**
+     * Read a string, the trailing blanks being removed
+     */
+    public String getString(int colStart, int colEnd) {
+        int start = lineStart + colStart - 1;
+        int end = Math.min(lineStart + colEnd, lineEnd);
+        while (end > start && buffer.get(end - 1) == ' ') {
+            end--;
+        }
+        if (end <= start) {
+            return "";
+        }
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, EsgWriter.CHARSET);
+    }
+
+    /**
+     * Read a name of at most 8 characters. The instances are shared between the records referencing the same name.
+     */
+    public Esg8charName getEsg8charName(int colStart, int colEnd) {
+        if (colEnd - colStart + 1 > 8) {
+            throw new IllegalArgumentException("Invalid name columns: " + colStart + "-" + colEnd);
+        }
+        if (names == null) {
+            return newEsg8charName(colStart, colEnd);
+        }
+        long key = 0;
+        for (int col = colStart; col < colStart + 8; col++) {
+            key = (key << 8) | (col <= colEnd ? byteAt(col) & 0xFF : ' ');
+        }
+        Esg8charName name = names.get(key);
+        if (name == null) {
+            name = newEsg8charName(colStart, colEnd);
+            names.put(key, name);
+        }
+        return name;
+    }
+
+    private Esg8charName newEsg8charName(int colStart, int colEnd) {
+        StringBuilder builder = new StringBuilder(8);
+        for (int col = colStart; col <= colEnd; col++) {
+            builder.append(getChar(col));
+        }
+        return new Esg8charName(builder.toString());
+    }
+
+    /**
+     * Read a double value, a blank field being read as NaN
+     */
+    public double getDouble(int colStart, int colEnd) {
+        int start = colStart;
+        int end = colEnd;
+        while (start <= end && byteAt(start) == ' ') {
+            start++;
+        }
+        while (end >= start && byteAt(end) == ' ') {
+            end--;
+        }
+        if (start > end) {
+            return Double.NaN;
+        }
+
+        // fast path: [sign]digits[.digits], converted exactly when the mantissa and the number of decimals allow it
+        int col = start;
+        boolean negative = false;
+        if (byteAt(col) == '-' || byteAt(col) == '+') {
+            negative = byteAt(col) == '-';
+            col++;
+        }
+        long mantissa = 0;
+        int decimals = -1;
+        int digits = 0;
+        boolean exact = col <= end;
+        for (; col <= end && exact; col++) {
+            byte b = byteAt(col);
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (decimals >= 0) {
+                    decimals++;
+                }
+                exact = mantissa < MAX_EXACT_MANTISSA;
+            } else if (b == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                exact = false;
+            }
+        }
+        if (exact && digits > 0 && decimals < POWERS_OF_TEN.length) {
+            double value = decimals > 0 ? mantissa / POWERS_OF_TEN[decimals] : mantissa;
+            return negative ? -value : value;
+        }
+
+        String str = getString(start, end);
+        try {
+            return Double.parseDouble(str);
+        } catch (NumberFormatException e) {
+            throw new EsgException("Invalid number '" + str + "' at line " + lineNumber + ", columns " + colStart + "-" + colEnd, e);
+        }
+    }
+
+    /**
+     * Read an integer value, the field is mandatory
+     */
+    public int getInt(int colStart, int colEnd) {
+        int start = colStart;
+        int end = colEnd;
+        while (start <= end && byteAt(start) == ' ') {
+            start++;
+        }
+        while (end >= start && byteAt(end) == ' ') {
+            end--;
+        }
+        if (start > end) {
+            throw new EsgException("Missing integer value at line " + lineNumber + ", columns " + colStart + "-" + colEnd);
+        }
+        int col = start;
+        boolean negative = byteAt(col) == '-';
+        if (negative || byteAt(col) == '+') {
+            col++;
+        }
+        if (col > end) {
+            throw new EsgException("Invalid integer value at line " + lineNumber + ", columns " + colStart + "-" + colEnd);
+        }
+        // Integer.MIN_VALUE has no positive counterpart
+        long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long value = 0;
+        for (; col <= end; col++) {
+            byte b = byteAt(col);
+            if (b < '0' || b > '9') {
+                throw new EsgException("Invalid integer value '" + getString(start, end) + "' at line " + lineNumber
+                        + ", columns " + colStart + "-" + colEnd);
+            }
+            // checked after each digit, the value cannot overflow the long accumulator
+            value = value * 10 + (b - '0');
+            if (value > limit) {
+                throw new EsgException("Integer value '" + getString(start, end) + "' out of range at line " + lineNumber
+                        + ", columns " + colStart + "-" + colEnd);
+            }
+        }
+        return (int) (negative ? -value : value);
+    }
+}
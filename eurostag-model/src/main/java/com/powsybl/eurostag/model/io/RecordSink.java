@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model.io;
+
+import com.powsybl.eurostag.model.EsgName;
+
+import java.io.IOException;
+
+/**
+ * Destination of the ECH records written by {@link EsgWriter}. The fields are given with their type and their column
+ * range, columns being 1-based and inclusive, and the fields of a line are given in increasing column order. The
+ * formatting is left to the implementation, so that it can write the bytes directly, without intermediate strings.
+ * <p>
+ * {@link RecordWriter} is the implementation writing to a {@link java.io.Writer}.
+ *
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public interface RecordSink {
+
+    enum Alignment {
+        RIGHT,
+        LEFT
+    }
+
+    /**
+     * Write a number, right aligned. NaN values are written as blanks.
+     */
+    void addValue(double value, int colStart, int colEnd) throws IOException;
+
+    /**
+     * Write an integer, right aligned
+     */
+    void addValue(int value, int colStart, int colEnd) throws IOException;
+
+    void addValue(String value, int colStart, int colEnd, Alignment alignment) throws IOException;
+
+    /**
+     * Write a string, left aligned
+     */
+    default void addValue(String value, int colStart, int colEnd) throws IOException {
+        addValue(value, colStart, colEnd, Alignment.LEFT);
+    }
+
+    default void addValue(String value, int colStart) throws IOException {
+        addValue(value, colStart, colStart + value.length() - 1);
+    }
+
+    default void addValue(char value, int colStart, int colEnd) throws IOException {
+        addValue(Character.toString(value), colStart, colEnd, Alignment.LEFT);
+    }
+
+    default void addValue(char value, int colStart) throws IOException {
+        addValue(value, colStart, colStart);
+    }
+
+    /**
+     * Write a name, left aligned
+     */
+    default void addValue(EsgName name, int colStart, int colEnd) throws IOException {
+        addValue(name.toString(), colStart, colEnd);
+    }
+
+    /**
+     * Add already formatted record lines, ended by a new line. The current record line must be empty. The lines are
+     * written as they are, without being copied to an intermediate string.
+     */
+    void addLines(CharSequence lines) throws IOException;
+
+    /**
+     * End the current record line
+     */
+    void addNewLine() throws IOException;
+
+    /**
+     * Number of bytes written so far, that is the offset of the next record
+     */
+    long getPosition();
+}
@@ -13,29 +13,69 @@ import java.io.Writer;
 import java.util.Locale;
 
 /**
+ * Writer of the fixed width records of the ECH files. The underlying writer must encode the characters with
+ * {@link EsgWriter#CHARSET}.
  *
  * @author Geoffroy Jamgotchian <geoffroy.jamgotchian at rte-france.com>
  */
-public class RecordWriter {
+public class RecordWriter implements RecordSink {
 
     private static final String NEW_LINE = System.getProperty("line.separator");
 
     private static final Locale LOCALE = new Locale("en", "US");
 
-    public enum Alignment {
-        RIGHT,
-        LEFT
-    }
+    private static final int CHUNK_SIZE = 1024;
 
     private final Writer writer;
 
     private int mCurrentLinePos = 1;
 
+    private long position = 0;
+
+    /**
+     * Buffer of the lines added already formatted, allocated on first use
+     */
+    private char[] chunk;
+
     public RecordWriter(Writer writer) {
         this.writer = writer;
     }
 
-    private String format(double aValue, int digit) {
+    /**
+     * @return the string, the characters out of {@link EsgWriter#CHARSET} being replaced by '?', so that each
+     * character is encoded as one byte
+     */
+    static String toCharset(String str) {
+        for (int i = 0; i < str.length(); i++) {
+            if (str.charAt(i) > 0xFF) {
+                char[] chars = str.toCharArray();
+                for (int j = i; j < chars.length; j++) {
+                    if (chars[j] > 0xFF) {
+                        chars[j] = '?';
+                    }
+                }
+                return new String(chars);
+            }
+        }
+        return str;
+    }
+
+    private void append(String str) throws IOException {
+        String encodable = toCharset(str);
+        writer.append(encodable);
+        position += encodable.length();
+    }
+
+    /**
+     * Number of bytes written so far, that is the offset of the next record, the writer being expected to encode the
+     * characters with {@link EsgWriter#CHARSET}
+     */
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    static String format(double aValue, int digit) {
         String val = Double.isNaN(aValue) ? ""   :
                      //...null value will be replaced by "0."
                      aValue == 0.       ? "0." :
@@ -58,32 +98,19 @@ public class RecordWriter {
         return val;
     }
 
+    @Override
     public void addValue(double aValue, int aColStart, int aColEnd) throws IOException {
         String key = format(aValue, aColEnd - aColStart);
         this.addValue(key, aColStart, aColEnd, Alignment.RIGHT);
     }
 
+    @Override
     public void addValue(int aValue, int aColStart, int aColEnd) throws IOException {
         String key = Integer.toString(aValue);
         this.addValue(key, aColStart, aColEnd, Alignment.RIGHT);
     }
 
-    public void addValue(String aKey, int aColStart, int aColEnd) throws IOException {
-        this.addValue(aKey, aColStart, aColEnd, Alignment.LEFT);
-    }
-
-    public void addValue(char aKey, int aColStart) throws IOException {
-        this.addValue(Character.toString(aKey), aColStart, aColStart, Alignment.LEFT);
-    }
-
-    public void addValue(char aKey, int aColStart, int aColEnd) throws IOException {
-        this.addValue(Character.toString(aKey), aColStart, aColEnd, Alignment.LEFT);
-    }
-
-    public void addValue(String aKey, int aColStart) throws IOException {
-        this.addValue(aKey, aColStart, aColStart + aKey.length() - 1);
-    }
-
+    @Override
     public void addValue(String aKey, int aColStart, int aColEnd, Alignment alignment) throws IOException {
         if (aColEnd < aColStart) {
             throw new EsgException("Bad record encoding for " + aKey);
@@ -93,23 +120,47 @@ public class RecordWriter {
         //...add blank before the next value
         if (aColStart > mCurrentLinePos) {
             int blanknumber = aColStart - mCurrentLinePos;
-            writer.append(String.format(LOCALE, "%" + blanknumber + "s", ""));
+            append(String.format(LOCALE, "%" + blanknumber + "s", ""));
             mCurrentLinePos = aColStart;
         }
         mCurrentLinePos += size;
 
         if (alignment == Alignment.LEFT) {
-            writer.append(String.format(LOCALE, "%-" + size + "s", aKey));
+            append(String.format(LOCALE, "%-" + size + "s", aKey));
         } else {
-            writer.append(String.format(LOCALE, "%" + size + "s", aKey));
+            append(String.format(LOCALE, "%" + size + "s", aKey));
+        }
+    }
+
+    /**
+     * Add already formatted record lines, ended by a new line. The current record line must be empty. The lines are
+     * copied to the writer by chunks, the characters out of {@link EsgWriter#CHARSET} being replaced by '?'.
+     */
+    @Override
+    public void addLines(CharSequence lines) throws IOException {
+        if (mCurrentLinePos != 1) {
+            throw new EsgException("Lines cannot be added in the middle of a record line");
+        }
+        if (chunk == null) {
+            chunk = new char[CHUNK_SIZE];
+        }
+        for (int start = 0; start < lines.length(); start += CHUNK_SIZE) {
+            int length = Math.min(CHUNK_SIZE, lines.length() - start);
+            for (int i = 0; i < length; i++) {
+                char c = lines.charAt(start + i);
+                chunk[i] = c > 0xFF ? '?' : c;
+            }
+            writer.write(chunk, 0, length);
         }
+        position += lines.length();
     }
 
     /**
      * Add a new line at the end of the current record line
      */
+    @Override
     public void addNewLine() throws IOException {
         mCurrentLinePos = 1;
-        writer.append(NEW_LINE);
+        append(NEW_LINE);
     }
 }
@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import com.powsybl.commons.AbstractConverterTest;
+import com.powsybl.eurostag.model.io.*;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public class EsgDiffTest extends AbstractConverterTest {
+
+    private EsgRecordIndex write(EsgNetwork network, Path file) throws IOException {
+        EsgRecordIndex index = new EsgRecordIndex();
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            new EsgWriter(network, new EsgGeneralParameters(), new EsgSpecialParameters()).write(writer, null, index);
+        }
+        return index;
+    }
+
+    @Test
+    public void test() throws IOException {
+        Path file1 = fileSystem.getPath("chain1.ech");
+        Path file2 = fileSystem.getPath("chain2.ech");
+        write(EsgFactory.createChain(200), file1);
+        EsgRecordIndex index2 = write(EsgFactory.createChain(201), file2);
+
+        // the index built by the reader is the one built by the writer
+        EsgRecordIndex index = new EsgReader(file2).index();
+        assertEquals(index2.getFileSize(), index.getFileSize());
+        for (EsgRecordIndex.RecordType type : EsgRecordIndex.RecordType.values()) {
+            assertEquals(index2.getKeys(type), index.getKeys(type));
+            for (String key : index.getKeys(type)) {
+                assertEquals(index2.getEntry(type, key).getOffset(), index.getEntry(type, key).getOffset());
+                assertEquals(index2.getEntry(type, key).getLength(), index.getEntry(type, key).getLength());
+            }
+        }
+
+        try (EsgPatcher patcher = new EsgPatcher(file2, index2)) {
+            patcher.setValue(EsgPatcher.Field.GENERATOR_PGEN, "G5      ", 12.5001);
+            patcher.setValue(EsgPatcher.Field.GENERATOR_PGEN, "G6      ", 13.5);
+        }
+
+        Map<EsgRecordIndex.RecordType, EsgDiff.SectionDiff> diffs = new EsgDiff(1e-3).compare(new EsgReader(file1), new EsgReader(file2));
+        assertEquals(Arrays.asList(EsgRecordIndex.RecordType.NODE, EsgRecordIndex.RecordType.DETAILED_TWO_WINDING_TRANSFORMER,
+                EsgRecordIndex.RecordType.LOAD, EsgRecordIndex.RecordType.GENERATOR), Arrays.asList(diffs.keySet().toArray()));
+        assertEquals(Collections.singletonList("N200    "), diffs.get(EsgRecordIndex.RecordType.NODE).getAdded());
+        assertEquals(1, diffs.get(EsgRecordIndex.RecordType.DETAILED_TWO_WINDING_TRANSFORMER).getAdded().size());
+
+        EsgDiff.SectionDiff generators = diffs.get(EsgRecordIndex.RecordType.GENERATOR);
+        assertEquals(Collections.singletonList("G200    "), generators.getAdded());
+        assertTrue(generators.getRemoved().isEmpty());
+        assertEquals(1, generators.getChanged().size());
+        EsgDiff.RecordDiff changed = generators.getChanged().get(0);
+        assertEquals("G6      ", changed.getKey());
+        assertEquals(1, changed.getFields().size());
+        assertEquals("line 1, column 33 (pgen): '12.5' -> '13.5'", changed.getFields().get(0).toString());
+
+        // the other way round, the elements are removed
+        diffs = new EsgDiff(1e-3).compare(new EsgReader(file2), new EsgReader(file1));
+        assertEquals(Collections.singletonList("L200    "), diffs.get(EsgRecordIndex.RecordType.LOAD).getRemoved());
+
+        // without tolerance
+        diffs = new EsgDiff(0).compare(new EsgReader(file1), new EsgReader(file2));
+        assertEquals(2, diffs.get(EsgRecordIndex.RecordType.GENERATOR).getChanged().size());
+    }
+
+    @Test
+    public void testBlankFields() throws IOException {
+        Path file1 = fileSystem.getPath("chain1.ech");
+        Path file2 = fileSystem.getPath("chain2.ech");
+        write(EsgFactory.createChain(20), file1);
+        // G7 does not regulate anymore, its regulated node has a blank inside and its shunt reactive power is left blank
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(file1, StandardCharsets.UTF_8)) {
+            if (line.startsWith("G  G7      ")) {
+                line = line.substring(0, 77) + "N" + line.substring(78, 88) + "N 7     " + line.substring(96, 97) + "        " + line.substring(105);
+            }
+            lines.add(line);
+        }
+        Files.write(file2, lines, StandardCharsets.UTF_8);
+
+        Map<EsgRecordIndex.RecordType, EsgDiff.SectionDiff> diffs = new EsgDiff(1e-3).compare(new EsgReader(file1), new EsgReader(file2));
+        assertEquals(Collections.singleton(EsgRecordIndex.RecordType.GENERATOR), diffs.keySet());
+        EsgDiff.RecordDiff changed = diffs.get(EsgRecordIndex.RecordType.GENERATOR).getChanged().get(0);
+        assertEquals("G7      ", changed.getKey());
+        assertEquals(Arrays.asList("line 1, column 78 (xregge): 'V' -> 'N'", "line 1, column 89 (zregnoge): 'N7' -> 'N 7'",
+                        "line 1, column 98 (qgensh): '0.' -> ''"),
+                changed.getFields().stream().map(Object::toString).collect(Collectors.toList()));
+        assertEquals("zregnoge", changed.getFields().get(1).getName());
+    }
+
+    @Test
+    public void testRecordOrder() throws IOException {
+        Path file1 = fileSystem.getPath("chain1.ech");
+        Path file2 = fileSystem.getPath("chain2.ech");
+        write(EsgFactory.createChain(20), file1);
+        // the generators are written in the reverse order, G3 being changed and G5 removed
+        List<String> lines = new ArrayList<>();
+        List<String> generators = new ArrayList<>();
+        for (String line : Files.readAllLines(file1, StandardCharsets.UTF_8)) {
+            if (line.startsWith("G  G")) {
+                if (line.startsWith("G  G3      ")) {
+                    line = line.substring(0, 32) + "   99.0" + line.substring(39);
+                }
+                if (!line.startsWith("G  G5      ")) {
+                    generators.add(0, line);
+                }
+            } else {
+                lines.addAll(generators);
+                generators.clear();
+                lines.add(line);
+            }
+        }
+        lines.addAll(generators);
+        Files.write(file2, lines, StandardCharsets.UTF_8);
+
+        Map<EsgRecordIndex.RecordType, EsgDiff.SectionDiff> diffs = new EsgDiff(1e-3).compare(new EsgReader(file1), new EsgReader(file2));
+        assertEquals(Collections.singleton(EsgRecordIndex.RecordType.GENERATOR), diffs.keySet());
+        EsgDiff.SectionDiff generatorDiff = diffs.get(EsgRecordIndex.RecordType.GENERATOR);
+        assertTrue(generatorDiff.getAdded().isEmpty());
+        assertEquals(Collections.singletonList("G5      "), generatorDiff.getRemoved());
+        assertEquals(1, generatorDiff.getChanged().size());
+        assertEquals("G3      ", generatorDiff.getChanged().get(0).getKey());
+        assertEquals("pgen", generatorDiff.getChanged().get(0).getFields().get(0).getName());
+    }
+}
@@ -32,7 +32,11 @@ public final class EsgFactory {
     }
 
     public static EsgNetwork create() {
-        EsgNetwork network = new EsgNetwork();
+        return create(EsgStorage.heap());
+    }
+
+    public static EsgNetwork create(EsgStorage storage) {
+        EsgNetwork network = new EsgNetwork(storage);
 
         // Create areas
         network.addArea(new EsgArea(FA, EsgArea.Type.AC));
@@ -74,7 +78,11 @@ public final class EsgFactory {
     }
 
     public static EsgNetwork createHvdc() {
-        EsgNetwork network = new EsgNetwork();
+        return createHvdc(EsgStorage.heap());
+    }
+
+    public static EsgNetwork createHvdc(EsgStorage storage) {
+        EsgNetwork network = new EsgNetwork(storage);
 
         // Create areas
         network.addArea(new EsgArea(FA, EsgArea.Type.AC));
@@ -117,6 +125,43 @@ public final class EsgFactory {
         return network;
     }
 
+    /**
+     * Create a chain of {@code size} nodes, each one having a load and a generator
+     */
+    public static EsgNetwork createChain(int size) {
+        return createChain(size, EsgStorage.heap());
+    }
+
+    public static EsgNetwork createChain(int size, EsgStorage storage) {
+        EsgNetwork network = new EsgNetwork(storage);
+        network.addArea(new EsgArea(FR, EsgArea.Type.AC));
+
+        for (int i = 0; i < size; i++) {
+            Esg8charName node = name("N" + i);
+            network.addNode(new EsgNode(FR, node, 380, 1.02, i * 0.01, i == 0));
+            network.addLoad(new EsgLoad(EsgConnectionStatus.CONNECTED, name("L" + i), node, 0, 0, 10 + i % 7, 0, 0, 2.5));
+            network.addGenerator(new EsgGenerator(name("G" + i), node, 0, 12.5, 100, -50, 0, 50,
+                    EsgRegulatingMode.REGULATING, 390, node, 0, EsgConnectionStatus.CONNECTED));
+            if (i > 0) {
+                Esg8charName previous = name("N" + (i - 1));
+                if (i % 10 == 0) {
+                    EsgDetailedTwoWindingTransformer twt = new EsgDetailedTwoWindingTransformer(new EsgBranchName(previous, node, '1'),
+                            EsgBranchConnectionStatus.CLOSED_AT_BOTH_SIDE, 0, 100, 0.02, 0, 1, 2, 2, node, 380, Double.NaN, Double.NaN,
+                            EsgDetailedTwoWindingTransformer.RegulatingMode.VOLTAGE);
+                    twt.getTaps().add(new EsgDetailedTwoWindingTransformer.Tap(1, 0, 400, 380, 1.8));
+                    twt.getTaps().add(new EsgDetailedTwoWindingTransformer.Tap(2, 0, 380, 380, 1.8));
+                    twt.getTaps().add(new EsgDetailedTwoWindingTransformer.Tap(3, 0, 360, 380, 1.8));
+                    network.addDetailedTwoWindingTransformer(twt);
+                } else {
+                    network.addLine(new EsgLine(new EsgBranchName(previous, node, '1'), EsgBranchConnectionStatus.CLOSED_AT_BOTH_SIDE,
+                            0.002, 0.02, 0, 0.25, 100));
+                }
+            }
+        }
+
+        return network;
+    }
+
     private static Esg8charName name(String name) {
         return new Esg8charName(name);
     }
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public class EsgFootprintTest {
+
+    private static long total(EsgNetwork network) {
+        return EsgFootprint.estimate(network).values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Test
+    public void testSizeOf() {
+        assertEquals(48, EsgFootprint.sizeOf("abc"));
+        assertEquals(40, EsgFootprint.sizeOf(new double[3]));
+        // the shared objects are counted once
+        String s = "abc";
+        assertEquals(24 + 48, EsgFootprint.sizeOf(new Object[] {s, s}));
+
+        Map<String, Object> roots = new LinkedHashMap<>();
+        roots.put("first", new Object[] {s});
+        roots.put("second", new Object[] {s});
+        assertEquals(Arrays.asList(24L + 48, 24L), Arrays.asList(EsgFootprint.sizesOf(roots).values().toArray()));
+    }
+
+    @Test
+    public void testEstimate() {
+        EsgNetwork network = EsgFactory.createChain(1000);
+        Map<String, Long> sizes = EsgFootprint.estimate(network);
+        assertEquals(14, sizes.size());
+        assertTrue(sizes.get("nodes") > 1000 * 100);
+        assertTrue(sizes.get("generators") > sizes.get("loads"));
+        assertTrue(total(EsgFactory.createChain(100)) < total(network));
+
+        // the columns are smaller than the objects, and the off-heap slots are not in the heap
+        long columnar = total(EsgFactory.createChain(1000, EsgStorage.columnar()));
+        long offHeap = total(EsgFactory.createChain(1000, EsgStorage.offHeap()));
+        assertTrue(columnar < total(network));
+        assertTrue(offHeap < columnar);
+    }
+
+    @Test
+    public void testPredict() {
+        // as created by the converter, a name object for each field, wrapping the id of the dictionary
+        Esg2charName area = new Esg2charName("FR");
+        EsgNetwork network = new EsgNetwork();
+        network.addArea(new EsgArea(area, EsgArea.Type.AC));
+        for (int i = 0; i < 1000; i++) {
+            String node = String.format("N%07d", i);
+            network.addNode(new EsgNode(new Esg2charName(area.toString()), new Esg8charName(node), 380, 1, 0, i == 0));
+            network.addLoad(new EsgLoad(EsgConnectionStatus.CONNECTED, new Esg8charName(String.format("L%07d", i)), new Esg8charName(node),
+                    0, 0, 10, 0, 0, 0));
+            if (i > 0) {
+                network.addLine(new EsgLine(new EsgBranchName(new Esg8charName(String.format("N%07d", i - 1)), new Esg8charName(node), '1'),
+                        EsgBranchConnectionStatus.CLOSED_AT_BOTH_SIDE, 0.002, 0.02, 0, 0.25, 100));
+            }
+        }
+
+        long predicted = EsgNetwork.builder()
+                .setExpectedAreaCount(1)
+                .setExpectedNodeCount(1000)
+                .setExpectedLoadCount(1000)
+                .setExpectedLineCount(999)
+                .estimateFootprint();
+        long estimated = total(network);
+        assertTrue("predicted: " + predicted + ", estimated: " + estimated, Math.abs(predicted - estimated) < estimated / 10);
+        assertEquals(0, EsgNetwork.builder().estimateFootprint());
+    }
+}
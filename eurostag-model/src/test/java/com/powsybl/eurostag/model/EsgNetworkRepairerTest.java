@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import com.powsybl.eurostag.model.io.EsgWriter;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public class EsgNetworkRepairerTest {
+
+    private static final Esg8charName N3 = new Esg8charName("N3");
+
+    private static EsgNetwork createNetwork() {
+        EsgNetwork network = EsgFactory.createChain(20);
+        // small reactive range
+        network.addGenerator(new EsgGenerator(new Esg8charName("G3BIS"), N3, 0, 10, 100, 0, 0, 0.5,
+                EsgRegulatingMode.REGULATING, 400, N3, 0, EsgConnectionStatus.CONNECTED));
+        // disconnected generator with another target voltage than G3
+        network.addGenerator(new EsgGenerator(new Esg8charName("G3TER"), N3, 0, 10, 100, -50, 0, 50,
+                EsgRegulatingMode.REGULATING, 400, N3, 0, EsgConnectionStatus.NOT_CONNECTED));
+        // second transformer regulating N10, with a lower target voltage
+        Esg8charName n10 = new Esg8charName("N10");
+        EsgDetailedTwoWindingTransformer twt = new EsgDetailedTwoWindingTransformer(new EsgBranchName(new Esg8charName("N9"), n10, '2'),
+                EsgBranchConnectionStatus.CLOSED_AT_BOTH_SIDE, 0, 100, 0.02, 0, 1, 2, 2, n10, 370, Double.NaN, Double.NaN,
+                EsgDetailedTwoWindingTransformer.RegulatingMode.VOLTAGE);
+        twt.getTaps().add(new EsgDetailedTwoWindingTransformer.Tap(1, 0, 400, 380, 1.8));
+        network.addDetailedTwoWindingTransformer(twt);
+        return network;
+    }
+
+    private static String write(EsgNetwork network, boolean repair) throws IOException {
+        StringWriter writer = new StringWriter();
+        new EsgWriter(network, new EsgGeneralParameters(), new EsgSpecialParameters()).setRepair(repair).write(writer);
+        return writer.toString();
+    }
+
+    @Test
+    public void testDefaultRules() {
+        EsgNetwork network = createNetwork();
+        List<EsgNetworkRepairer.Change> changes = network.repair();
+        assertEquals(Arrays.asList("Generator 'G3BIS   ' xregge: REGULATING -> NOT_REGULATING",
+                        "Generator 'G3TER   ' vregge: 400.0 -> 390.0",
+                        "Transformer 'N9      -N10     -1' voltr: 380.0 -> 370.0"),
+                changes.stream().map(Object::toString).collect(Collectors.toList()));
+        assertEquals(EsgNetworkRepairer.SMALL_REACTIVE_RANGE.getName(), changes.get(0).getRule());
+        assertEquals(EsgRegulatingMode.NOT_REGULATING, network.getGenerator("G3BIS   ").getXregge());
+        assertEquals(390, network.getGenerator("G3TER   ").getVregge(), 0);
+        assertEquals(370, network.getDetailedTwoWindingTransformer("N9      -N10     -1").getVoltr(), 0);
+
+        // a fixed network is not modified
+        assertTrue(network.repair().isEmpty());
+    }
+
+    @Test
+    public void testFrozen() throws IOException {
+        EsgNetwork frozen = createNetwork().freeze();
+        UnsupportedOperationException e = assertThrows(UnsupportedOperationException.class, frozen::repair);
+        assertEquals("The network is frozen, repair a variant of it", e.getMessage());
+        // the frozen network is only validated before being written
+        write(frozen, true);
+        assertEquals(400, frozen.getGenerator("G3TER   ").getVregge(), 0);
+
+        // the changes of a variant are applied to copies of the elements
+        EsgNetwork variant = frozen.newVariant();
+        assertEquals(3, variant.repair().size());
+        assertEquals(390, variant.getGenerator("G3TER   ").getVregge(), 0);
+        assertEquals(370, variant.getDetailedTwoWindingTransformer("N9      -N10     -1").getVoltr(), 0);
+        assertEquals(400, frozen.getGenerator("G3TER   ").getVregge(), 0);
+        assertEquals(380, frozen.getDetailedTwoWindingTransformer("N9      -N10     -1").getVoltr(), 0);
+    }
+
+    @Test
+    public void testConflict() {
+        EsgNetwork network = createNetwork();
+        network.addGenerator(new EsgGenerator(new Esg8charName("G5BIS"), new Esg8charName("N5"), 0, 10, 100, -50, 0, 50,
+                EsgRegulatingMode.REGULATING, 400, new Esg8charName("N5"), 0, EsgConnectionStatus.CONNECTED));
+        EsgException e = assertThrows(EsgException.class, network::repair);
+        assertEquals("2 generators ([G5      , G5BIS   ]) are connected to a same node (N5      ) and try to impose a different target voltage: [390.0, 400.0]",
+                e.getMessage());
+    }
+
+    @Test
+    public void testCustomRule() {
+        EsgNetworkRepairer.Rule switchOff = new EsgNetworkRepairer.Rule() {
+            @Override
+            public String getName() {
+                return "Switch off the connected generators of N3";
+            }
+
+            @Override
+            public List<EsgNetworkRepairer.Change> check(EsgNetworkRepairer.Context context) {
+                assertEquals(20, context.getNodeCount());
+                assertEquals(-1, context.getNodeIndex(new Esg8charName("UNKNOWN")));
+                return context.groupByNode(context.getNetwork().getGenerators(), EsgGenerator::getZnodge).get(context.getNodeIndex(N3)).stream()
+                        .filter(g -> g.getXgenest() == EsgConnectionStatus.CONNECTED)
+                        .map(g -> EsgNetworkRepairer.Change.generator(getName(), g, "xregge", g.getXregge(), EsgRegulatingMode.NOT_REGULATING,
+                                EsgGenerator::setXregge))
+                        .collect(Collectors.toList());
+            }
+        };
+        EsgNetworkRepairer repairer = new EsgNetworkRepairer(Arrays.asList(switchOff, EsgNetworkRepairer.GENERATOR_TARGET_VOLTAGE));
+        EsgNetwork network = createNetwork();
+        List<EsgNetworkRepairer.Change> changes = repairer.repair(network);
+        // the generators of N3 are switched off before their target voltages are checked
+        assertEquals(2, changes.size());
+        assertEquals(Arrays.asList("G3      ", "G3BIS   "), changes.stream().map(EsgNetworkRepairer.Change::getElementName).collect(Collectors.toList()));
+        assertEquals(EsgRegulatingMode.NOT_REGULATING, network.getGenerator("G3      ").getXregge());
+        assertEquals(400, network.getGenerator("G3TER   ").getVregge(), 0);
+    }
+
+    @Test
+    public void testValidateOnly() throws IOException {
+        EsgNetwork network = createNetwork();
+        network.validate();
+        String validated = write(network, false);
+        assertEquals(EsgRegulatingMode.REGULATING, network.getGenerator("G3BIS   ").getXregge());
+
+        String repaired = write(network, true);
+        assertNotEquals(validated, repaired);
+        assertEquals(EsgRegulatingMode.NOT_REGULATING, network.getGenerator("G3BIS   ").getXregge());
+        assertEquals(repaired, write(network, false));
+    }
+
+    @Test
+    public void testMissingRegulatedNode() {
+        EsgNetwork network = createNetwork();
+        // the transformers without regulated node are grouped together, as the ones regulating a same node
+        for (char xpp : new char[] {'2', '3'}) {
+            EsgDetailedTwoWindingTransformer twt = new EsgDetailedTwoWindingTransformer(new EsgBranchName(new Esg8charName("N11"), new Esg8charName("N12"), xpp),
+                    EsgBranchConnectionStatus.CLOSED_AT_BOTH_SIDE, 0, 100, 0.02, 0, 1, 2, 2, null, xpp == '2' ? 390 : 385, Double.NaN, Double.NaN,
+                    EsgDetailedTwoWindingTransformer.RegulatingMode.VOLTAGE);
+            twt.getTaps().add(new EsgDetailedTwoWindingTransformer.Tap(1, 0, 400, 380, 1.8));
+            network.addDetailedTwoWindingTransformer(twt);
+        }
+        List<EsgNetworkRepairer.Change> changes = new EsgNetworkRepairer(List.of(EsgNetworkRepairer.TRANSFORMER_TARGET_VOLTAGE)).repair(network);
+        assertEquals(Arrays.asList("Transformer 'N9      -N10     -1' voltr: 380.0 -> 370.0",
+                        "Transformer 'N11     -N12     -2' voltr: 390.0 -> 385.0"),
+                changes.stream().map(Object::toString).collect(Collectors.toList()));
+        assertEquals(385, network.getDetailedTwoWindingTransformer("N11     -N12     -3").getVoltr(), 0);
+    }
+}
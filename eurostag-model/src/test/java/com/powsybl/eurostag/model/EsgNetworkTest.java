@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public class EsgNetworkTest {
+
+    private static final Esg2charName FR = new Esg2charName("FR");
+
+    private static List<EsgNode> createNodes(int size) {
+        List<EsgNode> nodes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            nodes.add(new EsgNode(FR, new Esg8charName("N" + i), 380, 1, 0, i == 0));
+        }
+        return nodes;
+    }
+
+    private static void testBulkInsertion(EsgStorage storage) {
+        EsgNetwork network = EsgNetwork.builder()
+                .setStorage(storage)
+                .setExpectedAreaCount(1)
+                .setExpectedNodeCount(100)
+                .setExpectedLoadCount(100)
+                .build();
+        network.addArea(new EsgArea(FR, EsgArea.Type.AC));
+        List<EsgNode> nodes = createNodes(100);
+        network.addNodes(nodes);
+        assertEquals(100, network.getNodes().size());
+        assertEquals("N42     ", network.getNode("N42     ").getName().toString());
+        assertEquals("N99     ", new ArrayList<>(network.getNodes()).get(99).getName().toString());
+
+        // duplicate in the batch
+        Esg8charName n100 = new Esg8charName("N100");
+        List<EsgNode> batch = Arrays.asList(new EsgNode(FR, n100, 380, 1, 0, false), new EsgNode(FR, n100, 380, 1, 0, false));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> network.addNodes(batch));
+        assertEquals("Node 'N100    ' already exists", e.getMessage());
+        assertEquals(100, network.getNodes().size());
+
+        // duplicate with the network
+        List<EsgNode> batch2 = Arrays.asList(new EsgNode(FR, n100, 380, 1, 0, false), nodes.get(5));
+        e = assertThrows(IllegalArgumentException.class, () -> network.addNodes(batch2));
+        assertEquals("Node 'N5      ' already exists", e.getMessage());
+        assertNull(network.getNode("N100    "));
+
+        List<EsgLoad> loads = new ArrayList<>();
+        for (EsgNode node : nodes) {
+            loads.add(new EsgLoad(EsgConnectionStatus.CONNECTED, new Esg8charName("L" + node.getName().toString().trim()), node.getName(), 0, 0, 1, 0, 0, 0));
+        }
+        network.addLoads(loads);
+        assertEquals(100, network.getLoads().size());
+        network.checkConsistency();
+    }
+
+    @Test
+    public void testBuilder() {
+        testBulkInsertion(EsgStorage.heap());
+        testBulkInsertion(EsgStorage.columnar());
+
+        EsgNetwork.Builder builder = EsgNetwork.builder();
+        assertThrows(IllegalArgumentException.class, () -> builder.setExpectedGeneratorCount(-1));
+        assertTrue(builder.build().getGenerators().isEmpty());
+    }
+
+    /**
+     * Add the elements from several threads, in a random order, with their position as sequence number
+     */
+    private interface Adder<T> {
+        void add(EsgConcurrentNetworkBuilder.Buffer buffer, long sequence, T element);
+    }
+
+    private static final int TASKS = 8;
+
+    private static <T> void addConcurrently(EsgConcurrentNetworkBuilder builder, Collection<T> elements, Adder<T> adder) {
+        List<T> list = new ArrayList<>(elements);
+        List<Integer> positions = new ArrayList<>();
+        IntStream.range(0, list.size()).forEach(positions::add);
+        Collections.shuffle(positions, new Random(list.size()));
+        // each task adds a shuffled share of the elements to its own buffer
+        IntStream.range(0, TASKS).parallel().forEach(task -> {
+            EsgConcurrentNetworkBuilder.Buffer buffer = builder.newBuffer();
+            for (int j = task; j < positions.size(); j += TASKS) {
+                int i = positions.get(j);
+                adder.add(buffer, i, list.get(i));
+            }
+        });
+    }
+
+    @Test
+    public void testConcurrentBuilder() throws IOException {
+        EsgNetwork expected = EsgFactory.createChain(500);
+
+        EsgConcurrentNetworkBuilder builder = EsgNetwork.concurrentBuilder().setStorage(EsgStorage.columnar());
+        addConcurrently(builder, expected.getAreas(), EsgConcurrentNetworkBuilder.Buffer::addArea);
+        addConcurrently(builder, expected.getNodes(), EsgConcurrentNetworkBuilder.Buffer::addNode);
+        addConcurrently(builder, expected.getLines(), EsgConcurrentNetworkBuilder.Buffer::addLine);
+        addConcurrently(builder, expected.getDetailedTwoWindingTransformers(), EsgConcurrentNetworkBuilder.Buffer::addDetailedTwoWindingTransformer);
+        addConcurrently(builder, expected.getGenerators(), EsgConcurrentNetworkBuilder.Buffer::addGenerator);
+        addConcurrently(builder, expected.getLoads(), EsgConcurrentNetworkBuilder.Buffer::addLoad);
+        EsgNetwork network = builder.build();
+
+        assertEquals(500, network.getNodes().size());
+        assertEquals(EsgStorageTest.write(expected), EsgStorageTest.write(network));
+        assertThrows(IllegalStateException.class, builder::build);
+        assertThrows(IllegalStateException.class, builder::newBuffer);
+
+        // the elements with the same sequence number keep the order of their buffer
+        EsgConcurrentNetworkBuilder builder2 = EsgNetwork.concurrentBuilder();
+        EsgConcurrentNetworkBuilder.Buffer buffer2 = builder2.newBuffer();
+        buffer2.addArea(0, new EsgArea(FR, EsgArea.Type.AC));
+        createNodes(3).forEach(node -> buffer2.addNode(1, node));
+        builder2.newBuffer().addNode(0, new EsgNode(FR, new Esg8charName("FIRST"), 380, 1, 0, false));
+        assertEquals(Arrays.asList("FIRST   ", "N0      ", "N1      ", "N2      "),
+                builder2.build().getNodes().stream().map(n -> n.getName().toString()).collect(Collectors.toList()));
+        // a buffer can't be filled once the network is built
+        assertThrows(IllegalStateException.class, () -> buffer2.addArea(0, new EsgArea(FR, EsgArea.Type.AC)));
+
+        // the duplicates are detected by the network
+        EsgConcurrentNetworkBuilder builder3 = EsgNetwork.concurrentBuilder();
+        builder3.newBuffer()
+                .addNode(0, createNodes(1).get(0))
+                .addNode(1, createNodes(1).get(0));
+        assertThrows(IllegalArgumentException.class, builder3::build);
+    }
+}
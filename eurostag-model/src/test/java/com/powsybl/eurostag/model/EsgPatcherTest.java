@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import com.powsybl.commons.AbstractConverterTest;
+import com.powsybl.eurostag.model.io.EsgPatcher;
+import com.powsybl.eurostag.model.io.EsgReader;
+import com.powsybl.eurostag.model.io.EsgRecordIndex;
+import com.powsybl.eurostag.model.io.EsgWriter;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public class EsgPatcherTest extends AbstractConverterTest {
+
+    @Test
+    public void test() throws IOException {
+        EsgNetwork network = EsgFactory.createChain(20);
+        network.addCapacitorsOrReactorBanks(new EsgCapacitorOrReactorBank(new Esg8charName("B5"), new Esg8charName("N5"), 1, 0, 10, 3,
+                EsgCapacitorOrReactorBank.RegulatingMode.NOT_REGULATING));
+        EsgGeneralParameters parameters = new EsgGeneralParameters();
+        parameters.setEditDate(LocalDate.parse("2021-06-01"));
+
+        Path base = fileSystem.getPath("base.ech");
+        EsgRecordIndex index = new EsgRecordIndex();
+        try (Writer writer = Files.newBufferedWriter(base, StandardCharsets.UTF_8)) {
+            new EsgWriter(network, parameters, new EsgSpecialParameters()).write(writer, "chain", index);
+        }
+
+        Path variant = fileSystem.getPath("variant.ech");
+        try (EsgPatcher patcher = EsgPatcher.copy(base, index, variant)) {
+            patcher.setValue(EsgPatcher.Field.GENERATOR_PGEN, "G3      ", 42.123456789);
+            patcher.setValue(EsgPatcher.Field.GENERATOR_VREGGE, "G3      ", 381);
+            patcher.setValue(EsgPatcher.Field.LOAD_PLDSTP, "L7      ", -0.5);
+            patcher.setValue(EsgPatcher.Field.LOAD_QLDSTP, "L7      ", 0);
+            patcher.setValue(EsgPatcher.Field.BANK_IELEBA, "B5      ", 3);
+            assertThrows(EsgException.class, () -> patcher.setValue(EsgPatcher.Field.BANK_IELEBA, "B5      ", 2.5));
+            assertThrows(EsgException.class, () -> patcher.setValue(EsgPatcher.Field.GENERATOR_PGEN, "UNKNOWN ", 1));
+        }
+
+        EsgReader reader = new EsgReader(variant);
+        EsgNetwork patched = reader.read();
+        EsgGenerator generator = patched.getGenerator("G3      ");
+        assertEquals(42.12345, generator.getPgen(), 0.0);
+        assertEquals(381, generator.getVregge(), 0.0);
+        assertEquals(network.getGenerator("G4      ").getPgen(), patched.getGenerator("G4      ").getPgen(), 0.0);
+        assertEquals(-0.5, patched.getLoad("L7      ").getPldstp(), 0.0);
+        assertEquals(0, patched.getLoad("L7      ").getQldstp(), 0.0);
+        assertEquals(3, patched.getCapacitorOrReactorBank("B5      ").getIeleba());
+
+        // the patched file is the one written from the patched network
+        StringWriter expected = new StringWriter();
+        new EsgWriter(patched, reader.getParameters(), reader.getSpecialParameters()).write(expected, reader.getComment());
+        assertEquals(expected.toString(), new String(Files.readAllBytes(variant), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testTooLarge() throws IOException {
+        // a sparse file on the default file system, larger than what a single buffer can map
+        Path file = Files.createTempFile("large", ".ech");
+        try {
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(Integer.MAX_VALUE + 1L);
+            }
+            EsgException e = assertThrows(EsgException.class, () -> new EsgPatcher(file, new EsgRecordIndex()));
+            assertEquals("File " + file + " is too large to be mapped: 2147483648 bytes", e.getMessage());
+            assertThrows(EsgException.class, () -> new EsgReader(file).index());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import com.powsybl.commons.AbstractConverterTest;
+import com.powsybl.eurostag.model.io.EsgReader;
+import com.powsybl.eurostag.model.io.EsgWriter;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public class EsgReaderTest extends AbstractConverterTest {
+
+    private EsgReader roundTrip(String resource) throws IOException {
+        // the resource is copied to the test file system, which does not support memory mapping
+        Path inputPath = fileSystem.getPath("input.ech");
+        try (InputStream is = getClass().getResourceAsStream("/" + resource)) {
+            Files.copy(is, inputPath);
+        }
+
+        EsgReader reader = new EsgReader(inputPath);
+        EsgNetwork network = reader.read();
+
+        Path actualPath = fileSystem.getPath(resource);
+        EsgWriter esgWriter = new EsgWriter(network, reader.getParameters(), reader.getSpecialParameters());
+        try (Writer writer = Files.newBufferedWriter(actualPath, StandardCharsets.UTF_8)) {
+            esgWriter.write(writer, reader.getComment());
+        }
+
+        try (InputStream actual = Files.newInputStream(actualPath)) {
+            compareTxt(getClass().getResourceAsStream("/" + resource), actual);
+        }
+        return reader;
+    }
+
+    @Test
+    public void test() throws IOException {
+        EsgReader reader = roundTrip("eurostag-tutorial-example1.ech");
+        assertEquals(LocalDate.parse("2016-03-01"), reader.getParameters().getEditDate());
+        assertEquals("sim1/InitialState", reader.getComment());
+        assertNotNull(reader.getSpecialParameters());
+    }
+
+    @Test
+    public void testHvdc() throws IOException {
+        roundTrip("eurostag-hvdc-test.ech");
+    }
+
+    @Test
+    public void testSeparateSlackBuses() throws IOException {
+        // this file has no special parameters, and its slack bus records are not written right after their node
+        Path file = fileSystem.getPath("four-substations.ech");
+        try (InputStream is = getClass().getResourceAsStream("/four-substations.ech")) {
+            Files.copy(is, file);
+        }
+        EsgReader reader = new EsgReader(file);
+        EsgNetwork network = reader.read();
+        assertNull(reader.getSpecialParameters());
+        assertEquals("fourSubstations/InitialState", reader.getComment());
+        assertTrue(network.getNode("S1VL2_11").isSlackBus());
+        assertTrue(network.getNode("S3VL1_6 ").isSlackBus());
+        assertFalse(network.getNode("S1VL2_13").isSlackBus());
+        assertEquals("FAKENOD1", network.getNodes().iterator().next().getName().toString());
+    }
+
+    @Test
+    public void testContent() throws IOException {
+        Path file = fileSystem.getPath("test.ech");
+        try (InputStream is = getClass().getResourceAsStream("/eurostag-tutorial-example1.ech")) {
+            Files.copy(is, file);
+        }
+        EsgNetwork network = new EsgReader(file).read();
+
+        EsgNode node = network.getNode("NGEN    ");
+        assertNotNull(node);
+        assertEquals(24.0, node.getVbase(), 0.0);
+        assertTrue(network.getNodes().stream().anyMatch(EsgNode::isSlackBus));
+        assertEquals(1, network.getGenerators().size());
+        assertEquals(1, network.getLoads().size());
+        assertEquals(2, network.getLines().size());
+        assertEquals(2, network.getDetailedTwoWindingTransformers().size());
+        // the references to the same node share the same name instance
+        assertSame(network.getGenerators().iterator().next().getZnodge(), node.getName());
+    }
+
+    private static String write(EsgNetwork network, EsgReader reader) throws IOException {
+        StringWriter writer = new StringWriter();
+        new EsgWriter(network, reader.getParameters(), reader.getSpecialParameters()).write(writer, reader.getComment());
+        return writer.toString();
+    }
+
+    @Test
+    public void testParallel() throws IOException {
+        EsgGeneralParameters parameters = new EsgGeneralParameters();
+        parameters.setEditDate(LocalDate.parse("2021-06-01"));
+        Path file = fileSystem.getPath("chain.ech");
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            new EsgWriter(EsgFactory.createChain(5000), parameters, new EsgSpecialParameters()).write(writer, "chain");
+        }
+        String expected = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+
+        EsgReader reader = new EsgReader(file);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            EsgNetwork network = reader.read(pool);
+            assertEquals(5000, network.getNodes().size());
+            assertEquals(expected, write(network, reader));
+        } finally {
+            pool.shutdown();
+        }
+
+        // same result when read sequentially
+        EsgNetwork network = reader.read();
+        assertEquals(expected, write(network, reader));
+    }
+
+    @Test
+    public void testParallelInvalidRecord() throws IOException {
+        Path file = fileSystem.getPath("chain.ech");
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            new EsgWriter(EsgFactory.createChain(5000), new EsgGeneralParameters(), new EsgSpecialParameters()).write(writer);
+        }
+        List<String> lines = new ArrayList<>(Files.readAllLines(file, StandardCharsets.UTF_8));
+        int index = lines.size() - 10;
+        lines.set(index, lines.get(index).substring(0, 12) + 'X' + lines.get(index).substring(13));
+        Files.write(file, lines, StandardCharsets.UTF_8);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            EsgException e = assertThrows(EsgException.class, () -> new EsgReader(file).read(pool));
+            assertTrue(e.getMessage().contains("Invalid connection status 'X'"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testInvalidRecord() throws IOException {
+        Path file = fileSystem.getPath("invalid.ech");
+        Files.write(file, "CH LOAD     X NGEN    \n".getBytes(StandardCharsets.UTF_8));
+        EsgException e = assertThrows(EsgException.class, () -> new EsgReader(file).read());
+        assertEquals("Invalid connection status 'X' at line 1", e.getMessage());
+    }
+}
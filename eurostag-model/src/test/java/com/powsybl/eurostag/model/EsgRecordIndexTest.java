@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import com.powsybl.commons.AbstractConverterTest;
+import com.powsybl.eurostag.model.io.EsgReader;
+import com.powsybl.eurostag.model.io.EsgRecordIndex;
+import com.powsybl.eurostag.model.io.EsgWriter;
+import com.powsybl.eurostag.model.io.RecordReader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public class EsgRecordIndexTest extends AbstractConverterTest {
+
+    @Test
+    public void test() throws IOException {
+        EsgNetwork network = EsgFactory.createChain(100);
+        Path file = fileSystem.getPath("chain.ech");
+        Path indexFile = fileSystem.getPath("chain.idx");
+        EsgRecordIndex index = new EsgRecordIndex();
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            new EsgWriter(network, new EsgGeneralParameters(), new EsgSpecialParameters()).write(writer, "chain", index);
+        }
+        index.save(indexFile);
+        String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        assertEquals(content.length(), index.getFileSize());
+
+        EsgRecordIndex loaded = EsgRecordIndex.load(indexFile);
+        assertEquals(index.size(), loaded.size());
+        assertEquals(1 + 100 + 99 + 100 + 100, loaded.size());
+        assertEquals(content.length(), loaded.getFileSize());
+
+        // the entries give the exact extent of the records
+        for (EsgRecordIndex.RecordType type : EsgRecordIndex.RecordType.values()) {
+            for (String key : index.getKeys(type)) {
+                EsgRecordIndex.Entry entry = loaded.getEntry(type, key);
+                String record = content.substring((int) entry.getOffset(), (int) entry.getOffset() + entry.getLength());
+                assertTrue(record.endsWith(System.lineSeparator()));
+                assertFalse(record.trim().isEmpty());
+            }
+        }
+
+        EsgReader reader = new EsgReader(file);
+        RecordReader recordReader = reader.getRecord(loaded, EsgRecordIndex.RecordType.NODE, "N42     ");
+        assertTrue(recordReader.nextLine());
+        assertEquals("N42", recordReader.getString(4, 11));
+        assertFalse(recordReader.nextLine());
+        assertNull(reader.getRecord(loaded, EsgRecordIndex.RecordType.NODE, "UNKNOWN "));
+
+        EsgNetwork partial = reader.read(loaded, EsgRecordIndex.RecordType.GENERATOR, Collections.singletonList("G42     "));
+        assertEquals(1, partial.getGenerators().size());
+        EsgGenerator generator = partial.getGenerator("G42     ");
+        assertEquals("N42     ", generator.getZnodge().toString());
+        assertEquals(network.getGenerator("G42     ").getPgen(), generator.getPgen(), 0.0);
+
+        // the slack bus line belongs to the record of its node
+        assertTrue(network.getNode("N0      ").isSlackBus());
+        for (EsgRecordIndex recordIndex : new EsgRecordIndex[] {loaded, reader.index()}) {
+            partial = reader.read(recordIndex, EsgRecordIndex.RecordType.NODE, Arrays.asList("N0      ", "N42     "));
+            assertTrue(partial.getNode("N0      ").isSlackBus());
+            assertFalse(partial.getNode("N42     ").isSlackBus());
+            assertEquals(network.getNode("N0      ").getVangl(), partial.getNode("N0      ").getVangl(), 0.0);
+        }
+
+        // the records of the transformers span several lines
+        partial = reader.read(loaded, EsgRecordIndex.RecordType.DETAILED_TWO_WINDING_TRANSFORMER, loaded.getKeys(EsgRecordIndex.RecordType.DETAILED_TWO_WINDING_TRANSFORMER));
+        assertEquals(network.getDetailedTwoWindingTransformers().size(), partial.getDetailedTwoWindingTransformers().size());
+        for (EsgDetailedTwoWindingTransformer transformer : partial.getDetailedTwoWindingTransformers()) {
+            assertEquals(3, transformer.getTaps().size());
+        }
+    }
+
+    @Test
+    public void testFileMismatch() throws IOException {
+        Path file = fileSystem.getPath("tutorial.ech");
+        EsgRecordIndex index = new EsgRecordIndex();
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            new EsgWriter(EsgFactory.create(), new EsgGeneralParameters(), new EsgSpecialParameters()).write(writer, null, index);
+        }
+        Files.write(file, "\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        EsgReader reader = new EsgReader(file);
+        EsgException e = assertThrows(EsgException.class, () -> reader.getRecord(index, EsgRecordIndex.RecordType.NODE, "NGEN    "));
+        assertTrue(e.getMessage().startsWith("The index does not match"));
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import com.powsybl.commons.AbstractConverterTest;
+import com.powsybl.eurostag.model.io.EsgSnapshot;
+import com.powsybl.eurostag.model.io.EsgWriter;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public class EsgSnapshotTest extends AbstractConverterTest {
+
+    private static String write(EsgSnapshot snapshot) throws IOException {
+        StringWriter writer = new StringWriter();
+        new EsgWriter(snapshot.getNetwork(), snapshot.getParameters(), snapshot.getSpecialParameters()).write(writer, "test");
+        return writer.toString();
+    }
+
+    private static EsgSnapshot createSnapshot(EsgNetwork network) {
+        EsgGeneralParameters parameters = new EsgGeneralParameters(30, 100, EsgGeneralParameters.StartMode.WARM_START, true, 0.001f, true,
+                LocalDate.parse("2016-03-01"));
+        return new EsgSnapshot(network, parameters, new EsgSpecialParameters(1, 0.2f, 0.2f, EsgSpecialParameters.ZMIN_LOW, 0.7f, 1.3f, 0.002f));
+    }
+
+    private EsgSnapshot roundTrip(EsgSnapshot snapshot) throws IOException {
+        Path file = fileSystem.getPath("/network.esgs");
+        snapshot.write(file);
+        EsgSnapshot snapshot2 = EsgSnapshot.read(file);
+        assertEquals(write(snapshot), write(snapshot2));
+        return snapshot2;
+    }
+
+    /**
+     * Add the elements missing in the factory networks
+     */
+    private static EsgNetwork addOtherElements(EsgNetwork network) {
+        Esg8charName nhv1 = new Esg8charName("NHV1");
+        Esg8charName nhv2 = new Esg8charName("NHV2");
+        Esg8charName nload = new Esg8charName("NLOAD");
+        network.addDissymmetricalBranch(new EsgDissymmetricalBranch(new EsgBranchName(nhv1, nhv2, '3'), EsgBranchConnectionStatus.OPEN_AT_RECEIVING_SIDE,
+                0.001, 0.01, 0, 0.1, 100, 0.002, 0.02, 0, 0.2));
+        network.addCapacitorsOrReactorBanks(new EsgCapacitorOrReactorBank(new Esg8charName("BANK"), nload, 1, 0, 20, 2,
+                EsgCapacitorOrReactorBank.RegulatingMode.NOT_REGULATING));
+        network.addStaticVarCompensator(new EsgStaticVarCompensator(new Esg8charName("SVC"), EsgConnectionStatus.CONNECTED, nhv2,
+                -100, 0, 100, EsgRegulatingMode.REGULATING, 390, 10));
+        EsgThreeWindingTransformer t3wt = new EsgThreeWindingTransformer(new EsgThreeWindingTransformer.EsgT3WName(new Esg8charName("T3W"),
+                nhv1, nhv2, nload), EsgThreeWindingTransformer.EsgT3WConnectionStatus.CLOSED_AT_ALL_SIDES, 0, 100, 100, 50, 0.1, 0.2, 0.3, 0, 1,
+                1, 1, null, Double.NaN, EsgThreeWindingTransformer.RegulatingMode.NOT_REGULATING);
+        t3wt.getTaps().add(new EsgThreeWindingTransformer.Tap(1, 0, 0, 0, 380, 380, 150, 10, 11, 12));
+        network.addThreeWindingTransformer(t3wt);
+        return network;
+    }
+
+    @Test
+    public void test() throws IOException {
+        EsgSnapshot snapshot = roundTrip(createSnapshot(addOtherElements(EsgFactory.create())));
+        assertEquals(30, snapshot.getParameters().getMaxNumIteration());
+        assertEquals(EsgGeneralParameters.StartMode.WARM_START, snapshot.getParameters().getStartMode());
+        assertEquals(LocalDate.parse("2016-03-01"), snapshot.getParameters().getEditDate());
+        assertEquals(EsgSpecialParameters.ZMIN_LOW, snapshot.getSpecialParameters().getZmin(), 0);
+        assertNull(snapshot.getNetwork().getDetailedTwoWindingTransformer("NGEN    -NHV1    -1").getZbusr());
+        assertEquals(1, snapshot.getNetwork().getThreeWindingTransformers().iterator().next().getTaps().size());
+
+        roundTrip(createSnapshot(EsgFactory.createHvdc()));
+        roundTrip(createSnapshot(EsgFactory.createChain(100)));
+    }
+
+    @Test
+    public void testSharedTaps() throws IOException {
+        EsgNetwork network = EsgFactory.create();
+        List<EsgDetailedTwoWindingTransformer.Tap> taps = Collections.unmodifiableList(Arrays.asList(
+                new EsgDetailedTwoWindingTransformer.Tap(1, 0, 400, 380, 1.8),
+                new EsgDetailedTwoWindingTransformer.Tap(2, 0, 380, 380, 1.8)));
+        for (char xpp : new char[] {'3', '4'}) {
+            network.addDetailedTwoWindingTransformer(new EsgDetailedTwoWindingTransformer(new EsgBranchName(new Esg8charName("NHV1"), new Esg8charName("NHV2"), xpp),
+                    EsgBranchConnectionStatus.CLOSED_AT_BOTH_SIDE, 0, 100, 0.02, 0, 1, 1, 1, null, Double.NaN, Double.NaN, Double.NaN,
+                    EsgDetailedTwoWindingTransformer.RegulatingMode.NOT_REGULATING, taps));
+        }
+
+        EsgSnapshot snapshot = roundTrip(createSnapshot(network));
+        Iterator<EsgDetailedTwoWindingTransformer> it = snapshot.getNetwork().getDetailedTwoWindingTransformers().iterator();
+        assertFalse(it.next().hasSharedTaps());
+        assertFalse(it.next().hasSharedTaps());
+        EsgDetailedTwoWindingTransformer twt3 = it.next();
+        EsgDetailedTwoWindingTransformer twt4 = it.next();
+        assertTrue(twt3.hasSharedTaps());
+        assertSame(twt3.getTaps(), twt4.getTaps());
+        assertEquals(2, twt4.getTaps().size());
+    }
+
+    @Test
+    public void testMemoryMapped() throws IOException {
+        // memory mapping is not supported by the in-memory file system
+        Path file = Files.createTempFile("network", ".esgs");
+        try {
+            EsgSnapshot snapshot = createSnapshot(EsgFactory.createChain(100));
+            snapshot.write(file);
+            EsgSnapshot snapshot2 = EsgSnapshot.read(file, EsgStorage.columnar(), true);
+            assertEquals(write(snapshot), write(snapshot2));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testInvalid() throws IOException {
+        Path file = fileSystem.getPath("/network.esgs");
+        createSnapshot(EsgFactory.create()).write(file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        EsgException e = assertThrows(EsgException.class, () -> EsgSnapshot.read(ByteBuffer.wrap(bytes, 0, bytes.length - 1), EsgStorage.heap()));
+        assertEquals("Truncated EsgNetwork snapshot", e.getMessage());
+
+        // the start mode follows the magic number, the version, the maximum number of iterations and the tolerance
+        byte startMode = bytes[16];
+        bytes[16] = 5;
+        e = assertThrows(EsgException.class, () -> EsgSnapshot.read(ByteBuffer.wrap(bytes), EsgStorage.heap()));
+        assertEquals("Invalid StartMode ordinal 5 in the EsgNetwork snapshot", e.getMessage());
+        bytes[16] = -1;
+        e = assertThrows(EsgException.class, () -> EsgSnapshot.read(ByteBuffer.wrap(bytes), EsgStorage.heap()));
+        assertEquals("Invalid StartMode ordinal -1 in the EsgNetwork snapshot", e.getMessage());
+        bytes[16] = startMode;
+
+        bytes[7] = 2;
+        e = assertThrows(EsgException.class, () -> EsgSnapshot.read(ByteBuffer.wrap(bytes), EsgStorage.heap()));
+        assertEquals("Unsupported EsgNetwork snapshot version 2", e.getMessage());
+
+        bytes[0] = 0;
+        e = assertThrows(EsgException.class, () -> EsgSnapshot.read(ByteBuffer.wrap(bytes), EsgStorage.heap()));
+        assertEquals("Not an EsgNetwork snapshot", e.getMessage());
+    }
+}
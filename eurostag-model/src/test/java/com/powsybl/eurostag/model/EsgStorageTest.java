@@ -0,0 +1,289 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import com.powsybl.eurostag.model.io.EsgWriter;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public class EsgStorageTest {
+
+    static String write(EsgNetwork network) throws IOException {
+        EsgGeneralParameters parameters = new EsgGeneralParameters();
+        parameters.setEditDate(LocalDate.parse("2016-03-01"));
+        StringWriter writer = new StringWriter();
+        new EsgWriter(network, parameters, new EsgSpecialParameters()).write(writer, "test");
+        return writer.toString();
+    }
+
+    @Test
+    public void testSameOutput() throws IOException {
+        assertEquals(write(EsgFactory.create()), write(EsgFactory.create(EsgStorage.columnar())));
+        assertEquals(write(EsgFactory.createHvdc()), write(EsgFactory.createHvdc(EsgStorage.columnar())));
+        // larger than the initial capacity of the columns
+        assertEquals(write(EsgFactory.createChain(100)), write(EsgFactory.createChain(100, EsgStorage.columnar())));
+    }
+
+    @Test
+    public void testOffHeap() throws IOException {
+        assertEquals(write(EsgFactory.create()), write(EsgFactory.create(EsgStorage.offHeap())));
+        assertEquals(write(EsgFactory.createHvdc()), write(EsgFactory.createHvdc(EsgStorage.offHeap())));
+        assertEquals(write(EsgFactory.createChain(100)), write(EsgFactory.createChain(100, EsgStorage.offHeap())));
+
+        Path directory = Files.createTempDirectory("esg");
+        try {
+            EsgNetwork network = EsgFactory.createChain(100, EsgStorage.memoryMapped(directory));
+            assertEquals(write(EsgFactory.createChain(100)), write(network));
+            assertEquals("N11     ", network.getLine("N11     -N12     -1").getName().getNode1Name().toString());
+            network.getGenerator("G3      ").setVregge(400);
+            assertEquals(400, network.getGenerator("G3      ").getVregge(), 0);
+            // the mapped files are deleted
+            try (Stream<Path> files = Files.list(directory)) {
+                assertEquals(0, files.count());
+            }
+        } finally {
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void testViews() {
+        EsgNetwork network = EsgFactory.createChain(50, EsgStorage.columnar());
+        assertEquals(50, network.getNodes().size());
+        assertEquals(45, network.getLines().size());
+
+        EsgNode node = network.getNode("N12     ");
+        assertEquals("N12     ", node.getName().toString());
+        assertEquals("FR", node.getArea().toString());
+        assertEquals(0.12, node.getVangl(), 0);
+        assertFalse(node.isSlackBus());
+        assertTrue(network.getNode("N0      ").isSlackBus());
+        assertNull(network.getNode("N12"));
+
+        EsgLine line = network.getLine("N11     -N12     -1");
+        assertEquals("N11     ", line.getName().getNode1Name().toString());
+        assertEquals('1', line.getName().getXpp());
+        assertEquals(EsgBranchConnectionStatus.CLOSED_AT_BOTH_SIDE, line.getStatus());
+        assertEquals(0.25, line.getBs(), 0);
+
+        EsgLoad load = network.getLoad("L12     ");
+        assertEquals("N12     ", load.getZnodlo().toString());
+        assertEquals(15, load.getPldstp(), 0);
+
+        network.removeLoad("L12     ");
+        network.removeNode("N49     ");
+        assertNull(network.getLoad("L12     "));
+        assertEquals(49, network.getLoads().size());
+        List<String> names = network.getNodes().stream().map(n -> n.getName().toString().trim()).collect(Collectors.toList());
+        assertEquals(49, names.size());
+        assertEquals("N48", names.get(48));
+
+        // a removed element may be added again, at the end
+        network.addLoad(new EsgLoad(EsgConnectionStatus.NOT_CONNECTED, new Esg8charName("L12"), new Esg8charName("N12"), 0, 0, 1, 0, 0, 0));
+        assertEquals(EsgConnectionStatus.NOT_CONNECTED, network.getLoad("L12     ").getIloadst());
+    }
+
+    @Test
+    public void testFlyweights() {
+        EsgNetwork network = EsgFactory.createChain(50, EsgStorage.columnar());
+
+        // the iteration moves a single view
+        Iterator<EsgNode> it = network.getNodes().iterator();
+        EsgNode first = it.next();
+        EsgNode second = it.next();
+        assertSame(first, second);
+        assertEquals("N1      ", second.getName().toString());
+
+        // the copies have their own views
+        List<EsgNode> nodes = new ArrayList<>(network.getNodes());
+        assertEquals("N0      ", nodes.get(0).getName().toString());
+        assertEquals("N49     ", nodes.get(49).getName().toString());
+        List<EsgNode> collected = network.getNodes().stream().collect(Collectors.toList());
+        assertEquals("N49     ", collected.get(49).getName().toString());
+
+        // the names are decoded once, and interned between the columns
+        EsgGenerator generator = network.getGenerator("G12     ");
+        assertSame(generator.getZnamge(), network.getGenerator("G12     ").getZnamge());
+        assertSame(network.getNode("N12     ").getName(), generator.getZnodge());
+        EsgLine line = network.getLine("N11     -N12     -1");
+        assertSame(line.getName(), network.getLine("N11     -N12     -1").getName());
+
+    }
+
+    @Test
+    public void testOffHeapSlots() {
+        // grown several times, the previous buffers being released
+        EsgNetwork network = EsgFactory.createChain(200, EsgStorage.offHeap());
+        assertEquals(0.12, network.getNode("N12     ").getVangl(), 0);
+        assertEquals(0, new OffHeapGeneratorStore(OffHeapStorage.DIRECT, 1).getSlotSize() % Double.BYTES);
+        assertEquals(0, new OffHeapNodeStore(OffHeapStorage.DIRECT, 1).getSlotSize() % Double.BYTES);
+
+        // the names are not decoded again on each access
+        EsgGenerator generator = network.getGenerator("G12     ");
+        assertSame(generator.getZnodge(), network.getGenerator("G12     ").getZnodge());
+        assertEquals("N12     ", generator.getZnodge().toString());
+        assertSame(network.getNode("N12     ").getArea(), network.getNode("N13     ").getArea());
+        EsgLine line = network.getLine("N11     -N12     -1");
+        assertSame(line.getName(), network.getLine("N11     -N12     -1").getName());
+        assertEquals("N12     ", network.getLine("N12     -N13     -1").getName().getNode1Name().toString());
+    }
+
+    @Test
+    public void testCheckConsistency() {
+        EsgNetwork network = EsgFactory.createChain(20, EsgStorage.columnar());
+        EsgGenerator generator = network.getGenerator("G3      ");
+        generator.setVregge(400);
+        assertEquals(400, network.getGenerator("G3      ").getVregge(), 0);
+
+        // the small reactive range is fixed in the columns
+        network.addGenerator(new EsgGenerator(new Esg8charName("G3BIS"), new Esg8charName("N3"), 0, 10, 100, 0, 0, 0.5,
+                EsgRegulatingMode.REGULATING, 400, new Esg8charName("N3"), 0, EsgConnectionStatus.CONNECTED));
+        network.checkConsistency();
+        assertEquals(EsgRegulatingMode.NOT_REGULATING, network.getGenerator("G3BIS   ").getXregge());
+        assertEquals(EsgRegulatingMode.REGULATING, network.getGenerator("G3      ").getXregge());
+    }
+
+    private static void testFreeze(EsgStorage storage) throws IOException {
+        EsgNetwork network = EsgFactory.createChain(50, storage);
+        network.removeLoad("L12     ");
+        network.checkConsistency();
+        String expected = write(network);
+
+        EsgNetwork frozen = network.freeze();
+        assertTrue(frozen.isFrozen());
+        assertFalse(network.isFrozen());
+        assertSame(frozen, frozen.freeze());
+        assertEquals(49, frozen.getLoads().size());
+        assertNull(frozen.getLoad("L12     "));
+        assertEquals("N13     ", frozen.getLoad("L13     ").getZnodlo().toString());
+        assertEquals("N11     ", frozen.getLine("N11     -N12     -1").getName().getNode1Name().toString());
+        assertEquals(expected, write(frozen));
+
+        // the frozen network does not follow the changes of the original one
+        network.removeNode("N49     ");
+        assertEquals(50, frozen.getNodes().size());
+
+        Esg8charName name = new Esg8charName("L12");
+        EsgLoad load = new EsgLoad(EsgConnectionStatus.CONNECTED, name, name, 0, 0, 0, 0, 0, 0);
+        assertThrows(UnsupportedOperationException.class, () -> frozen.addLoad(load));
+        assertThrows(UnsupportedOperationException.class, () -> frozen.removeLoad("L13     "));
+        assertThrows(UnsupportedOperationException.class, () -> frozen.getLoads().clear());
+        // a frozen network is only validated, its fixes are applied to a variant
+        assertThrows(UnsupportedOperationException.class, frozen::checkConsistency);
+        assertTrue(frozen.newVariant().repair().isEmpty());
+
+        // the frozen network is written concurrently
+        List<String> outputs = IntStream.range(0, 8).parallel().mapToObj(i -> {
+            try {
+                return write(frozen);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).collect(Collectors.toList());
+        outputs.forEach(output -> assertEquals(expected, output));
+    }
+
+    @Test
+    public void testFrozenViews() {
+        for (EsgStorage storage : Arrays.asList(EsgStorage.columnar(), EsgStorage.offHeap())) {
+            EsgNetwork frozen = EsgFactory.createChain(20, storage).freeze();
+            EsgGenerator generator = frozen.getGenerator("G3      ");
+            assertThrows(UnsupportedOperationException.class, () -> generator.setVregge(400));
+            assertThrows(UnsupportedOperationException.class, () -> generator.setXregge(EsgRegulatingMode.NOT_REGULATING));
+            assertEquals(390, frozen.getGenerator("G3      ").getVregge(), 0);
+            assertEquals(EsgRegulatingMode.REGULATING, frozen.getGenerator("G3      ").getXregge());
+        }
+    }
+
+    @Test
+    public void testFreeze() throws IOException {
+        testFreeze(EsgStorage.heap());
+        testFreeze(EsgStorage.columnar());
+        testFreeze(EsgStorage.offHeap());
+    }
+
+    private static EsgGenerator createGenerator(String name, String node, double vregge, EsgConnectionStatus status) {
+        return new EsgGenerator(new Esg8charName(name), new Esg8charName(node), 0, 12.5, 100, -50, 0, 50,
+                EsgRegulatingMode.REGULATING, vregge, new Esg8charName(node), 0, status);
+    }
+
+    private static void change(EsgNetwork network, int i) {
+        network.replaceGenerator(createGenerator("G5", "N5", 400 + i, EsgConnectionStatus.CONNECTED));
+        network.removeLoad("L3      ");
+        network.addLoad(new EsgLoad(EsgConnectionStatus.CONNECTED, new Esg8charName("L3BIS"), new Esg8charName("N3"), 0, 0, i, 0, 0, 0));
+    }
+
+    private static EsgNetwork createBase() {
+        EsgNetwork network = EsgFactory.createChain(30);
+        network.addGenerator(createGenerator("GD5", "N5", 390, EsgConnectionStatus.NOT_CONNECTED));
+        return network;
+    }
+
+    @Test
+    public void testVariants() throws IOException {
+        EsgNetwork base = createBase();
+        assertThrows(IllegalStateException.class, base::newVariant);
+        String expectedBase = write(base);
+        EsgNetwork frozen = base.freeze();
+
+        List<EsgNetwork> variants = IntStream.range(0, 20).mapToObj(i -> {
+            EsgNetwork variant = frozen.newVariant();
+            change(variant, i);
+            return variant;
+        }).collect(Collectors.toList());
+        assertEquals(30, variants.get(0).getLoads().size());
+        assertNull(variants.get(0).getLoad("L3      "));
+        assertEquals(400, variants.get(0).getGenerator("G5      ").getVregge(), 0);
+
+        // the variants are written concurrently, the inherited disconnected generator being fixed in each of them
+        List<String> outputs = variants.parallelStream().map(variant -> {
+            try {
+                return write(variant);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).collect(Collectors.toList());
+        for (int i = 0; i < variants.size(); i++) {
+            EsgNetwork expected = createBase();
+            change(expected, i);
+            assertEquals(write(expected), outputs.get(i));
+            assertEquals(400 + i, variants.get(i).getGenerator("GD5     ").getVregge(), 0);
+        }
+
+        // the parent is not modified
+        assertEquals(390, frozen.getGenerator("GD5     ").getVregge(), 0);
+        assertEquals(expectedBase, write(frozen));
+
+        // variant of a variant
+        EsgNetwork variant2 = variants.get(0).freeze().newVariant();
+        variant2.removeGenerator("GD5     ");
+        variant2.replaceLoad(new EsgLoad(EsgConnectionStatus.NOT_CONNECTED, new Esg8charName("L3BIS"), new Esg8charName("N3"), 0, 0, 0, 0, 0, 0));
+        assertEquals(30, variant2.getGenerators().size());
+        assertEquals(EsgConnectionStatus.NOT_CONNECTED, variant2.getLoad("L3BIS   ").getIloadst());
+        assertEquals(EsgConnectionStatus.CONNECTED, variants.get(0).getLoad("L3BIS   ").getIloadst());
+        assertThrows(IllegalArgumentException.class, () -> variant2.replaceLoad(new EsgLoad(EsgConnectionStatus.CONNECTED,
+                new Esg8charName("L3"), new Esg8charName("N3"), 0, 0, 0, 0, 0, 0)));
+    }
+}
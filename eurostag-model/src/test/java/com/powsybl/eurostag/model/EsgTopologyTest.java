@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public class EsgTopologyTest {
+
+    @Test
+    public void test() {
+        EsgTopology topology = EsgFactory.create().getTopology();
+        assertEquals(6, topology.getNodeCount());
+        assertEquals(2, topology.getIndex("NGEN    "));
+        assertEquals(-1, topology.getIndex("UNKNOWN "));
+        assertEquals("NHV1    ", topology.getNodeName(3));
+        assertFalse(topology.isDCNode(3));
+
+        assertEquals(3, topology.getDegree("NHV1    "));
+        assertEquals(0, topology.getDegree("FAKENOD1"));
+        assertEquals(3, topology.getNeighbors(topology.getIndex("NHV1    ")).length);
+        assertEquals(Arrays.asList("NHV1    -NHV2    -1", "NHV1    -NHV2    -2", "NGEN    -NHV1    -1"),
+                topology.getConnectedBranches("NHV1    "));
+        assertThrows(IllegalArgumentException.class, () -> topology.getDegree("UNKNOWN "));
+
+        // the two fake nodes are isolated
+        assertEquals(3, topology.getComponentCount());
+        assertEquals(topology.getComponent("NGEN    "), topology.getComponent("NLOAD   "));
+        assertNotEquals(topology.getComponent("FAKENOD1"), topology.getComponent("FAKENOD2"));
+        assertTrue(topology.getIslandsWithoutSlackBus().isEmpty());
+    }
+
+    @Test
+    public void testHvdc() {
+        EsgTopology topology = EsgFactory.createHvdc().getTopology();
+        assertEquals(7, topology.getNodeCount());
+        assertTrue(topology.isDCNode(topology.getIndex("DC_C1   ")));
+        assertEquals(Arrays.asList("DC_C1   -DC_C2   -1", "C1      "), topology.getConnectedBranches("DC_C1   "));
+
+        // both AC sides are linked through the DC nodes
+        assertEquals(3, topology.getComponentCount());
+        assertEquals(topology.getComponent("B1      "), topology.getComponent("VL2_0   "));
+        assertTrue(topology.getIslandsWithoutSlackBus().isEmpty());
+    }
+
+    @Test
+    public void testIslands() {
+        EsgNetwork network = EsgFactory.createChain(5);
+        EsgLine line = network.getLine("N2      -N3      -1");
+        network.replaceLine(new EsgLine(line.getName(), EsgBranchConnectionStatus.OPEN_AT_SENDING_SIDE, line.getRb(), line.getRxb(),
+                line.getGs(), line.getBs(), line.getRate()));
+
+        EsgTopology topology = network.getTopology();
+        assertEquals(2, topology.getDegree("N2      "));
+        assertEquals(2, topology.getComponentCount());
+        assertEquals(Collections.singletonList(Arrays.asList("N3      ", "N4      ")), topology.getIslandsWithoutSlackBus());
+
+        // the topology is cached until the nodes or the branches are modified
+        assertSame(topology, network.getTopology());
+        network.getGenerator("G1      ").setVregge(400);
+        assertSame(topology, network.getTopology());
+        network.replaceLine(line);
+        assertNotSame(topology, network.getTopology());
+        assertTrue(network.getTopology().getIslandsWithoutSlackBus().isEmpty());
+        EsgNetwork frozen = network.freeze();
+        assertSame(frozen.getTopology(), frozen.getTopology());
+
+        // the islands are reported to the given consumer
+        network.removeLine("N2      -N3      -1");
+        List<List<String>> islands = new ArrayList<>();
+        network.validate(islands::add);
+        assertEquals(Collections.singletonList(Arrays.asList("N3      ", "N4      ")), islands);
+    }
+}
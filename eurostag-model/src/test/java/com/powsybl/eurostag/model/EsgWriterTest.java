@@ -7,16 +7,29 @@
 package com.powsybl.eurostag.model;
 
 import com.powsybl.commons.AbstractConverterTest;
+import com.powsybl.eurostag.model.io.EsgReader;
+import com.powsybl.eurostag.model.io.EsgRecordIndex;
 import com.powsybl.eurostag.model.io.EsgWriter;
+import com.powsybl.eurostag.model.io.RecordSink;
+import com.powsybl.eurostag.model.io.RecordWriter;
 import org.joda.time.LocalDate;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 
 /**
  * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
@@ -51,4 +64,174 @@ public class EsgWriterTest extends AbstractConverterTest {
         test(network, "hvdctest/InitialState", "2016-01-01", "eurostag-hvdc-test.ech");
     }
 
+    /**
+     * Sink forwarding to a record writer, and counting the typed fields
+     */
+    private static final class CountingSink implements RecordSink {
+
+        private final RecordWriter delegate;
+
+        private int names = 0;
+
+        private int lines = 0;
+
+        private CountingSink(Writer writer) {
+            delegate = new RecordWriter(writer);
+        }
+
+        @Override
+        public void addValue(double value, int colStart, int colEnd) throws IOException {
+            delegate.addValue(value, colStart, colEnd);
+        }
+
+        @Override
+        public void addValue(int value, int colStart, int colEnd) throws IOException {
+            delegate.addValue(value, colStart, colEnd);
+        }
+
+        @Override
+        public void addValue(String value, int colStart, int colEnd, Alignment alignment) throws IOException {
+            delegate.addValue(value, colStart, colEnd, alignment);
+        }
+
+        @Override
+        public void addValue(EsgName name, int colStart, int colEnd) throws IOException {
+            names++;
+            RecordSink.super.addValue(name, colStart, colEnd);
+        }
+
+        @Override
+        public void addLines(CharSequence lines) throws IOException {
+            delegate.addLines(lines);
+        }
+
+        @Override
+        public void addNewLine() throws IOException {
+            lines++;
+            delegate.addNewLine();
+        }
+
+        @Override
+        public long getPosition() {
+            return delegate.getPosition();
+        }
+    }
+
+    @Test
+    public void testSink() throws IOException {
+        EsgGeneralParameters parameters = new EsgGeneralParameters();
+        parameters.setEditDate(LocalDate.parse("2016-03-01"));
+        EsgWriter esgWriter = new EsgWriter(EsgFactory.create(), parameters, new EsgSpecialParameters());
+
+        StringWriter expected = new StringWriter();
+        esgWriter.write(expected, "sim1/InitialState");
+        StringWriter actual = new StringWriter();
+        CountingSink sink = new CountingSink(actual);
+        esgWriter.write(sink, "sim1/InitialState", null);
+
+        assertEquals(expected.toString(), actual.toString());
+        assertEquals(expected.toString().length(), sink.getPosition());
+        assertEquals(expected.toString().split(System.lineSeparator(), -1).length - 1, sink.lines);
+        // the names of the elements and their references are written as names, not as strings
+        assertEquals(29, sink.names);
+    }
+
+    @Test
+    public void testSections() throws IOException {
+        EsgGeneralParameters parameters = new EsgGeneralParameters();
+        parameters.setEditDate(LocalDate.parse("2016-01-01"));
+        EsgWriter esgWriter = new EsgWriter(EsgFactory.createHvdc(), parameters, new EsgSpecialParameters());
+        Path directory = Files.createDirectory(fileSystem.getPath("sections"));
+        Path file = fileSystem.getPath("hvdc.ech");
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            esgWriter.write(file, "hvdctest/InitialState", directory, pool);
+            try (InputStream actual = Files.newInputStream(file)) {
+                compareTxt(getClass().getResourceAsStream("/eurostag-hvdc-test.ech"), actual);
+            }
+
+            // the files of the reused sections are kept when their content is unchanged
+            Path nodes = directory.resolve(EsgWriter.Section.NODES.getFileName());
+            Path header = directory.resolve(EsgWriter.Section.HEADER.getFileName());
+            Files.setLastModifiedTime(nodes, FileTime.fromMillis(0));
+            Files.setLastModifiedTime(header, FileTime.fromMillis(0));
+            Map<EsgWriter.Section, Path> files = esgWriter.writeSections(directory, "hvdctest/InitialState",
+                    EnumSet.of(EsgWriter.Section.HEADER, EsgWriter.Section.NODES), pool);
+            assertEquals(Arrays.asList(EsgWriter.Section.values()), new ArrayList<>(files.keySet()));
+            assertEquals(0, Files.getLastModifiedTime(nodes).toMillis());
+            // the header is never reused
+            assertNotEquals(0L, Files.getLastModifiedTime(header).toMillis());
+
+            // the sections of another network do not match the fingerprints and are written again
+            EsgWriter otherWriter = new EsgWriter(EsgFactory.create(), parameters, new EsgSpecialParameters());
+            files = otherWriter.writeSections(directory, "hvdctest/InitialState", EnumSet.allOf(EsgWriter.Section.class), pool);
+            assertNotEquals(0L, Files.getLastModifiedTime(nodes).toMillis());
+            EsgWriter.concatenate(files.values(), file);
+            StringWriter expected = new StringWriter();
+            otherWriter.write(expected, "hvdctest/InitialState", null);
+            assertEquals(expected.toString(), new String(Files.readAllBytes(file), EsgWriter.CHARSET));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testCharset() throws IOException {
+        EsgNetwork network = EsgFactory.createChain(20);
+        Esg2charName area = network.getNode("N1      ").getArea();
+        // a name of the charset, and a name out of it, written as '?'
+        network.addNode(new EsgNode(area, new Esg8charName("N\u00c91"), 380, 1, 0, false));
+        network.addNode(new EsgNode(area, new Esg8charName("N\u20ac2"), 380, 1, 0, false));
+        network.addNode(new EsgNode(area, new Esg8charName("N3BIS"), 380, 1, 0, false));
+
+        Path file = fileSystem.getPath("charset.ech");
+        EsgRecordIndex index = new EsgRecordIndex();
+        try (Writer writer = Files.newBufferedWriter(file, EsgWriter.CHARSET)) {
+            new EsgWriter(network, new EsgGeneralParameters(), new EsgSpecialParameters()).setRepair(false).write(writer, "r\u00e9seau", index);
+        }
+        // the offsets of the index are counted in bytes
+        assertEquals(Files.size(file), index.getFileSize());
+        EsgReader reader = new EsgReader(file);
+        EsgRecordIndex readIndex = reader.index();
+        for (String key : index.getKeys(EsgRecordIndex.RecordType.NODE)) {
+            assertEquals(readIndex.getEntry(EsgRecordIndex.RecordType.NODE, key).getOffset(), index.getEntry(EsgRecordIndex.RecordType.NODE, key).getOffset());
+        }
+        EsgNetwork read = reader.read(index, EsgRecordIndex.RecordType.NODE, Arrays.asList("N\u00c91     ", "N?2     ", "N3BIS   "));
+        assertEquals(Arrays.asList("N\u00c91     ", "N?2     ", "N3BIS   "),
+                read.getNodes().stream().map(node -> node.getName().toString()).collect(Collectors.toList()));
+        reader.read();
+        assertEquals("r\u00e9seau", reader.getComment());
+    }
+
+    @Test
+    public void testSharedTaps() throws IOException {
+        EsgNetwork network = EsgFactory.create();
+        List<EsgDetailedTwoWindingTransformer.Tap> taps = Collections.unmodifiableList(Arrays.asList(
+                new EsgDetailedTwoWindingTransformer.Tap(1, 0, 400, 380, 1.8),
+                new EsgDetailedTwoWindingTransformer.Tap(2, 0, 380, 380, 1.8)));
+        for (char xpp : new char[] {'3', '4'}) {
+            network.addDetailedTwoWindingTransformer(new EsgDetailedTwoWindingTransformer(new EsgBranchName(new Esg8charName("NHV1"), new Esg8charName("NHV2"), xpp),
+                    EsgBranchConnectionStatus.CLOSED_AT_BOTH_SIDE, 0, 100, 0.02, 0, 1, 1, 1, null, Double.NaN, Double.NaN, Double.NaN,
+                    EsgDetailedTwoWindingTransformer.RegulatingMode.NOT_REGULATING, taps));
+        }
+
+        // the shared table is formatted once, then added as lines to the records of both transformers
+        Path file = fileSystem.getPath("shared-taps.ech");
+        EsgRecordIndex index = new EsgRecordIndex();
+        try (Writer writer = Files.newBufferedWriter(file, EsgWriter.CHARSET)) {
+            new EsgWriter(network, new EsgGeneralParameters(), new EsgSpecialParameters()).write(writer, null, index);
+        }
+        assertEquals(Files.size(file), index.getFileSize());
+        Iterator<EsgDetailedTwoWindingTransformer> it = new EsgReader(file).read().getDetailedTwoWindingTransformers().iterator();
+        it.next();
+        it.next();
+        for (int i = 0; i < 2; i++) {
+            List<EsgDetailedTwoWindingTransformer.Tap> readTaps = it.next().getTaps();
+            assertEquals(2, readTaps.size());
+            assertEquals(400, readTaps.get(0).getUno1(), 0);
+            assertEquals(380, readTaps.get(1).getUno1(), 0);
+        }
+        assertFalse(it.hasNext());
+    }
 }
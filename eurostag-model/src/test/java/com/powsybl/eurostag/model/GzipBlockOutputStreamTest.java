@@ -0,0 +1,191 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.powsybl.eurostag.model.io.GzipBlockOutputStream;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public class GzipBlockOutputStreamTest {
+
+    private static byte[] createData() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            builder.append("G  G").append(i).append("       Y N").append(i).append("      0.    12.5    100.\n");
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] decompress(byte[] compressed) throws IOException {
+        try (GZIPInputStream is = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return ByteStreams.toByteArray(is);
+        }
+    }
+
+    private static void write(OutputStream os, byte[] data) throws IOException {
+        // both single bytes and arrays are written
+        os.write(data[0]);
+        os.write(data, 1, 1000);
+        os.write(data, 1001, data.length - 1001);
+        os.close();
+    }
+
+    @Test
+    public void testGzip() throws IOException {
+        byte[] data = createData();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        write(GzipBlockOutputStream.gzip(compressed, 4096, 2), data);
+        assertArrayEquals(data, decompress(compressed.toByteArray()));
+    }
+
+    @Test
+    public void testParallel() throws IOException {
+        byte[] data = createData();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            write(GzipBlockOutputStream.parallel(compressed, executor, 4096, 8), data);
+            // the concatenated members are read as a single stream
+            assertArrayEquals(data, decompress(compressed.toByteArray()));
+
+            // an empty stream is still a valid gzip file
+            ByteArrayOutputStream empty = new ByteArrayOutputStream();
+            GzipBlockOutputStream.parallel(empty, executor, 4096, 8).close();
+            assertEquals(0, decompress(empty.toByteArray()).length);
+
+            // the executor of the caller is not shut down
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelOwnedExecutor() throws IOException {
+        byte[] data = createData();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        write(GzipBlockOutputStream.parallel(compressed, 2, 4096, 4), data);
+        assertArrayEquals(data, decompress(compressed.toByteArray()));
+
+        assertThrows(IllegalArgumentException.class, () -> GzipBlockOutputStream.parallel(compressed, 0, 4096, 4));
+    }
+
+    @Test
+    public void testClose() throws IOException {
+        AtomicInteger closed = new AtomicInteger();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed.incrementAndGet();
+            }
+        };
+        GzipBlockOutputStream os = GzipBlockOutputStream.gzip(compressed, 4096, 2);
+        os.write(createData());
+        os.close();
+        // closing again has no effect
+        os.close();
+        assertTrue(closed.get() > 0);
+        assertThrows(IOException.class, () -> os.write(new byte[8192]));
+        assertArrayEquals(createData(), decompress(compressed.toByteArray()));
+    }
+
+    @Test
+    public void testInterrupted() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch blocked = new CountDownLatch(1);
+        try {
+            // the compression thread is busy, so that the stream has to wait for it
+            executor.submit(() -> {
+                blocked.await();
+                return null;
+            });
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            GzipBlockOutputStream os = GzipBlockOutputStream.parallel(compressed, executor, 16, 1);
+            os.write(new byte[32]);
+            Thread.currentThread().interrupt();
+            assertThrows(InterruptedIOException.class, () -> os.write(new byte[16]));
+            // the interruption is kept for the caller
+            assertTrue(Thread.interrupted());
+
+            blocked.countDown();
+            os.close();
+            assertEquals(32, decompress(compressed.toByteArray()).length);
+        } finally {
+            blocked.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testError() {
+        AtomicInteger writes = new AtomicInteger();
+        AtomicInteger runningWrites = new AtomicInteger();
+        AtomicBoolean closed = new AtomicBoolean(false);
+        AtomicBoolean closedWhileWriting = new AtomicBoolean(false);
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                // the first write is the gzip header, written on creation, the next ones are slow and fail
+                if (writes.incrementAndGet() == 1) {
+                    return;
+                }
+                runningWrites.incrementAndGet();
+                try {
+                    Uninterruptibles.sleepUninterruptibly(20, TimeUnit.MILLISECONDS);
+                    throw new IOException("Disk full");
+                } finally {
+                    runningWrites.decrementAndGet();
+                }
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+                if (runningWrites.get() > 0) {
+                    closedWhileWriting.set(true);
+                }
+            }
+        };
+        byte[] data = new byte[20 * 4096];
+        new Random(0).nextBytes(data);
+        IOException e = assertThrows(IOException.class, () -> {
+            try (GzipBlockOutputStream os = GzipBlockOutputStream.gzip(out, 4096, 8)) {
+                os.write(data);
+            }
+        });
+        assertEquals("Disk full", e.getMessage());
+        assertTrue(closed.get());
+        // the running compression has ended before the underlying stream has been closed
+        assertFalse(closedWhileWriting.get());
+    }
+}
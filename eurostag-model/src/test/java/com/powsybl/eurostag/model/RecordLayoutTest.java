@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.powsybl.eurostag.model;
+
+import com.powsybl.eurostag.model.io.EsgRecordLayouts;
+import com.powsybl.eurostag.model.io.RecordLayout;
+import com.powsybl.eurostag.model.io.RecordReader;
+import com.powsybl.eurostag.model.io.RecordWriter;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Mathieu BAGUE {@literal <mathieu.bague at rte-france.com>}
+ */
+public class RecordLayoutTest {
+
+    private static RecordReader write(EsgGenerator generator) throws IOException {
+        StringWriter writer = new StringWriter();
+        EsgRecordLayouts.GENERATOR.write(generator, new RecordWriter(writer));
+        RecordReader reader = new RecordReader(ByteBuffer.wrap(writer.toString().getBytes(StandardCharsets.UTF_8)));
+        assertTrue(reader.nextLine());
+        return reader;
+    }
+
+    @Test
+    public void test() throws IOException {
+        EsgGenerator generator = new EsgGenerator(new Esg8charName("G1"), new Esg8charName("N1"), 0, 12.5, 100, -50, 3, 50,
+                EsgRegulatingMode.REGULATING, 1.02, new Esg8charName(""), 0, EsgConnectionStatus.CONNECTED);
+        RecordLayout<EsgGenerator> layout = EsgRecordLayouts.GENERATOR;
+        RecordReader reader = write(generator);
+        assertEquals("G1      ", layout.getName(reader, "znamge").toString());
+        assertEquals('Y', layout.getChar(reader, "xgenest"));
+        assertEquals(12.5, layout.getDouble(reader, "pgen"), 0);
+        assertEquals(1.02, layout.getDouble(reader, "vregge"), 0);
+        // the optional names are read as null when blank
+        assertNull(layout.getName(reader, "zregnoge"));
+
+        RecordLayout.Field<EsgGenerator> pgen = layout.getField("pgen");
+        assertEquals(33, pgen.getColStart());
+        assertEquals(40, pgen.getColEnd());
+        assertEquals(RecordLayout.FieldType.DOUBLE, pgen.getType());
+        // the resolved fields read the same values
+        assertEquals(12.5, pgen.readDouble(reader), 0);
+        assertEquals('Y', layout.getField("xgenest").readChar(reader));
+        assertNull(layout.getField("zregnoge").readName(reader));
+        IllegalArgumentException wrongType = assertThrows(IllegalArgumentException.class, () -> pgen.readName(reader));
+        assertEquals("Field 'pgen' of layout generator is a DOUBLE, not a NAME", wrongType.getMessage());
+
+        // the cursor reads the fields in column order, skipping the fields which are not needed
+        RecordLayout<EsgGenerator>.Cursor cursor = layout.cursor(reader);
+        assertEquals("G1      ", cursor.nextName("znamge").toString());
+        assertEquals(12.5, cursor.nextDouble("pgen"), 0);
+        assertEquals(1.02, cursor.nextDouble("vregge"), 0);
+        IllegalArgumentException outOfOrder = assertThrows(IllegalArgumentException.class, () -> cursor.nextDouble("pgmin"));
+        assertEquals("Field 'pgmin' is not after the fields already read in layout generator", outOfOrder.getMessage());
+        // the constant fields are not read
+        assertTrue(layout.getField("free1").isConstant());
+        assertFalse(layout.getField("pgen").isConstant());
+        assertThrows(IllegalArgumentException.class, () -> layout.cursor(reader).nextDouble("free1"));
+
+        try {
+            layout.getInt(reader, "pgen");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Field 'pgen' of layout generator is a DOUBLE, not a INT", e.getMessage());
+        }
+        try {
+            layout.getField("unknown");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Unknown field 'unknown' in layout generator", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testCharset() {
+        // the strings and the names are decoded with the same charset, one character per byte
+        byte[] line = "B\u00e9   B\u00e9".getBytes(StandardCharsets.ISO_8859_1);
+        RecordReader reader = new RecordReader(ByteBuffer.wrap(line));
+        assertTrue(reader.nextLine());
+        assertEquals(7, reader.getLineLength());
+        assertEquals("B\u00e9", reader.getString(1, 5));
+        assertEquals("B\u00e9      ", reader.getEsg8charName(6, 7).toString());
+        assertEquals('\u00e9', reader.getChar(7));
+    }
+
+    @Test
+    public void testInvalidLayout() {
+        try {
+            RecordLayout.<EsgGenerator>builder("overlap")
+                    .constant("code", 1, 2, "G")
+                    .number("pgen", 2, 9, EsgGenerator::getPgen)
+                    .build();
+            fail();
+        } catch (EsgException e) {
+            assertEquals("Invalid columns 2-9 of field 'pgen' in layout overlap", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testIntRange() {
+        RecordReader reader = new RecordReader(ByteBuffer.wrap(" 2147483647-2147483648 2147483648-2147483649".getBytes(StandardCharsets.ISO_8859_1)));
+        assertTrue(reader.nextLine());
+        assertEquals(Integer.MAX_VALUE, reader.getInt(1, 11));
+        assertEquals(Integer.MIN_VALUE, reader.getInt(12, 22));
+        EsgException e = assertThrows(EsgException.class, () -> reader.getInt(23, 33));
+        assertEquals("Integer value '2147483648' out of range at line 1, columns 23-33", e.getMessage());
+        e = assertThrows(EsgException.class, () -> reader.getInt(34, 44));
+        assertEquals("Integer value '-2147483649' out of range at line 1, columns 34-44", e.getMessage());
+    }
+}